@@ -0,0 +1,69 @@
+package com.bank.benchmarks;
+
+import com.bank.card.CardServiceApplication;
+import com.bank.transaction.TransactionServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Arranca los contextos de Spring de cada servicio sin servidor web. Los dos jars traen su propio
+ * {@code application.properties}, así que se ignoran y toda la configuración se pasa aquí.
+ */
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext cardService(Database database) {
+        return cardService(database, "direct");
+    }
+
+    static ConfigurableApplicationContext cardService(Database database, String balanceMode) {
+        Map<String, Object> properties = common(database, "card-bench");
+        properties.put("card.balance.mode", balanceMode);
+        return start(CardServiceApplication.class, properties);
+    }
+
+    static ConfigurableApplicationContext cardServiceLedger(Database database, String journalDir) {
+        Map<String, Object> properties = common(database, "card-ledger-bench");
+        properties.put("card.balance.mode", "ledger");
+        properties.put("card.ledger.journal-dir", journalDir);
+        // Se mide el camino en memoria, no el fsync del disco
+        properties.put("card.ledger.journal-fsync", "false");
+        return start(CardServiceApplication.class, properties);
+    }
+
+    static ConfigurableApplicationContext transactionService(Database database, String cardServiceUrl) {
+        Map<String, Object> properties = common(database, "transaction-bench");
+        properties.put("card.service.url", cardServiceUrl);
+        properties.put("transaction.id.allocation-size", "50");
+        properties.put("spring.jpa.properties.bank.transaction.id.allocation_size", "50");
+        properties.put("spring.jpa.properties.hibernate.jdbc.batch_size", "50");
+        return start(TransactionServiceApplication.class, properties);
+    }
+
+    private static Map<String, Object> common(Database database, String name) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.config.name", "benchmarks");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("spring.datasource.url", database.url(name));
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.database-platform", database.dialect());
+        properties.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        properties.put("spring.jpa.open-in-view", "false");
+        return properties;
+    }
+
+    private static ConfigurableApplicationContext start(Class<?> application, Map<String, Object> properties) {
+        return new SpringApplicationBuilder(application)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run();
+    }
+}
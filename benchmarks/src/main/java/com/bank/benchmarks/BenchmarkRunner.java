@@ -0,0 +1,70 @@
+package com.bank.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Ejecuta las suites con el perfilador de GC y guarda el resultado en JSON. Solo si se indica
+ * {@code benchmarks.baseline} compara contra esa línea base y termina con código 1 ante una regresión.
+ * La línea base debe grabarse en la misma máquina y con varios forks e iteraciones, porque la
+ * comparación usa los intervalos de confianza de JMH:
+ * {@code -Dbenchmarks.output=results/baseline.json -p database=H2 -wi 3 -i 5 -f 3}.
+ *
+ * <pre>
+ * java [-Dbenchmarks.output=results/actual.json]
+ *      [-Dbenchmarks.baseline=results/base.json] [-Dbenchmarks.tolerance=0.10]
+ *      -jar target/benchmarks.jar [regex] [opciones JMH: -wi 1 -i 3 -f 1 ...]
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        Path output = Path.of(System.getProperty("benchmarks.output",
+                "results/jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json"));
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.toString());
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("com\\.bank\\.benchmarks\\..*");
+        }
+        new Runner(options.build()).run();
+        System.out.println("Resultados JMH guardados en " + output.toAbsolutePath());
+
+        String baseline = System.getProperty("benchmarks.baseline", "");
+        // Sin línea base, o si esta ejecución la acaba de reescribir, no hay contra qué comparar
+        if (!baseline.isBlank() && !Files.exists(Path.of(baseline))) {
+            System.err.println("No existe la línea base " + Path.of(baseline).toAbsolutePath());
+            System.exit(2);
+        }
+        if (!baseline.isBlank() && !Files.isSameFile(Path.of(baseline), output)) {
+            System.out.println("Comparando con la línea base " + Path.of(baseline).toAbsolutePath());
+            double tolerance = Double.parseDouble(System.getProperty("benchmarks.tolerance", "0.10"));
+            boolean regression = ResultComparator.compare(Path.of(baseline), output, tolerance, System.out);
+            if (regression) {
+                System.exit(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.bank.benchmarks;
+
+import com.bank.card.numbering.CardNumberAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formación del número de tarjeta sin persistencia ({@code CardNumberAllocator.format}): permutación
+ * del contador y dígito de Luhn.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardNumberBenchmark {
+
+    private long counter;
+
+    @Benchmark
+    public String formatCardNumber() {
+        return CardNumberAllocator.format("123456", counter++ % 1_000_000_000L);
+    }
+}
@@ -0,0 +1,106 @@
+package com.bank.benchmarks;
+
+import com.bank.card.dto.CardBalanceRequestDTO;
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rutas de escritura de {@code CardServiceImpl} contra H2 y contra el sustituto de PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CardServiceBenchmark {
+
+    private static final int CARDS = 1_000;
+
+    @Param({"H2", "POSTGRES"})
+    public Database database;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private List<String> cardIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.cardService(database);
+        cardService = context.getBean(CardService.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        cardIds = new ArrayList<>(CARDS);
+        List<Card> cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            String cardId = String.format("123456%010d", i);
+            cardIds.add(cardId);
+            cards.add(Card.builder()
+                    .cardId(cardId)
+                    .productId("123456")
+                    .holderName("Usuario Bank")
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    // Saldo suficiente para que ningún débito se rechace durante la medición
+                    .balance(new BigDecimal("1000000000.00"))
+                    .isActive(true)
+                    .isBlocked(false)
+                    .build());
+        }
+        cardRepository.saveAll(cards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void debit() {
+        cardService.debit(request(randomCard(), "0.01"));
+    }
+
+    @Benchmark
+    public void reversal() {
+        cardService.reversal(request(randomCard(), "0.01"));
+    }
+
+    @Benchmark
+    public Object recargarSaldo() {
+        CardBalanceRequestDTO request = new CardBalanceRequestDTO();
+        request.setCardId(randomCard());
+        request.setBalance(new BigDecimal("0.01"));
+        return cardService.recargarSaldo(request);
+    }
+
+    @Benchmark
+    public String generarNumeroTarjeta() {
+        return cardService.generarNumeroTarjeta("654321");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1_000)
+    public List<String> generarNumerosTarjeta() {
+        return cardService.generarNumerosTarjeta("654321", 1_000);
+    }
+
+    private String randomCard() {
+        return cardIds.get(ThreadLocalRandom.current().nextInt(CARDS));
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+}
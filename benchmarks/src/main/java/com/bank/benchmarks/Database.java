@@ -0,0 +1,24 @@
+package com.bank.benchmarks;
+
+public enum Database {
+    H2("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", "org.hibernate.dialect.H2Dialect"),
+    // Sustituto de PostgreSQL embebido: H2 en modo de compatibilidad con el dialecto de PostgreSQL
+    POSTGRES("jdbc:h2:mem:%s-pg;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+            "org.hibernate.dialect.PostgreSQLDialect");
+
+    private final String urlPattern;
+    private final String dialect;
+
+    Database(String urlPattern, String dialect) {
+        this.urlPattern = urlPattern;
+        this.dialect = dialect;
+    }
+
+    String url(String name) {
+        return String.format(urlPattern, name);
+    }
+
+    String dialect() {
+        return dialect;
+    }
+}
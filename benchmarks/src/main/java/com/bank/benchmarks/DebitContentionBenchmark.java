@@ -0,0 +1,88 @@
+package com.bank.benchmarks;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.exception.CardException;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débitos concurrentes sobre una sola tarjeta: {@code readModifyWrite} reproduce el flujo anterior
+ * (lectura de la entidad, validación en Java y save) y {@code conditionalUpdate} usa el UPDATE
+ * condicional de {@code CardServiceImpl.debit}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class DebitContentionBenchmark {
+
+    private static final String CARD_ID = "4444440000000001";
+    private static final BigDecimal PRICE = new BigDecimal("0.01");
+
+    @Param({"H2", "POSTGRES"})
+    public Database database;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private CardRepository cardRepository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.cardService(database);
+        cardService = context.getBean(CardService.class);
+        cardRepository = context.getBean(CardRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        cardRepository.save(Card.builder()
+                .cardId(CARD_ID)
+                .productId("444444")
+                .holderName("Usuario Bank")
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(new BigDecimal("1000000000.00"))
+                .isActive(true)
+                .isBlocked(false)
+                .build());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean readModifyWrite() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Card card = cardService.getCardActiveAndValid(CARD_ID);
+                if (card.getBalance().compareTo(PRICE) < 0) {
+                    throw new CardException("Saldo insuficiente.");
+                }
+                card.setBalance(card.getBalance().subtract(PRICE));
+                cardRepository.save(card);
+            });
+            return true;
+        } catch (RuntimeException e) {
+            // Conflictos de bloqueo: en el flujo anterior el débito se pierde
+            return false;
+        }
+    }
+
+    @Benchmark
+    public void conditionalUpdate() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(CARD_ID);
+        request.setPrice(PRICE);
+        cardService.debit(request);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bank.benchmarks;
+
+import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.model.TransactionStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (De)serialización JSON de los DTO de transacciones con la misma configuración de Jackson que usa Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private TransactionRequestDTO request;
+    private byte[] requestJson;
+    private TransactionDetailsDTO details;
+    private byte[] detailsJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        request = new TransactionRequestDTO();
+        request.setCardId("1234567890123456");
+        request.setPrice(new BigDecimal("150.75"));
+        requestJson = objectMapper.writeValueAsBytes(request);
+        details = new TransactionDetailsDTO(42L, "1234567890123456", new BigDecimal("150.75"),
+                LocalDateTime.now(), false, TransactionStatus.APPROVED, null);
+        detailsJson = objectMapper.writeValueAsBytes(details);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactionRequest() throws IOException {
+        return objectMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public TransactionRequestDTO deserializeTransactionRequest() throws IOException {
+        return objectMapper.readValue(requestJson, TransactionRequestDTO.class);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactionDetails() throws IOException {
+        return objectMapper.writeValueAsBytes(details);
+    }
+
+    @Benchmark
+    public TransactionDetailsDTO deserializeTransactionDetails() throws IOException {
+        return objectMapper.readValue(detailsJson, TransactionDetailsDTO.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.bank.benchmarks;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débitos concurrentes sobre pocas tarjetas calientes: en modo {@code direct} compiten por el lock
+ * de fila; en modo {@code sharded} se encolan en el shard de cada tarjeta y se escriben por lotes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class HotCardBenchmark {
+
+    private static final int CARDS = 8;
+
+    @Param({"H2", "POSTGRES"})
+    public Database database;
+
+    @Param({"direct", "sharded"})
+    public String balanceMode;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private List<String> cardIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.cardService(database, balanceMode);
+        cardService = context.getBean(CardService.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        cardIds = new ArrayList<>(CARDS);
+        List<Card> cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            String cardId = String.format("555555%010d", i);
+            cardIds.add(cardId);
+            cards.add(Card.builder()
+                    .cardId(cardId)
+                    .productId("555555")
+                    .holderName("Usuario Bank")
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    .balance(new BigDecimal("1000000000.00"))
+                    .isActive(true)
+                    .isBlocked(false)
+                    .build());
+        }
+        cardRepository.saveAll(cards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void debit() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardIds.get(ThreadLocalRandom.current().nextInt(CARDS)));
+        request.setPrice(new BigDecimal("0.01"));
+        cardService.debit(request);
+    }
+}
@@ -0,0 +1,156 @@
+package com.bank.benchmarks;
+
+import com.bank.card.binary.BinaryCardServer;
+import com.bank.card.service.CardService;
+import com.bank.transaction.client.AdaptiveConcurrencyLimit;
+import com.bank.transaction.client.CardBinaryClient;
+import com.bank.transaction.client.CardBinaryProtocol;
+import com.bank.transaction.client.ConcurrencyLimitInterceptor;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Débito interno de transaction-service a card-service en JSON sobre HTTP/1.1 frente al protocolo
+ * binario de {@code BinaryCardServer}, con un {@code CardService} que responde de inmediato para medir
+ * solo el transporte. Al final de cada iteración imprime la CPU del proceso (cliente y servidor) por
+ * llamada; en el setup, los bytes por llamada de cada protocolo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class InternalProtocolBenchmark {
+
+    public enum Protocol { JSON, BINARY }
+
+    @Param({"JSON", "BINARY"})
+    public Protocol protocol;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+    private RestTemplate restTemplate;
+    private String debitUrl;
+    private BinaryCardServer binaryServer;
+    private CardBinaryClient binaryClient;
+    private TransactionRequestDTO request;
+    private long cpuAtStart;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        request = new TransactionRequestDTO();
+        request.setCardId("1234567890123456");
+        request.setPrice(new BigDecimal("150.75"));
+
+        if (protocol == Protocol.JSON) {
+            ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "1000");
+            httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+            AtomicLong requestBytes = new AtomicLong();
+            httpServer.createContext("/card/internal/debit", exchange -> {
+                byte[] body = exchange.getRequestBody().readAllBytes();
+                objectMapper.readValue(body, com.bank.card.dto.TransactionRequestDTO.class);
+                if (requestBytes.get() == 0) {
+                    requestBytes.set(requestLineAndHeaders(exchange.getRequestMethod(), exchange.getRequestURI().toString(),
+                            exchange.getRequestHeaders()) + body.length);
+                }
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+            });
+            httpExecutor = Executors.newFixedThreadPool(16);
+            httpServer.setExecutor(httpExecutor);
+            httpServer.start();
+            restTemplate = new RestTemplate();
+            debitUrl = "http://localhost:" + httpServer.getAddress().getPort() + "/card/internal/debit";
+            restTemplate.postForObject(debitUrl, request, Void.class);
+            // Respuesta vacía de HttpServer: línea de estado, Date y Content-length
+            System.out.printf("%nJSON: %d bytes de solicitud, ~%d de respuesta%n", requestBytes.get(),
+                    "HTTP/1.1 200 OK\r\nDate: Sat, 01 Jan 2000 00:00:00 GMT\r\nContent-length: 0\r\n\r\n".length());
+        } else {
+            binaryServer = new BinaryCardServer(immediateCardService(), Optional.empty(), 0, 16, 1000);
+            binaryServer.start();
+            // Límites holgados, como el RestTemplate sin interceptores del caso JSON: se mide el transporte
+            binaryClient = new CardBinaryClient("http://localhost", "localhost", binaryServer.getPort(), 4, 3000, 100_000,
+                    CircuitBreaker.ofDefaults("card-service"),
+                    new ConcurrencyLimitInterceptor("servicio de tarjetas", 100_000, 1000),
+                    new AdaptiveConcurrencyLimit(100_000, 100_000, 100_000, 0.9, 2.0, 10_000));
+            binaryClient.debit(request);
+            System.out.printf("%nBINARY: %d bytes de solicitud, %d de respuesta%n",
+                    CardBinaryProtocol.encodeRequest(1, CardBinaryProtocol.OP_DEBIT, request).remaining(), 4 + 8 + 1 + 2);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpExecutor.shutdownNow();
+        }
+        if (binaryServer != null) {
+            binaryClient.close();
+            binaryServer.stop();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        calls.set(0);
+        cpuAtStart = os.getProcessCpuTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        long cpuNanos = os.getProcessCpuTime() - cpuAtStart;
+        System.out.printf("%n%s: %.1f µs de CPU por llamada%n", protocol, cpuNanos / 1000.0 / Math.max(1, calls.get()));
+    }
+
+    @Benchmark
+    public void debit() {
+        if (protocol == Protocol.JSON) {
+            restTemplate.postForObject(debitUrl, request, Void.class);
+        } else {
+            binaryClient.debit(request);
+        }
+        calls.incrementAndGet();
+    }
+
+    private static long requestLineAndHeaders(String method, String uri, Map<String, List<String>> headers) {
+        long size = (method + " " + uri + " HTTP/1.1\r\n").length() + 2;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            for (String value : header.getValue()) {
+                size += header.getKey().length() + 2 + value.length() + 2;
+            }
+        }
+        return size;
+    }
+
+    // Solo debit/reversal llegan al servidor binario; no hacen nada
+    private static CardService immediateCardService() {
+        return (CardService) Proxy.newProxyInstance(CardService.class.getClassLoader(), new Class<?>[] {CardService.class},
+                (proxy, method, args) -> null);
+    }
+}
@@ -0,0 +1,146 @@
+package com.bank.benchmarks;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.ledger.CardBalanceLedger;
+import com.bank.card.model.Card;
+import com.bank.card.money.MinorUnits;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Débitos y reversas en modo {@code card.balance.mode=ledger}, donde el saldo vive en memoria en
+ * centavos. {@code debitDto}/{@code reversalDto} entran por el DTO con {@code BigDecimal} (endpoint
+ * JSON); {@code debitMinor}/{@code reversalMinor}, con el importe ya en centavos (protocolo binario).
+ * <p>
+ * Por el servicio, el proxy, la observación y la escritura del journal tapan la diferencia: los
+ * {@code ledgerDebit*} llaman a {@code CardBalanceLedger.debit} directamente y los {@code balance*}
+ * aíslan la aritmética del saldo, en {@code BigDecimal} como antes y en centavos como ahora.
+ * Pensado para correr con {@code -prof gc} y comparar {@code gc.alloc.rate.norm} por operación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LedgerMoneyBenchmark {
+
+    private static final int CARDS = 1_000;
+    private static final BigDecimal PRICE = new BigDecimal("0.01");
+    private static final Consumer<Card> VALID = card -> { };
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private CardBalanceLedger balanceLedger;
+    private List<String> cardIds;
+    private List<TransactionRequestDTO> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkContexts.cardServiceLedger(Database.H2,
+                Files.createTempDirectory("ledger-bench").toString());
+        cardService = context.getBean(CardService.class);
+        balanceLedger = context.getBean(CardBalanceLedger.class);
+        CardRepository cardRepository = context.getBean(CardRepository.class);
+        cardIds = new ArrayList<>(CARDS);
+        requests = new ArrayList<>(CARDS);
+        List<Card> cards = new ArrayList<>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            String cardId = String.format("987654%010d", i);
+            cardIds.add(cardId);
+            cards.add(Card.builder()
+                    .cardId(cardId)
+                    .productId("987654")
+                    .holderName("Usuario Bank")
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    .balance(new BigDecimal("1000000000.00"))
+                    .isActive(true)
+                    .isBlocked(false)
+                    .build());
+            // DTO armados de antemano: se mide el servicio, no la deserialización
+            TransactionRequestDTO request = new TransactionRequestDTO();
+            request.setCardId(cardId);
+            request.setPrice(PRICE);
+            requests.add(request);
+        }
+        cardRepository.saveAll(cards);
+        // Carga todas las tarjetas en el libro antes de medir
+        cardIds.forEach(cardService::consultarSaldo);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void debitDto() {
+        cardService.debit(requests.get(randomIndex()));
+    }
+
+    @Benchmark
+    public void reversalDto() {
+        cardService.reversal(requests.get(randomIndex()));
+    }
+
+    @Benchmark
+    public void debitMinor() {
+        cardService.debit(cardIds.get(randomIndex()), 1, null);
+    }
+
+    @Benchmark
+    public void reversalMinor() {
+        cardService.reversal(cardIds.get(randomIndex()), 1, null);
+    }
+
+    @Benchmark
+    public void ledgerDebitDecimal() {
+        // El importe llega como BigDecimal y se convierte a centavos en cada débito
+        balanceLedger.debit(cardIds.get(randomIndex()), MinorUnits.of(PRICE), VALID);
+    }
+
+    @Benchmark
+    public void ledgerDebitMinor() {
+        balanceLedger.debit(cardIds.get(randomIndex()), 1, VALID);
+    }
+
+    @Benchmark
+    public BigDecimal balanceDecimal(Balances balances) {
+        if (balances.decimal.compareTo(PRICE) < 0) {
+            throw new IllegalStateException("Saldo insuficiente.");
+        }
+        balances.decimal = balances.decimal.subtract(PRICE);
+        return balances.decimal;
+    }
+
+    @Benchmark
+    public long balanceMinor(Balances balances) {
+        if (balances.minor < 1) {
+            throw new IllegalStateException("Saldo insuficiente.");
+        }
+        balances.minor = MinorUnits.add(balances.minor, -1);
+        return balances.minor;
+    }
+
+    @State(Scope.Thread)
+    public static class Balances {
+        BigDecimal decimal = new BigDecimal("1000000000.00");
+        long minor = MinorUnits.of(decimal);
+    }
+
+    private static int randomIndex() {
+        return ThreadLocalRandom.current().nextInt(CARDS);
+    }
+}
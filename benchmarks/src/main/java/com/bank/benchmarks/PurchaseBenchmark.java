@@ -0,0 +1,70 @@
+package com.bank.benchmarks;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.service.TransactionService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code TransactionServiceImpl.purchase} completo (HTTP + INSERT) contra un servicio de tarjetas
+ * local que responde de inmediato, para aislar el costo propio de transaction-service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PurchaseBenchmark {
+
+    @Param({"H2", "POSTGRES"})
+    public Database database;
+
+    private HttpServer cardServiceStub;
+    private ExecutorService stubExecutor;
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private TransactionRequestDTO request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "1000");
+        cardServiceStub = HttpServer.create(new InetSocketAddress("localhost", 0), 1000);
+        cardServiceStub.createContext("/card/internal/debit", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        stubExecutor = Executors.newFixedThreadPool(4);
+        cardServiceStub.setExecutor(stubExecutor);
+        cardServiceStub.start();
+
+        context = BenchmarkContexts.transactionService(database,
+                "http://localhost:" + cardServiceStub.getAddress().getPort());
+        transactionService = context.getBean(TransactionService.class);
+        request = new TransactionRequestDTO();
+        request.setCardId("1234567890123456");
+        request.setPrice(new BigDecimal("10.00"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        cardServiceStub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public TransactionResponseDTO purchase() {
+        return transactionService.purchase(request);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bank.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dos resultados JSON de JMH: marca regresión si el throughput cae o la asignación por
+ * operación ({@code gc.alloc.rate.norm}) sube más que la tolerancia y, además, los intervalos de
+ * confianza de ambas ejecuciones no se solapan. Las métricas sin intervalo (una sola iteración
+ * medida) no se evalúan.
+ */
+public final class ResultComparator {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private ResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: ResultComparator <base.json> <actual.json> [tolerancia]");
+            System.exit(2);
+        }
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        System.exit(compare(Path.of(args[0]), Path.of(args[1]), tolerance, System.out) ? 1 : 0);
+    }
+
+    static boolean compare(Path baseline, Path current, double tolerance, PrintStream out) throws IOException {
+        Map<String, Score> before = read(baseline);
+        Map<String, Score> after = read(current);
+        boolean regression = false;
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score previous = before.get(entry.getKey());
+            if (previous == null) {
+                out.printf("%-80s nuevo%n", entry.getKey());
+                continue;
+            }
+            Score actual = entry.getValue();
+            if (!previous.throughput().hasInterval() || !actual.throughput().hasInterval()) {
+                out.printf("%-80s sin intervalo de confianza, se omite (usar varios forks e iteraciones)%n", entry.getKey());
+                continue;
+            }
+            double throughputChange = change(previous.throughput().score(), actual.throughput().score());
+            double allocationChange = change(previous.allocation().score(), actual.allocation().score());
+            boolean slower = throughputChange < -tolerance
+                    && actual.throughput().upper() < previous.throughput().lower();
+            boolean allocatesMore = allocationChange > tolerance
+                    && previous.allocation().hasInterval() && actual.allocation().hasInterval()
+                    && actual.allocation().lower() > previous.allocation().upper();
+            regression |= slower || allocatesMore;
+            out.printf("%-80s ops/s %+.1f%% (±%.1f%%)  B/op %+.1f%%%s%n", entry.getKey(),
+                    throughputChange * 100, relativeError(actual.throughput()) * 100, allocationChange * 100,
+                    slower || allocatesMore ? "  REGRESIÓN" : "");
+        }
+        return regression;
+    }
+
+    private static double change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return 0;
+        }
+        return (after - before) / before;
+    }
+
+    private static double relativeError(Metric metric) {
+        return metric.score() == 0 ? 0 : (metric.upper() - metric.score()) / metric.score();
+    }
+
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+            scores.put(key(run), new Score(metric(run.path("primaryMetric")),
+                    metric(run.path("secondaryMetrics").path(ALLOCATION_METRIC))));
+        }
+        return scores;
+    }
+
+    // JMH escribe "NaN" como texto cuando no puede calcular el intervalo
+    private static Metric metric(JsonNode node) {
+        if (node.isMissingNode()) {
+            return new Metric(Double.NaN, Double.NaN, Double.NaN);
+        }
+        JsonNode confidence = node.path("scoreConfidence");
+        return new Metric(number(node.path("score")), number(confidence.path(0)), number(confidence.path(1)));
+    }
+
+    private static double number(JsonNode node) {
+        return node.isNumber() ? node.asDouble() : Double.NaN;
+    }
+
+    private static String key(JsonNode run) {
+        Map<String, String> params = new LinkedHashMap<>();
+        run.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        return params.isEmpty() ? run.path("benchmark").asText() : run.path("benchmark").asText() + params;
+    }
+
+    private record Metric(double score, double lower, double upper) {
+
+        boolean hasInterval() {
+            return Double.isFinite(lower) && Double.isFinite(upper);
+        }
+    }
+
+    private record Score(Metric throughput, Metric allocation) {
+    }
+}
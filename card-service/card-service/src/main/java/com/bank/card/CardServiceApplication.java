@@ -2,8 +2,10 @@ package com.bank.card;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class CardServiceApplication {
 
 	public static void main(String[] args) {
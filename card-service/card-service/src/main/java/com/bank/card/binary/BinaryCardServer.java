@@ -0,0 +1,178 @@
+package com.bank.card.binary;
+
+import com.bank.card.exception.CardException;
+import com.bank.card.exception.CardServiceUnavailableException;
+import com.bank.card.metrics.RejectionMetrics;
+import com.bank.card.metrics.RejectionReason;
+import com.bank.card.service.CardService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Atiende {@code debit} y {@code reversal} con el protocolo binario de {@link BinaryProtocol} en un
+ * puerto interno propio, junto a los endpoints JSON de {@code /card/internal}, que siguen disponibles.
+ * <p>
+ * Cada conexión tiene un hilo lector; las solicitudes leídas pasan a un pool común, de modo que las
+ * que un cliente encadena por la misma conexión se procesan en paralelo y se responden al terminar.
+ */
+@Component
+@ConditionalOnProperty(name = "card.internal.binary.enabled", havingValue = "true")
+public class BinaryCardServer {
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryCardServer.class);
+
+    private final CardService cardService;
+    private final RejectionMetrics rejectionMetrics;
+    private final int port;
+    private final ThreadPoolExecutor workers;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocketChannel server;
+
+    public BinaryCardServer(CardService cardService, Optional<RejectionMetrics> rejectionMetrics,
+                            @Value("${card.internal.binary.port:9091}") int port,
+                            @Value("${card.internal.binary.workers:16}") int workers,
+                            @Value("${card.internal.binary.queue-size:1000}") int queueSize) {
+        this.cardService = cardService;
+        this.rejectionMetrics = rejectionMetrics.orElse(null);
+        this.port = port;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> daemon(r, "card-binary-worker-" + threads.getAndIncrement()));
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        server = ServerSocketChannel.open().bind(new InetSocketAddress(port));
+        daemon(this::accept, "card-binary-acceptor").start();
+        log.info("Protocolo binario interno escuchando en el puerto {}", getPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        server.close();
+        for (SocketChannel connection : connections) {
+            connection.close();
+        }
+        workers.shutdown();
+    }
+
+    /** Puerto real; útil cuando se configura 0 para elegir uno libre. */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    private void accept() {
+        while (server.isOpen()) {
+            try {
+                SocketChannel channel = server.accept();
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                connections.add(channel);
+                daemon(() -> serve(channel), "card-binary-conn-" + channel.socket().getPort()).start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Error aceptando conexión binaria: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        Object writeLock = new Object();
+        try (channel) {
+            while (true) {
+                readFully(channel, length.clear());
+                int size = length.flip().getInt();
+                if (size <= 0 || size > BinaryProtocol.MAX_FRAME) {
+                    log.warn("Trama binaria inválida ({} bytes); se cierra la conexión", size);
+                    return;
+                }
+                ByteBuffer frame = ByteBuffer.allocate(size);
+                readFully(channel, frame);
+                BinaryProtocol.Request request = BinaryProtocol.decodeRequest(frame.flip());
+                try {
+                    workers.execute(() -> write(channel, writeLock, handle(request)));
+                } catch (RejectedExecutionException e) {
+                    write(channel, writeLock, BinaryProtocol.encodeResponse(request.id(), BinaryProtocol.STATUS_UNAVAILABLE,
+                            "El servicio de tarjetas tiene demasiadas solicitudes en curso."));
+                }
+            }
+        } catch (EOFException | ClosedChannelException e) {
+            // El cliente cerró la conexión
+        } catch (IOException | RuntimeException e) {
+            log.warn("Conexión binaria cerrada por error: {}", e.getMessage());
+        } finally {
+            connections.remove(channel);
+        }
+    }
+
+    private ByteBuffer handle(BinaryProtocol.Request request) {
+        try {
+            switch (request.op()) {
+                case BinaryProtocol.OP_DEBIT -> cardService.debit(request.cardId(), request.amountMinor(), request.operationId());
+                case BinaryProtocol.OP_REVERSAL -> cardService.reversal(request.cardId(), request.amountMinor(), request.operationId());
+                default -> throw new IllegalArgumentException("Operación binaria desconocida: " + request.op());
+            }
+            return BinaryProtocol.encodeResponse(request.id(), BinaryProtocol.STATUS_OK, null);
+        } catch (CardException | IllegalArgumentException e) {
+            // Mismo conteo que hace el GlobalExceptionHandler para el endpoint JSON
+            if (rejectionMetrics != null) {
+                rejectionMetrics.record(RejectionReason.of(e));
+            }
+            return BinaryProtocol.encodeResponse(request.id(), BinaryProtocol.STATUS_REJECTED, e.getMessage());
+        } catch (CardServiceUnavailableException e) {
+            return BinaryProtocol.encodeResponse(request.id(),
+                    e.isOutcomeUnknown() ? BinaryProtocol.STATUS_ERROR : BinaryProtocol.STATUS_UNAVAILABLE, e.getMessage());
+        } catch (RuntimeException e) {
+            return BinaryProtocol.encodeResponse(request.id(), BinaryProtocol.STATUS_ERROR, e.getMessage());
+        }
+    }
+
+    private static void write(SocketChannel channel, Object writeLock, ByteBuffer response) {
+        try {
+            synchronized (writeLock) {
+                while (response.hasRemaining()) {
+                    channel.write(response);
+                }
+            }
+        } catch (IOException e) {
+            // El lector de la conexión detecta el cierre y la limpia
+        }
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
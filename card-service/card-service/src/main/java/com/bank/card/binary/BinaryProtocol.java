@@ -0,0 +1,104 @@
+package com.bank.card.binary;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.money.MinorUnits;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato de las tramas del protocolo binario interno. Cada trama va precedida de su longitud
+ * ({@code int}, sin contarse a sí misma) y empieza con el id de la solicitud, que la respuesta
+ * repite: así varias solicitudes viajan a la vez por la misma conexión y se responden en cualquier orden.
+ *
+ * <pre>
+ * solicitud: long id | byte operación | byte largo tarjeta | tarjeta (ASCII) | long importe sin escala | byte escala
+ *            | byte largo clave | clave de operación (ASCII, largo 0 si no hay)
+ * respuesta: long id | byte estado | short largo mensaje | mensaje (UTF-8)
+ * </pre>
+ * Con clave de operación, una solicitud reenviada tras perder la respuesta no se aplica dos veces.
+ */
+public final class BinaryProtocol {
+
+    public static final byte OP_DEBIT = 1;
+    public static final byte OP_REVERSAL = 2;
+
+    public static final byte STATUS_OK = 0;
+    // Rechazo de negocio: el mensaje es el mismo que devolvería el endpoint JSON
+    public static final byte STATUS_REJECTED = 1;
+    // Error con la operación ya en curso: pudo aplicarse, solo es seguro reintentarla con la misma clave
+    public static final byte STATUS_ERROR = 2;
+    // Sobrecarga: la operación no se aplicó
+    public static final byte STATUS_UNAVAILABLE = 3;
+
+    public static final int MAX_FRAME = 1024;
+
+    private static final int AMOUNT_SCALE = MinorUnits.SCALE;
+
+    private BinaryProtocol() {
+    }
+
+    // El importe queda sin escalar hasta que lo convierte el servidor: un importe inválido rechaza
+    // solo esa solicitud, no corta la conexión al decodificar
+    public record Request(long id, byte op, String cardId, long unscaled, int scale, String operationId) {
+
+        /** Importe en centavos; {@link IllegalArgumentException} si no es representable con 2 decimales. */
+        public long amountMinor() {
+            return MinorUnits.of(unscaled, scale);
+        }
+    }
+
+    /** Decodifica el cuerpo de una trama de solicitud (sin el prefijo de longitud). */
+    public static Request decodeRequest(ByteBuffer frame) {
+        long id = frame.getLong();
+        byte op = frame.get();
+        byte[] card = new byte[frame.get() & 0xFF];
+        frame.get(card);
+        long unscaled = frame.getLong();
+        int scale = frame.get();
+        byte[] key = new byte[frame.hasRemaining() ? frame.get() & 0xFF : 0];
+        frame.get(key);
+        return new Request(id, op, new String(card, StandardCharsets.US_ASCII), unscaled, scale,
+                key.length == 0 ? null : new String(key, StandardCharsets.US_ASCII));
+    }
+
+    /** Trama de solicitud completa, con el prefijo de longitud. */
+    public static ByteBuffer encodeRequest(long id, byte op, TransactionRequestDTO body) {
+        byte[] card = body.getCardId().getBytes(StandardCharsets.US_ASCII);
+        long amount;
+        try {
+            // Siempre en centavos: el servidor no tiene que reescalar
+            amount = body.getPrice().scaleByPowerOfTen(AMOUNT_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            amount = -1;
+        }
+        byte[] key = body.getOperationId() == null ? new byte[0] : body.getOperationId().getBytes(StandardCharsets.US_ASCII);
+        if (card.length > 255 || amount < 0 || key.length > 255) {
+            throw new IllegalArgumentException("Solicitud no representable en el protocolo binario.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 1 + 1 + card.length + 8 + 1 + 1 + key.length);
+        buffer.putInt(buffer.capacity() - 4)
+                .putLong(id)
+                .put(op)
+                .put((byte) card.length)
+                .put(card)
+                .putLong(amount)
+                .put((byte) AMOUNT_SCALE)
+                .put((byte) key.length)
+                .put(key);
+        return buffer.flip();
+    }
+
+    /** Trama de respuesta completa, con el prefijo de longitud. */
+    public static ByteBuffer encodeResponse(long id, byte status, String message) {
+        byte[] text = message == null ? new byte[0] : message.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(text.length, MAX_FRAME - 8 - 1 - 2);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 1 + 2 + length);
+        buffer.putInt(buffer.capacity() - 4)
+                .putLong(id)
+                .put(status)
+                .putShort((short) length)
+                .put(text, 0, length);
+        return buffer.flip();
+    }
+}
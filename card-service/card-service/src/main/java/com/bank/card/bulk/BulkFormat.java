@@ -0,0 +1,28 @@
+package com.bank.card.bulk;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos aceptados por las cargas masivas. La respuesta se escribe en el mismo formato que la entrada.
+ */
+public enum BulkFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String mediaType;
+
+    BulkFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public static BulkFormat of(String contentType) {
+        if (contentType != null && MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.parseMediaType(CSV.mediaType))) {
+            return CSV;
+        }
+        return NDJSON;
+    }
+}
@@ -0,0 +1,122 @@
+package com.bank.card.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lee una carga masiva registro a registro, sin cargar el archivo en memoria. En CSV la cabecera es
+ * opcional; sin ella las columnas se toman en el orden de {@code columns}. Las líneas vacías se ignoran.
+ */
+public class BulkRecordReader {
+
+    private final BufferedReader reader;
+    private final BulkFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> columns;
+    private long line;
+    private boolean headerChecked;
+
+    public BulkRecordReader(InputStream input, BulkFormat format, List<String> columns, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.format = format;
+        this.columns = columns;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Siguiente registro, o {@code null} al terminar la entrada. */
+    public BulkRecord next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            if (text.isBlank()) {
+                continue;
+            }
+            if (format == BulkFormat.CSV && !headerChecked) {
+                headerChecked = true;
+                List<String> header = parseCsv(text).stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+                if (columns.stream().map(c -> c.toLowerCase(Locale.ROOT)).anyMatch(header::contains)) {
+                    columns = parseCsv(text).stream().map(String::trim).toList();
+                    continue;
+                }
+            }
+            line++;
+            return format == BulkFormat.CSV ? fromCsv(text) : fromJson(text);
+        }
+        return null;
+    }
+
+    private BulkRecord fromJson(String text) {
+        try {
+            JsonNode node = objectMapper.readTree(text);
+            if (!node.isObject()) {
+                return BulkRecord.invalid(line, "Registro inválido: se esperaba un objeto JSON.");
+            }
+            Map<String, String> values = new HashMap<>();
+            node.fields().forEachRemaining(field -> values.put(field.getKey(), field.getValue().isNull() ? null : field.getValue().asText()));
+            return new BulkRecord(line, values, null);
+        } catch (JsonProcessingException e) {
+            return BulkRecord.invalid(line, "Registro inválido: JSON mal formado.");
+        }
+    }
+
+    private BulkRecord fromCsv(String text) {
+        List<String> fields = parseCsv(text);
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < Math.min(fields.size(), columns.size()); i++) {
+            String value = fields.get(i).trim();
+            values.put(columns.get(i), value.isEmpty() ? null : value);
+        }
+        return new BulkRecord(line, values, null);
+    }
+
+    // Campos separados por comas; admite comillas dobles con "" como escape dentro de una misma línea
+    static List<String> parseCsv(String text) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public record BulkRecord(long line, Map<String, String> values, String error) {
+
+        static BulkRecord invalid(long line, String error) {
+            return new BulkRecord(line, Map.of(), error);
+        }
+
+        public String get(String column) {
+            return values.get(column);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bank.card.bulk;
+
+import com.bank.card.dto.CardBulkResultDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Escribe un resultado por registro en NDJSON o CSV ({@code line,cardId,success,message}).
+ */
+public class BulkResultWriter {
+
+    private final BufferedWriter writer;
+    private final BulkFormat format;
+    private final ObjectMapper objectMapper;
+
+    public BulkResultWriter(OutputStream output, BulkFormat format, ObjectMapper objectMapper) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+        if (format == BulkFormat.CSV) {
+            writer.write("line,cardId,success,message\n");
+        }
+    }
+
+    public void write(CardBulkResultDTO result) throws IOException {
+        if (format == BulkFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(result));
+        } else {
+            writer.write(result.getLine() + "," + csv(result.getCardId()) + "," + result.isSuccess() + "," + csv(result.getMessage()));
+        }
+        writer.write('\n');
+    }
+
+    /** Envía al cliente lo escrito hasta ahora para que reciba los resultados por bloques. */
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
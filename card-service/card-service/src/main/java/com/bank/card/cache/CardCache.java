@@ -0,0 +1,82 @@
+package com.bank.card.cache;
+
+import com.bank.card.model.Card;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caché local de lectura de tarjetas para consultas de saldo. Guarda copias desacopladas del
+ * contexto de persistencia; las mutaciones siempre leen de la base de datos e invalidan aquí.
+ */
+@Component
+@ConditionalOnProperty(name = "card.cache.enabled", havingValue = "true")
+public class CardCache {
+
+    private final Cache<String, Card> cache;
+    private final CardInvalidationChannel invalidationChannel;
+
+    public CardCache(MeterRegistry meterRegistry, Optional<CardInvalidationChannel> invalidationChannel,
+                     @Value("${card.cache.max-entries:100000}") long maxEntries,
+                     @Value("${card.cache.ttl-seconds:30}") long ttlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.invalidationChannel = invalidationChannel.orElse(null);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "card.cache");
+        invalidationChannel.ifPresent(channel -> channel.subscribe(cache::invalidate));
+    }
+
+    public Card get(String cardId, Function<String, Card> loader) {
+        return copy(cache.get(cardId, id -> copy(loader.apply(id))));
+    }
+
+    public void invalidate(String cardId) {
+        cache.invalidate(cardId);
+        // Se vuelve a invalidar tras el commit: una lectura concurrente pudo cargar el valor anterior
+        afterCommit(() -> {
+            cache.invalidate(cardId);
+            if (invalidationChannel != null) {
+                invalidationChannel.publish(cardId);
+            }
+        });
+    }
+
+    public void invalidateAll(Collection<String> cardIds) {
+        cardIds.forEach(this::invalidate);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Card copy(Card card) {
+        return card.toBuilder().build();
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.card.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal para avisar a las demás instancias que una tarjeta cambió y deben descartarla de su caché.
+ */
+public interface CardInvalidationChannel {
+
+    void publish(String cardId);
+
+    void subscribe(Consumer<String> listener);
+}
@@ -0,0 +1,105 @@
+package com.bank.card.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidación entre instancias por UDP multicast. Es un canal de mejor esfuerzo: un datagrama
+ * perdido solo deja la entrada vigente hasta que venza su TTL.
+ */
+@Component
+@ConditionalOnProperty(name = "card.cache.invalidation", havingValue = "multicast")
+public class MulticastInvalidationChannel implements CardInvalidationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(MulticastInvalidationChannel.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final InetSocketAddress group;
+    private final MulticastSocket socket;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+    private final Thread receiver;
+
+    public MulticastInvalidationChannel(@Value("${card.cache.multicast.group:239.255.27.1}") String group,
+                                        @Value("${card.cache.multicast.port:4446}") int port,
+                                        @Value("${card.cache.multicast.interface:}") String interfaceName) throws IOException {
+        this.group = new InetSocketAddress(InetAddress.getByName(group), port);
+        this.socket = new MulticastSocket(port);
+        // Sin interfaz configurada se usa la interfaz multicast por defecto del sistema
+        NetworkInterface networkInterface = null;
+        if (!interfaceName.isBlank()) {
+            networkInterface = NetworkInterface.getByName(interfaceName);
+            if (networkInterface == null) {
+                socket.close();
+                throw new SocketException("Interfaz de red no encontrada: " + interfaceName);
+            }
+            this.socket.setNetworkInterface(networkInterface);
+        }
+        // Varias instancias en el mismo host también deben recibir los avisos
+        this.socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+        this.socket.joinGroup(this.group, networkInterface);
+        this.receiver = new Thread(this::receive, "card-cache-invalidation");
+        this.receiver.setDaemon(true);
+        this.receiver.start();
+    }
+
+    @Override
+    public void publish(String cardId) {
+        byte[] payload = (instanceId + ";" + cardId).getBytes(StandardCharsets.UTF_8);
+        try {
+            socket.send(new DatagramPacket(payload, payload.length, group));
+        } catch (IOException e) {
+            log.warn("No se pudo publicar la invalidación de la tarjeta {}: {}", cardId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @PreDestroy
+    void close() {
+        receiver.interrupt();
+        socket.close();
+    }
+
+    private void receive() {
+        byte[] buffer = new byte[256];
+        while (!socket.isClosed()) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                socket.receive(packet);
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    log.warn("Error recibiendo invalidaciones de caché: {}", e.getMessage());
+                }
+                continue;
+            }
+            String message = new String(packet.getData(), packet.getOffset(), packet.getLength(), StandardCharsets.UTF_8);
+            int separator = message.indexOf(';');
+            if (separator < 0 || message.startsWith(instanceId + ";")) {
+                continue;
+            }
+            String cardId = message.substring(separator + 1);
+            listeners.forEach(listener -> listener.accept(cardId));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.bank.card.controller;
+
+import com.bank.card.bulk.BulkFormat;
+import com.bank.card.bulk.BulkRecordReader;
+import com.bank.card.bulk.BulkRecordReader.BulkRecord;
+import com.bank.card.bulk.BulkResultWriter;
+import com.bank.card.dto.CardBulkResultDTO;
+import com.bank.card.dto.CardIssueRecordDTO;
+import com.bank.card.service.CardService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Emisión y activación masiva de tarjetas. La entrada (NDJSON o CSV) se lee por bloques de
+ * {@code card.bulk.chunk-size} registros; cada bloque se procesa en una transacción con JDBC batch y
+ * su resultado se envía al cliente antes de leer el siguiente, así la memoria no depende del tamaño del archivo.
+ */
+@RestController
+@RequestMapping("/card/bulk")
+public class CardBulkController {
+
+    private final CardService cardService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    public CardBulkController(CardService cardService, ObjectMapper objectMapper,
+                              @Value("${card.bulk.chunk-size:500}") int chunkSize) {
+        this.cardService = cardService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    @PostMapping(value = "/issue", consumes = {"application/x-ndjson", "text/csv"})
+    public void emitirTarjetas(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        procesar(request, response, List.of("productId", "holderName"),
+                record -> new CardIssueRecordDTO(record.get("productId"), record.get("holderName")),
+                cardService::emitirTarjetas);
+    }
+
+    @PostMapping(value = "/enroll", consumes = {"application/x-ndjson", "text/csv"})
+    public void activarTarjetas(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        procesar(request, response, List.of("cardId"),
+                record -> record.get("cardId"),
+                cardService::activarTarjetas);
+    }
+
+    private <T> void procesar(HttpServletRequest request, HttpServletResponse response, List<String> columnas,
+                              Function<BulkRecord, T> mapeo, Function<List<T>, List<CardBulkResultDTO>> operacion) throws IOException {
+        BulkFormat formato = BulkFormat.of(request.getContentType());
+        BulkRecordReader reader = new BulkRecordReader(request.getInputStream(), formato, columnas, objectMapper);
+        response.setContentType(formato.mediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        BulkResultWriter writer = new BulkResultWriter(response.getOutputStream(), formato, objectMapper);
+
+        List<T> bloque = new ArrayList<>(chunkSize);
+        List<Long> lineas = new ArrayList<>(chunkSize);
+        BulkRecord record;
+        while ((record = reader.next()) != null) {
+            T valor = record.error() == null ? mapeo.apply(record) : null;
+            if (valor == null) {
+                writer.write(new CardBulkResultDTO(record.line(), null, false,
+                        record.error() != null ? record.error() : "Falta el campo obligatorio " + columnas.get(0) + "."));
+                continue;
+            }
+            bloque.add(valor);
+            lineas.add(record.line());
+            if (bloque.size() == chunkSize) {
+                procesarBloque(bloque, lineas, operacion, writer);
+            }
+        }
+        if (!bloque.isEmpty()) {
+            procesarBloque(bloque, lineas, operacion, writer);
+        }
+        writer.flush();
+    }
+
+    private <T> void procesarBloque(List<T> bloque, List<Long> lineas,
+                                    Function<List<T>, List<CardBulkResultDTO>> operacion,
+                                    BulkResultWriter writer) throws IOException {
+        List<CardBulkResultDTO> resultados;
+        try {
+            resultados = operacion.apply(bloque);
+        } catch (RuntimeException e) {
+            // El bloque se revierte completo; la respuesta ya está en curso, así que el fallo se informa por registro
+            resultados = new ArrayList<>(bloque.size());
+            for (int i = 0; i < bloque.size(); i++) {
+                resultados.add(CardBulkResultDTO.rejected(null, "Error al procesar el bloque: " + e.getMessage()));
+            }
+        }
+        for (int i = 0; i < resultados.size(); i++) {
+            CardBulkResultDTO resultado = resultados.get(i);
+            resultado.setLine(lineas.get(i));
+            writer.write(resultado);
+        }
+        writer.flush();
+        bloque.clear();
+        lineas.clear();
+    }
+}
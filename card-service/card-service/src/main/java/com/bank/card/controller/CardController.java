@@ -8,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @RestController
 @RequestMapping("/card")
@@ -25,6 +26,15 @@ public class CardController {
         return ResponseEntity.ok(CardNumberResponseDTO.of(cardNumber, productId));
     }
 
+    @PostMapping("/{productId}/numbers")
+    public ResponseEntity<List<CardNumberResponseDTO>> generarNumerosTarjeta(@PathVariable String productId,
+                                                                             @RequestParam int count) {
+        List<CardNumberResponseDTO> numeros = cardService.generarNumerosTarjeta(productId, count).stream()
+                .map(cardNumber -> CardNumberResponseDTO.of(cardNumber, productId))
+                .toList();
+        return ResponseEntity.ok(numeros);
+    }
+
     @PostMapping("/enroll")
     public ResponseEntity<Void> activarTarjeta(@RequestBody CardEnrollRequestDTO enrollRequest) {
         cardService.activarTarjeta(enrollRequest);
@@ -1,5 +1,8 @@
 package com.bank.card.controller;
+import com.bank.card.dto.TransactionBatchResultDTO;
 import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.metrics.RejectionMetrics;
+import com.bank.card.metrics.RejectionReason;
 import com.bank.card.service.CardService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -7,14 +10,19 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/card/internal")
 public class InternalCardController {
 
     private final CardService cardService;
+    private final RejectionMetrics rejectionMetrics;
 
-    public InternalCardController(CardService cardService) {
+    public InternalCardController(CardService cardService, Optional<RejectionMetrics> rejectionMetrics) {
         this.cardService = cardService;
+        this.rejectionMetrics = rejectionMetrics.orElse(null);
     }
 
     @PostMapping("/debit")
@@ -28,4 +36,26 @@ public class InternalCardController {
         cardService.reversal(request);
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/debit/batch")
+    public ResponseEntity<List<TransactionBatchResultDTO>> debitBatch(@RequestBody List<TransactionRequestDTO> requests) {
+        return ResponseEntity.ok(contarRechazos(cardService.debitBatch(requests)));
+    }
+
+    @PostMapping("/reversal/batch")
+    public ResponseEntity<List<TransactionBatchResultDTO>> reversalBatch(@RequestBody List<TransactionRequestDTO> requests) {
+        return ResponseEntity.ok(contarRechazos(cardService.reversalBatch(requests)));
+    }
+
+    // En lote los rechazos viajan en la respuesta y no pasan por el GlobalExceptionHandler
+    private List<TransactionBatchResultDTO> contarRechazos(List<TransactionBatchResultDTO> results) {
+        if (rejectionMetrics != null) {
+            for (TransactionBatchResultDTO result : results) {
+                if (!result.isSuccess()) {
+                    rejectionMetrics.record(RejectionReason.of(result.getMessage()));
+                }
+            }
+        }
+        return results;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.bank.card.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CardBulkResultDTO {
+    // Línea del registro en el archivo de entrada (1 es la primera con datos)
+    private long line;
+    private String cardId;
+    private boolean success;
+    private String message;
+
+    public static CardBulkResultDTO ok(String cardId) {
+        return new CardBulkResultDTO(0, cardId, true, null);
+    }
+
+    public static CardBulkResultDTO rejected(String cardId, String message) {
+        return new CardBulkResultDTO(0, cardId, false, message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.bank.card.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CardIssueRecordDTO {
+    private String productId;
+    private String holderName;
+}
@@ -0,0 +1,24 @@
+package com.bank.card.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class TransactionBatchResultDTO {
+    private String cardId;
+    private boolean success;
+    private String message;
+    // La operación no se confirmó pero aún puede aplicarse: se reintenta con la misma clave de operación
+    private boolean outcomeUnknown;
+
+    public static TransactionBatchResultDTO ok(String cardId) {
+        return new TransactionBatchResultDTO(cardId, true, null, false);
+    }
+
+    public static TransactionBatchResultDTO rejected(String cardId, String message) {
+        return new TransactionBatchResultDTO(cardId, false, message, false);
+    }
+
+    public static TransactionBatchResultDTO unknown(String cardId, String message) {
+        return new TransactionBatchResultDTO(cardId, false, message, true);
+    }
+}
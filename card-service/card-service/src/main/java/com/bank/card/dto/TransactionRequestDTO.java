@@ -8,4 +8,6 @@ import java.math.BigDecimal;
 public class TransactionRequestDTO {
     private String cardId;
     private BigDecimal price;
-}
\ No newline at end of file
+    // Clave de idempotencia por operación; los endpoints por lote no reaplican una operación ya aplicada
+    private String operationId;
+}
@@ -0,0 +1,20 @@
+package com.bank.card.exception;
+
+/**
+ * El servicio no pudo completar la operación de saldo por sobrecarga o parada; se responde con 503.
+ * Con {@code outcomeUnknown} la operación ya estaba en curso y aún puede aplicarse: solo es seguro
+ * reintentarla con la misma clave de operación.
+ */
+public class CardServiceUnavailableException extends RuntimeException {
+
+    private final boolean outcomeUnknown;
+
+    public CardServiceUnavailableException(String message, boolean outcomeUnknown) {
+        super(message);
+        this.outcomeUnknown = outcomeUnknown;
+    }
+
+    public boolean isOutcomeUnknown() {
+        return outcomeUnknown;
+    }
+}
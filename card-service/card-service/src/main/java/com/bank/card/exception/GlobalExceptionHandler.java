@@ -1,5 +1,7 @@
 package com.bank.card.exception;
 import com.bank.card.dto.ErrorResponseDTO;
+import com.bank.card.metrics.RejectionMetrics;
+import com.bank.card.metrics.RejectionReason;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -7,13 +9,23 @@ import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @ControllerAdvice
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final RejectionMetrics rejectionMetrics;
+
+    public GlobalExceptionHandler(Optional<RejectionMetrics> rejectionMetrics) {
+        this.rejectionMetrics = rejectionMetrics.orElse(null);
+    }
+
     @ExceptionHandler({CardException.class, IllegalArgumentException.class})
     public ResponseEntity<ErrorResponseDTO> handleBadRequest(RuntimeException ex, HttpServletRequest request) {
         
+        if (rejectionMetrics != null) {
+            rejectionMetrics.record(RejectionReason.of(ex));
+        }
         HttpStatus status = HttpStatus.BAD_REQUEST;
         
         if (ex.getMessage().contains("not found") || ex.getMessage().contains("no encontrada")) {
@@ -29,4 +41,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         );
         return new ResponseEntity<>(error, status);
     }
+
+    // Sobrecarga o parada: el cliente puede reintentar más tarde con la misma clave de operación. Con
+    // 503 la operación no se aplicó; con 504 ya estaba en curso y su resultado es incierto
+    @ExceptionHandler(CardServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponseDTO> handleUnavailable(CardServiceUnavailableException ex, HttpServletRequest request) {
+        if (rejectionMetrics != null) {
+            rejectionMetrics.record(RejectionReason.of(ex));
+        }
+        HttpStatus status = ex.isOutcomeUnknown() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+        ErrorResponseDTO error = new ErrorResponseDTO(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return new ResponseEntity<>(error, status);
+    }
 }
\ No newline at end of file
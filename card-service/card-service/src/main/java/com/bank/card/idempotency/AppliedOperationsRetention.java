@@ -0,0 +1,37 @@
+package com.bank.card.idempotency;
+
+import com.bank.card.repository.CardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Borra las claves de operación aplicadas más viejas que la retención. La retención debe superar
+ * el tiempo máximo durante el cual un cliente puede reintentar un lote.
+ */
+@Component
+public class AppliedOperationsRetention {
+
+    private static final Logger log = LoggerFactory.getLogger(AppliedOperationsRetention.class);
+
+    private final CardRepository cardRepository;
+    private final long retentionHours;
+
+    public AppliedOperationsRetention(CardRepository cardRepository,
+                                      @Value("${card.operations.retention-hours:72}") long retentionHours) {
+        this.cardRepository = cardRepository;
+        this.retentionHours = retentionHours;
+    }
+
+    @Scheduled(fixedDelayString = "${card.operations.cleanup-interval-ms:3600000}")
+    public void purge() {
+        int deleted = cardRepository.deleteAppliedOperationsBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Eliminadas {} claves de operación con más de {} horas", deleted, retentionHours);
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.bank.card.ledger;
+
+import com.bank.card.exception.CardException;
+import com.bank.card.metrics.RejectionReason;
+import com.bank.card.model.Card;
+import com.bank.card.model.LedgerCheckpoint;
+import com.bank.card.money.MinorUnits;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.repository.LedgerCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Libro de saldos en memoria para tarjetas calientes (modo {@code card.balance.mode=ledger}).
+ * <p>
+ * Los débitos y abonos se aplican en memoria bajo un lock por franja de tarjetas y se
+ * registran en un journal local antes de confirmarse; las escrituras concurrentes de distintas
+ * franjas se agrupan en un solo fsync. Un proceso periódico (o al superar
+ * el umbral de operaciones pendientes) consolida los deltas por tarjeta y los escribe en la
+ * tabla {@code cards} en un solo lote, junto con el segmento de journal ya aplicado.
+ * Supone que una sola instancia de card-service es dueña de los saldos.
+ * <p>
+ * Saldos y deltas se guardan en centavos ({@link MinorUnits}); solo se pasan a {@code BigDecimal}
+ * al escribirlos en la tabla.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.mode", havingValue = "ledger")
+public class CardBalanceLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(CardBalanceLedger.class);
+
+    static final String LEDGER_NAME = "cards";
+    private static final String APPLY_DELTA_SQL = "UPDATE cards SET balance = balance + ? WHERE card_id = ?";
+
+    private final CardRepository cardRepository;
+    private final LedgerCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerJournal journal;
+    private final ReentrantLock[] stripes;
+    private final int flushThreshold;
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Claves de operación en el journal que aún no están en card_applied_operations (clave y tarjeta)
+    private final Map<String, String> unflushedOperations = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock flushGate = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong pendingOperations = new AtomicLong();
+    private final AtomicLong oldestPendingNanos = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "card-ledger-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Timer flushTimer;
+    private final Counter flushFailures;
+    private final Counter journalDeleteFailures;
+
+    public CardBalanceLedger(CardRepository cardRepository,
+                             LedgerCheckpointRepository checkpointRepository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${card.ledger.stripes:64}") int stripes,
+                             @Value("${card.ledger.flush-threshold:1000}") int flushThreshold,
+                             @Value("${card.ledger.max-entries:100000}") int maxEntries,
+                             @Value("${card.ledger.journal-dir:./ledger-journal}") String journalDir,
+                             @Value("${card.ledger.journal-fsync:true}") boolean journalFsync) throws IOException {
+        this.cardRepository = cardRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.journal = new LedgerJournal(Path.of(journalDir), journalFsync);
+        this.flushThreshold = flushThreshold;
+        this.maxEntries = maxEntries;
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+
+        Gauge.builder("card.ledger.flush.lag", this, CardBalanceLedger::flushLagSeconds)
+             .description("Antigüedad del delta pendiente más antiguo sin escribir en la tabla cards")
+             .baseUnit("seconds")
+             .register(meterRegistry);
+        Gauge.builder("card.ledger.pending.operations", pendingOperations, AtomicLong::get)
+             .description("Operaciones aplicadas en memoria pendientes de escritura")
+             .register(meterRegistry);
+        Gauge.builder("card.ledger.cards", entries, Map::size)
+             .description("Tarjetas con saldo en memoria")
+             .register(meterRegistry);
+        this.flushTimer = Timer.builder("card.ledger.flush")
+             .description("Duración de la escritura por lotes de los deltas")
+             .register(meterRegistry);
+        this.flushFailures = Counter.builder("card.ledger.flush.failures")
+             .register(meterRegistry);
+        this.journalDeleteFailures = Counter.builder("card.ledger.journal.delete.failures")
+             .description("Segmentos ya aplicados que no se pudieron borrar del journal")
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void recover() throws IOException {
+        long checkpoint = checkpointRepository.findById(LEDGER_NAME)
+                .map(LedgerCheckpoint::getLastSegment)
+                .orElse(0L);
+
+        Map<String, BigDecimal> deltas = new HashMap<>();
+        Map<String, String> operations = new HashMap<>();
+        long lastSegment = checkpoint;
+        for (long segment : journal.segments()) {
+            if (segment > checkpoint) {
+                journal.read(segment, operations).forEach((cardId, delta) -> deltas.merge(cardId, delta, BigDecimal::add));
+                lastSegment = segment;
+            }
+        }
+        if (lastSegment > checkpoint) {
+            log.info("Reaplicando {} deltas del journal hasta el segmento {}", deltas.size(), lastSegment);
+            persist(deltas, operations, lastSegment);
+        }
+        journal.deleteUpTo(lastSegment);
+        journal.open(lastSegment + 1);
+    }
+
+    public void debit(String cardId, long price, Consumer<Card> validator) {
+        debit(cardId, price, validator, null);
+    }
+
+    /** Como {@link #debit(String, long, Consumer)}; si {@code operationId} ya se aplicó, no se debita de nuevo. */
+    public void debit(String cardId, long price, Consumer<Card> validator, String operationId) {
+        mutate(cardId, entry -> {
+            if (applied(operationId)) {
+                return;
+            }
+            validator.accept(entry.card);
+            if (entry.balance < price) {
+                throw new CardException(RejectionReason.INSUFFICIENT_BALANCE.message());
+            }
+            record(entry, -price, operationId);
+        });
+    }
+
+    /** Abona {@code amount} centavos y devuelve el saldo resultante, también en centavos. */
+    public long credit(String cardId, long amount) {
+        return credit(cardId, amount, null);
+    }
+
+    public long credit(String cardId, long amount, String operationId) {
+        long[] newBalance = new long[1];
+        mutate(cardId, entry -> {
+            if (!applied(operationId)) {
+                record(entry, amount, operationId);
+            }
+            newBalance[0] = entry.balance;
+        });
+        return newBalance[0];
+    }
+
+    public long balance(String cardId) {
+        long[] balance = new long[1];
+        mutate(cardId, entry -> balance[0] = entry.balance);
+        return balance[0];
+    }
+
+    public void refreshStatus(Card card) {
+        mutate(card.getCardId(), entry -> {
+            entry.card.setActive(card.isActive());
+            entry.card.setBlocked(card.isBlocked());
+            entry.card.setExpiryDate(card.getExpiryDate());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${card.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushRequested.set(false);
+            Map<String, BigDecimal> deltas = new HashMap<>();
+            Map<String, String> operations;
+            long drainedOperations;
+            long drainedSince;
+            long segment;
+
+            flushGate.writeLock().lock();
+            try {
+                if (dirty.isEmpty()) {
+                    return;
+                }
+                for (String cardId : dirty) {
+                    Entry entry = entries.get(cardId);
+                    if (entry.pending != 0) {
+                        deltas.put(cardId, MinorUnits.toDecimal(entry.pending));
+                    }
+                    entry.pending = 0;
+                }
+                dirty.clear();
+                // Se quitan del mapa solo después de escribirlas en la tabla
+                operations = new HashMap<>(unflushedOperations);
+                drainedOperations = pendingOperations.getAndSet(0);
+                drainedSince = oldestPendingNanos.getAndSet(0);
+                segment = journal.rotate();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                flushGate.writeLock().unlock();
+            }
+
+            try {
+                flushTimer.record(() -> persist(deltas, operations, segment));
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                log.error("No fue posible escribir {} deltas del libro de saldos; se reintentará", deltas.size(), e);
+                restore(deltas, drainedOperations, drainedSince);
+                return;
+            }
+            operations.keySet().forEach(unflushedOperations::remove);
+            // Los deltas ya están en la tabla: si el borrado falla, la recuperación salta los segmentos
+            // hasta el checkpoint y el próximo flush vuelve a intentarlo
+            try {
+                journal.deleteUpTo(segment);
+            } catch (IOException e) {
+                journalDeleteFailures.increment();
+                log.warn("No fue posible borrar los segmentos del journal hasta {}", segment, e);
+            }
+            evictIdleEntries();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        flush();
+        flushExecutor.shutdown();
+        journal.close();
+    }
+
+    private void mutate(String cardId, Consumer<Entry> operation) {
+        flushGate.readLock().lock();
+        ReentrantLock stripe = stripes[Math.floorMod(cardId.hashCode(), stripes.length)];
+        stripe.lock();
+        try {
+            Entry entry = entries.get(cardId);
+            if (entry == null) {
+                entry = load(cardId);
+                entries.put(cardId, entry);
+            }
+            operation.accept(entry);
+        } finally {
+            stripe.unlock();
+            flushGate.readLock().unlock();
+        }
+        if (pendingOperations.get() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(this::flush);
+        }
+    }
+
+    private Entry load(String cardId) {
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new CardException(RejectionReason.NOT_FOUND.message() + cardId));
+        // El saldo vive en Entry.balance; la copia de la tarjeta solo sirve para validar su estado
+        return new Entry(Card.builder()
+                .cardId(card.getCardId())
+                .productId(card.getProductId())
+                .holderName(card.getHolderName())
+                .expiryDate(card.getExpiryDate())
+                .isActive(card.isActive())
+                .isBlocked(card.isBlocked())
+                .build(), MinorUnits.of(card.getBalance()));
+    }
+
+    // Una misma clave va siempre a la misma tarjeta, así que la franja tomada serializa la consulta
+    private boolean applied(String operationId) {
+        return operationId != null && (unflushedOperations.containsKey(operationId)
+                || !cardRepository.findAppliedOperations(List.of(operationId)).isEmpty());
+    }
+
+    private void record(Entry entry, long delta, String operationId) {
+        // Se valida antes de escribir el journal para no registrar una operación que no se aplica
+        long balance = MinorUnits.add(entry.balance, delta);
+        long pending = MinorUnits.add(entry.pending, delta);
+        try {
+            // Se espera el disco con la franja tomada; las demás franjas siguen y comparten el fsync
+            journal.sync(journal.append(entry.card.getCardId(), delta, operationId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("No fue posible registrar la operación en el journal", e);
+        }
+        if (operationId != null) {
+            unflushedOperations.put(operationId, entry.card.getCardId());
+        }
+        entry.balance = balance;
+        entry.pending = pending;
+        dirty.add(entry.card.getCardId());
+        pendingOperations.incrementAndGet();
+        oldestPendingNanos.compareAndSet(0, System.nanoTime());
+    }
+
+    private void persist(Map<String, BigDecimal> deltas, Map<String, String> operations, long segment) {
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        deltas.forEach((cardId, delta) -> batch.add(new Object[]{delta, cardId}));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!batch.isEmpty()) {
+                jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, batch);
+            }
+            cardRepository.recordAppliedOperations(operations);
+            checkpointRepository.save(new LedgerCheckpoint(LEDGER_NAME, segment));
+        });
+    }
+
+    private void restore(Map<String, BigDecimal> deltas, long drainedOperations, long drainedSince) {
+        flushGate.writeLock().lock();
+        try {
+            deltas.forEach((cardId, delta) -> {
+                Entry entry = entries.get(cardId);
+                entry.pending += MinorUnits.of(delta);
+                dirty.add(cardId);
+            });
+            pendingOperations.addAndGet(drainedOperations);
+            long oldest = oldestPendingNanos.get();
+            if (oldest == 0 || (drainedSince != 0 && drainedSince < oldest)) {
+                oldestPendingNanos.set(drainedSince);
+            }
+        } finally {
+            flushGate.writeLock().unlock();
+        }
+    }
+
+    private void evictIdleEntries() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        flushGate.writeLock().lock();
+        try {
+            entries.values().removeIf(entry -> entry.pending == 0 && !dirty.contains(entry.card.getCardId()));
+        } finally {
+            flushGate.writeLock().unlock();
+        }
+    }
+
+    private double flushLagSeconds() {
+        long oldest = oldestPendingNanos.get();
+        return oldest == 0 ? 0 : (System.nanoTime() - oldest) / 1_000_000_000d;
+    }
+
+    private static final class Entry {
+        private final Card card;
+        private long balance;
+        private long pending;
+
+        private Entry(Card card, long balance) {
+            this.card = card;
+            this.balance = balance;
+        }
+    }
+}
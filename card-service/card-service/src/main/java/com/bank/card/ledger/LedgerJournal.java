@@ -0,0 +1,214 @@
+package com.bank.card.ledger;
+
+import com.bank.card.money.MinorUnits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Journal local de solo escritura al final, dividido en segmentos numerados.
+ * Cada línea es {@code cardId;delta;crc32}, con el delta en unidades (dos decimales), y las líneas truncadas por una caída
+ * se descartan al leer gracias al CRC. Las operaciones con clave de idempotencia llevan la clave
+ * como tercer campo: {@code cardId;delta;operationId;crc32}.
+ * <p>
+ * Escritura con commit agrupado: {@link #append} solo deja el registro en un buffer y
+ * {@link #sync} lo escribe junto con todo lo que se haya acumulado mientras tanto, con un único
+ * {@code fsync} por lote. Mientras un hilo escribe, los demás siguen acumulando registros y el
+ * siguiente en entrar escribe todos los suyos de una vez.
+ * <p>
+ * Un error de escritura deja el journal inutilizable hasta reiniciar: no se puede saber qué parte
+ * del lote llegó al disco.
+ */
+class LedgerJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerJournal.class);
+
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+    // Protege el canal y el avance de lo escrito; se toma antes que el monitor del journal
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long currentSegment;
+    private long written;
+    private volatile IOException failure;
+
+    // Protegidos por el monitor del journal
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private long appended;
+
+    LedgerJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.fsync = fsync;
+    }
+
+    void open(long segment) throws IOException {
+        synchronized (syncLock) {
+            close();
+            this.channel = FileChannel.open(segmentPath(segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.currentSegment = segment;
+        }
+    }
+
+    /**
+     * Deja el registro en el buffer del lote en curso y devuelve su número de secuencia, que se
+     * pasa a {@link #sync} para esperar a que esté en disco.
+     */
+    long append(String cardId, long delta) throws IOException {
+        return append(cardId, delta, null);
+    }
+
+    synchronized long append(String cardId, long delta, String operationId) throws IOException {
+        if (failure != null) {
+            throw new IOException("El journal no está disponible tras un error de escritura", failure);
+        }
+        String record = cardId + ";" + MinorUnits.toPlainString(delta) + (operationId != null ? ";" + operationId : "");
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        buffer.writeBytes((record + ";" + Long.toHexString(crc.getValue()) + "\n").getBytes(StandardCharsets.UTF_8));
+        return ++appended;
+    }
+
+    /**
+     * Vuelve cuando el registro {@code sequence} está escrito (y sincronizado si {@code fsync}).
+     */
+    void sync(long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (written < sequence) {
+                writeBuffered();
+            }
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y abre el siguiente. Devuelve el número del segmento cerrado.
+     */
+    long rotate() throws IOException {
+        synchronized (syncLock) {
+            long closed = currentSegment;
+            writeBuffered();
+            channel.force(false);
+            channel.close();
+            open(closed + 1);
+            return closed;
+        }
+    }
+
+    List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                 .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                 .forEach(name -> segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()))));
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Deltas por tarjeta del segmento; las claves de operación que aparecen se agregan a
+     * {@code operations} (clave y tarjeta).
+     */
+    Map<String, BigDecimal> read(long segment, Map<String, String> operations) throws IOException {
+        Map<String, BigDecimal> deltas = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(segmentPath(segment), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int last = line.lastIndexOf(';');
+                int first = line.indexOf(';');
+                if (first < 0 || last == first) {
+                    log.warn("Registro incompleto descartado en el segmento {} del journal", segment);
+                    continue;
+                }
+                String record = line.substring(0, last);
+                CRC32 crc = new CRC32();
+                crc.update(record.getBytes(StandardCharsets.UTF_8));
+                if (!Long.toHexString(crc.getValue()).equals(line.substring(last + 1))) {
+                    log.warn("Registro corrupto descartado en el segmento {} del journal", segment);
+                    continue;
+                }
+                String[] fields = record.split(";", 3);
+                deltas.merge(fields[0], new BigDecimal(fields[1]), BigDecimal::add);
+                if (fields.length == 3) {
+                    operations.put(fields[2], fields[0]);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    void deleteUpTo(long segment) throws IOException {
+        for (long existing : segments()) {
+            if (existing <= segment && existing != currentSegment) {
+                Files.deleteIfExists(segmentPath(existing));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            if (channel != null && channel.isOpen()) {
+                try {
+                    if (failure == null) {
+                        writeBuffered();
+                    }
+                    channel.force(false);
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    // Requiere syncLock
+    private void writeBuffered() throws IOException {
+        if (failure != null) {
+            throw new IOException("El journal no está disponible tras un error de escritura", failure);
+        }
+        ByteBuffer batch;
+        long upTo;
+        synchronized (this) {
+            batch = ByteBuffer.wrap(buffer.toByteArray());
+            buffer.reset();
+            upTo = appended;
+        }
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            failure = e;
+            throw e;
+        }
+        written = upTo;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, segment, SUFFIX));
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.card.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Contador {@code card.rejections} por motivo, para operaciones individuales y en lote.
+ */
+@Component
+public class RejectionMetrics {
+
+    private final Map<RejectionReason, Counter> counters = new EnumMap<>(RejectionReason.class);
+
+    public RejectionMetrics(MeterRegistry meterRegistry) {
+        for (RejectionReason reason : RejectionReason.values()) {
+            counters.put(reason, Counter.builder("card.rejections")
+                    .description("Operaciones rechazadas por motivo")
+                    .tag("reason", reason.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(RejectionReason reason) {
+        counters.get(reason).increment();
+    }
+}
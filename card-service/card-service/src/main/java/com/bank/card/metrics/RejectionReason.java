@@ -0,0 +1,55 @@
+package com.bank.card.metrics;
+
+import com.bank.card.exception.CardServiceUnavailableException;
+
+/**
+ * Motivos de rechazo que se cuentan en {@code card.rejections}. Los rechazos de negocio usan el
+ * mensaje definido aquí, así el motivo se obtiene del mensaje de la excepción sin ambigüedad.
+ */
+public enum RejectionReason {
+    INSUFFICIENT_BALANCE("insufficient_balance", "Saldo insuficiente."),
+    INACTIVE("inactive", "La tarjeta no está activa."),
+    BLOCKED("blocked", "La tarjeta está bloqueada."),
+    EXPIRED("expired", "La tarjeta ha expirado."),
+    NOT_FOUND("not_found", "Tarjeta no encontrada (not found) con id: "),
+    INVALID_AMOUNT("invalid_amount", "El valor de la compra debe ser un monto positivo."),
+    INVALID_REQUEST("invalid_request", null),
+    UNAVAILABLE("unavailable", null),
+    OTHER("other", null);
+
+    private final String tag;
+    private final String message;
+
+    RejectionReason(String tag, String message) {
+        this.tag = tag;
+        this.message = message;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public static RejectionReason of(RuntimeException ex) {
+        if (ex instanceof CardServiceUnavailableException) {
+            return UNAVAILABLE;
+        }
+        RejectionReason reason = of(ex.getMessage());
+        return reason == OTHER && ex instanceof IllegalArgumentException ? INVALID_REQUEST : reason;
+    }
+
+    public static RejectionReason of(String message) {
+        if (message == null) {
+            return OTHER;
+        }
+        for (RejectionReason reason : values()) {
+            if (reason.message != null && message.startsWith(reason.message)) {
+                return reason;
+            }
+        }
+        return OTHER;
+    }
+}
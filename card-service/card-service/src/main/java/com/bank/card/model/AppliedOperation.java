@@ -0,0 +1,34 @@
+package com.bank.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Operación por lote ya aplicada sobre un saldo, identificada por la clave que envía el cliente.
+ * Se escribe en la misma transacción que el cambio de saldo.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "card_applied_operations", indexes = @Index(name = "idx_applied_operations_applied_at", columnList = "applied_at"))
+public class AppliedOperation {
+
+    @Id
+    @Column(name = "operation_id", length = 64, nullable = false)
+    private String operationId;
+
+    @Column(name = "card_id", length = 16, nullable = false)
+    private String cardId;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
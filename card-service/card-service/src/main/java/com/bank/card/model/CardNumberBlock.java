@@ -0,0 +1,25 @@
+package com.bank.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "card_number_blocks")
+public class CardNumberBlock {
+
+    @Id
+    @Column(name = "product_id", length = 6, nullable = false)
+    private String productId;
+
+    // Primer valor del contador aún no reservado por ninguna instancia
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+}
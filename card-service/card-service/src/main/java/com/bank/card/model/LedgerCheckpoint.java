@@ -0,0 +1,24 @@
+package com.bank.card.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "card_ledger_checkpoints")
+public class LedgerCheckpoint {
+
+    @Id
+    @Column(name = "ledger_name", length = 32, nullable = false)
+    private String ledgerName;
+
+    @Column(name = "last_segment", nullable = false)
+    private long lastSegment;
+}
@@ -0,0 +1,83 @@
+package com.bank.card.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Importes como {@code long} en centavos para las rutas calientes (libro de saldos en memoria,
+ * protocolo binario), sin crear un {@link BigDecimal} por operación. La conversión desde y hacia
+ * {@code BigDecimal} queda en el borde: la API pública y las columnas {@code precision=19, scale=2}.
+ * <p>
+ * Las conversiones son estrictas: un importe con más de 2 decimales o fuera del rango de {@code long}
+ * se rechaza con {@link IllegalArgumentException} en vez de redondearse o desbordarse.
+ */
+public final class MinorUnits {
+
+    public static final int SCALE = 2;
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private static final String DEMASIADOS_DECIMALES = "El monto admite como máximo " + SCALE + " decimales.";
+    private static final String FUERA_DE_RANGO = "El monto está fuera del rango permitido.";
+
+    private MinorUnits() {
+    }
+
+    public static long of(BigDecimal amount) {
+        try {
+            return amount.scaleByPowerOfTen(SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(amount.stripTrailingZeros().scale() > SCALE ? DEMASIADOS_DECIMALES : FUERA_DE_RANGO);
+        }
+    }
+
+    /** Centavos de un importe dado como valor sin escala y escala, sin pasar por {@code BigDecimal}. */
+    public static long of(long unscaled, int scale) {
+        if (scale == SCALE) {
+            return unscaled;
+        }
+        if (scale < SCALE) {
+            if (SCALE - scale >= POWERS_OF_TEN.length) {
+                throw new IllegalArgumentException(FUERA_DE_RANGO);
+            }
+            try {
+                return Math.multiplyExact(unscaled, POWERS_OF_TEN[SCALE - scale]);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(FUERA_DE_RANGO);
+            }
+        }
+        if (scale - SCALE >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException(unscaled == 0 ? FUERA_DE_RANGO : DEMASIADOS_DECIMALES);
+        }
+        long divisor = POWERS_OF_TEN[scale - SCALE];
+        if (unscaled % divisor != 0) {
+            throw new IllegalArgumentException(DEMASIADOS_DECIMALES);
+        }
+        return unscaled / divisor;
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /** Suma de saldo y delta; un resultado fuera de rango se rechaza en lugar de desbordarse. */
+    public static long add(long balance, long delta) {
+        try {
+            return Math.addExact(balance, delta);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("El saldo resultante está fuera del rango permitido.");
+        }
+    }
+
+    /** Mismo texto que {@code toDecimal(minor).toPlainString()}. */
+    public static String toPlainString(long minor) {
+        long units = minor / 100;
+        long cents = Math.abs(minor % 100);
+        // Entre -0.99 y -0.01 la parte entera es 0 y el signo se pierde
+        String sign = minor < 0 && units == 0 ? "-" : "";
+        return sign + units + (cents < 10 ? ".0" : ".") + cents;
+    }
+}
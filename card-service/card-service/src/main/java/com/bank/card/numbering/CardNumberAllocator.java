@@ -0,0 +1,106 @@
+package com.bank.card.numbering;
+
+import com.bank.card.exception.CardException;
+import com.bank.card.repository.CardNumberBlockRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asigna números de tarjeta únicos por producto: BIN de 6 dígitos, 9 dígitos de cuenta y dígito de
+ * control de Luhn.
+ * <p>
+ * Cada producto tiene un contador en {@code card_number_blocks}. La instancia reserva bloques del
+ * contador en una transacción propia y reparte los valores en memoria, así que no hay una consulta
+ * por número. El valor del contador pasa por una permutación afín módulo 10^9 para que los números
+ * consecutivos no sean predecibles; al ser biyectiva, dos valores distintos nunca dan el mismo número.
+ * Los huecos de bloques no usados (reinicios, rollbacks) se pierden, no se reutilizan.
+ */
+@Component
+public class CardNumberAllocator {
+
+    static final long ACCOUNT_SPACE = 1_000_000_000L;
+    // Coprimo con 10^9 (3^18), necesario para que la permutación sea biyectiva
+    private static final long MULTIPLIER = 387_420_489L;
+    private static final long OFFSET = 271_828_182L;
+
+    private final CardNumberBlockRepository blockRepository;
+    private final TransactionTemplate requiresNew;
+    private final int blockSize;
+    private final ConcurrentHashMap<String, Range> ranges = new ConcurrentHashMap<>();
+
+    public CardNumberAllocator(CardNumberBlockRepository blockRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${card.number.block-size:1000}") int blockSize) {
+        this.blockRepository = blockRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public List<String> allocate(String productId, int count) {
+        Range range = ranges.computeIfAbsent(productId, id -> new Range());
+        List<String> numbers = new ArrayList<>(count);
+        synchronized (range) {
+            while (numbers.size() < count) {
+                if (range.next == range.end) {
+                    // Un lote grande reserva de una vez todo lo que le falta
+                    long size = Math.max(blockSize, count - numbers.size());
+                    range.end = reserve(productId, size);
+                    range.next = range.end - size;
+                }
+                numbers.add(format(productId, range.next++));
+            }
+        }
+        return numbers;
+    }
+
+    private long reserve(String productId, long size) {
+        long end;
+        try {
+            end = requiresNew.execute(status -> reserveBlock(productId, size));
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia creó el contador del producto a la vez; ya existe y basta con avanzarlo
+            end = requiresNew.execute(status -> reserveBlock(productId, size));
+        }
+        if (end > ACCOUNT_SPACE) {
+            throw new CardException("Se agotaron los números de tarjeta del producto " + productId + ".");
+        }
+        return end;
+    }
+
+    // El contador se crea en 0 si falta y el bloque se reserva siempre con el mismo UPDATE
+    private long reserveBlock(String productId, long size) {
+        if (blockRepository.advance(productId, size) == 0) {
+            blockRepository.createIfAbsent(productId);
+            if (blockRepository.advance(productId, size) == 0) {
+                throw new IllegalStateException("No fue posible crear el contador del producto " + productId + ".");
+            }
+        }
+        return blockRepository.findById(productId).orElseThrow().getNextValue();
+    }
+
+    /** Número de tarjeta para el valor {@code counter} del contador del producto. */
+    public static String format(String productId, long counter) {
+        long account = Math.floorMod(counter * MULTIPLIER + OFFSET, ACCOUNT_SPACE);
+        StringBuilder number = new StringBuilder(16).append(productId);
+        String digits = Long.toString(account);
+        for (int i = digits.length(); i < 9; i++) {
+            number.append('0');
+        }
+        number.append(digits);
+        return number.append(Luhn.checkDigit(number)).toString();
+    }
+
+    private static final class Range {
+        private long next;
+        private long end;
+    }
+}
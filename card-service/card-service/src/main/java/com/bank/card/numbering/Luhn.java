@@ -0,0 +1,36 @@
+package com.bank.card.numbering;
+
+/**
+ * Dígito de control de Luhn (ISO/IEC 7812) para números de tarjeta.
+ */
+public final class Luhn {
+
+    private Luhn() {
+    }
+
+    /** Dígito que hay que añadir a {@code payload} para que el número completo sea válido. */
+    public static int checkDigit(CharSequence payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isValid(String number) {
+        if (number == null || number.length() < 2 || !number.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        int last = number.length() - 1;
+        return checkDigit(number.substring(0, last)) == number.charAt(last) - '0';
+    }
+}
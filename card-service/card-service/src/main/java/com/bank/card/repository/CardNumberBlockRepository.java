@@ -0,0 +1,22 @@
+package com.bank.card.repository;
+
+import com.bank.card.model.CardNumberBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CardNumberBlockRepository extends JpaRepository<CardNumberBlock, String> {
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CardNumberBlock b SET b.nextValue = b.nextValue + :size WHERE b.productId = :productId")
+    int advance(@Param("productId") String productId, @Param("size") long size);
+
+    // INSERT explícito: save() con id asignado haría merge y podría pisar el contador de otra instancia
+    @Modifying
+    @Query(value = "INSERT INTO card_number_blocks (product_id, next_value) SELECT :productId, 0 " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM card_number_blocks WHERE product_id = :productId)", nativeQuery = true)
+    int createIfAbsent(@Param("productId") String productId);
+}
@@ -2,8 +2,30 @@ package com.bank.card.repository;
 
 import com.bank.card.model.Card;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Repository
-public interface CardRepository extends JpaRepository<Card, String> {
-}
\ No newline at end of file
+public interface CardRepository extends JpaRepository<Card, String>, CardRepositoryCustom {
+
+    // Transacción propia: CardServiceImpl ejecuta las mutaciones de saldo sin transacción envolvente
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = c.balance - :price " +
+           "WHERE c.cardId = :cardId AND c.balance >= :price " +
+           "AND c.isActive = true AND c.isBlocked = false AND c.expiryDate >= :today")
+    int debitIfAvailable(@Param("cardId") String cardId,
+                         @Param("price") BigDecimal price,
+                         @Param("today") LocalDate today);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount WHERE c.cardId = :cardId")
+    int credit(@Param("cardId") String cardId, @Param("amount") BigDecimal amount);
+}
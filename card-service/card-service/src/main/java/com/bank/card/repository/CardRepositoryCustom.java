@@ -0,0 +1,37 @@
+package com.bank.card.repository;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.model.Card;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface CardRepositoryCustom {
+
+    /**
+     * Debita un lote en una transacción; la posición vale 0 si el débito se rechazó. Las operaciones
+     * con {@code operationId} ya aplicado no se debitan de nuevo y valen 1.
+     */
+    int[] debitAllIfAvailable(List<TransactionRequestDTO> requests, LocalDate today);
+
+    /** Como {@link #debitAllIfAvailable}, para abonos. */
+    int[] creditAll(List<TransactionRequestDTO> requests);
+
+    /** Claves de operación de {@code operationIds} que ya se aplicaron. */
+    Set<String> findAppliedOperations(Collection<String> operationIds);
+
+    /** Registra como aplicadas las operaciones (clave y tarjeta), en la transacción en curso. */
+    void recordAppliedOperations(Map<String, String> cardIdsByOperation);
+
+    int deleteAppliedOperationsBefore(LocalDateTime before);
+
+    /** Inserta las tarjetas en un lote; la posición vale 0 si ya existía una tarjeta con ese número. */
+    int[] insertAllIfAbsent(List<Card> cards);
+
+    /** Activa las tarjetas en un lote; la posición vale 0 si la tarjeta no existe o ya estaba activa. */
+    int[] activateAll(List<String> cardIds);
+}
@@ -0,0 +1,162 @@
+package com.bank.card.repository;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.model.Card;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+public class CardRepositoryCustomImpl implements CardRepositoryCustom {
+
+    private static final String DEBIT_SQL =
+            "UPDATE cards SET balance = balance - ? WHERE card_id = ? AND balance >= ? " +
+            "AND is_active = TRUE AND is_blocked = FALSE AND expiry_date >= ?";
+    private static final String CREDIT_SQL =
+            "UPDATE cards SET balance = balance + ? WHERE card_id = ?";
+    // INSERT condicional en vez de save(): un número repetido nunca se convierte en un merge sobre otra tarjeta
+    private static final String INSERT_IF_ABSENT_SQL =
+            "INSERT INTO cards (card_id, product_id, holder_name, expiry_date, balance, is_active, is_blocked) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM cards WHERE card_id = ?)";
+    private static final String ACTIVATE_SQL =
+            "UPDATE cards SET is_active = TRUE WHERE card_id = ? AND is_active = FALSE";
+    private static final String FIND_APPLIED_SQL =
+            "SELECT operation_id FROM card_applied_operations WHERE operation_id IN (:ids)";
+    // Sin WHERE NOT EXISTS: si otra transacción registró la misma clave, la clave primaria revierte este lote
+    private static final String RECORD_APPLIED_SQL =
+            "INSERT INTO card_applied_operations (operation_id, card_id, applied_at) VALUES (?, ?, ?)";
+    private static final String DELETE_APPLIED_SQL =
+            "DELETE FROM card_applied_operations WHERE applied_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public CardRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    // Cada lote es una sola transacción aunque el servicio no abra una
+    @Override
+    @Transactional
+    public int[] debitAllIfAvailable(List<TransactionRequestDTO> requests, LocalDate today) {
+        Date fecha = Date.valueOf(today);
+        return applyOnce(requests, DEBIT_SQL,
+                request -> new Object[]{request.getPrice(), request.getCardId(), request.getPrice(), fecha});
+    }
+
+    @Override
+    @Transactional
+    public int[] creditAll(List<TransactionRequestDTO> requests) {
+        return applyOnce(requests, CREDIT_SQL, request -> new Object[]{request.getPrice(), request.getCardId()});
+    }
+
+    @Override
+    public Set<String> findAppliedOperations(Collection<String> operationIds) {
+        if (operationIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedJdbcTemplate.queryForList(FIND_APPLIED_SQL, Map.of("ids", operationIds), String.class));
+    }
+
+    @Override
+    public void recordAppliedOperations(Map<String, String> cardIdsByOperation) {
+        if (cardIdsByOperation.isEmpty()) {
+            return;
+        }
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>(cardIdsByOperation.size());
+        cardIdsByOperation.forEach((operationId, cardId) -> args.add(new Object[]{operationId, cardId, ahora}));
+        jdbcTemplate.batchUpdate(RECORD_APPLIED_SQL, args);
+    }
+
+    @Override
+    @Transactional
+    public int deleteAppliedOperationsBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_APPLIED_SQL, Timestamp.valueOf(before));
+    }
+
+    // Aplica el lote salvo las operaciones ya aplicadas, que valen 1; una clave repetida en el mismo lote
+    // se aplica una vez y la repetición recibe el mismo resultado
+    private int[] applyOnce(List<TransactionRequestDTO> requests, String sql, Function<TransactionRequestDTO, Object[]> arguments) {
+        Set<String> operationIds = new HashSet<>();
+        for (TransactionRequestDTO request : requests) {
+            if (request.getOperationId() != null) {
+                operationIds.add(request.getOperationId());
+            }
+        }
+        Set<String> applied = findAppliedOperations(operationIds);
+
+        int[] results = new int[requests.size()];
+        Map<String, Integer> firstPositions = new HashMap<>();
+        List<int[]> repeated = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>(requests.size());
+        List<Object[]> args = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequestDTO request = requests.get(i);
+            String operationId = request.getOperationId();
+            if (operationId != null && applied.contains(operationId)) {
+                results[i] = 1;
+                continue;
+            }
+            if (operationId != null) {
+                Integer first = firstPositions.putIfAbsent(operationId, i);
+                if (first != null) {
+                    repeated.add(new int[]{i, first});
+                    continue;
+                }
+            }
+            positions.add(i);
+            args.add(arguments.apply(request));
+        }
+        int[] updated = args.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(sql, args);
+
+        Map<String, String> aplicadas = new LinkedHashMap<>();
+        for (int j = 0; j < updated.length; j++) {
+            int position = positions.get(j);
+            results[position] = updated[j];
+            TransactionRequestDTO request = requests.get(position);
+            if (updated[j] > 0 && request.getOperationId() != null) {
+                aplicadas.put(request.getOperationId(), request.getCardId());
+            }
+        }
+        for (int[] repetition : repeated) {
+            results[repetition[0]] = results[repetition[1]];
+        }
+        recordAppliedOperations(aplicadas);
+        return results;
+    }
+
+    @Override
+    public int[] insertAllIfAbsent(List<Card> cards) {
+        List<Object[]> args = new ArrayList<>(cards.size());
+        for (Card card : cards) {
+            args.add(new Object[]{card.getCardId(), card.getProductId(), card.getHolderName(),
+                    Date.valueOf(card.getExpiryDate()), card.getBalance(), card.isActive(), card.isBlocked(),
+                    card.getCardId()});
+        }
+        return jdbcTemplate.batchUpdate(INSERT_IF_ABSENT_SQL, args);
+    }
+
+    @Override
+    public int[] activateAll(List<String> cardIds) {
+        List<Object[]> args = new ArrayList<>(cardIds.size());
+        for (String cardId : cardIds) {
+            args.add(new Object[]{cardId});
+        }
+        return jdbcTemplate.batchUpdate(ACTIVATE_SQL, args);
+    }
+}
@@ -2,18 +2,28 @@ package com.bank.card.service;
 
 import com.bank.card.dto.CardBalanceRequestDTO;
 import com.bank.card.dto.CardBalanceResponseDTO;
+import com.bank.card.dto.CardBulkResultDTO;
 import com.bank.card.dto.CardEnrollRequestDTO;
+import com.bank.card.dto.CardIssueRecordDTO;
+import com.bank.card.dto.TransactionBatchResultDTO;
 import com.bank.card.dto.TransactionRequestDTO;
 import com.bank.card.model.Card;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 public interface CardService {
 
     String generarNumeroTarjeta(String productId);
 
+    List<String> generarNumerosTarjeta(String productId, int cantidad);
+
+    List<CardBulkResultDTO> emitirTarjetas(List<CardIssueRecordDTO> registros);
+
     Card activarTarjeta(CardEnrollRequestDTO enrollRequest);
 
+    List<CardBulkResultDTO> activarTarjetas(List<String> cardIds);
+
     void bloquearTarjeta(String cardId);
 
     CardBalanceResponseDTO recargarSaldo(CardBalanceRequestDTO request);
@@ -29,4 +39,16 @@ public interface CardService {
     void debit(TransactionRequestDTO request);
 
     void reversal(TransactionRequestDTO request);
+
+    /**
+     * Como {@link #debit(TransactionRequestDTO)}, con el importe ya en centavos (protocolo binario
+     * interno); {@code operationId} puede ser {@code null}.
+     */
+    void debit(String cardId, long amountMinor, String operationId);
+
+    void reversal(String cardId, long amountMinor, String operationId);
+
+    List<TransactionBatchResultDTO> debitBatch(List<TransactionRequestDTO> requests);
+
+    List<TransactionBatchResultDTO> reversalBatch(List<TransactionRequestDTO> requests);
 }
\ No newline at end of file
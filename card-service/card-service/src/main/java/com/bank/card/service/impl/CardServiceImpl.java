@@ -1,143 +1,559 @@
 package com.bank.card.service.impl;
 
+import com.bank.card.cache.CardCache;
 import com.bank.card.dto.CardBalanceRequestDTO;
 import com.bank.card.dto.CardBalanceResponseDTO;
+import com.bank.card.dto.CardBulkResultDTO;
 import com.bank.card.dto.CardEnrollRequestDTO;
+import com.bank.card.dto.CardIssueRecordDTO;
+import com.bank.card.dto.TransactionBatchResultDTO;
 import com.bank.card.dto.TransactionRequestDTO;
 import com.bank.card.exception.CardException;
+import com.bank.card.exception.CardServiceUnavailableException;
+import com.bank.card.ledger.CardBalanceLedger;
+import com.bank.card.metrics.RejectionReason;
 import com.bank.card.model.Card;
+import com.bank.card.money.MinorUnits;
+import com.bank.card.numbering.CardNumberAllocator;
 import com.bank.card.repository.CardRepository;
+import com.bank.card.shard.CardCommandShards;
 import com.bank.card.service.CardService;
+import io.micrometer.observation.annotation.Observed;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 @Service
 @Transactional
 public class CardServiceImpl implements CardService {
 
+    private static final String MONTO_INVALIDO = RejectionReason.INVALID_AMOUNT.message();
+    private static final String PRODUCTO_INVALIDO = "El ID de producto debe ser de 6 dígitos.";
+    private static final String TITULAR_POR_DEFECTO = "Usuario Bank";
+    private static final int MAX_TITULAR = 255;
+    private static final int MAX_CLAVE_OPERACION = 64;
+
     private final CardRepository cardRepository;
+    private final CardBalanceLedger balanceLedger;
+    private final CardCache cardCache;
+    private final CardNumberAllocator numberAllocator;
+    private final CardCommandShards commandShards;
+    @Value("${card.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
+    @Value("${card.number.bulk-max-size:10000}")
+    private int maxBulkSize = 10000;
 
-    public CardServiceImpl(CardRepository cardRepository) {
+    public CardServiceImpl(CardRepository cardRepository, Optional<CardBalanceLedger> balanceLedger,
+                           Optional<CardCache> cardCache, CardNumberAllocator numberAllocator,
+                           Optional<CardCommandShards> commandShards) {
         this.cardRepository = cardRepository;
+        this.balanceLedger = balanceLedger.orElse(null);
+        this.cardCache = cardCache.orElse(null);
+        this.numberAllocator = numberAllocator;
+        this.commandShards = commandShards.orElse(null);
     }
 
     @Override
     public String generarNumeroTarjeta(String productId) {
-        if (productId == null || productId.length() != 6) {
-            throw new IllegalArgumentException("El ID de producto debe ser de 6 dígitos.");
+        return generarNumerosTarjeta(productId, 1).get(0);
+    }
+
+    @Override
+    public List<String> generarNumerosTarjeta(String productId, int cantidad) {
+        if (!esProductoValido(productId)) {
+            throw new IllegalArgumentException(PRODUCTO_INVALIDO);
+        }
+        if (cantidad < 1 || cantidad > maxBulkSize) {
+            throw new IllegalArgumentException("La cantidad de tarjetas debe estar entre 1 y " + maxBulkSize + ".");
+        }
+        Card[] emitidas = emitir(productId, Collections.nCopies(cantidad, TITULAR_POR_DEFECTO), LocalDate.now().plusYears(3));
+        return Arrays.stream(emitidas).map(Card::getCardId).toList();
+    }
+
+    @Override
+    public List<CardBulkResultDTO> emitirTarjetas(List<CardIssueRecordDTO> registros) {
+        CardBulkResultDTO[] resultados = new CardBulkResultDTO[registros.size()];
+        Map<String, List<Integer>> porProducto = new LinkedHashMap<>();
+        for (int i = 0; i < registros.size(); i++) {
+            CardIssueRecordDTO registro = registros.get(i);
+            if (!esProductoValido(registro.getProductId())) {
+                resultados[i] = CardBulkResultDTO.rejected(null, PRODUCTO_INVALIDO);
+            } else if (registro.getHolderName() != null && registro.getHolderName().length() > MAX_TITULAR) {
+                resultados[i] = CardBulkResultDTO.rejected(null, "El nombre del titular supera " + MAX_TITULAR + " caracteres.");
+            } else {
+                porProducto.computeIfAbsent(registro.getProductId(), id -> new ArrayList<>()).add(i);
+            }
         }
 
-        String numeroGenerado = generateCardNumber(productId);
+        LocalDate vencimiento = LocalDate.now().plusYears(3);
+        porProducto.forEach((productId, posiciones) -> {
+            List<String> titulares = posiciones.stream()
+                    .map(i -> registros.get(i).getHolderName())
+                    .map(titular -> titular == null || titular.isBlank() ? TITULAR_POR_DEFECTO : titular)
+                    .toList();
+            Card[] emitidas = emitir(productId, titulares, vencimiento);
+            for (int j = 0; j < emitidas.length; j++) {
+                resultados[posiciones.get(j)] = CardBulkResultDTO.ok(emitidas[j].getCardId());
+            }
+        });
+        return Arrays.asList(resultados);
+    }
+
+    // Inserta una tarjeta por titular; los números que ya tenía una tarjeta emitida antes del asignador se reemplazan
+    private Card[] emitir(String productId, List<String> titulares, LocalDate vencimiento) {
+        Card[] emitidas = new Card[titulares.size()];
+        List<Integer> pendientes = new ArrayList<>(titulares.size());
+        for (int i = 0; i < titulares.size(); i++) {
+            pendientes.add(i);
+        }
+        while (!pendientes.isEmpty()) {
+            List<String> numeros = numberAllocator.allocate(productId, pendientes.size());
+            List<Card> nuevas = new ArrayList<>(numeros.size());
+            for (int j = 0; j < numeros.size(); j++) {
+                nuevas.add(nuevaTarjeta(numeros.get(j), productId, titulares.get(pendientes.get(j)), vencimiento));
+            }
+            int[] insertadas = cardRepository.insertAllIfAbsent(nuevas);
+            List<Integer> siguientes = new ArrayList<>();
+            for (int j = 0; j < nuevas.size(); j++) {
+                if (insertadas[j] != 0) {
+                    emitidas[pendientes.get(j)] = nuevas.get(j);
+                } else {
+                    siguientes.add(pendientes.get(j));
+                }
+            }
+            pendientes = siguientes;
+        }
+        return emitidas;
+    }
 
-        Card nuevaTarjeta = Card.builder()
-            .cardId(numeroGenerado)
+    private static Card nuevaTarjeta(String numero, String productId, String titular, LocalDate vencimiento) {
+        return Card.builder()
+            .cardId(numero)
             .productId(productId)
-            .holderName("Usuario Bank")
-            .expiryDate(LocalDate.now().plusYears(3))
+            .holderName(titular)
+            .expiryDate(vencimiento)
             .balance(BigDecimal.ZERO)
             .isActive(false)
             .isBlocked(false)
             .build();
-
-        cardRepository.save(nuevaTarjeta);
-        return numeroGenerado;
     }
-    
-    private String generateCardNumber(String productId) {
-        StringBuilder sb = new StringBuilder(productId);
-        for (int i = 0; i < 10; i++) {
-            sb.append(ThreadLocalRandom.current().nextInt(0, 10));
-        }
-        return sb.toString();
+
+    private static boolean esProductoValido(String productId) {
+        return productId != null && productId.length() == 6 && productId.chars().allMatch(Character::isDigit);
     }
 
     @Override
     public Card activarTarjeta(CardEnrollRequestDTO enrollRequest) {
-        Card card = getCardById(enrollRequest.getCardId());
+        Card card = buscarTarjeta(enrollRequest.getCardId());
 
         if (card.isActive()) {
             throw new CardException("La tarjeta ya se encuentra activa.");
         }
         card.setActive(true);
-        return cardRepository.save(card);
+        Card cardGuardada = cardRepository.save(card);
+        if (balanceLedger != null) {
+            balanceLedger.refreshStatus(cardGuardada);
+        }
+        invalidarCache(card.getCardId());
+        return cardGuardada;
+    }
+
+    @Override
+    public List<CardBulkResultDTO> activarTarjetas(List<String> cardIds) {
+        if (balanceLedger != null) {
+            // El libro en memoria necesita el estado de cada tarjeta activada
+            List<CardBulkResultDTO> resultados = new ArrayList<>(cardIds.size());
+            for (String cardId : cardIds) {
+                try {
+                    CardEnrollRequestDTO request = new CardEnrollRequestDTO();
+                    request.setCardId(cardId);
+                    activarTarjeta(request);
+                    resultados.add(CardBulkResultDTO.ok(cardId));
+                } catch (CardException e) {
+                    resultados.add(CardBulkResultDTO.rejected(cardId, e.getMessage()));
+                }
+            }
+            return resultados;
+        }
+
+        int[] activadas = cardRepository.activateAll(cardIds);
+        List<CardBulkResultDTO> resultados = new ArrayList<>(cardIds.size());
+        for (int i = 0; i < cardIds.size(); i++) {
+            String cardId = cardIds.get(i);
+            if (activadas[i] > 0) {
+                resultados.add(CardBulkResultDTO.ok(cardId));
+                invalidarCache(cardId);
+            } else {
+                // Solo se consulta la tarjeta para reportar el motivo del rechazo
+                resultados.add(CardBulkResultDTO.rejected(cardId, cardRepository.existsById(cardId)
+                        ? "La tarjeta ya se encuentra activa."
+                        : RejectionReason.NOT_FOUND.message() + cardId));
+            }
+        }
+        return resultados;
     }
 
     @Override
     public void bloquearTarjeta(String cardId) {
-        Card card = getCardById(cardId);
+        Card card = buscarTarjeta(cardId);
         if (card.isBlocked()) {
             throw new CardException("La tarjeta ya se encuentra bloqueada.");
         }
         card.setBlocked(true);
         cardRepository.save(card);
+        if (balanceLedger != null) {
+            balanceLedger.refreshStatus(card);
+        }
+        invalidarCache(cardId);
     }
 
+    // Las mutaciones de saldo no abren transacción propia: en modo sharded esperan a su shard y no deben
+    // retener una conexión mientras tanto; en modo directo cada UPDATE de CardRepository abre la suya
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card recharge", lowCardinalityKeyValues = {"operation", "recharge"})
     public CardBalanceResponseDTO recargarSaldo(CardBalanceRequestDTO request) {
-        Card card = getCardById(request.getCardId());
-        
-        if (request.getBalance() == null || request.getBalance().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("La recarga debe ser un monto positivo.");
+        if (commandShards != null) {
+            long nuevoSaldo = commandShards.await(commandShards.submitCredit(request.getCardId(), montoRecarga(request.getBalance())));
+            invalidarCache(request.getCardId());
+            return new CardBalanceResponseDTO(request.getCardId(), MinorUnits.toDecimal(nuevoSaldo));
         }
-        
-        card.setBalance(card.getBalance().add(request.getBalance()));
-        Card cardGuardada = cardRepository.save(card);
-        
-        return new CardBalanceResponseDTO(cardGuardada.getCardId(), cardGuardada.getBalance());
+
+        long monto = montoRecarga(request.getBalance());
+
+        if (balanceLedger != null) {
+            Card card = buscarTarjeta(request.getCardId());
+            long nuevoSaldo = balanceLedger.credit(card.getCardId(), monto);
+            invalidarCache(card.getCardId());
+            return new CardBalanceResponseDTO(card.getCardId(), MinorUnits.toDecimal(nuevoSaldo));
+        }
+
+        // Abono atómico: una recarga concurrente con un débito no pisa ninguno de los dos
+        if (cardRepository.credit(request.getCardId(), request.getBalance()) == 0) {
+            throw new CardException(RejectionReason.NOT_FOUND.message() + request.getCardId());
+        }
+        invalidarCache(request.getCardId());
+        return new CardBalanceResponseDTO(request.getCardId(), buscarTarjeta(request.getCardId()).getBalance());
     }
 
     @Override
+    @Observed(name = "card.operation", contextualName = "card balance", lowCardinalityKeyValues = {"operation", "balance"})
     public BigDecimal consultarSaldo(String cardId) {
+        if (balanceLedger != null) {
+            return MinorUnits.toDecimal(balanceLedger.balance(cardId));
+        }
         Card card = getCardById(cardId);
         return card.getBalance();
     }
 
     @Override
     public Card getCardById(String cardId) {
+        if (cardCache != null) {
+            return cardCache.get(cardId, this::buscarTarjeta);
+        }
+        return buscarTarjeta(cardId);
+    }
+
+    // Las mutaciones y los rechazos leen siempre de la base de datos, nunca de la caché
+    private Card buscarTarjeta(String cardId) {
         return cardRepository.findById(cardId)
-                .orElseThrow(() -> new CardException("Tarjeta no encontrada (not found) con id: " + cardId));
+                .orElseThrow(() -> new CardException(RejectionReason.NOT_FOUND.message() + cardId));
+    }
+
+    private void invalidarCache(String cardId) {
+        if (cardCache != null) {
+            cardCache.invalidate(cardId);
+        }
     }
 
     @Override
     public Card getCardActiveAndValid(String cardId) {
-        Card card = getCardById(cardId);
-        
+        Card card = buscarTarjeta(cardId);
+        validarTarjetaVigente(card);
+        return card;
+    }
+
+    private void validarTarjetaVigente(Card card) {
         if (!card.isActive()) {
-            throw new CardException("La tarjeta no está activa.");
+            throw new CardException(RejectionReason.INACTIVE.message());
         }
         if (card.isBlocked()) {
-            throw new CardException("La tarjeta está bloqueada.");
+            throw new CardException(RejectionReason.BLOCKED.message());
         }
         if (card.getExpiryDate().isBefore(LocalDate.now())) {
-            throw new CardException("La tarjeta ha expirado.");
+            throw new CardException(RejectionReason.EXPIRED.message());
         }
-        return card;
     }
 
     @Override
     public void saveCard(Card card) {
         cardRepository.save(card);
+        invalidarCache(card.getCardId());
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card debit", lowCardinalityKeyValues = {"operation", "debit"})
     public void debit(TransactionRequestDTO request) {
-        Card card = getCardActiveAndValid(request.getCardId());
+        validarClaveOperacion(request.getOperationId());
+        debitar(request.getCardId(), centavos(request.getPrice()), request.getPrice(), request.getOperationId());
+    }
 
-        if (card.getBalance().compareTo(request.getPrice()) < 0) {
-            throw new CardException("Saldo insuficiente.");
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card debit", lowCardinalityKeyValues = {"operation", "debit"})
+    public void debit(String cardId, long amountMinor, String operationId) {
+        validarClaveOperacion(operationId);
+        debitar(cardId, centavosPositivos(amountMinor), null, operationId);
+    }
+
+    // precio es el importe recibido como BigDecimal, si lo hubo; si no, solo se crea para la columna.
+    // Con operationId pasa por el mismo registro de operaciones aplicadas que los lotes
+    private void debitar(String cardId, long monto, BigDecimal precio, String operationId) {
+        if (commandShards != null) {
+            commandShards.await(commandShards.submitDebit(cardId, monto, this::validarTarjetaVigente, operationId));
+            invalidarCache(cardId);
+            return;
         }
-        card.setBalance(card.getBalance().subtract(request.getPrice()));
-        cardRepository.save(card);
+        if (balanceLedger != null) {
+            balanceLedger.debit(cardId, monto, this::validarTarjetaVigente, operationId);
+            invalidarCache(cardId);
+            return;
+        }
+
+        BigDecimal importe = precio != null ? precio : MinorUnits.toDecimal(monto);
+        int updated = operationId != null
+                ? cardRepository.debitAllIfAvailable(List.of(operacion(cardId, importe, operationId)), LocalDate.now())[0]
+                : cardRepository.debitIfAvailable(cardId, importe, LocalDate.now());
+        if (updated == 0) {
+            // Solo se consulta la tarjeta para reportar el motivo del rechazo
+            getCardActiveAndValid(cardId);
+            throw new CardException(RejectionReason.INSUFFICIENT_BALANCE.message());
+        }
+        invalidarCache(cardId);
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card reversal", lowCardinalityKeyValues = {"operation", "reversal"})
     public void reversal(TransactionRequestDTO request) {
-        Card card = getCardById(request.getCardId());
-        card.setBalance(card.getBalance().add(request.getPrice()));
-        cardRepository.save(card);
+        validarClaveOperacion(request.getOperationId());
+        reversar(request.getCardId(), centavos(request.getPrice()), request.getPrice(), request.getOperationId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card reversal", lowCardinalityKeyValues = {"operation", "reversal"})
+    public void reversal(String cardId, long amountMinor, String operationId) {
+        validarClaveOperacion(operationId);
+        reversar(cardId, centavosPositivos(amountMinor), null, operationId);
+    }
+
+    private void reversar(String cardId, long monto, BigDecimal precio, String operationId) {
+        if (commandShards != null) {
+            commandShards.await(commandShards.submitCredit(cardId, monto, operationId));
+            invalidarCache(cardId);
+            return;
+        }
+        if (balanceLedger != null) {
+            balanceLedger.credit(cardId, monto, operationId);
+            invalidarCache(cardId);
+            return;
+        }
+        // Abono atómico en la base: sin cargar la tarjeta ni pisar un débito concurrente
+        BigDecimal importe = precio != null ? precio : MinorUnits.toDecimal(monto);
+        int updated = operationId != null
+                ? cardRepository.creditAll(List.of(operacion(cardId, importe, operationId)))[0]
+                : cardRepository.credit(cardId, importe);
+        if (updated == 0) {
+            throw new CardException(RejectionReason.NOT_FOUND.message() + cardId);
+        }
+        invalidarCache(cardId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card debit batch", lowCardinalityKeyValues = {"operation", "debit_batch"})
+    public List<TransactionBatchResultDTO> debitBatch(List<TransactionRequestDTO> requests) {
+        validarTamanoLote(requests);
+        if (commandShards != null) {
+            return aplicarEnShards(requests, true);
+        }
+        if (balanceLedger != null) {
+            return aplicarUnoAUno(requests, request -> balanceLedger.debit(request.getCardId(),
+                    centavos(request.getPrice()), this::validarTarjetaVigente, request.getOperationId()));
+        }
+        return aplicarEnLote(requests,
+                validas -> cardRepository.debitAllIfAvailable(validas, LocalDate.now()),
+                this::motivoRechazoDebito);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    @Observed(name = "card.operation", contextualName = "card reversal batch", lowCardinalityKeyValues = {"operation", "reversal_batch"})
+    public List<TransactionBatchResultDTO> reversalBatch(List<TransactionRequestDTO> requests) {
+        validarTamanoLote(requests);
+        if (commandShards != null) {
+            return aplicarEnShards(requests, false);
+        }
+        if (balanceLedger != null) {
+            return aplicarUnoAUno(requests, request -> balanceLedger.credit(request.getCardId(),
+                    centavos(request.getPrice()), request.getOperationId()));
+        }
+        return aplicarEnLote(requests,
+                cardRepository::creditAll,
+                cardId -> RejectionReason.NOT_FOUND.message() + cardId);
+    }
+
+    private List<TransactionBatchResultDTO> aplicarEnLote(List<TransactionRequestDTO> requests,
+                                                          Function<List<TransactionRequestDTO>, int[]> actualizacion,
+                                                          UnaryOperator<String> motivoRechazo) {
+        TransactionBatchResultDTO[] resultados = new TransactionBatchResultDTO[requests.size()];
+        List<TransactionRequestDTO> validas = new ArrayList<>(requests.size());
+        List<Integer> posiciones = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequestDTO request = requests.get(i);
+            try {
+                centavos(request.getPrice());
+                validarClaveOperacion(request.getOperationId());
+                validas.add(request);
+                posiciones.add(i);
+            } catch (IllegalArgumentException e) {
+                resultados[i] = TransactionBatchResultDTO.rejected(request.getCardId(), e.getMessage());
+            }
+        }
+
+        int[] actualizadas = validas.isEmpty() ? new int[0] : actualizacion.apply(validas);
+        for (int j = 0; j < validas.size(); j++) {
+            String cardId = validas.get(j).getCardId();
+            if (actualizadas[j] > 0) {
+                resultados[posiciones.get(j)] = TransactionBatchResultDTO.ok(cardId);
+                invalidarCache(cardId);
+            } else {
+                resultados[posiciones.get(j)] = TransactionBatchResultDTO.rejected(cardId, motivoRechazo.apply(cardId));
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    private List<TransactionBatchResultDTO> aplicarUnoAUno(List<TransactionRequestDTO> requests,
+                                                           Consumer<TransactionRequestDTO> operacion) {
+        List<TransactionBatchResultDTO> resultados = new ArrayList<>(requests.size());
+        for (TransactionRequestDTO request : requests) {
+            try {
+                validarClaveOperacion(request.getOperationId());
+                operacion.accept(request);
+                resultados.add(TransactionBatchResultDTO.ok(request.getCardId()));
+                invalidarCache(request.getCardId());
+            } catch (CardException | IllegalArgumentException e) {
+                resultados.add(TransactionBatchResultDTO.rejected(request.getCardId(), e.getMessage()));
+            }
+        }
+        return resultados;
+    }
+
+    // Se encola todo el lote antes de esperar: las tarjetas de shards distintos se aplican en paralelo
+    private List<TransactionBatchResultDTO> aplicarEnShards(List<TransactionRequestDTO> requests, boolean debito) {
+        List<CompletableFuture<Long>> pendientes = new ArrayList<>(requests.size());
+        for (TransactionRequestDTO request : requests) {
+            try {
+                long monto = centavos(request.getPrice());
+                validarClaveOperacion(request.getOperationId());
+                pendientes.add(debito
+                        ? commandShards.submitDebit(request.getCardId(), monto, this::validarTarjetaVigente, request.getOperationId())
+                        : commandShards.submitCredit(request.getCardId(), monto, request.getOperationId()));
+            } catch (IllegalArgumentException | CardServiceUnavailableException e) {
+                pendientes.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        List<TransactionBatchResultDTO> resultados = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            String cardId = requests.get(i).getCardId();
+            try {
+                commandShards.await(pendientes.get(i));
+                resultados.add(TransactionBatchResultDTO.ok(cardId));
+                invalidarCache(cardId);
+            } catch (CardException | IllegalArgumentException e) {
+                resultados.add(TransactionBatchResultDTO.rejected(cardId, e.getMessage()));
+            } catch (CardServiceUnavailableException e) {
+                // Sin confirmar no se puede dar por rechazada: el resto del lote se informa igual
+                resultados.add(e.isOutcomeUnknown()
+                        ? TransactionBatchResultDTO.unknown(cardId, e.getMessage())
+                        : TransactionBatchResultDTO.rejected(cardId, e.getMessage()));
+            }
+        }
+        return resultados;
+    }
+
+    private static TransactionRequestDTO operacion(String cardId, BigDecimal importe, String operationId) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(importe);
+        request.setOperationId(operationId);
+        return request;
+    }
+
+    private String motivoRechazoDebito(String cardId) {
+        try {
+            getCardActiveAndValid(cardId);
+            return RejectionReason.INSUFFICIENT_BALANCE.message();
+        } catch (CardException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void validarTamanoLote(List<TransactionRequestDTO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos una operación.");
+        }
+        if (requests.size() > maxBatchSize) {
+            throw new IllegalArgumentException("El lote supera el máximo de " + maxBatchSize + " operaciones.");
+        }
+    }
+
+    // La clave viaja en el journal del libro de saldos, separada por ';' y terminada en salto de línea
+    private static void validarClaveOperacion(String operationId) {
+        if (operationId != null && (operationId.isEmpty() || operationId.length() > MAX_CLAVE_OPERACION
+                || operationId.chars().anyMatch(c -> c == ';' || Character.isWhitespace(c)))) {
+            throw new IllegalArgumentException("La clave de operación es inválida.");
+        }
+    }
+
+    // Importe positivo en centavos; con más de 2 decimales o fuera de rango se rechaza, no se redondea
+    private static long centavos(BigDecimal monto) {
+        if (monto == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException(MONTO_INVALIDO);
+        }
+        return MinorUnits.of(monto);
+    }
+
+    private static long montoRecarga(BigDecimal monto) {
+        if (monto == null || monto.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("La recarga debe ser un monto positivo.");
+        }
+        return MinorUnits.of(monto);
+    }
+
+    private static long centavosPositivos(long monto) {
+        if (monto <= 0) {
+            throw new IllegalArgumentException(MONTO_INVALIDO);
+        }
+        return monto;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,342 @@
+package com.bank.card.shard;
+
+import com.bank.card.exception.CardException;
+import com.bank.card.exception.CardServiceUnavailableException;
+import com.bank.card.metrics.RejectionReason;
+import com.bank.card.model.Card;
+import com.bank.card.money.MinorUnits;
+import com.bank.card.repository.CardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Mutaciones de saldo serializadas por tarjeta (modo {@code card.balance.mode=sharded}).
+ * <p>
+ * Cada tarjeta cae por hash en uno de un número fijo de shards de un solo hilo, así que dos
+ * operaciones sobre la misma tarjeta nunca compiten por su fila y se aplican en el orden en que
+ * llegaron; los shards no comparten nada entre sí. Cada shard vacía su cola en lotes: lee de una vez
+ * las tarjetas del lote, aplica los comandos en orden sobre esos saldos (en centavos) y escribe el
+ * delta neto de cada tarjeta en una sola transacción. Los resultados se entregan después del commit.
+ * <p>
+ * Si la espera de un comando se agota antes de que su shard lo tome, el comando se descarta y el
+ * rechazo es seguro; si ya estaba en un lote, el resultado es incierto
+ * ({@link CardServiceUnavailableException#isOutcomeUnknown()}).
+ * <p>
+ * Supone, como el libro de saldos, que una sola instancia de card-service modifica los saldos.
+ */
+@Component
+@ConditionalOnProperty(name = "card.balance.mode", havingValue = "sharded")
+public class CardCommandShards {
+
+    private static final Logger log = LoggerFactory.getLogger(CardCommandShards.class);
+
+    private static final String APPLY_DELTA_SQL = "UPDATE cards SET balance = balance + ? WHERE card_id = ?";
+
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Shard[] shards;
+    private final int maxBatch;
+    private final long timeoutMs;
+    private final Timer batchTimer;
+    private final DistributionSummary batchSize;
+    private final Counter batchFailures;
+
+    public CardCommandShards(CardRepository cardRepository,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${card.shard.count:0}") int count,
+                             @Value("${card.shard.queue-size:10000}") int queueSize,
+                             @Value("${card.shard.max-batch:256}") int maxBatch,
+                             @Value("${card.shard.timeout-ms:5000}") long timeoutMs) {
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatch = maxBatch;
+        this.timeoutMs = timeoutMs;
+        // 0: un shard por núcleo
+        this.shards = new Shard[count > 0 ? count : Runtime.getRuntime().availableProcessors()];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i, queueSize);
+        }
+
+        Gauge.builder("card.shard.queue.depth", this, CardCommandShards::queued)
+             .description("Comandos de saldo en cola en todos los shards")
+             .register(meterRegistry);
+        this.batchTimer = Timer.builder("card.shard.batch")
+             .description("Duración de la transacción de cada lote de un shard")
+             .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("card.shard.batch.size")
+             .register(meterRegistry);
+        this.batchFailures = Counter.builder("card.shard.batch.failures")
+             .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        log.info("Mutaciones de saldo repartidas en {} shards", shards.length);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.thread.interrupt();
+        }
+        for (Shard shard : shards) {
+            shard.thread.join(timeoutMs);
+        }
+    }
+
+    /** Encola un débito; el resultado es el saldo resultante en centavos. */
+    public CompletableFuture<Long> submitDebit(String cardId, long amount, Consumer<Card> validator) {
+        return submitDebit(cardId, amount, validator, null);
+    }
+
+    /** Como {@link #submitDebit(String, long, Consumer)}; si {@code operationId} ya se aplicó, no se debita de nuevo. */
+    public CompletableFuture<Long> submitDebit(String cardId, long amount, Consumer<Card> validator, String operationId) {
+        return submit(new Command(cardId, -amount, validator, operationId)).result;
+    }
+
+    /** Encola un abono; el resultado es el saldo resultante en centavos. */
+    public CompletableFuture<Long> submitCredit(String cardId, long amount) {
+        return submitCredit(cardId, amount, null);
+    }
+
+    public CompletableFuture<Long> submitCredit(String cardId, long amount, String operationId) {
+        return submit(new Command(cardId, amount, null, operationId)).result;
+    }
+
+    /**
+     * Espera el resultado de un comando; un rechazo se relanza tal cual. Si la espera se agota o se
+     * interrumpe se lanza {@link CardServiceUnavailableException}.
+     */
+    public long await(CompletableFuture<Long> result) {
+        try {
+            return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(result, "Operación interrumpida esperando el saldo de la tarjeta.");
+        } catch (TimeoutException e) {
+            throw abandon(result, "Tiempo de espera agotado en la cola de la tarjeta.");
+        }
+    }
+
+    // Si el shard aún no tomó el comando ya no lo aplicará; si lo tomó, puede aplicarse igual más tarde
+    private static CardServiceUnavailableException abandon(CompletableFuture<Long> result, String message) {
+        if (result instanceof CommandResult commandResult && commandResult.taken.compareAndSet(false, true)) {
+            return new CardServiceUnavailableException(message + " La operación no se aplicó.", false);
+        }
+        return new CardServiceUnavailableException(message + " El resultado de la operación es incierto.", true);
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    private Command submit(Command command) {
+        if (command.cardId == null) {
+            throw new IllegalArgumentException("El id de tarjeta es obligatorio.");
+        }
+        Shard shard = shards[Math.floorMod(command.cardId.hashCode(), shards.length)];
+        if (!shard.queue.offer(command)) {
+            throw new CardServiceUnavailableException("El servicio de tarjetas tiene demasiadas operaciones en cola.", false);
+        }
+        return command;
+    }
+
+    private double queued() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.queue.size();
+        }
+        return total;
+    }
+
+    private void apply(List<Command> pending) {
+        // Los comandos cuya espera ya se abandonó se descartan sin aplicarlos
+        List<Command> batch = new ArrayList<>(pending.size());
+        for (Command command : pending) {
+            if (command.result.taken.compareAndSet(false, true)) {
+                batch.add(command);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        Object[] outcomes = new Object[batch.size()];
+        AtomicBoolean committing = new AtomicBoolean();
+        try {
+            batchTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                applyInTransaction(batch, outcomes);
+                committing.set(true);
+            }));
+        } catch (RuntimeException e) {
+            batchFailures.increment();
+            log.error("No fue posible aplicar un lote de {} operaciones de saldo", batch.size(), e);
+            // Antes del commit la transacción se revirtió y nada quedó aplicado; un fallo durante el commit
+            // (conexión perdida, TransactionSystemException) no dice si la base llegó a confirmarlo
+            CardServiceUnavailableException failure = new CardServiceUnavailableException(
+                    "No fue posible aplicar la operación de saldo: " + e.getMessage(), committing.get());
+            batch.forEach(command -> command.result.completeExceptionally(failure));
+            return;
+        }
+        batchSize.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes[i] instanceof RuntimeException rejection) {
+                batch.get(i).result.completeExceptionally(rejection);
+            } else {
+                batch.get(i).result.complete((Long) outcomes[i]);
+            }
+        }
+    }
+
+    private void applyInTransaction(List<Command> batch, Object[] outcomes) {
+        Set<String> cardIds = new LinkedHashSet<>();
+        batch.forEach(command -> cardIds.add(command.cardId));
+        Map<String, Card> cards = new HashMap<>();
+        for (Card card : cardRepository.findAllById(cardIds)) {
+            cards.put(card.getCardId(), card);
+        }
+
+        // Una misma clave cae siempre en el mismo shard: basta con mirar la tabla y lo ya aplicado en este lote
+        Set<String> operationIds = new HashSet<>();
+        batch.forEach(command -> {
+            if (command.operationId != null) {
+                operationIds.add(command.operationId);
+            }
+        });
+        Set<String> applied = new HashSet<>(cardRepository.findAppliedOperations(operationIds));
+        Map<String, String> recorded = new LinkedHashMap<>();
+
+        Map<String, Long> balances = new HashMap<>();
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Command command = batch.get(i);
+            try {
+                Card card = cards.get(command.cardId);
+                if (card == null) {
+                    throw new CardException(RejectionReason.NOT_FOUND.message() + command.cardId);
+                }
+                long balance = balances.computeIfAbsent(command.cardId, id -> MinorUnits.of(card.getBalance()));
+                if (command.operationId != null && applied.contains(command.operationId)) {
+                    // Reintento de una operación ya aplicada: se confirma sin volver a aplicarla
+                    outcomes[i] = balance;
+                    continue;
+                }
+                if (command.validator != null) {
+                    command.validator.accept(card);
+                    if (balance < -command.delta) {
+                        throw new CardException(RejectionReason.INSUFFICIENT_BALANCE.message());
+                    }
+                }
+                long newBalance = MinorUnits.add(balance, command.delta);
+                balances.put(command.cardId, newBalance);
+                deltas.merge(command.cardId, command.delta, Long::sum);
+                if (command.operationId != null) {
+                    applied.add(command.operationId);
+                    recorded.put(command.operationId, command.cardId);
+                }
+                outcomes[i] = newBalance;
+            } catch (CardException | IllegalArgumentException e) {
+                outcomes[i] = e;
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>(deltas.size());
+        deltas.forEach((cardId, delta) -> {
+            if (delta != 0) {
+                updates.add(new Object[]{MinorUnits.toDecimal(delta), cardId});
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, updates);
+        }
+        cardRepository.recordAppliedOperations(recorded);
+    }
+
+    private static final class Command {
+        private final String cardId;
+        // Negativo para débitos
+        private final long delta;
+        private final Consumer<Card> validator;
+        private final String operationId;
+        private final CommandResult result = new CommandResult();
+
+        private Command(String cardId, long delta, Consumer<Card> validator, String operationId) {
+            this.cardId = cardId;
+            this.delta = delta;
+            this.validator = validator;
+            this.operationId = operationId;
+        }
+    }
+
+    private static final class CommandResult extends CompletableFuture<Long> {
+        // Lo marca primero el shard al tomar el comando, o quien deja de esperarlo
+        private final AtomicBoolean taken = new AtomicBoolean();
+    }
+
+    private final class Shard {
+        private final BlockingQueue<Command> queue;
+        private final Thread thread;
+
+        private Shard(int index, int queueSize) {
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+            this.thread = new Thread(this::run, "card-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            try {
+                while (true) {
+                    batch.add(queue.take());
+                    queue.drainTo(batch, maxBatch - 1);
+                    apply(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                // Al detenerse, lo que quede en cola no se aplica
+                CardServiceUnavailableException stopped = new CardServiceUnavailableException("El servicio de tarjetas se está deteniendo.", false);
+                queue.forEach(command -> command.result.completeExceptionally(stopped));
+            }
+        }
+    }
+}
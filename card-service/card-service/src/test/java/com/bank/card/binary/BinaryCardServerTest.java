@@ -0,0 +1,137 @@
+package com.bank.card.binary;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+
+@SpringBootTest(properties = {
+    "card.internal.binary.enabled=true",
+    "card.internal.binary.port=0"
+})
+class BinaryCardServerTest {
+
+    @Autowired
+    private BinaryCardServer server;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void testPipelinedRequestsOnOneConnectionAreAnsweredById() throws IOException {
+        String cardId = saveCard("4000001111222233", new BigDecimal("100.00"));
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+            // Tres solicitudes seguidas antes de leer ninguna respuesta
+            write(channel, BinaryProtocol.encodeRequest(1, BinaryProtocol.OP_DEBIT, request(cardId, "30.25")));
+            write(channel, BinaryProtocol.encodeRequest(2, BinaryProtocol.OP_DEBIT, request(cardId, "500.00")));
+            write(channel, BinaryProtocol.encodeRequest(3, BinaryProtocol.OP_REVERSAL, request(cardId, "10.00")));
+
+            Map<Long, Response> responses = new HashMap<>();
+            for (int i = 0; i < 3; i++) {
+                Response response = read(channel);
+                responses.put(response.id(), response);
+            }
+
+            assertEquals(BinaryProtocol.STATUS_OK, responses.get(1L).status());
+            assertEquals(BinaryProtocol.STATUS_REJECTED, responses.get(2L).status());
+            assertEquals("Saldo insuficiente.", responses.get(2L).message());
+            assertEquals(BinaryProtocol.STATUS_OK, responses.get(3L).status());
+        }
+
+        assertEquals(0, new BigDecimal("79.75").compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testRequestFrameIsCompact() {
+        ByteBuffer frame = BinaryProtocol.encodeRequest(7, BinaryProtocol.OP_DEBIT, request("4000001111222233", "150.75"));
+
+        assertEquals(4 + 8 + 1 + 1 + 16 + 8 + 1 + 1, frame.remaining());
+        frame.getInt();
+        BinaryProtocol.Request decoded = BinaryProtocol.decodeRequest(frame);
+        assertEquals(7, decoded.id());
+        assertEquals("4000001111222233", decoded.cardId());
+        assertEquals(15075, decoded.amountMinor());
+        assertNull(decoded.operationId());
+    }
+
+    @Test
+    void testRetriedOperationIdIsAppliedOnce() throws IOException {
+        String cardId = saveCard("4000001111222244", new BigDecimal("100.00"));
+        TransactionRequestDTO debit = request(cardId, "40.00");
+        debit.setOperationId("purchase-4000001111222244");
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", server.getPort()))) {
+            // Reenvío tras perder la respuesta: misma clave, otro id de solicitud
+            write(channel, BinaryProtocol.encodeRequest(1, BinaryProtocol.OP_DEBIT, debit));
+            assertEquals(BinaryProtocol.STATUS_OK, read(channel).status());
+            write(channel, BinaryProtocol.encodeRequest(2, BinaryProtocol.OP_DEBIT, debit));
+            assertEquals(BinaryProtocol.STATUS_OK, read(channel).status());
+        }
+
+        assertEquals(0, new BigDecimal("60.00").compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    private String saveCard(String cardId, BigDecimal balance) {
+        cardRepository.save(Card.builder()
+            .cardId(cardId)
+            .productId(cardId.substring(0, 6))
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(3))
+            .balance(balance)
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+        return cardId;
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private record Response(long id, byte status, String message) {
+    }
+
+    private static void write(SocketChannel channel, ByteBuffer frame) throws IOException {
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    private static Response read(SocketChannel channel) throws IOException {
+        ByteBuffer length = readFully(channel, ByteBuffer.allocate(4));
+        ByteBuffer frame = readFully(channel, ByteBuffer.allocate(length.getInt()));
+        long id = frame.getLong();
+        byte status = frame.get();
+        byte[] message = new byte[frame.getShort()];
+        frame.get(message);
+        return new Response(id, status, new String(message, StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Conexión cerrada");
+            }
+        }
+        return buffer.flip();
+    }
+}
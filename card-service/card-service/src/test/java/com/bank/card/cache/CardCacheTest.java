@@ -0,0 +1,108 @@
+package com.bank.card.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.bank.card.dto.CardBalanceRequestDTO;
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "card.cache.enabled=true")
+class CardCacheTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testBalanceIsServedFromCacheUntilInvalidated() {
+        String cardId = createCard("7000000000000001", new BigDecimal("100.00"));
+        double hits = hits();
+
+        assertEquals(new BigDecimal("100.00"), cardService.consultarSaldo(cardId));
+        // Un cambio hecho por fuera del servicio no se ve mientras la entrada esté vigente
+        jdbcTemplate.update("UPDATE cards SET balance = 1.00 WHERE card_id = ?", cardId);
+        assertEquals(new BigDecimal("100.00"), cardService.consultarSaldo(cardId));
+        assertEquals(hits + 1, hits());
+    }
+
+    @Test
+    void testEveryMutationInvalidatesTheEntry() {
+        String cardId = createCard("7000000000000002", new BigDecimal("100.00"));
+        cardService.consultarSaldo(cardId);
+
+        cardService.debit(request(cardId, "30.00"));
+        assertEquals(new BigDecimal("70.00"), cardService.consultarSaldo(cardId));
+
+        cardService.reversal(request(cardId, "10.00"));
+        assertEquals(new BigDecimal("80.00"), cardService.consultarSaldo(cardId));
+
+        CardBalanceRequestDTO recarga = new CardBalanceRequestDTO();
+        recarga.setCardId(cardId);
+        recarga.setBalance(new BigDecimal("20.00"));
+        cardService.recargarSaldo(recarga);
+        assertEquals(new BigDecimal("100.00"), cardService.consultarSaldo(cardId));
+
+        cardService.debitBatch(List.of(request(cardId, "50.00")));
+        assertEquals(new BigDecimal("50.00"), cardService.consultarSaldo(cardId));
+
+        cardService.reversalBatch(List.of(request(cardId, "5.00")));
+        assertEquals(new BigDecimal("55.00"), cardService.consultarSaldo(cardId));
+
+        cardService.bloquearTarjeta(cardId);
+        assertTrue(cardService.getCardById(cardId).isBlocked());
+    }
+
+    @Test
+    void testCachedCardIsACopy() {
+        String cardId = createCard("7000000000000003", new BigDecimal("100.00"));
+
+        cardService.getCardById(cardId).setBalance(BigDecimal.ZERO);
+
+        assertEquals(new BigDecimal("100.00"), cardService.consultarSaldo(cardId));
+    }
+
+    private double hits() {
+        return meterRegistry.get("cache.gets").tag("cache", "card.cache").tag("result", "hit").functionCounter().count();
+    }
+
+    private TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private String createCard(String cardId, BigDecimal balance) {
+        cardRepository.save(Card.builder()
+            .cardId(cardId)
+            .productId(cardId.substring(0, 6))
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(3))
+            .balance(balance)
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+        return cardId;
+    }
+}
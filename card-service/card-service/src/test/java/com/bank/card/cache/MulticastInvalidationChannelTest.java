@@ -0,0 +1,53 @@
+package com.bank.card.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class MulticastInvalidationChannelTest {
+
+    private static final String GROUP = "239.255.27.9";
+    private static final int PORT = 4459;
+
+    @Test
+    void testInvalidationReachesOtherInstancesOnly() throws Exception {
+        Optional<NetworkInterface> multicastInterface = NetworkInterface.networkInterfaces()
+            .filter(MulticastInvalidationChannelTest::supportsMulticast)
+            .findFirst();
+        assumeTrue(multicastInterface.isPresent(), "no hay interfaces de red con multicast");
+        String interfaceName = multicastInterface.get().getName();
+
+        MulticastInvalidationChannel instanceA = new MulticastInvalidationChannel(GROUP, PORT, interfaceName);
+        MulticastInvalidationChannel instanceB = new MulticastInvalidationChannel(GROUP, PORT, interfaceName);
+        try {
+            BlockingQueue<String> receivedByA = new LinkedBlockingQueue<>();
+            BlockingQueue<String> receivedByB = new LinkedBlockingQueue<>();
+            instanceA.subscribe(receivedByA::add);
+            instanceB.subscribe(receivedByB::add);
+
+            instanceA.publish("7000000000000009");
+
+            assertEquals("7000000000000009", receivedByB.poll(5, TimeUnit.SECONDS));
+            assertNull(receivedByA.poll(200, TimeUnit.MILLISECONDS));
+        } finally {
+            instanceA.close();
+            instanceB.close();
+        }
+    }
+
+    private static boolean supportsMulticast(NetworkInterface networkInterface) {
+        try {
+            return networkInterface.isUp() && networkInterface.supportsMulticast();
+        } catch (SocketException e) {
+            return false;
+        }
+    }
+}
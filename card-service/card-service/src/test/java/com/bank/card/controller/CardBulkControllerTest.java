@@ -0,0 +1,126 @@
+package com.bank.card.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.bank.card.dto.CardBulkResultDTO;
+import com.bank.card.model.Card;
+import com.bank.card.numbering.Luhn;
+import com.bank.card.repository.CardRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "card.bulk.chunk-size=2")
+@AutoConfigureMockMvc
+class CardBulkControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void testIssueNdjsonStreamsOneResultPerRecord() throws Exception {
+        String body = """
+            {"productId":"800001","holderName":"Ana Pérez"}
+            {"productId":"123"}
+
+            no es json
+            {"productId":"800001"}
+            """;
+
+        String response = mockMvc.perform(post("/card/bulk/issue")
+                .contentType("application/x-ndjson")
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString();
+
+        List<CardBulkResultDTO> results = response.lines()
+            .map(this::read)
+            .sorted((a, b) -> Long.compare(a.getLine(), b.getLine()))
+            .toList();
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("El ID de producto debe ser de 6 dígitos.", results.get(1).getMessage());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("Registro inválido: JSON mal formado.", results.get(2).getMessage());
+        assertTrue(results.get(3).isSuccess());
+
+        Card ana = cardRepository.findById(results.get(0).getCardId()).orElseThrow();
+        assertEquals("Ana Pérez", ana.getHolderName());
+        assertFalse(ana.isActive());
+        assertTrue(Luhn.isValid(ana.getCardId()));
+        assertEquals("Usuario Bank", cardRepository.findById(results.get(3).getCardId()).orElseThrow().getHolderName());
+    }
+
+    @Test
+    void testEnrollCsvActivatesInChunksAndReportsRejections() throws Exception {
+        String issued = mockMvc.perform(post("/card/bulk/issue")
+                .contentType("text/csv")
+                .content("productId,holderName\n800002,\"Gómez, Luis\"\n800002,Marta\n"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        List<String> rows = issued.lines().toList();
+        assertEquals("line,cardId,success,message", rows.get(0));
+        String primera = rows.get(1).split(",")[1];
+        String segunda = rows.get(2).split(",")[1];
+        assertEquals("Gómez, Luis", cardRepository.findById(primera).orElseThrow().getHolderName());
+
+        String enrolled = mockMvc.perform(post("/card/bulk/enroll")
+                .contentType("text/csv")
+                .content("cardId\n" + primera + "\n" + primera + "\n" + segunda + "\n9999999999999999\n"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith("text/csv"))
+            .andReturn().getResponse().getContentAsString();
+
+        assertEquals(List.of(
+                "line,cardId,success,message",
+                "1," + primera + ",true,",
+                "2," + primera + ",false,La tarjeta ya se encuentra activa.",
+                "3," + segunda + ",true,",
+                "4,9999999999999999,false,Tarjeta no encontrada (not found) con id: 9999999999999999"),
+            enrolled.lines().toList());
+        assertTrue(cardRepository.findById(primera).orElseThrow().isActive());
+        assertTrue(cardRepository.findById(segunda).orElseThrow().isActive());
+    }
+
+    @Test
+    void testIssueLargeFile() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 3_000; i++) {
+            csv.append("800003,Titular ").append(i).append('\n');
+        }
+
+        String response = mockMvc.perform(post("/card/bulk/issue")
+                .contentType("text/csv")
+                .content(csv.toString()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertEquals(3_001, response.lines().count());
+        assertEquals(3_000, response.lines().filter(line -> line.contains(",true,")).count());
+    }
+
+    private CardBulkResultDTO read(String line) {
+        try {
+            return objectMapper.readValue(line, CardBulkResultDTO.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
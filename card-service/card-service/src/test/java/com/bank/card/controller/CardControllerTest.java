@@ -7,6 +7,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -48,6 +49,18 @@ class CardControllerTest {
             .andExpect(jsonPath("$.productId").value(productId));
     }
 
+    @Test
+    void testGenerarNumerosTarjeta_Success() throws Exception {
+        String productId = "123456";
+        when(cardService.generarNumerosTarjeta(productId, 2)).thenReturn(List.of("1234560000000001", "1234560000000019"));
+
+        mockMvc.perform(post("/card/" + productId + "/numbers").param("count", "2"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[1].cardNumber").value("1234560000000019"))
+            .andExpect(jsonPath("$[1].productId").value(productId));
+    }
+
   @Test
     void testActivarTarjeta_Success() throws Exception {
         CardEnrollRequestDTO request = new CardEnrollRequestDTO();
@@ -3,11 +3,13 @@ package com.bank.card.controller;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;  
@@ -16,6 +18,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.bank.card.dto.TransactionBatchResultDTO;
 import com.bank.card.dto.TransactionRequestDTO;
 import com.bank.card.exception.CardException;
 import com.bank.card.service.CardService;
@@ -94,4 +97,38 @@ class InternalCardControllerTest {
             .andExpect(status().isNotFound())
             .andExpect(jsonPath("$.message").value("Tarjeta no encontrada"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDebitBatch_Success() throws Exception {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        when(cardService.debitBatch(any())).thenReturn(List.of(
+            TransactionBatchResultDTO.ok("123456"),
+            TransactionBatchResultDTO.rejected("654321", "Saldo insuficiente.")));
+
+        mockMvc.perform(post("/card/internal/debit/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(request, request))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].success").value(true))
+            .andExpect(jsonPath("$[1].success").value(false))
+            .andExpect(jsonPath("$[1].message").value("Saldo insuficiente."));
+    }
+
+    @Test
+    void testReversalBatch_Success() throws Exception {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        when(cardService.reversalBatch(any())).thenReturn(List.of(TransactionBatchResultDTO.ok("123456")));
+
+        mockMvc.perform(post("/card/internal/reversal/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(request))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].cardId").value("123456"));
+    }
+}
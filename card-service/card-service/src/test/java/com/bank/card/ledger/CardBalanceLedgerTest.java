@@ -0,0 +1,207 @@
+package com.bank.card.ledger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.card.dto.CardBalanceRequestDTO;
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.exception.CardException;
+import com.bank.card.model.Card;
+import com.bank.card.model.LedgerCheckpoint;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.repository.LedgerCheckpointRepository;
+import com.bank.card.service.CardService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest(properties = {
+    "card.balance.mode=ledger",
+    "card.ledger.journal-dir=target/ledger-journal-test",
+    "card.ledger.flush-interval-ms=3600000",
+    "card.ledger.journal-fsync=false"
+})
+class CardBalanceLedgerTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardBalanceLedger ledger;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testMutationsAreAppliedInMemoryAndFlushedAsOneDelta() {
+        String cardId = createCard("8000000000000001", new BigDecimal("100.00"));
+
+        cardService.debit(request(cardId, "30.00"));
+        cardService.reversal(request(cardId, "10.00"));
+        CardBalanceRequestDTO recarga = new CardBalanceRequestDTO();
+        recarga.setCardId(cardId);
+        recarga.setBalance(new BigDecimal("5.00"));
+        assertEquals(new BigDecimal("85.00"), cardService.recargarSaldo(recarga).getNewBalance());
+
+        assertEquals(new BigDecimal("85.00"), cardService.consultarSaldo(cardId));
+        assertEquals(new BigDecimal("100.00"), cardRepository.findById(cardId).orElseThrow().getBalance());
+        assertTrue(meterRegistry.get("card.ledger.pending.operations").gauge().value() >= 3);
+
+        ledger.flush();
+
+        assertEquals(new BigDecimal("85.00"), cardRepository.findById(cardId).orElseThrow().getBalance());
+        assertEquals(0, meterRegistry.get("card.ledger.flush.lag").gauge().value());
+    }
+
+    @Test
+    void testDebitRejectedWithoutTouchingBalance() {
+        String cardId = createCard("8000000000000002", new BigDecimal("10.00"));
+
+        CardException ex = assertThrows(CardException.class, () -> cardService.debit(request(cardId, "10.01")));
+        assertEquals("Saldo insuficiente.", ex.getMessage());
+
+        cardService.bloquearTarjeta(cardId);
+        ex = assertThrows(CardException.class, () -> cardService.debit(request(cardId, "1.00")));
+        assertEquals("La tarjeta está bloqueada.", ex.getMessage());
+
+        assertEquals(new BigDecimal("10.00"), cardService.consultarSaldo(cardId));
+    }
+
+    @Test
+    void testAmountsOutsideMinorUnitsAreRejectedBeforeTheJournal() {
+        String cardId = createCard("8000000000000004", new BigDecimal("10.00"));
+        long pending = (long) meterRegistry.get("card.ledger.pending.operations").gauge().value();
+
+        assertThrows(IllegalArgumentException.class, () -> cardService.debit(request(cardId, "0.001")));
+        assertThrows(IllegalArgumentException.class, () -> cardService.reversal(cardId, Long.MAX_VALUE, null));
+
+        assertEquals(new BigDecimal("10.00"), cardService.consultarSaldo(cardId));
+        assertEquals(pending, (long) meterRegistry.get("card.ledger.pending.operations").gauge().value());
+    }
+
+    @Test
+    void testRetriedOperationsAreNotAppliedTwiceBeforeOrAfterTheFlush() {
+        String cardId = createCard("8000000000000005", new BigDecimal("10.00"));
+        TransactionRequestDTO debit = request(cardId, "4.00");
+        debit.setOperationId("purchase-8000000000000005");
+
+        assertTrue(cardService.debitBatch(List.of(debit)).get(0).isSuccess());
+        assertTrue(cardService.debitBatch(List.of(debit)).get(0).isSuccess());
+        ledger.flush();
+        assertTrue(cardService.debitBatch(List.of(debit)).get(0).isSuccess());
+
+        assertEquals(new BigDecimal("6.00"), cardService.consultarSaldo(cardId));
+        assertEquals(Set.of("purchase-8000000000000005"),
+                cardRepository.findAppliedOperations(List.of("purchase-8000000000000005")));
+    }
+
+    @Test
+    void testRecoverReplaysUnflushedSegments(@TempDir Path journalDir) throws Exception {
+        String cardId = createCard("8000000000000003", new BigDecimal("50.00"));
+        long checkpoint = checkpointRepository.findById(CardBalanceLedger.LEDGER_NAME)
+                .map(LedgerCheckpoint::getLastSegment)
+                .orElse(0L);
+
+        try (LedgerJournal journal = new LedgerJournal(journalDir, false)) {
+            journal.open(checkpoint + 1);
+            journal.append(cardId, -2000);
+            journal.rotate();
+            journal.append(cardId, 500, "anulation-8000000000000003");
+        }
+        Files.writeString(journalDir.resolve(String.format("ledger-%020d.journal", checkpoint + 2)),
+                cardId + ";-999.00", java.nio.file.StandardOpenOption.APPEND);
+
+        CardBalanceLedger restarted = new CardBalanceLedger(cardRepository, checkpointRepository,
+                jdbcTemplate, transactionTemplate, new SimpleMeterRegistry(),
+                4, 1000, 1000, journalDir.toString(), false);
+        restarted.recover();
+
+        assertEquals(new BigDecimal("35.00"), cardRepository.findById(cardId).orElseThrow().getBalance());
+        assertEquals(Set.of("anulation-8000000000000003"),
+                cardRepository.findAppliedOperations(List.of("anulation-8000000000000003")));
+        assertEquals(checkpoint + 2, checkpointRepository.findById(CardBalanceLedger.LEDGER_NAME)
+                .orElseThrow().getLastSegment());
+
+        restarted.recover();
+        assertEquals(new BigDecimal("35.00"), cardRepository.findById(cardId).orElseThrow().getBalance());
+        restarted.shutdown();
+    }
+
+    @Test
+    void testConcurrentAppendsShareTheJournalWrites(@TempDir Path journalDir) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try (LedgerJournal journal = new LedgerJournal(journalDir, true)) {
+            journal.open(1);
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                String cardId = "80000000000001" + (i % 20 < 10 ? "0" : "") + (i % 20);
+                writes.add(executor.submit(() -> {
+                    journal.sync(journal.append(cardId, -100));
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get(30, TimeUnit.SECONDS);
+            }
+
+            // Todo lo confirmado ya está en el segmento, antes de rotar o cerrar
+            Map<String, BigDecimal> deltas = journal.read(1, new HashMap<>());
+            assertEquals(20, deltas.size());
+            deltas.values().forEach(delta -> assertEquals(new BigDecimal("-20.00"), delta));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private String createCard(String cardId, BigDecimal balance) {
+        cardRepository.save(Card.builder()
+            .cardId(cardId)
+            .productId(cardId.substring(0, 6))
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(3))
+            .balance(balance)
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+        return cardId;
+    }
+}
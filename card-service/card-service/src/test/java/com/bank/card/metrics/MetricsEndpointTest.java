@@ -0,0 +1,72 @@
+package com.bank.card.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.bank.card.exception.CardException;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void testPrometheusExposesHotPathMetricsAndRejectionReasons() throws Exception {
+        cardRepository.save(Card.builder()
+            .cardId("8000000000000001")
+            .productId("800000")
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(1))
+            .balance(new BigDecimal("10.00"))
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+
+        mockMvc.perform(post("/card/internal/debit")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cardId\":\"8000000000000001\",\"price\":50}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Saldo insuficiente."));
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("card_rejections_total{application=\"card-service\",reason=\"insufficient_balance\"} 1.0"));
+        assertTrue(scrape.contains("card_operation_seconds_bucket{"));
+        assertTrue(scrape.contains("operation=\"debit\""));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("spring_data_repository_invocations_seconds_bucket{"));
+        assertTrue(scrape.contains("hikaricp_connections_active{"));
+    }
+
+    @Test
+    void testRejectionReasonFromMessage() {
+        assertEquals(RejectionReason.BLOCKED, RejectionReason.of(new CardException(RejectionReason.BLOCKED.message())));
+        assertEquals(RejectionReason.NOT_FOUND, RejectionReason.of(RejectionReason.NOT_FOUND.message() + "123"));
+        assertEquals(RejectionReason.INVALID_REQUEST, RejectionReason.of(new IllegalArgumentException("El lote debe contener al menos una operación.")));
+        assertEquals(RejectionReason.OTHER, RejectionReason.of("La tarjeta ya se encuentra activa."));
+    }
+}
@@ -0,0 +1,52 @@
+package com.bank.card.money;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+class MinorUnitsTest {
+
+    @Test
+    void testOf_AcceptsUpToTwoDecimals() {
+        assertEquals(15075, MinorUnits.of(new BigDecimal("150.75")));
+        assertEquals(1000, MinorUnits.of(new BigDecimal("10")));
+        assertEquals(1000, MinorUnits.of(new BigDecimal("10.000")));
+        assertEquals(1200, MinorUnits.of(new BigDecimal("1.2E+1")));
+    }
+
+    @Test
+    void testOf_RejectsExtraDecimalsAndOverflow() {
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> MinorUnits.of(new BigDecimal("0.001")));
+        assertEquals("El monto admite como máximo 2 decimales.", ex.getMessage());
+
+        ex = assertThrows(IllegalArgumentException.class, () -> MinorUnits.of(new BigDecimal("92233720368547758.08")));
+        assertEquals("El monto está fuera del rango permitido.", ex.getMessage());
+        assertEquals(Long.MAX_VALUE, MinorUnits.of(new BigDecimal("92233720368547758.07")));
+    }
+
+    @Test
+    void testOfUnscaled_MatchesBigDecimalConversion() {
+        assertEquals(15075, MinorUnits.of(15075, 2));
+        assertEquals(1500, MinorUnits.of(15, 0));
+        assertEquals(1500, MinorUnits.of(150000, 4));
+        assertEquals(15000, MinorUnits.of(15, -1));
+        assertThrows(IllegalArgumentException.class, () -> MinorUnits.of(150001, 4));
+        assertThrows(IllegalArgumentException.class, () -> MinorUnits.of(Long.MAX_VALUE, 0));
+        assertThrows(IllegalArgumentException.class, () -> MinorUnits.of(1, 127));
+    }
+
+    @Test
+    void testAdd_RejectsOverflow() {
+        assertEquals(-50, MinorUnits.add(100, -150));
+        assertThrows(IllegalArgumentException.class, () -> MinorUnits.add(Long.MAX_VALUE, 1));
+    }
+
+    @Test
+    void testToPlainString_MatchesBigDecimal() {
+        for (long minor : new long[] {0, 5, -5, 99, -99, 100, -100, 15075, -15075, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(MinorUnits.toDecimal(minor).toPlainString(), MinorUnits.toPlainString(minor));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bank.card.numbering;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardNumberBlockRepository;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+
+@SpringBootTest(properties = "card.number.block-size=100")
+class CardNumberAllocatorTest {
+
+    @Autowired
+    private CardNumberAllocator allocator;
+
+    @Autowired
+    private CardNumberBlockRepository blockRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testLuhn() {
+        assertTrue(Luhn.isValid("4539578763621486"));
+        assertFalse(Luhn.isValid("4539578763621487"));
+        assertEquals(1, Luhn.checkDigit("411111111111111"));
+    }
+
+    @Test
+    void testAllocatesUniqueLuhnValidNumbersFromReservedBlocks() {
+        List<String> numbers = allocator.allocate("700001", 250);
+        numbers.addAll(allocator.allocate("700001", 1));
+
+        assertEquals(251, new HashSet<>(numbers).size());
+        assertTrue(numbers.stream().allMatch(n -> n.length() == 16 && n.startsWith("700001") && Luhn.isValid(n)));
+        // 250 salen de un solo bloque ajustado al lote; el siguiente pide un bloque normal
+        assertEquals(350, blockRepository.findById("700001").orElseThrow().getNextValue());
+    }
+
+    @Test
+    void testInstancesCreatingTheCounterConcurrentlyGetDisjointBlocks() throws Exception {
+        String productId = "700003";
+        int instances = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(instances);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < instances; i++) {
+                // Cada asignador simula otra instancia: ninguna ha visto aún el contador del producto
+                CardNumberAllocator instance = new CardNumberAllocator(blockRepository, transactionManager, 10);
+                calls.add(executor.submit(() -> {
+                    start.await();
+                    return instance.allocate(productId, 10);
+                }));
+            }
+            start.countDown();
+
+            Set<String> numbers = new HashSet<>();
+            for (Future<List<String>> call : calls) {
+                numbers.addAll(call.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(instances * 10, numbers.size());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(instances * 10L, blockRepository.findById(productId).orElseThrow().getNextValue());
+    }
+
+    @Test
+    void testBulkIssueInsertsCardsAndSkipsNumbersAlreadyTaken() {
+        String productId = "700002";
+        // Tarjeta previa al asignador que ocupa el primer número que éste entregaría
+        String ocupado = CardNumberAllocator.format(productId, 0);
+        cardRepository.save(Card.builder()
+            .cardId(ocupado)
+            .productId(productId)
+            .holderName("Tarjeta existente")
+            .expiryDate(LocalDate.now().plusYears(1))
+            .balance(new BigDecimal("50.00"))
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+
+        List<String> emitidos = cardService.generarNumerosTarjeta(productId, 2_000);
+
+        Set<String> unicos = new HashSet<>(emitidos);
+        assertEquals(2_000, unicos.size());
+        assertFalse(unicos.contains(ocupado));
+        assertEquals(2_001, cardRepository.findAll().stream().filter(c -> c.getProductId().equals(productId)).count());
+        Card existente = cardRepository.findById(ocupado).orElseThrow();
+        assertEquals("Tarjeta existente", existente.getHolderName());
+        assertEquals(0, new BigDecimal("50.00").compareTo(existente.getBalance()));
+        Card nueva = cardRepository.findById(emitidos.get(0)).orElseThrow();
+        assertFalse(nueva.isActive());
+    }
+}
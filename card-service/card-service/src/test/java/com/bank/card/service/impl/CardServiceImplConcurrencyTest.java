@@ -0,0 +1,171 @@
+package com.bank.card.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.bank.card.dto.TransactionBatchResultDTO;
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.exception.CardException;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+
+@SpringBootTest
+class CardServiceImplConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int DEBITS = 2000;
+    private static final int AFFORDABLE = 1500;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void testDebit_ConcurrentDebitsNeverOverdraw() throws Exception {
+        String cardId = createCard("9000000000000001", new BigDecimal(AFFORDABLE));
+
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(() -> {
+            TransactionRequestDTO request = new TransactionRequestDTO();
+            request.setCardId(cardId);
+            request.setPrice(BigDecimal.ONE);
+            try {
+                cardService.debit(request);
+                approved.incrementAndGet();
+            } catch (CardException e) {
+                rejected.incrementAndGet();
+            }
+        });
+
+        BigDecimal finalBalance = cardRepository.findById(cardId).orElseThrow().getBalance();
+
+        assertEquals(AFFORDABLE, approved.get());
+        assertEquals(DEBITS - AFFORDABLE, rejected.get());
+        assertEquals(0, finalBalance.compareTo(BigDecimal.ZERO));
+    }
+
+    @Test
+    void testDebitBatch_ConcurrentBatchesNeverOverdraw() throws Exception {
+        String cardId = createCard("9000000000000004", new BigDecimal(AFFORDABLE));
+        List<TransactionRequestDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TransactionRequestDTO request = new TransactionRequestDTO();
+            request.setCardId(cardId);
+            request.setPrice(BigDecimal.ONE);
+            batch.add(request);
+        }
+        AtomicInteger approved = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < DEBITS / batch.size(); i++) {
+                futures.add(executor.submit(() -> cardService.debitBatch(batch).forEach(result -> {
+                    if (result.isSuccess()) {
+                        approved.incrementAndGet();
+                    }
+                })));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(AFFORDABLE, approved.get());
+        assertEquals(0, cardRepository.findById(cardId).orElseThrow().getBalance().compareTo(BigDecimal.ZERO));
+    }
+
+    @Test
+    void testDebitBatch_RetriedOperationsAreNotDebitedTwice() {
+        String cardId = createCard("9000000000000005", new BigDecimal("100"));
+        List<TransactionRequestDTO> batch = List.of(
+            request(cardId, "10", "purchase-9000000000000005-1"),
+            request(cardId, "10", "purchase-9000000000000005-2"),
+            request(cardId, "10", "purchase-9000000000000005-1"));
+
+        assertTrue(cardService.debitBatch(batch).stream().allMatch(TransactionBatchResultDTO::isSuccess));
+        // Reintento del lote completo, como tras perder la respuesta
+        assertTrue(cardService.debitBatch(batch).stream().allMatch(TransactionBatchResultDTO::isSuccess));
+
+        assertEquals(0, new BigDecimal("80").compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testSingleOperations_RetriedOperationIdsAreAppliedOnce() {
+        String cardId = createCard("9000000000000006", new BigDecimal("100"));
+        TransactionRequestDTO debit = request(cardId, "30", "purchase-9000000000000006");
+        TransactionRequestDTO reversal = request(cardId, "30", "anulation-9000000000000006");
+
+        for (int i = 0; i < 2; i++) {
+            cardService.debit(debit);
+            cardService.reversal(reversal);
+        }
+        cardService.debit(request(cardId, "30", "purchase-9000000000000006"));
+
+        assertEquals(0, new BigDecimal("100").compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price, String operationId) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        request.setOperationId(operationId);
+        return request;
+    }
+
+    private String createCard(String cardId, BigDecimal balance) {
+        cardRepository.save(Card.builder()
+            .cardId(cardId)
+            .productId(cardId.substring(0, 6))
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(3))
+            .balance(balance)
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+        return cardId;
+    }
+
+    private void runConcurrently(Runnable debit) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>(DEBITS);
+        try {
+            for (int i = 0; i < DEBITS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    debit.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
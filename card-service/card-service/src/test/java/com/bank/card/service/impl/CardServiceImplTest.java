@@ -2,26 +2,38 @@ package com.bank.card.service.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.bank.card.dto.CardBalanceRequestDTO;
 import com.bank.card.dto.CardBalanceResponseDTO;
 import com.bank.card.dto.CardEnrollRequestDTO;
+import com.bank.card.dto.TransactionBatchResultDTO;
 import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.cache.CardCache;
 import com.bank.card.exception.CardException;
+import com.bank.card.exception.CardServiceUnavailableException;
+import com.bank.card.ledger.CardBalanceLedger;
 import com.bank.card.model.Card;
+import com.bank.card.numbering.CardNumberAllocator;
+import com.bank.card.numbering.Luhn;
 import com.bank.card.repository.CardRepository;
+import com.bank.card.shard.CardCommandShards;
 
 @ExtendWith(MockitoExtension.class)
 class CardServiceImplTest {
@@ -29,22 +41,56 @@ class CardServiceImplTest {
     @Mock
     private CardRepository cardRepository;
 
-    @InjectMocks
+    @Mock
+    private CardNumberAllocator numberAllocator;
+
     private CardServiceImpl cardService;
 
+    @BeforeEach
+    void setUp() {
+        cardService = new CardServiceImpl(cardRepository, Optional.empty(), Optional.empty(), numberAllocator, Optional.empty());
+    }
+
 
     @Test
     void testGenerarNumeroTarjeta_Success() {
         String productId = "123456";
         
-        when(cardRepository.save(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(numberAllocator.allocate(productId, 1)).thenReturn(List.of(CardNumberAllocator.format(productId, 0)));
+        when(cardRepository.insertAllIfAbsent(anyList())).thenReturn(new int[]{1});
 
         String numeroTarjeta = cardService.generarNumeroTarjeta(productId);
 
         assertNotNull(numeroTarjeta);
         assertEquals(16, numeroTarjeta.length());
         assertTrue(numeroTarjeta.startsWith(productId));
-        verify(cardRepository, times(1)).save(any(Card.class));
+        assertTrue(Luhn.isValid(numeroTarjeta));
+        verify(cardRepository, times(1)).insertAllIfAbsent(anyList());
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void testGenerarNumerosTarjeta_ReplacesNumbersAlreadyTaken() {
+        String productId = "123456";
+        String ocupado = CardNumberAllocator.format(productId, 0);
+        String libre = CardNumberAllocator.format(productId, 1);
+        String reemplazo = CardNumberAllocator.format(productId, 2);
+
+        when(numberAllocator.allocate(productId, 2)).thenReturn(List.of(ocupado, libre));
+        when(numberAllocator.allocate(productId, 1)).thenReturn(List.of(reemplazo));
+        when(cardRepository.insertAllIfAbsent(anyList())).thenReturn(new int[]{0, 1}, new int[]{1});
+
+        List<String> numeros = cardService.generarNumerosTarjeta(productId, 2);
+
+        // El reemplazo ocupa la posición del número que ya estaba tomado
+        assertEquals(List.of(reemplazo, libre), numeros);
+    }
+
+    @Test
+    void testGenerarNumerosTarjeta_InvalidCount() {
+        assertThrows(IllegalArgumentException.class, () -> cardService.generarNumerosTarjeta("123456", 0));
+        assertThrows(IllegalArgumentException.class, () -> cardService.generarNumerosTarjeta("123456", 10_001));
+        verifyNoInteractions(numberAllocator);
     }
 
     @Test
@@ -143,8 +189,11 @@ class CardServiceImplTest {
         mockCard.setCardId(cardId);
         mockCard.setBalance(new BigDecimal("100"));
 
+        when(cardRepository.credit(cardId, new BigDecimal("500"))).thenAnswer(inv -> {
+            mockCard.setBalance(mockCard.getBalance().add(inv.getArgument(1)));
+            return 1;
+        });
         when(cardRepository.findById(cardId)).thenReturn(Optional.of(mockCard));
-        when(cardRepository.save(any(Card.class))).thenReturn(mockCard);
 
         CardBalanceRequestDTO request = new CardBalanceRequestDTO();
         request.setCardId(cardId);
@@ -152,9 +201,20 @@ class CardServiceImplTest {
 
         CardBalanceResponseDTO response = cardService.recargarSaldo(request);
 
-        assertEquals(new BigDecimal("600"), mockCard.getBalance());
         assertEquals(new BigDecimal("600"), response.getNewBalance());
-        verify(cardRepository, times(1)).save(mockCard);
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void testRecargarSaldo_NotFound() {
+        when(cardRepository.credit("999999", new BigDecimal("500"))).thenReturn(0);
+
+        CardBalanceRequestDTO request = new CardBalanceRequestDTO();
+        request.setCardId("999999");
+        request.setBalance(new BigDecimal("500"));
+
+        CardException ex = assertThrows(CardException.class, () -> cardService.recargarSaldo(request));
+        assertTrue(ex.getMessage().contains("not found"));
     }
     
     @Test
@@ -163,14 +223,11 @@ class CardServiceImplTest {
         request.setCardId("123456");
         request.setBalance(BigDecimal.ZERO);
 
-        Card mockCard = new Card(); 
-        when(cardRepository.findById("123456")).thenReturn(Optional.of(mockCard));
-
         assertThrows(IllegalArgumentException.class, () -> {
             cardService.recargarSaldo(request);
         });
         
-        verify(cardRepository, never()).save(any(Card.class));
+        verify(cardRepository, never()).credit(anyString(), any(BigDecimal.class));
     }
 
 
@@ -245,13 +302,9 @@ class CardServiceImplTest {
     @Test
     void testDebit_Success() {
         String cardId = "123456";
-        Card mockCard = new Card();
-        mockCard.setBalance(new BigDecimal("1000"));
-        mockCard.setActive(true);
-        mockCard.setBlocked(false);
-        mockCard.setExpiryDate(LocalDate.now().plusYears(1));
 
-        when(cardRepository.findById(cardId)).thenReturn(Optional.of(mockCard));
+        when(cardRepository.debitIfAvailable(eq(cardId), eq(new BigDecimal("100")), any(LocalDate.class)))
+            .thenReturn(1);
 
         TransactionRequestDTO request = new TransactionRequestDTO();
         request.setCardId(cardId);
@@ -259,8 +312,9 @@ class CardServiceImplTest {
 
         cardService.debit(request);
 
-        assertEquals(new BigDecimal("900"), mockCard.getBalance());
-        verify(cardRepository, times(1)).save(mockCard);
+        verify(cardRepository, times(1)).debitIfAvailable(eq(cardId), eq(new BigDecimal("100")), eq(LocalDate.now()));
+        verify(cardRepository, never()).findById(anyString());
+        verify(cardRepository, never()).save(any(Card.class));
     }
 
     @Test
@@ -272,35 +326,210 @@ class CardServiceImplTest {
         mockCard.setBlocked(false);
         mockCard.setExpiryDate(LocalDate.now().plusYears(1));
 
+        when(cardRepository.debitIfAvailable(eq(cardId), any(BigDecimal.class), any(LocalDate.class)))
+            .thenReturn(0);
         when(cardRepository.findById(cardId)).thenReturn(Optional.of(mockCard));
 
         TransactionRequestDTO request = new TransactionRequestDTO();
         request.setCardId(cardId);
         request.setPrice(new BigDecimal("100"));
 
-        assertThrows(CardException.class, () -> {
+        CardException ex = assertThrows(CardException.class, () -> {
             cardService.debit(request);
         });
 
+        assertEquals("Saldo insuficiente.", ex.getMessage());
+        assertEquals(new BigDecimal("50"), mockCard.getBalance());
         verify(cardRepository, never()).save(any(Card.class));
     }
 
-    
     @Test
-    void testReversal_Success() {
+    void testDebit_CardBlocked() {
         String cardId = "123456";
         Card mockCard = new Card();
-        mockCard.setBalance(new BigDecimal("900"));
+        mockCard.setBalance(new BigDecimal("1000"));
+        mockCard.setActive(true);
+        mockCard.setBlocked(true);
+        mockCard.setExpiryDate(LocalDate.now().plusYears(1));
 
+        when(cardRepository.debitIfAvailable(eq(cardId), any(BigDecimal.class), any(LocalDate.class)))
+            .thenReturn(0);
         when(cardRepository.findById(cardId)).thenReturn(Optional.of(mockCard));
 
         TransactionRequestDTO request = new TransactionRequestDTO();
         request.setCardId(cardId);
         request.setPrice(new BigDecimal("100"));
 
+        CardException ex = assertThrows(CardException.class, () -> {
+            cardService.debit(request);
+        });
+
+        assertEquals("La tarjeta está bloqueada.", ex.getMessage());
+    }
+
+    @Test
+    void testDebit_InvalidPrice() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("-10"));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            cardService.debit(request);
+        });
+
+        verify(cardRepository, never()).debitIfAvailable(anyString(), any(BigDecimal.class), any(LocalDate.class));
+    }
+
+    @Test
+    void testDebit_MoreThanTwoDecimalsIsRejectedNotRounded() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("10.005"));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> cardService.debit(request));
+
+        assertEquals("El monto admite como máximo 2 decimales.", ex.getMessage());
+        verify(cardRepository, never()).debitIfAvailable(anyString(), any(BigDecimal.class), any(LocalDate.class));
+    }
+
+    @Test
+    void testDebit_MinorUnitsConvertedOnlyForTheColumn() {
+        when(cardRepository.debitIfAvailable(eq("123456"), eq(new BigDecimal("10.50")), any(LocalDate.class))).thenReturn(1);
+
+        cardService.debit("123456", 1050, null);
+
+        verify(cardRepository).debitIfAvailable(eq("123456"), eq(new BigDecimal("10.50")), any(LocalDate.class));
+        assertThrows(IllegalArgumentException.class, () -> cardService.debit("123456", 0, null));
+    }
+
+    
+    @Test
+    void testReversal_Success() {
+        String cardId = "123456";
+        when(cardRepository.credit(cardId, new BigDecimal("100"))).thenReturn(1);
+
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal("100"));
+
         cardService.reversal(request);
 
-        assertEquals(new BigDecimal("1000"), mockCard.getBalance());
-        verify(cardRepository, times(1)).save(mockCard);
+        verify(cardRepository, times(1)).credit(cardId, new BigDecimal("100"));
+        verify(cardRepository, never()).save(any(Card.class));
+    }
+
+    @Test
+    void testReversal_CardNotFound() {
+        when(cardRepository.credit("999999", new BigDecimal("1.00"))).thenReturn(0);
+
+        CardException ex = assertThrows(CardException.class, () -> cardService.reversal("999999", 100, null));
+
+        assertEquals("Tarjeta no encontrada (not found) con id: 999999", ex.getMessage());
+    }
+
+    @Test
+    void testDebitBatch_ReportsResultPerItem() {
+        Card blockedCard = new Card();
+        blockedCard.setActive(true);
+        blockedCard.setBlocked(true);
+        blockedCard.setExpiryDate(LocalDate.now().plusYears(1));
+
+        TransactionRequestDTO ok = new TransactionRequestDTO();
+        ok.setCardId("111111");
+        ok.setPrice(new BigDecimal("10"));
+        TransactionRequestDTO blocked = new TransactionRequestDTO();
+        blocked.setCardId("222222");
+        blocked.setPrice(new BigDecimal("10"));
+        TransactionRequestDTO invalid = new TransactionRequestDTO();
+        invalid.setCardId("333333");
+        invalid.setPrice(BigDecimal.ZERO);
+
+        when(cardRepository.debitAllIfAvailable(eq(List.of(ok, blocked)), any(LocalDate.class)))
+            .thenReturn(new int[]{1, 0});
+        when(cardRepository.findById("222222")).thenReturn(Optional.of(blockedCard));
+
+        List<TransactionBatchResultDTO> results = cardService.debitBatch(List.of(ok, blocked, invalid));
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("La tarjeta está bloqueada.", results.get(1).getMessage());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals("333333", results.get(2).getCardId());
+    }
+
+    @Test
+    void testReversalBatch_CardNotFound() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("non-existent");
+        request.setPrice(new BigDecimal("10"));
+
+        when(cardRepository.creditAll(List.of(request))).thenReturn(new int[]{0});
+
+        List<TransactionBatchResultDTO> results = cardService.reversalBatch(List.of(request));
+
+        assertFalse(results.get(0).isSuccess());
+        assertTrue(results.get(0).getMessage().contains("not found"));
+    }
+
+    @Test
+    void testDebitBatch_ShardsUnavailableReportedPerItem() {
+        CardCommandShards commandShards = mock(CardCommandShards.class);
+        CardServiceImpl shardedService = new CardServiceImpl(cardRepository, Optional.empty(), Optional.empty(), numberAllocator, Optional.of(commandShards));
+        CompletableFuture<Long> applied = CompletableFuture.completedFuture(0L);
+        CompletableFuture<Long> slow = new CompletableFuture<>();
+
+        when(commandShards.submitDebit(eq("111111"), eq(1000L), any(), isNull())).thenReturn(applied);
+        when(commandShards.submitDebit(eq("222222"), eq(1000L), any(), isNull())).thenReturn(slow);
+        when(commandShards.submitDebit(eq("333333"), eq(1000L), any(), isNull()))
+            .thenThrow(new CardServiceUnavailableException("El servicio de tarjetas tiene demasiadas operaciones en cola.", false));
+        // Los resultados ya resueltos se esperan con la lógica real
+        when(commandShards.await(any())).thenCallRealMethod();
+        doThrow(new CardServiceUnavailableException("Tiempo de espera agotado en la cola de la tarjeta.", true))
+            .when(commandShards).await(slow);
+
+        List<TransactionBatchResultDTO> results = shardedService.debitBatch(List.of(
+            request("111111", "10"), request("222222", "10"), request("333333", "10")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).isOutcomeUnknown());
+        assertFalse(results.get(2).isSuccess());
+        assertFalse(results.get(2).isOutcomeUnknown());
+    }
+
+    @Test
+    void testLedgerMutationsInvalidateCache() {
+        CardBalanceLedger balanceLedger = mock(CardBalanceLedger.class);
+        CardCache cardCache = mock(CardCache.class);
+        CardServiceImpl ledgerService = new CardServiceImpl(cardRepository, Optional.of(balanceLedger), Optional.of(cardCache), numberAllocator, Optional.empty());
+        Card card = new Card();
+        card.setCardId("111111");
+        when(cardRepository.findById("111111")).thenReturn(Optional.of(card));
+
+        ledgerService.debit(request("111111", "10"));
+        ledgerService.reversal(request("111111", "10"));
+        CardBalanceRequestDTO recarga = new CardBalanceRequestDTO();
+        recarga.setCardId("111111");
+        recarga.setBalance(new BigDecimal("5"));
+        ledgerService.recargarSaldo(recarga);
+        ledgerService.debitBatch(List.of(request("111111", "1")));
+        ledgerService.reversalBatch(List.of(request("111111", "1")));
+
+        verify(cardCache, times(5)).invalidate("111111");
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    @Test
+    void testDebitBatch_Empty() {
+        assertThrows(IllegalArgumentException.class, () -> {
+            cardService.debitBatch(List.of());
+        });
     }
 }
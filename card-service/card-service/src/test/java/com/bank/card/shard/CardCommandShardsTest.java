@@ -0,0 +1,221 @@
+package com.bank.card.shard;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.card.dto.CardBalanceRequestDTO;
+import com.bank.card.dto.TransactionBatchResultDTO;
+import com.bank.card.dto.TransactionRequestDTO;
+import com.bank.card.exception.CardException;
+import com.bank.card.exception.CardServiceUnavailableException;
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.bank.card.service.CardService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest(properties = {
+    "card.balance.mode=sharded",
+    "card.shard.count=2"
+})
+class CardCommandShardsTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardCommandShards commandShards;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Test
+    void testConcurrentDebitsOnOneCardNeverOverdraw() throws Exception {
+        String cardId = createCard("9100000000000001", new BigDecimal("30.00"));
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                calls.add(executor.submit(() -> {
+                    try {
+                        cardService.debit(request(cardId, "1.00"));
+                        approved.incrementAndGet();
+                    } catch (CardException e) {
+                        assertEquals("Saldo insuficiente.", e.getMessage());
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> call : calls) {
+                call.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(30, approved.get());
+        assertEquals(20, rejected.get());
+        assertEquals(0, BigDecimal.ZERO.compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testCommandsForOneCardApplyInSubmissionOrder() {
+        String cardId = createCard("9100000000000002", new BigDecimal("10.00"));
+
+        // Encolados sin esperar: el débito solo alcanza si el abono anterior ya se aplicó
+        var credit = commandShards.submitCredit(cardId, 500);
+        var debit = commandShards.submitDebit(cardId, 1500, card -> { });
+        var overdraft = commandShards.submitDebit(cardId, 1, card -> { });
+
+        assertEquals(1500, commandShards.await(credit));
+        assertEquals(0, commandShards.await(debit));
+        CardException ex = assertThrows(CardException.class, () -> commandShards.await(overdraft));
+        assertEquals("Saldo insuficiente.", ex.getMessage());
+        assertEquals(0, BigDecimal.ZERO.compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testRechargeReversalAndRejections() {
+        String cardId = createCard("9100000000000003", new BigDecimal("20.00"));
+
+        CardBalanceRequestDTO recarga = new CardBalanceRequestDTO();
+        recarga.setCardId(cardId);
+        recarga.setBalance(new BigDecimal("5.00"));
+        assertEquals(new BigDecimal("25.00"), cardService.recargarSaldo(recarga).getNewBalance());
+
+        cardService.reversal(request(cardId, "2.50"));
+        assertEquals(0, new BigDecimal("27.50").compareTo(cardService.consultarSaldo(cardId)));
+
+        CardException notFound = assertThrows(CardException.class, () -> cardService.debit(request("9100000000009999", "1.00")));
+        assertTrue(notFound.getMessage().contains("not found"));
+
+        cardService.bloquearTarjeta(cardId);
+        CardException blocked = assertThrows(CardException.class, () -> cardService.debit(request(cardId, "1.00")));
+        assertEquals("La tarjeta está bloqueada.", blocked.getMessage());
+    }
+
+    @Test
+    void testBatchReportsResultPerItem() {
+        String cardId = createCard("9100000000000004", new BigDecimal("10.00"));
+
+        List<TransactionBatchResultDTO> results = cardService.debitBatch(List.of(
+            request(cardId, "4.00"),
+            request(cardId, "4.00"),
+            request(cardId, "4.00"),
+            request(cardId, "0.001")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals("Saldo insuficiente.", results.get(2).getMessage());
+        assertEquals("El monto admite como máximo 2 decimales.", results.get(3).getMessage());
+        assertEquals(0, new BigDecimal("2.00").compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testRetriedOperationsAreNotAppliedTwice() {
+        String cardId = createCard("9100000000000005", new BigDecimal("10.00"));
+        TransactionRequestDTO debit = request(cardId, "4.00");
+        debit.setOperationId("purchase-9100000000000005");
+        TransactionRequestDTO credit = request(cardId, "1.00");
+        credit.setOperationId("anulation-9100000000000005");
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(cardService.debitBatch(List.of(debit, debit)).stream().allMatch(TransactionBatchResultDTO::isSuccess));
+            assertTrue(cardService.reversalBatch(List.of(credit)).get(0).isSuccess());
+        }
+
+        assertEquals(0, new BigDecimal("7.00").compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void testAbandonedCommandIsNeverApplied() throws Exception {
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        CardCommandShards stalled = new CardCommandShards(cardRepository, mock(JdbcTemplate.class), transactionTemplate,
+            new SimpleMeterRegistry(), 1, 1, 16, 50);
+
+        // Sin arrancar el shard: la cola de un lugar se llena y la espera se agota antes de tomar el comando
+        var credit = stalled.submitCredit("9100000000000006", 100);
+        CardServiceUnavailableException full = assertThrows(CardServiceUnavailableException.class,
+            () -> stalled.submitCredit("9100000000000006", 100));
+        assertFalse(full.isOutcomeUnknown());
+        CardServiceUnavailableException timeout = assertThrows(CardServiceUnavailableException.class,
+            () -> stalled.await(credit));
+        assertFalse(timeout.isOutcomeUnknown());
+
+        stalled.start();
+        stalled.stop();
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void testCommitFailureLeavesOutcomeUnknown() throws Exception {
+        PlatformTransactionManager failingCommit = mock(PlatformTransactionManager.class);
+        when(failingCommit.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doThrow(new TransactionSystemException("Conexión perdida durante el commit")).when(failingCommit).commit(any());
+        PlatformTransactionManager noConnection = mock(PlatformTransactionManager.class);
+        when(noConnection.getTransaction(any())).thenThrow(new CannotCreateTransactionException("Sin conexiones disponibles"));
+
+        // El commit pudo haberse confirmado en la base; si la transacción ni siquiera empezó, no se aplicó nada
+        assertTrue(failedCredit(failingCommit).isOutcomeUnknown());
+        assertFalse(failedCredit(noConnection).isOutcomeUnknown());
+    }
+
+    private CardServiceUnavailableException failedCredit(PlatformTransactionManager transactionManager) throws Exception {
+        CardCommandShards shards = new CardCommandShards(cardRepository, mock(JdbcTemplate.class),
+            new TransactionTemplate(transactionManager), new SimpleMeterRegistry(), 1, 16, 16, 5000);
+        shards.start();
+        try {
+            var credit = shards.submitCredit("9100000000000007", 100, "recharge-commit");
+            return assertThrows(CardServiceUnavailableException.class, () -> shards.await(credit));
+        } finally {
+            shards.stop();
+        }
+    }
+
+    private TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private String createCard(String cardId, BigDecimal balance) {
+        cardRepository.save(Card.builder()
+            .cardId(cardId)
+            .productId(cardId.substring(0, 6))
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(3))
+            .balance(balance)
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+        return cardId;
+    }
+}
@@ -0,0 +1,106 @@
+package com.bank.card.tracing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.bank.card.model.Card;
+import com.bank.card.repository.CardRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+
+@SpringBootTest(properties = {
+    "tracing.export.file.enabled=true",
+    "management.tracing.sampling.probability=1.0"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class FileSpanExporterTest {
+
+    private static final Path TRACES = tempFile();
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+    private static final String CALLER_SPAN_ID = "00f067aa0ba902b7";
+
+    @DynamicPropertySource
+    static void tracesFile(DynamicPropertyRegistry registry) {
+        registry.add("tracing.export.file.path", TRACES::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testDebitContinuesCallerTraceAndIsWrittenToFile() throws Exception {
+        cardRepository.save(Card.builder()
+            .cardId("8100000000000001")
+            .productId("810000")
+            .holderName("Usuario Bank")
+            .expiryDate(LocalDate.now().plusYears(1))
+            .balance(new BigDecimal("100.00"))
+            .isActive(true)
+            .isBlocked(false)
+            .build());
+
+        mockMvc.perform(post("/card/internal/debit")
+                .header("traceparent", "00-" + TRACE_ID + "-" + CALLER_SPAN_ID + "-01")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cardId\":\"8100000000000001\",\"price\":10}"))
+            .andExpect(status().isOk());
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+
+        List<JsonNode> spans = Files.readAllLines(TRACES).stream()
+            .map(this::read)
+            .filter(span -> TRACE_ID.equals(span.path("traceId").asText()))
+            .toList();
+
+        JsonNode server = spans.stream().filter(span -> span.path("kind").asText().equals("SERVER")).findFirst().orElseThrow();
+        assertEquals(CALLER_SPAN_ID, server.path("parentSpanId").asText());
+        assertTrue(spans.stream().anyMatch(span -> span.path("name").asText().equals("card debit")));
+        assertTrue(spans.stream().anyMatch(span -> span.path("name").asText().equals("query")));
+    }
+
+    private JsonNode read(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path tempFile() {
+        try {
+            return Files.createTempDirectory("traces").resolve("card-service.jsonl");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
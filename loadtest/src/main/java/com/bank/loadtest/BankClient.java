@@ -0,0 +1,159 @@
+package com.bank.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente HTTP asíncrono de los flujos de la colección de Postman. Cada llamada registra su
+ * latencia en el {@link EndpointStats} del endpoint y nunca falla: si la petición no tuvo éxito
+ * el resultado es {@code null} o {@code false}.
+ */
+final class BankClient {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final String cardServiceUrl;
+    private final String transactionServiceUrl;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Duration requestTimeout;
+
+    BankClient(String cardServiceUrl, String transactionServiceUrl, int maxInFlight, Duration requestTimeout) {
+        this.cardServiceUrl = cardServiceUrl;
+        this.transactionServiceUrl = transactionServiceUrl;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.requestTimeout = requestTimeout;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    Collection<EndpointStats> stats() {
+        return stats.values();
+    }
+
+    CompletableFuture<String> generateNumber(String productId, long intendedStart) {
+        return send(Endpoint.CARD_NUMBER, get(cardServiceUrl + "/card/" + productId + "/number"), intendedStart)
+                .thenApply(body -> body == null ? null : read(body).path("cardNumber").asText(null));
+    }
+
+    CompletableFuture<Boolean> enroll(String cardId, long intendedStart) {
+        return send(Endpoint.CARD_ENROLL, post(cardServiceUrl + "/card/enroll", Map.of("cardId", cardId)), intendedStart)
+                .thenApply(body -> body != null);
+    }
+
+    CompletableFuture<Boolean> recharge(String cardId, BigDecimal amount, long intendedStart) {
+        return send(Endpoint.CARD_RECHARGE,
+                post(cardServiceUrl + "/card/balance", Map.of("cardId", cardId, "balance", amount)), intendedStart)
+                .thenApply(body -> body != null);
+    }
+
+    CompletableFuture<Boolean> balance(String cardId, long intendedStart) {
+        return send(Endpoint.CARD_BALANCE, get(cardServiceUrl + "/card/balance/" + cardId), intendedStart)
+                .thenApply(body -> body != null);
+    }
+
+    /** Devuelve el id de la transacción creada. */
+    CompletableFuture<Long> purchase(String cardId, BigDecimal price, long intendedStart) {
+        return send(Endpoint.PURCHASE,
+                post(transactionServiceUrl + "/transaction/purchase", Map.of("cardId", cardId, "price", price)),
+                intendedStart)
+                .thenApply(body -> {
+                    if (body == null) {
+                        return null;
+                    }
+                    JsonNode transactionId = read(body).path("transactionId");
+                    return transactionId.isNumber() ? transactionId.asLong() : null;
+                });
+    }
+
+    CompletableFuture<Boolean> anulation(String cardId, long transactionId, long intendedStart) {
+        return send(Endpoint.ANULATION, post(transactionServiceUrl + "/transaction/anulation",
+                Map.of("cardId", cardId, "transactionId", transactionId)), intendedStart)
+                .thenApply(body -> body != null);
+    }
+
+    /** Genera, activa y recarga una tarjeta nueva; devuelve su número o {@code null}. */
+    CompletableFuture<String> issue(String productId, BigDecimal initialBalance, long intendedStart) {
+        return generateNumber(productId, intendedStart).thenCompose(cardId -> {
+            if (cardId == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return enroll(cardId, System.nanoTime())
+                    .thenCompose(enrolled -> enrolled
+                            ? recharge(cardId, initialBalance, System.nanoTime())
+                            : CompletableFuture.completedFuture(false))
+                    .thenApply(recharged -> recharged ? cardId : null);
+        });
+    }
+
+    /** Espera a que terminen las peticiones en vuelo. */
+    boolean awaitIdle(Duration timeout) throws InterruptedException {
+        if (!inFlight.tryAcquire(maxInFlight, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            return false;
+        }
+        inFlight.release(maxInFlight);
+        return true;
+    }
+
+    private CompletableFuture<String> send(Endpoint endpoint, HttpRequest request, long intendedStart) {
+        EndpointStats endpointStats = stats.get(endpoint);
+        if (!inFlight.tryAcquire()) {
+            endpointStats.recordDropped(intendedStart);
+            return CompletableFuture.completedFuture(null);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    inFlight.release();
+                    if (error != null) {
+                        endpointStats.recordFailure(intendedStart);
+                        return null;
+                    }
+                    endpointStats.record(intendedStart, response.statusCode());
+                    return response.statusCode() / 100 == 2 ? response.body() : null;
+                });
+    }
+
+    private HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(requestTimeout).GET().build();
+    }
+
+    private HttpRequest post(String url, Map<String, Object> body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(url))
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private JsonNode read(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            return objectMapper.missingNode();
+        }
+    }
+}
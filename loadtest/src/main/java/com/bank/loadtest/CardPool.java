@@ -0,0 +1,66 @@
+package com.bank.loadtest;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tarjetas activas con reparto caliente/frío: {@code hotShare} de las operaciones van a las
+ * primeras {@code hotFraction} tarjetas y el resto a las demás, incluidas las emitidas durante la
+ * prueba. También guarda compras recientes para poder anularlas.
+ */
+final class CardPool {
+
+    private static final int MAX_RECENT_PURCHASES = 10_000;
+
+    private final List<String> cards;
+    private final int hotCount;
+    private final double hotShare;
+    private final Queue<Purchase> recentPurchases = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger recentPurchaseCount = new AtomicInteger();
+
+    CardPool(List<String> initialCards, double hotFraction, double hotShare) {
+        this.cards = new CopyOnWriteArrayList<>(initialCards);
+        this.hotCount = Math.max(1, (int) Math.ceil(initialCards.size() * hotFraction));
+        this.hotShare = hotShare;
+    }
+
+    String pick(SplittableRandom random) {
+        int size = cards.size();
+        if (size <= hotCount || random.nextDouble() < hotShare) {
+            return cards.get(random.nextInt(Math.min(hotCount, size)));
+        }
+        return cards.get(hotCount + random.nextInt(size - hotCount));
+    }
+
+    void add(String cardId) {
+        cards.add(cardId);
+    }
+
+    int size() {
+        return cards.size();
+    }
+
+    void addPurchase(String cardId, long transactionId) {
+        if (recentPurchaseCount.incrementAndGet() > MAX_RECENT_PURCHASES) {
+            recentPurchaseCount.decrementAndGet();
+            return;
+        }
+        recentPurchases.add(new Purchase(cardId, transactionId));
+    }
+
+    /** La compra más antigua sin anular, o {@code null} si no hay. */
+    Purchase takePurchase() {
+        Purchase purchase = recentPurchases.poll();
+        if (purchase != null) {
+            recentPurchaseCount.decrementAndGet();
+        }
+        return purchase;
+    }
+
+    record Purchase(String cardId, long transactionId) {
+    }
+}
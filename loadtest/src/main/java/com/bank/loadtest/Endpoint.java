@@ -0,0 +1,23 @@
+package com.bank.loadtest;
+
+/**
+ * Endpoints medidos, con la misma ruta que usa la colección de Postman.
+ */
+enum Endpoint {
+    CARD_NUMBER("GET /card/{productId}/number"),
+    CARD_ENROLL("POST /card/enroll"),
+    CARD_RECHARGE("POST /card/balance"),
+    CARD_BALANCE("GET /card/balance/{cardId}"),
+    PURCHASE("POST /transaction/purchase"),
+    ANULATION("POST /transaction/anulation");
+
+    private final String label;
+
+    Endpoint(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+}
@@ -0,0 +1,99 @@
+package com.bank.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias y resultados de un endpoint. La latencia se mide desde el instante en que la petición
+ * debía salir según el calendario de llegadas, no desde que salió, para no ocultar la espera
+ * acumulada cuando el sistema se atrasa (coordinated omission).
+ */
+final class EndpointStats {
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Endpoint endpoint;
+    private final Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long measureFrom = Long.MIN_VALUE;
+
+    EndpointStats(Endpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long intendedStartNanos, int status) {
+        if (intendedStartNanos < measureFrom) {
+            return;
+        }
+        recordLatency(intendedStartNanos);
+        if (status >= 200 && status < 300) {
+            ok.increment();
+        } else if (status >= 400 && status < 500) {
+            clientErrors.increment();
+        } else {
+            serverErrors.increment();
+        }
+    }
+
+    /** Timeout o error de red: cuenta como error de servidor. */
+    void recordFailure(long intendedStartNanos) {
+        if (intendedStartNanos < measureFrom) {
+            return;
+        }
+        recordLatency(intendedStartNanos);
+        serverErrors.increment();
+    }
+
+    /** Llegada descartada porque se alcanzó el máximo de peticiones en vuelo del generador. */
+    void recordDropped(long intendedStartNanos) {
+        if (intendedStartNanos >= measureFrom) {
+            dropped.increment();
+        }
+    }
+
+    /** Descarta lo registrado hasta ahora (preparación) y solo mide llegadas desde {@code nanos}. */
+    void measureFrom(long nanos) {
+        measureFrom = nanos;
+        recorder.reset();
+        ok.reset();
+        clientErrors.reset();
+        serverErrors.reset();
+        dropped.reset();
+    }
+
+    Result snapshot(double seconds) {
+        Histogram histogram = recorder.getIntervalHistogram();
+        return new Result(endpoint, histogram, ok.sum(), clientErrors.sum(), serverErrors.sum(), dropped.sum(), seconds);
+    }
+
+    private void recordLatency(long intendedStartNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStartNanos);
+        recorder.recordValue(Math.max(0, Math.min(micros, MAX_LATENCY_MICROS)));
+    }
+
+    record Result(Endpoint endpoint, Histogram histogram, long ok, long clientErrors, long serverErrors,
+                  long dropped, double seconds) {
+
+        long completed() {
+            return ok + clientErrors + serverErrors;
+        }
+
+        double throughput() {
+            return seconds > 0 ? completed() / seconds : 0;
+        }
+
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        double maxMillis() {
+            return histogram.getMaxValue() / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.bank.loadtest;
+
+/**
+ * Flujos de la colección de Postman que se generan en régimen permanente. Cada uno tiene su propia
+ * tasa de llegadas ({@code loadtest.rate.<nombre>}, peticiones por segundo).
+ */
+enum Flow {
+    /** Generar número, activar y recargar saldo inicial de una tarjeta nueva. */
+    ISSUE("issue", 2),
+    RECHARGE("recharge", 20),
+    BALANCE("balance", 100),
+    PURCHASE("purchase", 200),
+    ANULATION("anulation", 10);
+
+    private final String property;
+    private final double defaultRate;
+
+    Flow(String property, double defaultRate) {
+        this.property = property;
+        this.defaultRate = defaultRate;
+    }
+
+    String property() {
+        return property;
+    }
+
+    double defaultRate() {
+        return defaultRate;
+    }
+}
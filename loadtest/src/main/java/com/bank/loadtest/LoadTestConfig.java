@@ -0,0 +1,88 @@
+package com.bank.loadtest;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parámetros de la prueba, leídos de propiedades del sistema ({@code -Dloadtest.*}).
+ */
+final class LoadTestConfig {
+
+    final long warmupSeconds;
+    final long durationSeconds;
+    final int cards;
+    final String productId;
+    final double hotFraction;
+    final double hotShare;
+    final boolean poisson;
+    final long seed;
+    final int maxInFlight;
+    final long requestTimeoutMs;
+    final Map<Flow, Double> rates = new EnumMap<>(Flow.class);
+    final Path outputDir;
+    final String cardServiceUrl;
+    final String transactionServiceUrl;
+    final Path cardServiceJar;
+    final Path transactionServiceJar;
+    final List<String> cardServiceArgs;
+    final List<String> transactionServiceArgs;
+    final List<String> jvmArgs;
+    final String baseline;
+    final double tolerance;
+
+    private LoadTestConfig() {
+        warmupSeconds = Long.getLong("loadtest.warmup-s", 10);
+        durationSeconds = Long.getLong("loadtest.duration-s", 30);
+        cards = Integer.getInteger("loadtest.cards", 1000);
+        productId = System.getProperty("loadtest.product-id", "445233");
+        hotFraction = doubleProperty("loadtest.hot-fraction", 0.2);
+        hotShare = doubleProperty("loadtest.hot-share", 0.8);
+        poisson = Boolean.parseBoolean(System.getProperty("loadtest.poisson", "true"));
+        seed = Long.getLong("loadtest.seed", 42);
+        maxInFlight = Integer.getInteger("loadtest.max-in-flight", 2000);
+        requestTimeoutMs = Long.getLong("loadtest.request-timeout-ms", 10000);
+        for (Flow flow : Flow.values()) {
+            rates.put(flow, doubleProperty("loadtest.rate." + flow.property(), flow.defaultRate()));
+        }
+        outputDir = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+        cardServiceUrl = System.getProperty("loadtest.card-service.url");
+        transactionServiceUrl = System.getProperty("loadtest.transaction-service.url");
+        cardServiceJar = Path.of(System.getProperty("loadtest.card-service.jar",
+                "../card-service/card-service/target/card-service-0.0.1-SNAPSHOT-exec.jar"));
+        transactionServiceJar = Path.of(System.getProperty("loadtest.transaction-service.jar",
+                "../transaction-service/transaction-service/target/transaction-service-0.0.1-SNAPSHOT-exec.jar"));
+        cardServiceArgs = listProperty("loadtest.card-service.args");
+        transactionServiceArgs = listProperty("loadtest.transaction-service.args");
+        jvmArgs = listProperty("loadtest.jvm-args");
+        baseline = System.getProperty("loadtest.baseline");
+        tolerance = doubleProperty("loadtest.tolerance", 0.20);
+
+        if (hotFraction <= 0 || hotFraction > 1 || hotShare < 0 || hotShare > 1) {
+            throw new IllegalArgumentException("loadtest.hot-fraction debe estar en (0, 1] y loadtest.hot-share en [0, 1].");
+        }
+        if (cards <= 0) {
+            throw new IllegalArgumentException("loadtest.cards debe ser positivo.");
+        }
+    }
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig();
+    }
+
+    double rate(Flow flow) {
+        return rates.get(flow);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static List<String> listProperty(String name) {
+        String value = System.getProperty(name, "").trim();
+        return value.isEmpty() ? List.of() : Arrays.asList(value.split("\\s+"));
+    }
+}
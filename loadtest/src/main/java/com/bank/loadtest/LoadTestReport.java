@@ -0,0 +1,99 @@
+package com.bank.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla por endpoint en consola, distribución completa de percentiles de HdrHistogram
+ * ({@code <endpoint>.hgrm}) y un {@code summary.json} que se puede usar como línea base.
+ */
+final class LoadTestReport {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    void print(List<EndpointStats.Result> results, PrintStream out) {
+        out.printf("%-30s %8s %8s %6s %6s %7s %9s %9s %9s %9s %9s %9s%n", "endpoint", "count", "ok", "4xx",
+                "error", "drop", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats.Result result : results) {
+            if (result.completed() == 0 && result.dropped() == 0) {
+                continue;
+            }
+            out.printf("%-30s %8d %8d %6d %6d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", result.endpoint().label(),
+                    result.completed(), result.ok(), result.clientErrors(), result.serverErrors(), result.dropped(),
+                    result.throughput(), result.percentileMillis(50), result.percentileMillis(90),
+                    result.percentileMillis(99), result.percentileMillis(99.9), result.maxMillis());
+        }
+    }
+
+    Path write(List<EndpointStats.Result> results, Path outputDir) throws IOException {
+        Files.createDirectories(outputDir);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (EndpointStats.Result result : results) {
+            if (result.completed() == 0) {
+                continue;
+            }
+            Path hgrm = outputDir.resolve(result.endpoint().name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(hgrm))) {
+                // Valores en microsegundos, se escalan a milisegundos
+                result.histogram().outputPercentileDistribution(out, 1000.0);
+            }
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("count", result.completed());
+            endpoint.put("ok", result.ok());
+            endpoint.put("clientErrors", result.clientErrors());
+            endpoint.put("serverErrors", result.serverErrors());
+            endpoint.put("dropped", result.dropped());
+            endpoint.put("throughput", result.throughput());
+            for (double percentile : PERCENTILES) {
+                endpoint.put("p" + format(percentile) + "Ms", result.percentileMillis(percentile));
+            }
+            endpoint.put("maxMs", result.maxMillis());
+            summary.put(result.endpoint().label(), endpoint);
+        }
+        Path file = outputDir.resolve("summary.json");
+        objectMapper.writeValue(file.toFile(), summary);
+        return file;
+    }
+
+    /**
+     * Compara contra un {@code summary.json} previo: hay regresión si el p99 sube o el throughput
+     * baja más que la tolerancia.
+     */
+    boolean compare(Path baseline, List<EndpointStats.Result> results, double tolerance, PrintStream out)
+            throws IOException {
+        JsonNode before = objectMapper.readTree(baseline.toFile());
+        boolean regression = false;
+        for (EndpointStats.Result result : results) {
+            JsonNode previous = before.path(result.endpoint().label());
+            if (previous.isMissingNode() || result.completed() == 0) {
+                continue;
+            }
+            double p99Change = change(previous.path("p99Ms").asDouble(), result.percentileMillis(99));
+            double throughputChange = change(previous.path("throughput").asDouble(), result.throughput());
+            boolean slower = p99Change > tolerance || throughputChange < -tolerance;
+            regression |= slower;
+            out.printf("%-30s p99 %+.1f%%  req/s %+.1f%%%s%n", result.endpoint().label(), p99Change * 100,
+                    throughputChange * 100, slower ? "  REGRESIÓN" : "");
+        }
+        return regression;
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,118 @@
+package com.bank.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca card-service y transaction-service con H2 (salvo
+ * que se indiquen sus URLs), emite las tarjetas iniciales y reproduce los flujos de la colección de
+ * Postman a tasas de llegada fijas.
+ *
+ * <pre>
+ * mvn -B compile exec:java -Dloadtest.duration-s=60 -Dloadtest.rate.purchase=300 -Dloadtest.cards=2000
+ *     [-Dloadtest.baseline=target/loadtest/summary.json -Dloadtest.tolerance=0.20]
+ *     [-Dloadtest.transaction-service.args="--transaction.purchase.mode=async"]
+ * </pre>
+ */
+public final class LoadTestRunner {
+
+    private static final int SETUP_CONCURRENCY = 32;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Deque<ServiceProcess> services = new ConcurrentLinkedDeque<>();
+        Thread shutdownHook = new Thread(() -> closeAll(services));
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        try {
+            String cardServiceUrl = config.cardServiceUrl;
+            if (cardServiceUrl == null) {
+                services.push(ServiceProcess.start("card-service", config.cardServiceJar, config.jvmArgs,
+                        config.cardServiceArgs, config.outputDir));
+                cardServiceUrl = services.peek().baseUrl();
+            }
+            String transactionServiceUrl = config.transactionServiceUrl;
+            if (transactionServiceUrl == null) {
+                List<String> transactionArgs = new ArrayList<>(config.transactionServiceArgs);
+                transactionArgs.add("--card.service.url=" + cardServiceUrl);
+                services.push(ServiceProcess.start("transaction-service", config.transactionServiceJar, config.jvmArgs,
+                        transactionArgs, config.outputDir));
+                transactionServiceUrl = services.peek().baseUrl();
+            }
+            System.out.println("card-service: " + cardServiceUrl + "  transaction-service: " + transactionServiceUrl);
+
+            BankClient client = new BankClient(cardServiceUrl, transactionServiceUrl, config.maxInFlight,
+                    Duration.ofMillis(config.requestTimeoutMs));
+            CardPool pool = new CardPool(issueCards(config, client), config.hotFraction, config.hotShare);
+            System.out.printf("%d tarjetas activas; %.0f%% de las operaciones sobre el %.0f%% caliente%n",
+                    pool.size(), config.hotShare * 100, config.hotFraction * 100);
+
+            long start = System.nanoTime();
+            long measureFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+            long end = measureFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+            client.stats().forEach(stats -> stats.measureFrom(measureFrom));
+            new OpenLoadGenerator(config, client, pool).run(start, end);
+            if (!client.awaitIdle(Duration.ofMillis(config.requestTimeoutMs * 2))) {
+                System.out.println("Quedaron peticiones en vuelo al cerrar la medición");
+            }
+
+            List<EndpointStats.Result> results = client.stats().stream()
+                    .map(stats -> stats.snapshot(config.durationSeconds))
+                    .toList();
+            LoadTestReport report = new LoadTestReport();
+            report.print(results, System.out);
+            Path summary = report.write(results, config.outputDir);
+            System.out.println("Resultados guardados en " + summary.toAbsolutePath());
+
+            if (config.baseline != null
+                    && report.compare(Path.of(config.baseline), results, config.tolerance, System.out)) {
+                throw new IllegalStateException("Regresión respecto a " + config.baseline);
+            }
+        } finally {
+            closeAll(services);
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+    }
+
+    private static List<String> issueCards(LoadTestConfig config, BankClient client) throws InterruptedException {
+        String[] cards = new String[config.cards];
+        Semaphore permits = new Semaphore(SETUP_CONCURRENCY);
+        for (int i = 0; i < config.cards; i++) {
+            permits.acquire();
+            int index = i;
+            client.issue(config.productId, OpenLoadGenerator.INITIAL_BALANCE, System.nanoTime())
+                    .whenComplete((cardId, error) -> {
+                        cards[index] = cardId;
+                        permits.release();
+                    });
+        }
+        permits.acquire(SETUP_CONCURRENCY);
+        // Se conserva el orden de emisión para que el conjunto caliente sea el mismo entre ejecuciones
+        List<String> issued = Arrays.stream(cards).filter(Objects::nonNull).toList();
+        if (issued.isEmpty()) {
+            throw new IllegalStateException("No se pudo emitir ninguna tarjeta, revise card-service.log");
+        }
+        return issued;
+    }
+
+    private static void closeAll(Deque<ServiceProcess> services) {
+        ServiceProcess service;
+        while ((service = services.poll()) != null) {
+            try {
+                service.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
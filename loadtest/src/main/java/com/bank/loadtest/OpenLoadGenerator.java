@@ -0,0 +1,91 @@
+package com.bank.loadtest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de modelo abierto: cada flujo tiene un hilo que lanza peticiones según su propio
+ * calendario de llegadas (Poisson o intervalo fijo) sin esperar a que terminen las anteriores, así
+ * que un servicio lento acumula cola en vez de frenar la carga.
+ */
+final class OpenLoadGenerator {
+
+    static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000");
+    private static final BigDecimal RECHARGE_AMOUNT = new BigDecimal("100");
+
+    private final LoadTestConfig config;
+    private final BankClient client;
+    private final CardPool pool;
+
+    OpenLoadGenerator(LoadTestConfig config, BankClient client, CardPool pool) {
+        this.config = config;
+        this.client = client;
+        this.pool = pool;
+    }
+
+    /** Genera carga entre {@code startNanos} y {@code endNanos} y vuelve cuando ya no quedan llegadas. */
+    void run(long startNanos, long endNanos) throws InterruptedException {
+        List<Thread> dispatchers = new ArrayList<>();
+        for (Flow flow : Flow.values()) {
+            double rate = config.rate(flow);
+            if (rate <= 0) {
+                continue;
+            }
+            SplittableRandom random = new SplittableRandom(config.seed + flow.ordinal());
+            Thread dispatcher = new Thread(() -> dispatch(flow, rate, random, startNanos, endNanos),
+                    "loadtest-" + flow.property());
+            dispatcher.setDaemon(true);
+            dispatchers.add(dispatcher);
+            dispatcher.start();
+        }
+        for (Thread dispatcher : dispatchers) {
+            dispatcher.join();
+        }
+    }
+
+    private void dispatch(Flow flow, double rate, SplittableRandom random, long startNanos, long endNanos) {
+        double meanIntervalNanos = 1_000_000_000d / rate;
+        long next = startNanos;
+        while (next < endNanos) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            fire(flow, random, next);
+            double interval = config.poisson ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos;
+            next += Math.max(1, (long) interval);
+        }
+    }
+
+    private void fire(Flow flow, SplittableRandom random, long intendedStart) {
+        switch (flow) {
+            case ISSUE -> client.issue(config.productId, INITIAL_BALANCE, intendedStart)
+                    .thenAccept(cardId -> {
+                        if (cardId != null) {
+                            pool.add(cardId);
+                        }
+                    });
+            case RECHARGE -> client.recharge(pool.pick(random), RECHARGE_AMOUNT, intendedStart);
+            case BALANCE -> client.balance(pool.pick(random), intendedStart);
+            case PURCHASE -> {
+                String cardId = pool.pick(random);
+                BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(4901), 2);
+                client.purchase(cardId, price, intendedStart).thenAccept(transactionId -> {
+                    if (transactionId != null) {
+                        pool.addPurchase(cardId, transactionId);
+                    }
+                });
+            }
+            case ANULATION -> {
+                CardPool.Purchase purchase = pool.takePurchase();
+                if (purchase != null) {
+                    client.anulation(purchase.cardId(), purchase.transactionId(), intendedStart);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.bank.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un servicio arrancado como proceso aparte desde su jar ejecutable, con el perfil local (H2).
+ * Cada proceso carga su propio {@code application.properties}, igual que en despliegue.
+ */
+final class ServiceProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private final String name;
+    private final Process process;
+    private final String baseUrl;
+
+    private ServiceProcess(String name, Process process, int port) {
+        this.name = name;
+        this.process = process;
+        this.baseUrl = "http://localhost:" + port;
+    }
+
+    static ServiceProcess start(String name, Path jar, List<String> jvmArgs, List<String> args, Path workDir)
+            throws IOException, InterruptedException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException("No existe " + jar.toAbsolutePath() + ": ejecute mvn package en " + name
+                    + " o indique loadtest." + name + ".jar");
+        }
+        int port = freePort();
+        Files.createDirectories(workDir);
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArgs);
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        command.add("--spring.profiles.active=local");
+        command.add("--server.port=" + port);
+        command.add("--spring.jpa.show-sql=false");
+        command.add("--spring.main.banner-mode=off");
+        command.addAll(args);
+
+        Process process = new ProcessBuilder(command)
+                .directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(workDir.resolve(name + ".log").toFile())
+                .start();
+        ServiceProcess service = new ServiceProcess(name, process, port);
+        try {
+            service.awaitHealthy();
+        } catch (RuntimeException | InterruptedException e) {
+            service.close();
+            throw e;
+        }
+        return service;
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    private void awaitHealthy() throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " terminó al arrancar (código " + process.exitValue()
+                        + "), revise " + name + ".log");
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Todavía no escucha en el puerto
+            }
+            TimeUnit.MILLISECONDS.sleep(250);
+        }
+        throw new IllegalStateException(name + " no respondió en " + STARTUP_TIMEOUT.toSeconds() + " s");
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.bank.transaction.aggregate;
+
+import com.bank.transaction.dto.CardDailyAggregateDTO;
+import com.bank.transaction.dto.CardSpendSummaryDTO;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.CardDailyAggregateRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mantiene la tabla {@code card_daily_aggregates} y responde las consultas de gasto por tarjeta.
+ * <p>
+ * Los incrementos se aplican después del commit de la transacción que aprueba o anula la compra,
+ * en una transacción propia: un fallo aquí nunca revierte ni rechaza la operación de negocio. Si un
+ * incremento se pierde queda contado en {@code transaction.aggregates.failures} y
+ * {@link #rebuild(LocalDate, LocalDate)} recalcula los días afectados desde {@code transactions}.
+ */
+@Component
+public class CardDailyAggregates {
+
+    private static final Logger log = LoggerFactory.getLogger(CardDailyAggregates.class);
+
+    private static final String INCREMENT =
+            "UPDATE card_daily_aggregates SET purchase_count = purchase_count + ?, purchase_amount = purchase_amount + ?, " +
+            "annulled_count = annulled_count + ?, annulled_amount = annulled_amount + ? " +
+            "WHERE card_id = ? AND aggregate_date = ?";
+    private static final String INSERT =
+            "INSERT INTO card_daily_aggregates (card_id, aggregate_date, purchase_count, purchase_amount, annulled_count, annulled_amount) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_RANGE =
+            "DELETE FROM card_daily_aggregates WHERE aggregate_date >= ? AND aggregate_date < ?";
+    // Las transacciones sin estado son anteriores al modo asíncrono y siempre quedaban aprobadas
+    private static final String REBUILD_RANGE =
+            "INSERT INTO card_daily_aggregates (card_id, aggregate_date, purchase_count, purchase_amount, annulled_count, annulled_amount) " +
+            "SELECT card_id, CAST(transaction_date AS DATE), COUNT(*), SUM(price), " +
+            "SUM(CASE WHEN is_annulled THEN 1 ELSE 0 END), SUM(CASE WHEN is_annulled THEN price ELSE 0 END) " +
+            "FROM transactions WHERE (status IS NULL OR status = 'APPROVED') " +
+            "AND transaction_date >= ? AND transaction_date < ? " +
+            "GROUP BY card_id, CAST(transaction_date AS DATE)";
+    private static final int APPLY_ATTEMPTS = 3;
+
+    private final CardDailyAggregateRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final Counter failures;
+    private final boolean enabled;
+    private final int maxDays;
+
+    public CardDailyAggregates(CardDailyAggregateRepository repository, DataSource dataSource,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${transaction.aggregates.enabled:true}") boolean enabled,
+                               @Value("${transaction.aggregates.max-days:366}") int maxDays) {
+        this.repository = repository;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // Se ejecuta desde afterCommit: REQUIRES_NEW evita reutilizar la conexión de la transacción ya confirmada
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.failures = Counter.builder("transaction.aggregates.failures").register(meterRegistry);
+        this.enabled = enabled;
+        this.maxDays = maxDays;
+    }
+
+    /** Suma compras aprobadas a los totales de su día. */
+    public void recordApproved(Collection<Transaction> transactions) {
+        if (!enabled || transactions.isEmpty()) {
+            return;
+        }
+        Map<Key, Delta> deltas = new TreeMap<>();
+        for (Transaction tx : transactions) {
+            deltas.merge(Key.of(tx), new Delta(1, tx.getPrice(), 0, BigDecimal.ZERO), Delta::plus);
+        }
+        afterCommit(deltas);
+    }
+
+    public void recordApproved(Transaction tx) {
+        recordApproved(List.of(tx));
+    }
+
+    /** Suma una anulación al día de la compra original, no al día en que se anuló. */
+    public void recordAnnulled(Transaction tx) {
+        if (!enabled) {
+            return;
+        }
+        Map<Key, Delta> deltas = new TreeMap<>();
+        deltas.put(Key.of(tx), new Delta(0, BigDecimal.ZERO, 1, tx.getPrice()));
+        afterCommit(deltas);
+    }
+
+    private void afterCommit(Map<Key, Delta> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(deltas);
+            return;
+        }
+        // Si la transacción que cambia el estado se revierte, el incremento no se aplica
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(deltas);
+            }
+        });
+    }
+
+    private void apply(Map<Key, Delta> deltas) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                newTransaction.executeWithoutResult(status -> increment(deltas));
+                return;
+            } catch (DuplicateKeyException e) {
+                // Otra instancia creó la fila del día a la vez: al reintentar el UPDATE ya la encuentra
+                if (attempt < APPLY_ATTEMPTS) {
+                    continue;
+                }
+                fail(deltas, e);
+                return;
+            } catch (RuntimeException e) {
+                fail(deltas, e);
+                return;
+            }
+        }
+    }
+
+    // Claves ordenadas: dos lotes concurrentes bloquean las filas en el mismo orden y no se interbloquean
+    private void increment(Map<Key, Delta> deltas) {
+        List<Key> keys = new ArrayList<>(deltas.keySet());
+        int[] updated = jdbcTemplate.batchUpdate(INCREMENT, keys.stream().map(key -> {
+            Delta delta = deltas.get(key);
+            return new Object[]{delta.purchaseCount(), delta.purchaseAmount(), delta.annulledCount(), delta.annulledAmount(),
+                    key.cardId(), Date.valueOf(key.date())};
+        }).toList());
+        List<Object[]> missing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (updated[i] == 0) {
+                Key key = keys.get(i);
+                Delta delta = deltas.get(key);
+                missing.add(new Object[]{key.cardId(), Date.valueOf(key.date()), delta.purchaseCount(), delta.purchaseAmount(),
+                        delta.annulledCount(), delta.annulledAmount()});
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, missing);
+        }
+    }
+
+    private void fail(Map<Key, Delta> deltas, RuntimeException e) {
+        failures.increment();
+        log.warn("No se pudieron actualizar los agregados diarios {}; recalcular con rebuild", deltas.keySet(), e);
+    }
+
+    /**
+     * Recalcula desde {@code transactions} los agregados de los días {@code [from, to)} y devuelve
+     * cuántas filas escribió. Pensado para la carga inicial y para reparar días ya cerrados: sobre el
+     * día en curso puede solaparse con incrementos que se confirman mientras se recalcula.
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new TransactionException("El rango de fechas es inválido: 'from' debe ser anterior a 'to'.");
+        }
+        Integer rows = newTransaction.execute(status -> {
+            jdbcTemplate.update(DELETE_RANGE, Date.valueOf(from), Date.valueOf(to));
+            return jdbcTemplate.update(REBUILD_RANGE, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.atStartOfDay()));
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /** Totales por día del rango {@code [from, to]}, ambos incluidos; los días sin compras no aparecen. */
+    public List<CardDailyAggregateDTO> daily(String cardId, LocalDate from, LocalDate to) {
+        validateRange(from, to);
+        return repository.findByCardIdAndAggregateDateBetweenOrderByAggregateDate(cardId, from, to).stream()
+                .map(CardDailyAggregateDTO::fromEntity)
+                .toList();
+    }
+
+    /** Resumen del rango {@code [from, to]}: suma como mucho una fila por día, nunca recorre transacciones. */
+    public CardSpendSummaryDTO summary(String cardId, LocalDate from, LocalDate to) {
+        List<CardDailyAggregateDTO> days = daily(cardId, from, to);
+        long purchaseCount = 0;
+        long annulledCount = 0;
+        BigDecimal purchaseAmount = BigDecimal.ZERO;
+        BigDecimal annulledAmount = BigDecimal.ZERO;
+        for (CardDailyAggregateDTO day : days) {
+            purchaseCount += day.getPurchaseCount();
+            annulledCount += day.getAnnulledCount();
+            purchaseAmount = purchaseAmount.add(day.getPurchaseAmount());
+            annulledAmount = annulledAmount.add(day.getAnnulledAmount());
+        }
+        return new CardSpendSummaryDTO(cardId, from, to, days.size(), purchaseCount, purchaseAmount,
+                annulledCount, annulledAmount, purchaseAmount.subtract(annulledAmount));
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new TransactionException("El rango de fechas es inválido: 'from' no puede ser posterior a 'to'.");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            throw new TransactionException("El rango de fechas no puede superar " + maxDays + " días.");
+        }
+    }
+
+    private record Key(String cardId, LocalDate date) implements Comparable<Key> {
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::cardId).thenComparing(Key::date);
+
+        static Key of(Transaction tx) {
+            return new Key(tx.getCardId(), tx.getTransactionDate().toLocalDate());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    private record Delta(long purchaseCount, BigDecimal purchaseAmount, long annulledCount, BigDecimal annulledAmount) {
+        Delta plus(Delta other) {
+            return new Delta(purchaseCount + other.purchaseCount, purchaseAmount.add(other.purchaseAmount),
+                    annulledCount + other.annulledCount, annulledAmount.add(other.annulledAmount));
+        }
+    }
+}
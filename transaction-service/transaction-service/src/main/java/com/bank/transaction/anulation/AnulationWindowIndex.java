@@ -0,0 +1,161 @@
+package com.bank.transaction.anulation;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Índice en memoria de las compras aprobadas y no anuladas de las últimas 24 horas, las únicas que
+ * se pueden anular. Las entradas se agrupan por hora de {@code transaction_date} y las horas fuera de
+ * la ventana se descartan enteras.
+ * <p>
+ * Un acierto es fiable (el id es único), así que la tarjeta y la ventana se validan sin leer la base.
+ * Un fallo no lo es: la compra pudo hacerse en otra instancia o no caber en el índice, y entonces se
+ * consulta la base como siempre.
+ */
+@Component
+public class AnulationWindowIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AnulationWindowIndex.class);
+
+    // Una hora de margen para que la última hora de la ventana no se descarte antes de tiempo
+    private static final int WINDOW_HOURS = 25;
+    private static final String RECENT_APPROVED =
+            "SELECT transaction_id, card_id, price, transaction_date FROM transactions " +
+            "WHERE transaction_date >= ? AND is_annulled = FALSE AND (status IS NULL OR status = 'APPROVED')";
+
+    public record Entry(String cardId, BigDecimal price, LocalDateTime transactionDate) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, Set<Long>> buckets = new ConcurrentSkipListMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter overflow;
+
+    public AnulationWindowIndex(DataSource dataSource, MeterRegistry meterRegistry,
+                                @Value("${transaction.anulation-index.enabled:true}") boolean enabled,
+                                @Value("${transaction.anulation-index.max-entries:1000000}") int maxEntries) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.hits = Counter.builder("transaction.anulation.index.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("transaction.anulation.index.lookups").tag("result", "miss").register(meterRegistry);
+        this.overflow = Counter.builder("transaction.anulation.index.overflow").register(meterRegistry);
+        Gauge.builder("transaction.anulation.index.size", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    // Antes de aceptar tráfico: se carga la ventana actual desde la base
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minusHours(WINDOW_HOURS);
+        jdbcTemplate.query(RECENT_APPROVED, rs -> {
+            put(rs.getLong(1), new Entry(rs.getString(2), rs.getBigDecimal(3), rs.getTimestamp(4).toLocalDateTime()));
+        }, Timestamp.valueOf(since));
+        log.info("Índice de anulaciones cargado con {} transacciones", size.get());
+    }
+
+    /** Registra una compra recién aprobada; llamar después del commit que la deja APPROVED. */
+    public void add(Transaction tx) {
+        if (!enabled || tx.isAnnulled() || tx.getEffectiveStatus() != TransactionStatus.APPROVED) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        expire(now);
+        // Una compra liquidada tarde puede caer ya fuera de la ventana
+        if (hour(tx.getTransactionDate()) >= hour(now) - WINDOW_HOURS) {
+            put(tx.getTransactionId(), new Entry(tx.getCardId(), tx.getPrice(), tx.getTransactionDate()));
+        }
+    }
+
+    public void addAll(Collection<Transaction> transactions) {
+        transactions.forEach(this::add);
+    }
+
+    /** La compra si está en la ventana conocida por esta instancia, o {@code null} si hay que ir a la base. */
+    public Entry find(Long transactionId) {
+        if (!enabled) {
+            return null;
+        }
+        expire(LocalDateTime.now());
+        Entry entry = byId.get(transactionId);
+        (entry != null ? hits : misses).increment();
+        return entry;
+    }
+
+    public void remove(Long transactionId) {
+        Entry entry = byId.remove(transactionId);
+        if (entry != null) {
+            size.decrementAndGet();
+            Set<Long> bucket = buckets.get(hour(entry.transactionDate()));
+            if (bucket != null) {
+                bucket.remove(transactionId);
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void put(Long transactionId, Entry entry) {
+        // Lleno: la compra queda fuera del índice y su anulación se resuelve en la base
+        if (size.get() >= maxEntries) {
+            overflow.increment();
+            return;
+        }
+        if (byId.putIfAbsent(transactionId, entry) == null) {
+            size.incrementAndGet();
+            buckets.computeIfAbsent(hour(entry.transactionDate()), h -> ConcurrentHashMap.newKeySet()).add(transactionId);
+        }
+    }
+
+    void expire(LocalDateTime now) {
+        long oldest = hour(now) - WINDOW_HOURS;
+        while (true) {
+            Map.Entry<Long, Set<Long>> first = buckets.firstEntry();
+            if (first == null || first.getKey() >= oldest) {
+                return;
+            }
+            if (buckets.remove(first.getKey(), first.getValue())) {
+                for (Long transactionId : first.getValue()) {
+                    if (byId.remove(transactionId) != null) {
+                        size.decrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private static long hour(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+}
@@ -0,0 +1,87 @@
+package com.bank.transaction.client;
+
+/**
+ * Límite de concurrencia adaptativo (AIMD). Crece de uno en uno mientras las llamadas responden
+ * cerca de la latencia mínima observada y se reduce multiplicativamente cuando la latencia supera
+ * esa base por el factor de tolerancia o la llamada falla.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double rttTolerance;
+    private final long minRttResetNanos;
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private long minRttSince = System.nanoTime();
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio,
+                                    double rttTolerance, long minRttResetMs) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Se requiere 1 <= min <= inicial <= max.");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1 || rttTolerance < 1) {
+            throw new IllegalArgumentException("El factor de reducción debe estar en (0, 1) y la tolerancia ser >= 1.");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttTolerance = rttTolerance;
+        this.minRttResetNanos = minRttResetMs * 1_000_000;
+    }
+
+    /** Reserva un hueco sin esperar; {@code false} si ya hay tantas llamadas en curso como el límite. */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /** Llamada completada con la latencia indicada. */
+    public synchronized void onSuccess(long rttNanos) {
+        inFlight--;
+        long now = System.nanoTime();
+        // La base se renueva cada cierto tiempo para seguir al servicio si su latencia normal cambia
+        if (now - minRttSince >= minRttResetNanos) {
+            minRttNanos = rttNanos;
+            minRttSince = now;
+        } else if (rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+        if (rttNanos > minRttNanos * rttTolerance) {
+            backoff();
+        } else if (inFlight * 2 >= limit) {
+            // Solo se sube mientras se use al menos la mitad del límite; si no, no hay evidencia de que haga falta
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    /** Llamada que no llegó a enviarse: libera el hueco sin ajustar el límite. */
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    /** Llamada fallida (error de red, timeout o 5xx). */
+    public synchronized void onDropped() {
+        inFlight--;
+        backoff();
+    }
+
+    private void backoff() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+}
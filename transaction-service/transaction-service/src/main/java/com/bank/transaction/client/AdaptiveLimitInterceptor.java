@@ -0,0 +1,47 @@
+package com.bank.transaction.client;
+
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Aplica un {@link AdaptiveConcurrencyLimit} a las llamadas de un servicio remoto. Si el límite está
+ * agotado la llamada se rechaza al instante en vez de encolarse detrás de un servicio lento.
+ */
+public class AdaptiveLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final String downstream;
+    private final AdaptiveConcurrencyLimit limit;
+
+    public AdaptiveLimitInterceptor(String downstream, AdaptiveConcurrencyLimit limit) {
+        this.downstream = downstream;
+        this.limit = limit;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!limit.tryAcquire()) {
+            throw new TransactionException(TransactionErrorCode.CARD_SERVICE_LIMIT_EXCEEDED,
+                    "El " + downstream + " superó su límite de llamadas concurrentes.");
+        }
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException | RuntimeException e) {
+            limit.onDropped();
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            limit.onDropped();
+        } else {
+            limit.onSuccess(System.nanoTime() - start);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,178 @@
+package com.bank.transaction.client;
+
+import com.bank.transaction.dto.TransactionBatchResultDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Agrupa los débitos y las reversas concurrentes durante una ventana de pocos milisegundos y los
+ * envía al servicio de tarjetas en una sola llamada a {@code /card/internal/debit/batch} o
+ * {@code /card/internal/reversal/batch}.
+ * <p>
+ * Si el lote ya salió y no llega respuesta (tiempo de espera o error de E/S), el resultado es
+ * incierto: se lanza {@link TransactionErrorCode#CARD_SERVICE_OUTCOME_UNKNOWN} para que quien llama
+ * lo resuelva reenviando la misma clave de operación, en lugar de darlo por rechazado.
+ */
+@Component
+@ConditionalOnProperty(name = "card.service.batch.enabled", havingValue = "true")
+public class CardBatchClient {
+
+    private final RestTemplate restTemplate;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor senders;
+    private final Batcher debits;
+    private final Batcher reversals;
+
+    public CardBatchClient(RestTemplate restTemplate,
+                           @Value("${card.service.url:http://localhost:8081}") String cardServiceUrl,
+                           @Value("${card.service.batch.window-ms:5}") long windowMs,
+                           @Value("${card.service.batch.max-size:200}") int maxBatchSize,
+                           @Value("${card.service.batch.max-in-flight:4}") int maxInFlight,
+                           @Value("${card.service.batch.timeout-ms:5000}") long timeoutMs) {
+        this.restTemplate = restTemplate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMs = timeoutMs;
+        // Con todos los envíos ocupados el recolector envía él mismo y deja de drenar la cola
+        this.senders = new ThreadPoolExecutor(maxInFlight, maxInFlight, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxInFlight), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.debits = new Batcher(cardServiceUrl + "/card/internal/debit/batch", "card-batch-collector");
+        this.reversals = new Batcher(cardServiceUrl + "/card/internal/reversal/batch", "card-batch-reversal-collector");
+    }
+
+    public void debit(TransactionRequestDTO request) {
+        debits.submit(request);
+    }
+
+    public void reversal(TransactionRequestDTO request) {
+        reversals.submit(request);
+    }
+
+    public List<TransactionBatchResultDTO> debitAll(List<TransactionRequestDTO> requests) {
+        return debits.sendAll(requests);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        debits.collector.interrupt();
+        reversals.collector.interrupt();
+        senders.shutdown();
+    }
+
+    private static boolean isOutcomeUnknown(Throwable failure) {
+        return failure instanceof ResourceAccessException;
+    }
+
+    private final class Batcher {
+        private final String url;
+        private final BlockingQueue<PendingOperation> queue = new LinkedBlockingQueue<>();
+        private final Thread collector;
+
+        private Batcher(String url, String threadName) {
+            this.url = url;
+            this.collector = new Thread(this::collect, threadName);
+            this.collector.setDaemon(true);
+            this.collector.start();
+        }
+
+        private void submit(TransactionRequestDTO request) {
+            PendingOperation pending = new PendingOperation(request, new CompletableFuture<>());
+            queue.add(pending);
+
+            TransactionBatchResultDTO result;
+            try {
+                result = pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (queue.remove(pending)) {
+                    throw new TransactionException("Operación interrumpida esperando al servicio de tarjetas.");
+                }
+                throw TransactionException.outcomeUnknown();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TransactionException transactionException) {
+                    throw transactionException;
+                }
+                if (isOutcomeUnknown(e.getCause())) {
+                    throw TransactionException.outcomeUnknown();
+                }
+                throw new TransactionException(e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                // Si seguía en la cola nunca se envió y el rechazo es seguro
+                if (queue.remove(pending)) {
+                    throw new TransactionException("Tiempo de espera agotado con el servicio de tarjetas.");
+                }
+                throw TransactionException.outcomeUnknown();
+            }
+
+            if (result.isOutcomeUnknown()) {
+                throw TransactionException.outcomeUnknown();
+            }
+            if (!result.isSuccess()) {
+                throw new TransactionException(result.getMessage());
+            }
+        }
+
+        private List<TransactionBatchResultDTO> sendAll(List<TransactionRequestDTO> requests) {
+            TransactionBatchResultDTO[] results = restTemplate.postForObject(url, requests, TransactionBatchResultDTO[].class);
+            if (results == null || results.length != requests.size()) {
+                throw new TransactionException("Respuesta de lote inválida del servicio de tarjetas.");
+            }
+            return List.of(results);
+        }
+
+        private void collect() {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    List<PendingOperation> batch = new ArrayList<>();
+                    batch.add(queue.take());
+                    long deadline = System.nanoTime() + windowNanos;
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        PendingOperation next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                    senders.execute(() -> send(batch));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void send(List<PendingOperation> batch) {
+            try {
+                List<TransactionBatchResultDTO> results = sendAll(batch.stream().map(PendingOperation::request).toList());
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result().complete(results.get(i));
+                }
+            } catch (RuntimeException e) {
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            }
+        }
+    }
+
+    private record PendingOperation(TransactionRequestDTO request, CompletableFuture<TransactionBatchResultDTO> result) {
+    }
+}
@@ -0,0 +1,314 @@
+package com.bank.transaction.client;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Débitos y reversas contra el puerto binario interno del servicio de tarjetas, en lugar de
+ * {@code /card/internal/debit} y {@code /card/internal/reversal} en JSON.
+ * <p>
+ * Mantiene un número fijo de conexiones persistentes y reparte las llamadas entre ellas. Cada
+ * conexión admite muchas solicitudes en vuelo a la vez: se escriben sin esperar respuesta y un
+ * hilo lector las empareja por id. Una conexión caída falla sus solicitudes pendientes y se
+ * reabre en la siguiente llamada.
+ * <p>
+ * Cada llamada pasa por el mismo circuito, bulkhead y límite adaptativo que las llamadas HTTP al
+ * servicio de tarjetas, y cada conexión admite como máximo {@code max-pending} solicitudes en vuelo.
+ * Una solicitud que ya salió y queda sin respuesta (tiempo de espera, conexión perdida o error del
+ * servidor) lanza {@link TransactionErrorCode#CARD_SERVICE_OUTCOME_UNKNOWN}, como {@link CardBatchClient}.
+ */
+@Component
+@ConditionalOnProperty(name = "card.service.protocol", havingValue = "binary")
+public class CardBinaryClient {
+
+    private static final Logger log = LoggerFactory.getLogger(CardBinaryClient.class);
+
+    private final InetSocketAddress address;
+    private final long timeoutMs;
+    private final int maxPending;
+    private final CircuitBreaker circuitBreaker;
+    private final ConcurrencyLimitInterceptor bulkhead;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Connection[] connections;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong ids = new AtomicLong();
+
+    public CardBinaryClient(@Value("${card.service.url:http://localhost:8081}") String cardServiceUrl,
+                            @Value("${card.service.binary.host:}") String host,
+                            @Value("${card.service.binary.port:9091}") int port,
+                            @Value("${card.service.binary.connections:4}") int connections,
+                            @Value("${card.service.binary.timeout-ms:3000}") long timeoutMs,
+                            @Value("${card.service.binary.max-pending:1000}") int maxPending,
+                            CircuitBreaker cardServiceCircuitBreaker,
+                            ConcurrencyLimitInterceptor cardServiceBulkhead,
+                            AdaptiveConcurrencyLimit cardServiceLimit) {
+        // Sin host explícito se usa el mismo del endpoint JSON
+        this.address = InetSocketAddress.createUnresolved(host.isBlank() ? URI.create(cardServiceUrl).getHost() : host, port);
+        this.timeoutMs = timeoutMs;
+        this.maxPending = maxPending;
+        this.circuitBreaker = cardServiceCircuitBreaker;
+        this.bulkhead = cardServiceBulkhead;
+        this.limit = cardServiceLimit;
+        this.connections = new Connection[connections];
+        for (int i = 0; i < connections; i++) {
+            this.connections[i] = new Connection(i);
+        }
+    }
+
+    public void debit(TransactionRequestDTO request) {
+        call(CardBinaryProtocol.OP_DEBIT, request);
+    }
+
+    public void reversal(TransactionRequestDTO request) {
+        call(CardBinaryProtocol.OP_REVERSAL, request);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (Connection connection : connections) {
+            connection.close(new IOException("Cliente binario cerrado"));
+        }
+    }
+
+    // Mismo orden que los interceptores de RestTemplate: circuito, bulkhead y límite adaptativo
+    private void call(byte op, TransactionRequestDTO request) {
+        long id = ids.incrementAndGet();
+        ByteBuffer frame;
+        try {
+            frame = CardBinaryProtocol.encodeRequest(id, op, request);
+        } catch (IllegalArgumentException e) {
+            // Solicitud inválida de este lado: no llega al servicio de tarjetas ni cuenta para el circuito
+            throw new TransactionException(e.getMessage());
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new TransactionException(TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN,
+                    "El circuito hacia el servicio de tarjetas está abierto.");
+        }
+        long start = System.nanoTime();
+        try {
+            bulkhead.run(() -> limited(id, frame));
+        } catch (RemoteRejection e) {
+            circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } catch (TransactionException e) {
+            if (isLocalRejection(e)) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void limited(long id, ByteBuffer frame) {
+        if (!limit.tryAcquire()) {
+            throw new TransactionException(TransactionErrorCode.CARD_SERVICE_LIMIT_EXCEEDED,
+                    "El servicio de tarjetas superó su límite de llamadas concurrentes.");
+        }
+        long start = System.nanoTime();
+        try {
+            send(id, frame);
+        } catch (RemoteRejection e) {
+            // Respuesta de negocio: el servicio contestó a tiempo
+            limit.onSuccess(System.nanoTime() - start);
+            throw e;
+        } catch (TransactionException e) {
+            if (isLocalRejection(e)) {
+                limit.release();
+            } else {
+                limit.onDropped();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            limit.onDropped();
+            throw e;
+        }
+        limit.onSuccess(System.nanoTime() - start);
+    }
+
+    private void send(long id, ByteBuffer frame) {
+        Connection connection = connections[Math.floorMod(next.getAndIncrement(), connections.length)];
+        CompletableFuture<CardBinaryProtocol.Response> pending = connection.send(id, frame);
+
+        CardBinaryProtocol.Response response;
+        try {
+            response = pending.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            connection.forget(id);
+            throw TransactionException.outcomeUnknown();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TransactionException transactionException) {
+                throw transactionException;
+            }
+            throw TransactionException.outcomeUnknown();
+        } catch (TimeoutException e) {
+            // La solicitud ya salió: el débito pudo aplicarse, se resuelve reenviando la misma clave
+            connection.forget(id);
+            throw TransactionException.outcomeUnknown();
+        }
+
+        String message = response.message() != null ? response.message() : "Error en el servicio de tarjetas.";
+        switch (response.status()) {
+            case CardBinaryProtocol.STATUS_OK -> {
+            }
+            case CardBinaryProtocol.STATUS_REJECTED -> throw new RemoteRejection(message);
+            case CardBinaryProtocol.STATUS_UNAVAILABLE -> throw new TransactionException(message);
+            default -> throw new TransactionException(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN, message);
+        }
+    }
+
+    // Rechazos de los límites de este lado: la llamada no llegó a salir
+    private static boolean isLocalRejection(TransactionException e) {
+        return e.getCode() == TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN
+                || e.getCode() == TransactionErrorCode.CARD_SERVICE_BULKHEAD_FULL
+                || e.getCode() == TransactionErrorCode.CARD_SERVICE_LIMIT_EXCEEDED;
+    }
+
+    // Rechazo de negocio respondido por el servicio de tarjetas: no cuenta como fallo del circuito ni del límite
+    private static final class RemoteRejection extends TransactionException {
+        private RemoteRejection(String message) {
+            super(message);
+        }
+    }
+
+    private final class Connection {
+
+        private final int index;
+        private final Map<Long, CompletableFuture<CardBinaryProtocol.Response>> pending = new ConcurrentHashMap<>();
+        private SocketChannel channel;
+
+        Connection(int index) {
+            this.index = index;
+        }
+
+        CompletableFuture<CardBinaryProtocol.Response> send(long id, ByteBuffer frame) {
+            CompletableFuture<CardBinaryProtocol.Response> future = new CompletableFuture<>();
+            if (pending.size() >= maxPending) {
+                return CompletableFuture.failedFuture(new TransactionException(TransactionErrorCode.CARD_SERVICE_BULKHEAD_FULL,
+                        "El servicio de tarjetas tiene demasiadas solicitudes en curso."));
+            }
+            // La escritura es corta y se serializa por conexión; la espera de la respuesta no bloquea a otras llamadas
+            synchronized (this) {
+                SocketChannel open;
+                try {
+                    open = open();
+                } catch (IOException e) {
+                    // Sin conexión la solicitud no salió
+                    return CompletableFuture.failedFuture(
+                            new TransactionException("No fue posible conectar con el servicio de tarjetas: " + e.getMessage()));
+                }
+                pending.put(id, future);
+                try {
+                    while (frame.hasRemaining()) {
+                        open.write(frame);
+                    }
+                } catch (IOException e) {
+                    close(e);
+                }
+            }
+            return future;
+        }
+
+        void forget(long id) {
+            pending.remove(id);
+        }
+
+        private SocketChannel open() throws IOException {
+            if (channel == null || !channel.isOpen()) {
+                SocketChannel opened = SocketChannel.open();
+                try {
+                    opened.socket().connect(new InetSocketAddress(address.getHostString(), address.getPort()), (int) timeoutMs);
+                } catch (IOException e) {
+                    opened.close();
+                    throw e;
+                }
+                opened.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel = opened;
+                Thread reader = new Thread(() -> read(opened), "card-binary-client-" + index);
+                reader.setDaemon(true);
+                reader.start();
+            }
+            return channel;
+        }
+
+        private void read(SocketChannel opened) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            try {
+                while (true) {
+                    readFully(opened, length.clear());
+                    int size = length.flip().getInt();
+                    if (size <= 0 || size > CardBinaryProtocol.MAX_FRAME) {
+                        throw new IOException("Trama binaria inválida (" + size + " bytes)");
+                    }
+                    ByteBuffer frame = ByteBuffer.allocate(size);
+                    readFully(opened, frame);
+                    CardBinaryProtocol.Response response = CardBinaryProtocol.decodeResponse(frame.flip());
+                    CompletableFuture<CardBinaryProtocol.Response> future = pending.remove(response.id());
+                    if (future != null) {
+                        future.complete(response);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Una respuesta que no se puede decodificar deja la conexión desincronizada: se cierra igual
+                synchronized (this) {
+                    if (channel == opened) {
+                        close(e);
+                    }
+                }
+            }
+        }
+
+        private synchronized void close(Exception cause) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    log.debug("Error cerrando conexión binaria: {}", e.getMessage());
+                }
+                channel = null;
+            }
+            // Las solicitudes en vuelo pudieron aplicarse antes del corte
+            TransactionException failure = new TransactionException(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN,
+                    "Conexión con el servicio de tarjetas perdida: " + cause.getMessage());
+            pending.values().forEach(future -> future.completeExceptionally(failure));
+            pending.clear();
+        }
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("el servicio de tarjetas cerró la conexión");
+            }
+        }
+    }
+}
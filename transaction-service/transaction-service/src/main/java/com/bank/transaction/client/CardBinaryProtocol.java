@@ -0,0 +1,81 @@
+package com.bank.transaction.client;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lado cliente del protocolo binario interno del servicio de tarjetas (ver {@code BinaryProtocol}
+ * en card-service). Tramas con prefijo de longitud; la respuesta repite el id de la solicitud.
+ *
+ * <pre>
+ * solicitud: long id | byte operación | byte largo tarjeta | tarjeta (ASCII) | long importe sin escala | byte escala
+ *            | byte largo clave | clave de operación (ASCII, largo 0 si no hay)
+ * respuesta: long id | byte estado | short largo mensaje | mensaje (UTF-8)
+ * </pre>
+ */
+public final class CardBinaryProtocol {
+
+    public static final byte OP_DEBIT = 1;
+    public static final byte OP_REVERSAL = 2;
+
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_REJECTED = 1;
+    // La operación ya estaba en curso: pudo aplicarse
+    public static final byte STATUS_ERROR = 2;
+    // Sobrecarga: la operación no se aplicó
+    public static final byte STATUS_UNAVAILABLE = 3;
+
+    public static final int MAX_FRAME = 1024;
+
+    private static final int AMOUNT_SCALE = 2;
+
+    private CardBinaryProtocol() {
+    }
+
+    public record Response(long id, byte status, String message) {
+    }
+
+    /**
+     * Trama de solicitud completa, con el prefijo de longitud. {@link IllegalArgumentException} si
+     * falta la tarjeta o el importe, o si no son representables en la trama.
+     */
+    public static ByteBuffer encodeRequest(long id, byte op, TransactionRequestDTO body) {
+        if (body.getCardId() == null || body.getPrice() == null) {
+            throw new IllegalArgumentException("La tarjeta y el importe son obligatorios.");
+        }
+        byte[] card = body.getCardId().getBytes(StandardCharsets.US_ASCII);
+        byte[] key = body.getOperationId() == null ? new byte[0] : body.getOperationId().getBytes(StandardCharsets.US_ASCII);
+        long amount;
+        try {
+            // Siempre en centavos: el servidor no tiene que reescalar
+            amount = body.getPrice().scaleByPowerOfTen(AMOUNT_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            amount = -1;
+        }
+        if (card.length > 255 || amount < 0 || key.length > 255) {
+            throw new IllegalArgumentException("Solicitud no representable en el protocolo binario.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 8 + 1 + 1 + card.length + 8 + 1 + 1 + key.length);
+        buffer.putInt(buffer.capacity() - 4)
+                .putLong(id)
+                .put(op)
+                .put((byte) card.length)
+                .put(card)
+                .putLong(amount)
+                .put((byte) AMOUNT_SCALE)
+                .put((byte) key.length)
+                .put(key);
+        return buffer.flip();
+    }
+
+    /** Decodifica el cuerpo de una trama de respuesta (sin el prefijo de longitud). */
+    public static Response decodeResponse(ByteBuffer frame) {
+        long id = frame.getLong();
+        byte status = frame.get();
+        byte[] message = new byte[frame.getShort() & 0xFFFF];
+        frame.get(message);
+        return new Response(id, status, message.length == 0 ? null : new String(message, StandardCharsets.UTF_8));
+    }
+}
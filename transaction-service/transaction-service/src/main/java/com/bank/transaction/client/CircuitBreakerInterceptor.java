@@ -0,0 +1,59 @@
+package com.bank.transaction.client;
+
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corta las llamadas a un servicio remoto mientras su circuito está abierto. Cuentan como fallo los
+ * errores de red, los timeouts y las respuestas 5xx; los 4xx son rechazos de negocio y no abren el circuito.
+ */
+public class CircuitBreakerInterceptor implements ClientHttpRequestInterceptor {
+
+    private final String downstream;
+    private final CircuitBreaker circuitBreaker;
+
+    public CircuitBreakerInterceptor(String downstream, CircuitBreaker circuitBreaker) {
+        this.downstream = downstream;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new TransactionException(TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN,
+                    "El circuito hacia el " + downstream + " está abierto.");
+        }
+        long start = System.nanoTime();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (TransactionException e) {
+            // Rechazo de los límites internos: la llamada no llegó a salir y no dice nada del servicio
+            if (e.getCode() != null) {
+                circuitBreaker.releasePermission();
+            } else {
+                circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            }
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        if (response.getStatusCode().is5xxServerError()) {
+            circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, new HttpServerErrorException(response.getStatusCode()));
+        } else {
+            circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,68 @@
+package com.bank.transaction.client;
+
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita las llamadas simultáneas a un servicio remoto. Con hilos virtuales el número de
+ * peticiones en curso ya no está acotado por el pool de Tomcat, así que el límite se aplica
+ * en cada dependencia. Actúa como bulkhead: una dependencia lenta solo puede retener este número
+ * de hilos.
+ */
+public class ConcurrencyLimitInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final String downstream;
+
+    public ConcurrencyLimitInterceptor(String downstream, int maxConcurrentCalls, long acquireTimeoutMs) {
+        this.downstream = downstream;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        acquire();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /** Aplica el mismo límite a una llamada que no pasa por {@code RestTemplate}. */
+    public void run(Runnable call) {
+        acquire();
+        try {
+            call.run();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Operación interrumpida esperando al " + downstream + ".");
+        }
+        if (!acquired) {
+            throw new TransactionException(TransactionErrorCode.CARD_SERVICE_BULKHEAD_FULL, "El " + downstream + " tiene demasiadas solicitudes en curso.");
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
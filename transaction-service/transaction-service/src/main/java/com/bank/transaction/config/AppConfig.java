@@ -1,13 +1,184 @@
 package com.bank.transaction.config;
 
+import com.bank.transaction.client.AdaptiveConcurrencyLimit;
+import com.bank.transaction.client.AdaptiveLimitInterceptor;
+import com.bank.transaction.client.CircuitBreakerInterceptor;
+import com.bank.transaction.client.ConcurrencyLimitInterceptor;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.routing.RoutingSupport;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @Configuration
 public class AppConfig {
+
+    @Value("${card.service.url:http://localhost:8081}")
+    private String cardServiceUrl;
+    @Value("${card.service.http.max-total:200}")
+    private int maxTotal;
+    @Value("${card.service.http.max-per-route:50}")
+    private int maxPerRoute;
+    @Value("${card.service.http.card-route-max:200}")
+    private int cardRouteMax;
+    @Value("${card.service.http.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+    @Value("${card.service.http.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+    @Value("${card.service.http.pool-acquire-timeout-ms:500}")
+    private long poolAcquireTimeoutMs;
+    @Value("${card.service.http.idle-timeout-s:30}")
+    private long idleTimeoutSeconds;
+    @Value("${card.service.http.http2:false}")
+    private boolean http2;
+    @Value("${card.service.max-concurrent-calls:200}")
+    private int maxConcurrentCalls;
+    @Value("${card.service.concurrency-acquire-timeout-ms:100}")
+    private long concurrencyAcquireTimeoutMs;
+    @Value("${card.service.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+    @Value("${card.service.circuit-breaker.slow-call-duration-ms:1000}")
+    private long slowCallDurationMs;
+    @Value("${card.service.circuit-breaker.slow-call-rate-threshold:80}")
+    private float slowCallRateThreshold;
+    @Value("${card.service.circuit-breaker.window-size:50}")
+    private int circuitWindowSize;
+    @Value("${card.service.circuit-breaker.minimum-calls:20}")
+    private int circuitMinimumCalls;
+    @Value("${card.service.circuit-breaker.open-duration-ms:5000}")
+    private long circuitOpenDurationMs;
+    @Value("${card.service.circuit-breaker.half-open-calls:5}")
+    private int circuitHalfOpenCalls;
+    @Value("${card.service.limit.initial:20}")
+    private int limitInitial;
+    @Value("${card.service.limit.min:5}")
+    private int limitMin;
+    @Value("${card.service.limit.max:200}")
+    private int limitMax;
+    @Value("${card.service.limit.backoff-ratio:0.9}")
+    private double limitBackoffRatio;
+    @Value("${card.service.limit.rtt-tolerance:2.0}")
+    private double limitRttTolerance;
+    @Value("${card.service.limit.min-rtt-reset-ms:10000}")
+    private long limitMinRttResetMs;
+
+    // Orden de los interceptores: circuito, bulkhead y límite adaptativo; un rechazo interno no cuenta como fallo del circuito.
+    // Con el perfil reactivo Spring Boot no configura RestTemplateBuilder, pero el worker de liquidación lo sigue usando
+    @Bean
+    public RestTemplate restTemplate(ObjectProvider<RestTemplateBuilder> builder, ClientHttpRequestFactory cardServiceRequestFactory,
+                                     CircuitBreaker cardServiceCircuitBreaker,
+                                     ConcurrencyLimitInterceptor cardServiceBulkhead,
+                                     AdaptiveConcurrencyLimit cardServiceLimit) {
+        return builder.getIfAvailable(RestTemplateBuilder::new)
+                .requestFactory(() -> cardServiceRequestFactory)
+                .additionalInterceptors(
+                        new CircuitBreakerInterceptor("servicio de tarjetas", cardServiceCircuitBreaker),
+                        cardServiceBulkhead,
+                        new AdaptiveLimitInterceptor("servicio de tarjetas", cardServiceLimit))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMs))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(circuitWindowSize)
+                .minimumNumberOfCalls(circuitMinimumCalls)
+                .waitDurationInOpenState(Duration.ofMillis(circuitOpenDurationMs))
+                .permittedNumberOfCallsInHalfOpenState(circuitHalfOpenCalls)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    @Bean
+    public CircuitBreaker cardServiceCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker("card-service");
+    }
+
+    @Bean
+    public ConcurrencyLimitInterceptor cardServiceBulkhead(MeterRegistry meterRegistry) {
+        ConcurrencyLimitInterceptor bulkhead = new ConcurrencyLimitInterceptor("servicio de tarjetas",
+                maxConcurrentCalls, concurrencyAcquireTimeoutMs);
+        Gauge.builder("card.service.bulkhead.available", bulkhead, ConcurrencyLimitInterceptor::availablePermits)
+                .register(meterRegistry);
+        return bulkhead;
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public AdaptiveConcurrencyLimit cardServiceLimit(MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(limitInitial, limitMin, limitMax,
+                limitBackoffRatio, limitRttTolerance, limitMinRttResetMs);
+        Gauge.builder("card.service.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("card.service.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+        return limit;
+    }
+
+    @Bean
+    public ClientHttpRequestFactory cardServiceRequestFactory(MeterRegistry meterRegistry) throws URISyntaxException {
+        if (http2) {
+            // HTTP/2 (h2c) multiplexa sobre una sola conexión; el pool lo gestiona el cliente del JDK
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                    .build();
+            JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+            factory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+            return factory;
+        }
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        // La ruta necesita el puerto explícito; si la URL no lo trae se usa el del esquema
+        HttpHost cardServiceHost = RoutingSupport.normalize(HttpHost.create(cardServiceUrl), DefaultSchemePortResolver.INSTANCE);
+        connectionManager.setMaxPerRoute(new HttpRoute(cardServiceHost), cardRouteMax);
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "card-service").bindTo(meterRegistry);
+
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolAcquireTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds))
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
     }
-}
\ No newline at end of file
+}
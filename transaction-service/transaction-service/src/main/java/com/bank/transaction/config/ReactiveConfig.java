@@ -0,0 +1,74 @@
+package com.bank.transaction.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    @Value("${card.service.url:http://localhost:8081}")
+    private String cardServiceUrl;
+    @Value("${card.service.http.card-route-max:200}")
+    private int maxConnections;
+    @Value("${card.service.reactive.pending-acquire-max:500}")
+    private int pendingAcquireMax;
+    @Value("${card.service.http.pool-acquire-timeout-ms:500}")
+    private long poolAcquireTimeoutMs;
+    @Value("${card.service.http.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+    @Value("${card.service.http.read-timeout-ms:3000}")
+    private long readTimeoutMs;
+    @Value("${card.service.http.idle-timeout-s:30}")
+    private long idleTimeoutSeconds;
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int jdbcPoolSize;
+    @Value("${transaction.reactive.jdbc-queue-max:1000}")
+    private int jdbcQueueMax;
+
+    // spring-boot-starter-web deja Tomcat en el classpath y Spring Boot también lo prefiere para WebFlux
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> serverCustomizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(serverCustomizers.orderedStream().toList());
+        return factory;
+    }
+
+    @Bean
+    public WebClient cardServiceWebClient(WebClient.Builder builder) {
+        // Cola de espera acotada: si el servicio de tarjetas se atrasa, se rechaza en lugar de acumular
+        ConnectionProvider provider = ConnectionProvider.builder("card-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(Duration.ofMillis(poolAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(idleTimeoutSeconds))
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+        return builder.baseUrl(cardServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    // JPA es bloqueante: se ejecuta en un scheduler del tamaño del pool JDBC para no bloquear el event loop
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler() {
+        return Schedulers.newBoundedElastic(jdbcPoolSize, jdbcQueueMax, "jdbc");
+    }
+}
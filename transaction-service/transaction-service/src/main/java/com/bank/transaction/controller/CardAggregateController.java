@@ -0,0 +1,49 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.aggregate.CardDailyAggregates;
+import com.bank.transaction.dto.CardAggregateRebuildDTO;
+import com.bank.transaction.dto.CardDailyAggregateDTO;
+import com.bank.transaction.dto.CardSpendSummaryDTO;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/transaction")
+@Profile("!reactive")
+public class CardAggregateController {
+
+    private final CardDailyAggregates dailyAggregates;
+
+    public CardAggregateController(CardDailyAggregates dailyAggregates) {
+        this.dailyAggregates = dailyAggregates;
+    }
+
+    @GetMapping("/card/{cardId}/daily")
+    public ResponseEntity<List<CardDailyAggregateDTO>> getDaily(
+            @PathVariable String cardId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(dailyAggregates.daily(cardId, from, to));
+    }
+
+    @GetMapping("/card/{cardId}/summary")
+    public ResponseEntity<CardSpendSummaryDTO> getSummary(
+            @PathVariable String cardId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(dailyAggregates.summary(cardId, from, to));
+    }
+
+    // Recalcula los días [from, to) desde las transacciones: carga inicial o reparación
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<CardAggregateRebuildDTO> rebuild(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(new CardAggregateRebuildDTO(from, to, dailyAggregates.rebuild(from, to)));
+    }
+}
@@ -0,0 +1,39 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.dto.AnulationRequestDTO;
+import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.service.ReactiveTransactionService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/transaction")
+@Profile("reactive")
+public class ReactiveTransactionController {
+
+    private final ReactiveTransactionService transactionService;
+
+    public ReactiveTransactionController(ReactiveTransactionService transactionService) {
+        this.transactionService = transactionService;
+    }
+
+    @PostMapping("/purchase")
+    public Mono<ResponseEntity<TransactionResponseDTO>> purchase(@RequestBody TransactionRequestDTO request,
+                                                                 @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return transactionService.purchase(request, idempotencyKey).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{transactionId}")
+    public Mono<ResponseEntity<TransactionDetailsDTO>> getTransaction(@PathVariable Long transactionId) {
+        return transactionService.getTransaction(transactionId).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/anulation")
+    public Mono<ResponseEntity<Void>> cancelTransaction(@RequestBody AnulationRequestDTO request) {
+        return transactionService.cancelTransaction(request).then(Mono.just(ResponseEntity.ok().<Void>build()));
+    }
+}
@@ -2,14 +2,20 @@ package com.bank.transaction.controller;
 
 import com.bank.transaction.dto.AnulationRequestDTO;
 import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionHistoryPageDTO;
 import com.bank.transaction.dto.TransactionRequestDTO;
 import com.bank.transaction.dto.TransactionResponseDTO;
 import com.bank.transaction.service.TransactionService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+
 @RestController
 @RequestMapping("/transaction")
+@Profile("!reactive")
 public class TransactionController {
 
     private final TransactionService transactionService;
@@ -19,8 +25,9 @@ public class TransactionController {
     }
 
     @PostMapping("/purchase")
-    public ResponseEntity<TransactionResponseDTO> purchase(@RequestBody TransactionRequestDTO request) {
-        TransactionResponseDTO response = transactionService.purchase(request);
+    public ResponseEntity<TransactionResponseDTO> purchase(@RequestBody TransactionRequestDTO request,
+                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        TransactionResponseDTO response = transactionService.purchase(request, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
@@ -30,6 +37,17 @@ public class TransactionController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/card/{cardId}")
+    public ResponseEntity<TransactionHistoryPageDTO> getCardHistory(
+            @PathVariable String cardId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Boolean annulled,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(transactionService.getCardHistory(cardId, from, to, annulled, cursor, limit));
+    }
+
     @PostMapping("/anulation")
     public ResponseEntity<Void> cancelTransaction(@RequestBody AnulationRequestDTO request) {
         transactionService.cancelTransaction(request);
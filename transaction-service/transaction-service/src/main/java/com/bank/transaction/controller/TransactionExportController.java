@@ -0,0 +1,60 @@
+package com.bank.transaction.controller;
+
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.export.ExportFormat;
+import com.bank.transaction.export.TransactionExporter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/transaction")
+@Profile("!reactive")
+public class TransactionExportController {
+
+    private final TransactionExporter exporter;
+
+    public TransactionExportController(TransactionExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    // Escribe directamente en la respuesta: ni las filas ni el archivo completo se mantienen en memoria
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                       @RequestParam(required = false) String cardId,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new TransactionException("El rango de fechas es inválido: 'from' debe ser anterior a 'to'.");
+        }
+
+        String fileName = "transactions." + exportFormat.extension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.mediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        if (gzip) {
+            try (GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                exporter.export(exportFormat, from, to, cardId, output);
+            }
+        } else {
+            OutputStream output = response.getOutputStream();
+            exporter.export(exportFormat, from, to, cardId, output);
+            output.flush();
+        }
+    }
+}
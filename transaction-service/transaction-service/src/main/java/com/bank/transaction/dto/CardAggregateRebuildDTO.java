@@ -0,0 +1,12 @@
+package com.bank.transaction.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CardAggregateRebuildDTO {
+    private LocalDate from;
+    private LocalDate to;
+    // Filas (tarjeta, día) recalculadas
+    private int rows;
+}
@@ -0,0 +1,28 @@
+package com.bank.transaction.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import com.bank.transaction.model.CardDailyAggregate;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CardDailyAggregateDTO {
+    private LocalDate date;
+    private long purchaseCount;
+    private BigDecimal purchaseAmount;
+    private long annulledCount;
+    private BigDecimal annulledAmount;
+    // Gasto efectivo del día: compras menos anulaciones
+    private BigDecimal netAmount;
+
+    public static CardDailyAggregateDTO fromEntity(CardDailyAggregate aggregate) {
+        return new CardDailyAggregateDTO(
+                aggregate.getAggregateDate(),
+                aggregate.getPurchaseCount(),
+                aggregate.getPurchaseAmount(),
+                aggregate.getAnnulledCount(),
+                aggregate.getAnnulledAmount(),
+                aggregate.getPurchaseAmount().subtract(aggregate.getAnnulledAmount()));
+    }
+}
@@ -0,0 +1,19 @@
+package com.bank.transaction.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class CardSpendSummaryDTO {
+    private String cardId;
+    private LocalDate from;
+    private LocalDate to;
+    // Días del rango con al menos una compra
+    private int activeDays;
+    private long purchaseCount;
+    private BigDecimal purchaseAmount;
+    private long annulledCount;
+    private BigDecimal annulledAmount;
+    private BigDecimal netAmount;
+}
@@ -1,4 +1,5 @@
 package com.bank.transaction.dto;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import java.time.LocalDateTime;
@@ -9,4 +10,6 @@ public class ErrorResponseDTO {
     private String error;
     private String message;
     private String path;
-}
\ No newline at end of file
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String code;
+}
@@ -0,0 +1,16 @@
+package com.bank.transaction.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class TransactionBatchResultDTO {
+    private String cardId;
+    private boolean success;
+    private String message;
+    // El servicio de tarjetas no confirmó la operación, pero aún puede aplicarse
+    private boolean outcomeUnknown;
+
+    public TransactionBatchResultDTO(String cardId, boolean success, String message) {
+        this(cardId, success, message, false);
+    }
+}
@@ -6,6 +6,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
 @Data @NoArgsConstructor @AllArgsConstructor
 public class TransactionDetailsDTO {
     private Long transactionId;
@@ -13,6 +14,8 @@ public class TransactionDetailsDTO {
     private BigDecimal price;
     private LocalDateTime transactionDate;
     private boolean isAnnulled;
+    private TransactionStatus status;
+    private String statusDetail;
 
     public static TransactionDetailsDTO fromEntity(Transaction entity) {
         return new TransactionDetailsDTO(
@@ -20,7 +23,9 @@ public class TransactionDetailsDTO {
             entity.getCardId(),
             entity.getPrice(),
             entity.getTransactionDate(),
-            entity.isAnnulled()
+            entity.isAnnulled(),
+            entity.getEffectiveStatus(),
+            entity.getStatusDetail()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.bank.transaction.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.bank.transaction.model.TransactionStatus;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class TransactionHistoryItemDTO {
+    private Long transactionId;
+    private BigDecimal price;
+    private LocalDateTime transactionDate;
+    private boolean isAnnulled;
+    private TransactionStatus status;
+    private String statusDetail;
+
+}
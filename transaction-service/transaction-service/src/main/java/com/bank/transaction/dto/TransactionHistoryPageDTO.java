@@ -0,0 +1,12 @@
+package com.bank.transaction.dto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+@Data @NoArgsConstructor @AllArgsConstructor
+public class TransactionHistoryPageDTO {
+    private String cardId;
+    private List<TransactionHistoryItemDTO> items;
+    // Nulo en la última página
+    private String nextCursor;
+}
@@ -1,4 +1,6 @@
 package com.bank.transaction.dto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
@@ -6,4 +8,8 @@ import java.math.BigDecimal;
 public class TransactionRequestDTO {
     private String cardId;
     private BigDecimal price;
-}
\ No newline at end of file
+    // Clave de idempotencia por operación hacia el servicio de tarjetas: se envía, pero no se acepta del cliente
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String operationId;
+}
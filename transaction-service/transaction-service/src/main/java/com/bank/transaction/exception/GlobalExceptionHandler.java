@@ -1,7 +1,10 @@
 package com.bank.transaction.exception;
 
 import com.bank.transaction.dto.ErrorResponseDTO;
+import com.bank.transaction.metrics.RejectionMetrics;
+import com.bank.transaction.metrics.RejectionReason;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -9,12 +12,22 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
 
+    private final RejectionMetrics rejectionMetrics;
+
+    public GlobalExceptionHandler(Optional<RejectionMetrics> rejectionMetrics) {
+        this.rejectionMetrics = rejectionMetrics.orElse(null);
+    }
+
     @ExceptionHandler(HttpClientErrorException.class)
     public ResponseEntity<ErrorResponseDTO> handleCardServiceErrors(HttpClientErrorException ex, HttpServletRequest request) {
+        RejectionReason reason = RejectionReason.of(ex.getResponseBodyAsString());
+        contarRechazo(reason == RejectionReason.OTHER ? RejectionReason.CARD_SERVICE_ERROR : reason);
         HttpStatus status = HttpStatus.BAD_REQUEST;
         if (ex.getStatusCode().value() == 404) {
             status = HttpStatus.NOT_FOUND;
@@ -25,16 +38,26 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 status.value(),
                 status.getReasonPhrase(),
                 "Error al validar tarjeta: " + ex.getResponseBodyAsString(),
-                request.getRequestURI()
+                request.getRequestURI(),
+                null
         );
         return new ResponseEntity<>(error, status);
     }
 
     @ExceptionHandler({TransactionException.class, IllegalArgumentException.class})
     public ResponseEntity<ErrorResponseDTO> handleBadRequest(RuntimeException ex, HttpServletRequest request) {
-        
+        contarRechazo(RejectionReason.of(ex));
+        return errorResponse(ex, request.getRequestURI());
+    }
+
+    // Compartido con ReactiveExceptionHandler para que ambos perfiles respondan igual
+    static ResponseEntity<ErrorResponseDTO> errorResponse(RuntimeException ex, String path) {
+        TransactionErrorCode code = ex instanceof TransactionException transactionException ? transactionException.getCode() : null;
         HttpStatus status = HttpStatus.BAD_REQUEST;
-        if (ex.getMessage().contains("not found") || ex.getMessage().contains("no encontrada")) {
+        if (code != null) {
+            // Rechazo de la capa de resiliencia o resultado incierto: el servicio de tarjetas no está disponible ahora
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+        } else if (ex.getMessage().contains("not found") || ex.getMessage().contains("no encontrada")) {
             status = HttpStatus.NOT_FOUND;
         }
 
@@ -43,8 +66,15 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
                 status.value(),
                 status.getReasonPhrase(),
                 ex.getMessage(),
-                request.getRequestURI()
+                path,
+                code == null ? null : code.name()
         );
         return new ResponseEntity<>(error, status);
     }
-}
\ No newline at end of file
+
+    private void contarRechazo(RejectionReason reason) {
+        if (rejectionMetrics != null) {
+            rejectionMetrics.record(reason);
+        }
+    }
+}
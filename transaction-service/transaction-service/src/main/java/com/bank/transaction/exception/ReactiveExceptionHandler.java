@@ -0,0 +1,32 @@
+package com.bank.transaction.exception;
+
+import com.bank.transaction.dto.ErrorResponseDTO;
+import com.bank.transaction.metrics.RejectionMetrics;
+import com.bank.transaction.metrics.RejectionReason;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.util.Optional;
+
+// GlobalExceptionHandler depende de la API de servlets; con el perfil reactivo los errores pasan por aquí
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    private final RejectionMetrics rejectionMetrics;
+
+    public ReactiveExceptionHandler(Optional<RejectionMetrics> rejectionMetrics) {
+        this.rejectionMetrics = rejectionMetrics.orElse(null);
+    }
+
+    @ExceptionHandler({TransactionException.class, IllegalArgumentException.class})
+    public ResponseEntity<ErrorResponseDTO> handleBadRequest(RuntimeException ex, ServerHttpRequest request) {
+        if (rejectionMetrics != null) {
+            rejectionMetrics.record(RejectionReason.of(ex));
+        }
+        return GlobalExceptionHandler.errorResponse(ex, request.getPath().value());
+    }
+}
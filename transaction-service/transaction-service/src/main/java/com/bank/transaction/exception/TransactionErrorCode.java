@@ -0,0 +1,13 @@
+package com.bank.transaction.exception;
+
+/**
+ * Códigos de los rechazos inmediatos de la capa de resiliencia hacia el servicio de tarjetas. Se
+ * responden con 503 para que el cliente sepa que puede reintentar más tarde.
+ */
+public enum TransactionErrorCode {
+    CARD_SERVICE_CIRCUIT_OPEN,
+    CARD_SERVICE_BULKHEAD_FULL,
+    CARD_SERVICE_LIMIT_EXCEEDED,
+    // La operación pudo haberse aplicado: solo es seguro reintentarla con la misma clave de operación
+    CARD_SERVICE_OUTCOME_UNKNOWN
+}
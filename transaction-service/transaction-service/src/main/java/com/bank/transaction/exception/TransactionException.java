@@ -1,7 +1,25 @@
 package com.bank.transaction.exception;
 
 public class TransactionException extends RuntimeException {
+
+    private final TransactionErrorCode code;
+
     public TransactionException(String message) {
+        this(null, message);
+    }
+
+    public TransactionException(TransactionErrorCode code, String message) {
         super(message);
+        this.code = code;
+    }
+
+    /** Sin respuesta del servicio de tarjetas: la operación pudo haberse aplicado o no. */
+    public static TransactionException outcomeUnknown() {
+        return new TransactionException(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN,
+                "Sin respuesta del servicio de tarjetas; el resultado de la operación es incierto.");
+    }
+
+    public TransactionErrorCode getCode() {
+        return code;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,178 @@
+package com.bank.transaction.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exporta la tabla {@code transactions} fila a fila al flujo de salida. La consulta se lee con un
+ * cursor del servidor y un tamaño de fetch fijo, sin pasar por entidades JPA, así que la memoria no
+ * depende del número de filas. En PostgreSQL el cursor solo se usa dentro de una transacción
+ * (autocommit desactivado), por eso la lectura va en una transacción de solo lectura.
+ */
+@Component
+public class TransactionExporter {
+
+    private static final String SELECT =
+            "SELECT transaction_id, card_id, price, transaction_date, is_annulled, status, status_detail FROM transactions";
+    private static final String CSV_HEADER = "transactionId,cardId,price,transactionDate,annulled,status,statusDetail\n";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+
+    public TransactionExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               @Value("${transaction.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+    }
+
+    /** Escribe las transacciones que cumplen los filtros (opcionales) y devuelve cuántas se exportaron. */
+    public long export(ExportFormat format, LocalDateTime from, LocalDateTime to, String cardId, OutputStream output) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT);
+        List<Object> args = new ArrayList<>();
+        String separator = " WHERE ";
+        if (cardId != null) {
+            sql.append(separator).append("card_id = ?");
+            args.add(cardId);
+            separator = " AND ";
+        }
+        if (from != null) {
+            sql.append(separator).append("transaction_date >= ?");
+            args.add(Timestamp.valueOf(from));
+            separator = " AND ";
+        }
+        if (to != null) {
+            sql.append(separator).append("transaction_date < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY transaction_id");
+
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(output) : new NdjsonRowWriter(output);
+        long[] rows = {0};
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(sql.toString(), rs -> {
+                        try {
+                            writer.write(rs);
+                            rows[0]++;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        return rows[0];
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator json;
+
+        NdjsonRowWriter(OutputStream output) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(output);
+            // Un objeto por línea; sin el separador por defecto entre valores raíz
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("transactionId", rs.getLong(1));
+            json.writeStringField("cardId", rs.getString(2));
+            json.writeNumberField("price", rs.getBigDecimal(3));
+            json.writeStringField("transactionDate", rs.getTimestamp(4).toLocalDateTime().toString());
+            json.writeBooleanField("annulled", rs.getBoolean(5));
+            json.writeStringField("status", status(rs.getString(6)));
+            json.writeStringField("statusDetail", rs.getString(7));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream output) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            BigDecimal price = rs.getBigDecimal(3);
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(rs.getString(2));
+            writer.write(',');
+            writer.write(price.toPlainString());
+            writer.write(',');
+            writer.write(rs.getTimestamp(4).toLocalDateTime().toString());
+            writer.write(',');
+            writer.write(Boolean.toString(rs.getBoolean(5)));
+            writer.write(',');
+            writer.write(status(rs.getString(6)));
+            writer.write(',');
+            writer.write(csv(rs.getString(7)));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String csv(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    // Las transacciones anteriores al modo asíncrono no tienen estado y siempre quedaban aprobadas
+    private static String status(String status) {
+        return status != null ? status : "APPROVED";
+    }
+}
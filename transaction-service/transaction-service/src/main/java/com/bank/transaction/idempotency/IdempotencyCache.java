@@ -0,0 +1,130 @@
+package com.bank.transaction.idempotency;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplica compras por {@code Idempotency-Key}: caché en memoria acotada por tamaño y TTL,
+ * respaldada por el índice único {@code transactions.idempotency_key}.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final TransactionRepository transactionRepository;
+    private final Cache<String, TransactionResponseDTO> cache;
+    private final ConcurrentMap<String, CompletableFuture<TransactionResponseDTO>> inFlight = new ConcurrentHashMap<>();
+    private final long inFlightWaitMs;
+
+    public IdempotencyCache(TransactionRepository transactionRepository, MeterRegistry meterRegistry,
+                            @Value("${transaction.idempotency.max-entries:100000}") long maxEntries,
+                            @Value("${transaction.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${transaction.idempotency.in-flight-wait-ms:10000}") long inFlightWaitMs) {
+        this.transactionRepository = transactionRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        this.inFlightWaitMs = inFlightWaitMs;
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "transaction.idempotency");
+    }
+
+    public static void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new TransactionException("Idempotency-Key inválido: debe tener entre 1 y " + MAX_KEY_LENGTH + " caracteres.");
+        }
+    }
+
+    /**
+     * Ejecuta la compra una sola vez por clave. Los reintentos concurrentes esperan el resultado
+     * de la primera ejecución y los posteriores lo leen de la caché o de la base de datos.
+     */
+    public TransactionResponseDTO execute(String idempotencyKey, TransactionRequestDTO request,
+                                          Supplier<TransactionResponseDTO> purchase) {
+        validate(idempotencyKey);
+        Optional<TransactionResponseDTO> previous = find(idempotencyKey);
+        if (previous.isPresent()) {
+            return checkSameRequest(previous.get(), request);
+        }
+
+        CompletableFuture<TransactionResponseDTO> mine = new CompletableFuture<>();
+        CompletableFuture<TransactionResponseDTO> running = inFlight.putIfAbsent(idempotencyKey, mine);
+        if (running != null) {
+            return checkSameRequest(await(running), request);
+        }
+        try {
+            TransactionResponseDTO response = purchase.get();
+            cache.put(idempotencyKey, response);
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+
+    public Optional<TransactionResponseDTO> find(String idempotencyKey) {
+        TransactionResponseDTO cached = cache.getIfPresent(idempotencyKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        Optional<TransactionResponseDTO> stored = transactionRepository.findByIdempotencyKey(idempotencyKey)
+                .map(IdempotencyCache::toResponse);
+        stored.ifPresent(response -> cache.put(idempotencyKey, response));
+        return stored;
+    }
+
+    public void remember(String idempotencyKey, TransactionResponseDTO response) {
+        cache.put(idempotencyKey, response);
+    }
+
+    public static TransactionResponseDTO checkSameRequest(TransactionResponseDTO previous, TransactionRequestDTO request) {
+        boolean samePrice = previous.getPrice() != null && request.getPrice() != null
+                && previous.getPrice().compareTo(request.getPrice()) == 0;
+        if (!Objects.equals(previous.getCardId(), request.getCardId()) || !samePrice) {
+            throw new TransactionException("El Idempotency-Key ya fue usado para otra compra.");
+        }
+        return previous;
+    }
+
+    private TransactionResponseDTO await(CompletableFuture<TransactionResponseDTO> running) {
+        try {
+            return running.get(inFlightWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Operación interrumpida esperando una compra en curso con el mismo Idempotency-Key.");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new TransactionException(e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new TransactionException("Hay una compra en curso con el mismo Idempotency-Key.");
+        }
+    }
+
+    private static TransactionResponseDTO toResponse(Transaction tx) {
+        return new TransactionResponseDTO(tx.getTransactionId(), tx.getCardId(), tx.getPrice(), tx.getTransactionDate());
+    }
+}
@@ -0,0 +1,31 @@
+package com.bank.transaction.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Contador {@code transaction.rejections} por motivo, tanto de las respuestas de error como de las
+ * compras que la liquidación asíncrona deja en REJECTED.
+ */
+@Component
+public class RejectionMetrics {
+
+    private final Map<RejectionReason, Counter> counters = new EnumMap<>(RejectionReason.class);
+
+    public RejectionMetrics(MeterRegistry meterRegistry) {
+        for (RejectionReason reason : RejectionReason.values()) {
+            counters.put(reason, Counter.builder("transaction.rejections")
+                    .description("Operaciones rechazadas por motivo")
+                    .tag("reason", reason.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(RejectionReason reason) {
+        counters.get(reason).increment();
+    }
+}
@@ -0,0 +1,71 @@
+package com.bank.transaction.metrics;
+
+import com.bank.transaction.exception.TransactionException;
+
+/**
+ * Motivos de rechazo que se cuentan en {@code transaction.rejections}. Los rechazos del servicio de
+ * tarjetas llegan dentro del mensaje de error, por eso el motivo se busca por contenido y en orden.
+ */
+public enum RejectionReason {
+    INSUFFICIENT_BALANCE("insufficient_balance", "Saldo insuficiente"),
+    INACTIVE("inactive", "La tarjeta no está activa"),
+    BLOCKED("blocked", "La tarjeta está bloqueada"),
+    EXPIRED("expired", "La tarjeta ha expirado"),
+    CARD_NOT_FOUND("card_not_found", "Tarjeta no encontrada"),
+    ANULATION_WINDOW("anulation_window", "No se puede anular, han pasado más de 24 horas."),
+    ALREADY_ANNULLED("already_annulled", "La transacción ya fue anulada previamente."),
+    NOT_APPROVED("not_approved", "Solo se pueden anular transacciones aprobadas."),
+    TRANSACTION_NOT_FOUND("transaction_not_found", "Transacción no encontrada"),
+    IDEMPOTENCY_CONFLICT("idempotency_conflict", "Idempotency-Key"),
+    CARD_SERVICE_CIRCUIT_OPEN("card_service_circuit_open"),
+    CARD_SERVICE_LIMIT_EXCEEDED("card_service_limit_exceeded"),
+    CARD_SERVICE_OVERLOADED("card_service_overloaded", "demasiadas solicitudes en curso"),
+    CARD_SERVICE_OUTCOME_UNKNOWN("card_service_outcome_unknown"),
+    CARD_SERVICE_ERROR("card_service_error", "servicio de tarjetas", "Error al validar tarjeta", "Error al reversar saldo"),
+    INVALID_REQUEST("invalid_request"),
+    OTHER("other");
+
+    private final String tag;
+    private final String[] patterns;
+
+    RejectionReason(String tag, String... patterns) {
+        this.tag = tag;
+        this.patterns = patterns;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    /** Mensaje de la excepción para los rechazos propios de este servicio. */
+    public String message() {
+        return patterns[0];
+    }
+
+    public static RejectionReason of(RuntimeException ex) {
+        if (ex instanceof TransactionException transactionException && transactionException.getCode() != null) {
+            return switch (transactionException.getCode()) {
+                case CARD_SERVICE_CIRCUIT_OPEN -> CARD_SERVICE_CIRCUIT_OPEN;
+                case CARD_SERVICE_BULKHEAD_FULL -> CARD_SERVICE_OVERLOADED;
+                case CARD_SERVICE_LIMIT_EXCEEDED -> CARD_SERVICE_LIMIT_EXCEEDED;
+                case CARD_SERVICE_OUTCOME_UNKNOWN -> CARD_SERVICE_OUTCOME_UNKNOWN;
+            };
+        }
+        RejectionReason reason = of(ex.getMessage());
+        return reason == OTHER && ex instanceof IllegalArgumentException ? INVALID_REQUEST : reason;
+    }
+
+    public static RejectionReason of(String message) {
+        if (message == null) {
+            return OTHER;
+        }
+        for (RejectionReason reason : values()) {
+            for (String pattern : reason.patterns) {
+                if (message.contains(pattern)) {
+                    return reason;
+                }
+            }
+        }
+        return OTHER;
+    }
+}
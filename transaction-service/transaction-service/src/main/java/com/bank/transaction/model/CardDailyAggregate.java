@@ -0,0 +1,52 @@
+package com.bank.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales diarios de una tarjeta. Se mantienen de forma incremental al aprobar y anular compras,
+ * así que consultar un rango cuesta una fila por día en lugar de una por transacción.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@IdClass(CardDailyAggregate.Key.class)
+@Table(name = "card_daily_aggregates")
+public class CardDailyAggregate {
+
+    @Id
+    @Column(name = "card_id", length = 16, nullable = false)
+    private String cardId;
+
+    @Id
+    @Column(name = "aggregate_date", nullable = false)
+    private LocalDate aggregateDate;
+
+    // Compras aprobadas del día, incluidas las que luego se anularon
+    @Column(name = "purchase_count", nullable = false)
+    private long purchaseCount;
+
+    @Column(name = "purchase_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal purchaseAmount;
+
+    @Column(name = "annulled_count", nullable = false)
+    private long annulledCount;
+
+    @Column(name = "annulled_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal annulledAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String cardId;
+        private LocalDate aggregateDate;
+    }
+}
@@ -0,0 +1,55 @@
+package com.bank.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "purchase_outbox")
+public class PurchaseOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long outboxId;
+
+    @Column(name = "transaction_id", nullable = false, unique = true)
+    private Long transactionId;
+
+    @Column(name = "card_id", length = 16, nullable = false)
+    private String cardId;
+
+    @Column(name = "price", nullable = false, precision = 19, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Clave con la que se envía el débito: un reintento del mismo lote no vuelve a debitar
+    @Column(name = "operation_id", length = 64, nullable = false)
+    private String operationId;
+
+    // Reversa de una anulación cuyo resultado quedó incierto, en lugar del débito de una compra
+    @ColumnDefault("false")
+    @Column(name = "reversal", nullable = false)
+    private boolean reversal;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    // Lease del worker que está liquidando la fila; vencido, otro worker o instancia puede reclamarla
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
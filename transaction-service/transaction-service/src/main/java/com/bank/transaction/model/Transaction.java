@@ -14,11 +14,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "transactions")
+// El índice cubre el historial por tarjeta: igualdad en card_id y recorrido ordenado por fecha e id
+@Table(name = "transactions", indexes = @Index(name = "idx_transactions_card_date_id",
+        columnList = "card_id, transaction_date DESC, transaction_id DESC"))
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Secuencia pooled-lo en lugar de IDENTITY para que Hibernate pueda agrupar los INSERT en lotes JDBC
+    @TransactionSequence(name = "transactions_seq")
     private Long transactionId;
 
     @Column(name = "card_id", length = 16, nullable = false)
@@ -32,4 +35,19 @@ public class Transaction {
 
     @Column(name = "is_annulled", nullable = false)
     private boolean isAnnulled;
+
+    // Nulo en las transacciones anteriores al modo asíncrono, que siempre quedaban aprobadas
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 16)
+    private TransactionStatus status;
+
+    @Column(name = "status_detail")
+    private String statusDetail;
+
+    @Column(name = "idempotency_key", length = 64, unique = true)
+    private String idempotencyKey;
+
+    public TransactionStatus getEffectiveStatus() {
+        return status != null ? status : TransactionStatus.APPROVED;
+    }
 }
\ No newline at end of file
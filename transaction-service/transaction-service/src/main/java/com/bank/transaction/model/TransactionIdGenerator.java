@@ -0,0 +1,38 @@
+package com.bank.transaction.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Secuencia con optimizador pooled-lo para {@link Transaction}, aplicada con {@link TransactionSequence}.
+ * El tamaño de bloque sale de {@code transaction.id.allocation-size}; el INCREMENT de la secuencia en
+ * base de datos debe coincidir.
+ */
+public class TransactionIdGenerator extends SequenceStyleGenerator {
+
+    static final String ALLOCATION_SIZE_SETTING = "bank.transaction.id.allocation_size";
+
+    private final String sequenceName;
+
+    public TransactionIdGenerator(TransactionSequence config, Member member, CustomIdGeneratorCreationContext context) {
+        this.sequenceName = config.name();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        Integer allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, 50);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        parameters.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -0,0 +1,19 @@
+package com.bank.transaction.model;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/** Id generado por {@link TransactionIdGenerator} a partir de la secuencia {@link #name()}. */
+@IdGeneratorType(TransactionIdGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface TransactionSequence {
+
+    String name();
+}
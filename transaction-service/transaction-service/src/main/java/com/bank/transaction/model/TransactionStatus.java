@@ -0,0 +1,7 @@
+package com.bank.transaction.model;
+
+public enum TransactionStatus {
+    PENDING,
+    APPROVED,
+    REJECTED
+}
@@ -0,0 +1,256 @@
+package com.bank.transaction.partition;
+
+import com.bank.transaction.export.ExportFormat;
+import com.bank.transaction.export.TransactionExporter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Mantiene acotada la tabla {@code transactions} por días de {@code transaction_date}.
+ * <p>
+ * En PostgreSQL, con la tabla ya particionada ({@code db/postgres/transactions_partitioning.sql}),
+ * crea por adelantado las particiones diarias {@code transactions_pAAAAMMDD} y, pasada la retención,
+ * archiva cada día en un CSV comprimido antes de desadjuntar y borrar su partición. En el resto de
+ * bases (H2 en local) no hay particiones nativas: se archiva igual y luego se borran las filas del día.
+ * <p>
+ * El archivo se escribe completo en un temporal y se renombra antes de tocar la tabla; si el proceso
+ * se corta entre ambos pasos, la siguiente pasada vuelve a exportar el mismo día.
+ * <p>
+ * Un día con compras PENDING o con filas en {@code purchase_outbox} no se archiva: el worker de
+ * liquidación todavía las necesita. Se reintenta en cada pasada hasta que quede liquidado.
+ */
+@Component
+@ConditionalOnProperty(name = "transaction.partition.enabled", havingValue = "true")
+public class TransactionPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionManager.class);
+
+    static final String PARTITION_PREFIX = "transactions_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final String IS_PARTITIONED =
+            "SELECT COUNT(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid " +
+            "WHERE c.relname = 'transactions' AND c.relnamespace = to_regnamespace(current_schema())";
+    private static final String LIST_PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent " +
+            "WHERE p.relname = 'transactions' AND p.relnamespace = to_regnamespace(current_schema())";
+    private static final String OLD_DAYS =
+            "SELECT DISTINCT CAST(transaction_date AS DATE) FROM transactions WHERE transaction_date < ? ORDER BY 1";
+    private static final String DELETE_DAY =
+            "DELETE FROM transactions WHERE transaction_date >= ? AND transaction_date < ?";
+    private static final String PENDING_WORK =
+            "SELECT COUNT(*) FROM transactions t WHERE t.transaction_date >= ? AND t.transaction_date < ? " +
+            "AND (t.status = 'PENDING' OR EXISTS (SELECT 1 FROM purchase_outbox o WHERE o.transaction_id = t.transaction_id))";
+    private static final String PURGE_IDEMPOTENCY_KEYS =
+            "DELETE FROM transaction_idempotency_keys WHERE transaction_date < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionExporter exporter;
+    private final int precreateDays;
+    private final int retentionDays;
+    private final Path archiveDir;
+    private final long checkIntervalMs;
+    private final Counter archivedDays;
+    private final Counter archivedRows;
+    private final Counter heldBackDays;
+    private final Counter failures;
+    private boolean nativePartitions;
+    private ScheduledExecutorService executor;
+
+    public TransactionPartitionManager(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                       TransactionExporter exporter, MeterRegistry meterRegistry,
+                                       @Value("${transaction.partition.precreate-days:7}") int precreateDays,
+                                       @Value("${transaction.partition.retention-days:90}") int retentionDays,
+                                       @Value("${transaction.partition.archive-dir:./archive}") String archiveDir,
+                                       @Value("${transaction.partition.check-interval-ms:3600000}") long checkIntervalMs) {
+        if (retentionDays < 2) {
+            // La anulación necesita las últimas 24 horas, que pueden abarcar el día anterior
+            throw new IllegalArgumentException("transaction.partition.retention-days debe ser al menos 2");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.exporter = exporter;
+        this.precreateDays = precreateDays;
+        this.retentionDays = retentionDays;
+        this.archiveDir = Path.of(archiveDir);
+        this.checkIntervalMs = checkIntervalMs;
+        this.archivedDays = Counter.builder("transaction.partition.archived.days").register(meterRegistry);
+        this.archivedRows = Counter.builder("transaction.partition.archived.rows").register(meterRegistry);
+        this.heldBackDays = Counter.builder("transaction.partition.held.back.days").register(meterRegistry);
+        this.failures = Counter.builder("transaction.partition.failures").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        nativePartitions = detectNativePartitions();
+        log.info("Gestión de particiones de transactions: {}", nativePartitions ? "particiones nativas" : "borrado por días (sin particiones)");
+        // Las particiones de hoy y de los próximos días existen antes de aceptar compras
+        createPartitions(LocalDate.now());
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "transaction-partitions");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::maintainSafely, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    private void maintainSafely() {
+        try {
+            maintain(LocalDate.now());
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Error manteniendo las particiones de transactions: {}", e.getMessage(), e);
+        }
+    }
+
+    /** Crea las particiones futuras y archiva los días anteriores a la retención; devuelve los días archivados. */
+    public int maintain(LocalDate today) {
+        createPartitions(today);
+        LocalDate cutoff = today.minusDays(retentionDays);
+        int archived = 0;
+        for (LocalDate day : daysBefore(cutoff)) {
+            if (hasPendingWork(day)) {
+                heldBackDays.increment();
+                log.warn("El {} tiene compras sin liquidar; se archivará cuando el outbox quede vacío", day);
+                continue;
+            }
+            archive(day);
+            archived++;
+        }
+        if (nativePartitions) {
+            jdbcTemplate.update(PURGE_IDEMPOTENCY_KEYS, Timestamp.valueOf(cutoff.atStartOfDay()));
+        }
+        return archived;
+    }
+
+    private void createPartitions(LocalDate today) {
+        if (!nativePartitions) {
+            return;
+        }
+        for (int i = 0; i <= precreateDays; i++) {
+            LocalDate day = today.plusDays(i);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day) + " PARTITION OF transactions " +
+                        "FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+            } catch (RuntimeException e) {
+                // Típicamente filas de ese día ya en la partición por defecto o en transactions_legacy
+                failures.increment();
+                log.warn("No se pudo crear la partición {}: {}", partitionName(day), e.getMessage());
+            }
+        }
+    }
+
+    private List<LocalDate> daysBefore(LocalDate cutoff) {
+        if (!nativePartitions) {
+            return jdbcTemplate.queryForList(OLD_DAYS, LocalDate.class, Timestamp.valueOf(cutoff.atStartOfDay()));
+        }
+        List<LocalDate> days = new ArrayList<>();
+        for (String partition : jdbcTemplate.queryForList(LIST_PARTITIONS, String.class)) {
+            LocalDate day = partitionDay(partition);
+            if (day != null && day.isBefore(cutoff)) {
+                days.add(day);
+            }
+        }
+        days.sort(null);
+        return days;
+    }
+
+    private boolean hasPendingWork(LocalDate day) {
+        Long pending = jdbcTemplate.queryForObject(PENDING_WORK, Long.class,
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        return pending != null && pending > 0;
+    }
+
+    private void archive(LocalDate day) {
+        Path target = archiveDir.resolve("transactions-" + day + ".csv.gz");
+        Path tmp = archiveDir.resolve(target.getFileName() + ".tmp");
+        long rows;
+        try {
+            Files.createDirectories(archiveDir);
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+                rows = exporter.export(ExportFormat.CSV, day.atStartOfDay(), day.plusDays(1).atStartOfDay(), null, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo archivar " + day + " en " + target, e);
+        }
+
+        if (nativePartitions) {
+            String partition = partitionName(day);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE transactions DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            });
+        } else {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(DELETE_DAY,
+                    Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay())));
+        }
+        archivedDays.increment();
+        archivedRows.increment(rows);
+        log.info("Archivadas {} transacciones del {} en {}", rows, day, target);
+    }
+
+    private boolean detectNativePartitions() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(product)) {
+            return false;
+        }
+        Integer partitioned = jdbcTemplate.queryForObject(IS_PARTITIONED, Integer.class);
+        return partitioned != null && partitioned > 0;
+    }
+
+    public boolean isNativePartitions() {
+        return nativePartitions;
+    }
+
+    static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+
+    // Nulo para las particiones que no son diarias (transactions_default, transactions_legacy)
+    static LocalDate partitionDay(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.CardDailyAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CardDailyAggregateRepository extends JpaRepository<CardDailyAggregate, CardDailyAggregate.Key> {
+    List<CardDailyAggregate> findByCardIdAndAggregateDateBetweenOrderByAggregateDate(String cardId, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,43 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.model.PurchaseOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PurchaseOutboxRepository extends JpaRepository<PurchaseOutbox, Long> {
+
+    // Filas sin lease vigente y con intentos disponibles; las agotadas quedan como dead letter
+    @Query("SELECT o.outboxId FROM PurchaseOutbox o WHERE o.attempts < :maxAttempts " +
+           "AND (o.claimedUntil IS NULL OR o.claimedUntil <= :now) ORDER BY o.outboxId")
+    List<Long> findClaimable(@Param("maxAttempts") int maxAttempts, @Param("now") LocalDateTime now, Pageable page);
+
+    // La condición se vuelve a evaluar con la fila bloqueada: entre workers o instancias que compiten
+    // por las mismas filas, cada una queda reclamada por uno solo
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE PurchaseOutbox o SET o.claimedBy = :claimedBy, o.claimedUntil = :until " +
+           "WHERE o.outboxId IN :ids AND (o.claimedUntil IS NULL OR o.claimedUntil <= :now)")
+    int claim(@Param("ids") List<Long> ids, @Param("claimedBy") String claimedBy,
+              @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+
+    List<PurchaseOutbox> findByClaimedByOrderByOutboxId(String claimedBy);
+
+    // Libera el lease tras un fallo; la fila vuelve a ser reclamable a partir de retryAt
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE PurchaseOutbox o SET o.attempts = o.attempts + 1, o.claimedBy = NULL, o.claimedUntil = :retryAt " +
+           "WHERE o.outboxId IN :ids")
+    int releaseFailed(@Param("ids") List<Long> ids, @Param("retryAt") LocalDateTime retryAt);
+
+    // Deja la fila fuera de findClaimable sin borrarla; reponer attempts la vuelve a poner en curso
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE PurchaseOutbox o SET o.attempts = :maxAttempts, o.claimedBy = NULL, o.claimedUntil = NULL " +
+           "WHERE o.outboxId IN :ids")
+    int deadLetter(@Param("ids") List<Long> ids, @Param("maxAttempts") int maxAttempts);
+}
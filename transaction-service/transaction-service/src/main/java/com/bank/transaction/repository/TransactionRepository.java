@@ -2,11 +2,40 @@ package com.bank.transaction.repository;
 
 import com.bank.transaction.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionRepositoryCustom {
     Optional<Transaction> findByTransactionIdAndCardId(Long transactionId, String cardId);
+
+    // El límite por fecha permite a PostgreSQL descartar las particiones antiguas
+    @Query("SELECT t FROM Transaction t WHERE t.transactionId = :transactionId AND t.cardId = :cardId AND t.transactionDate >= :since")
+    Optional<Transaction> findRecent(@Param("transactionId") Long transactionId, @Param("cardId") String cardId,
+                                     @Param("since") LocalDateTime since);
+
+    // Marca condicional: devuelve 0 si la compra ya estaba anulada, no está aprobada o es anterior a 'since'.
+    // Se confirma por sí sola, antes de la reversa remota
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.isAnnulled = true WHERE t.transactionId = :transactionId AND t.cardId = :cardId " +
+           "AND t.transactionDate >= :since AND t.isAnnulled = false " +
+           "AND (t.status IS NULL OR t.status = com.bank.transaction.model.TransactionStatus.APPROVED)")
+    int markAnnulled(@Param("transactionId") Long transactionId, @Param("cardId") String cardId,
+                     @Param("since") LocalDateTime since);
+
+    // Deshace markAnnulled cuando la reversa no llegó a aplicarse
+    @Transactional
+    @Modifying
+    @Query("UPDATE Transaction t SET t.isAnnulled = false WHERE t.transactionId = :transactionId AND t.cardId = :cardId " +
+           "AND t.isAnnulled = true")
+    int unmarkAnnulled(@Param("transactionId") Long transactionId, @Param("cardId") String cardId);
+
+    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.dto.TransactionHistoryItemDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TransactionRepositoryCustom {
+
+    /**
+     * Historial de una tarjeta del más reciente al más antiguo, paginado por búsqueda (keyset): la página
+     * siguiente empieza después de {@code (afterDate, afterId)} en vez de saltar filas con OFFSET.
+     * Los filtros y el cursor son opcionales.
+     */
+    List<TransactionHistoryItemDTO> findCardHistory(String cardId, LocalDateTime from, LocalDateTime to, Boolean annulled,
+                                                    LocalDateTime afterDate, Long afterId, int limit);
+}
@@ -0,0 +1,62 @@
+package com.bank.transaction.repository;
+
+import com.bank.transaction.dto.TransactionHistoryItemDTO;
+import com.bank.transaction.model.TransactionStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TransactionRepositoryCustomImpl implements TransactionRepositoryCustom {
+
+    // Proyección a DTO: no se hidratan entidades ni entran en el contexto de persistencia
+    private static final String HISTORY_SELECT =
+            "SELECT new com.bank.transaction.dto.TransactionHistoryItemDTO(" +
+            "t.transactionId, t.price, t.transactionDate, t.isAnnulled, t.status, t.statusDetail) " +
+            "FROM Transaction t WHERE t.cardId = :cardId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TransactionHistoryItemDTO> findCardHistory(String cardId, LocalDateTime from, LocalDateTime to, Boolean annulled,
+                                                           LocalDateTime afterDate, Long afterId, int limit) {
+        // Solo se añaden los filtros presentes, para que el plan siga siendo un rango sobre el índice
+        StringBuilder jpql = new StringBuilder(HISTORY_SELECT);
+        Map<String, Object> params = new HashMap<>();
+        params.put("cardId", cardId);
+        if (from != null) {
+            jpql.append(" AND t.transactionDate >= :from");
+            params.put("from", from);
+        }
+        if (to != null) {
+            jpql.append(" AND t.transactionDate < :to");
+            params.put("to", to);
+        }
+        if (annulled != null) {
+            jpql.append(" AND t.isAnnulled = :annulled");
+            params.put("annulled", annulled);
+        }
+        if (afterDate != null) {
+            jpql.append(" AND (t.transactionDate < :afterDate OR (t.transactionDate = :afterDate AND t.transactionId < :afterId))");
+            params.put("afterDate", afterDate);
+            params.put("afterId", afterId);
+        }
+        jpql.append(" ORDER BY t.transactionDate DESC, t.transactionId DESC");
+
+        TypedQuery<TransactionHistoryItemDTO> query = entityManager.createQuery(jpql.toString(), TransactionHistoryItemDTO.class);
+        params.forEach(query::setParameter);
+        List<TransactionHistoryItemDTO> items = query.setMaxResults(limit).getResultList();
+        for (TransactionHistoryItemDTO item : items) {
+            // Las transacciones anteriores al modo asíncrono no tienen estado y siempre quedaban aprobadas
+            if (item.getStatus() == null) {
+                item.setStatus(TransactionStatus.APPROVED);
+            }
+        }
+        return items;
+    }
+}
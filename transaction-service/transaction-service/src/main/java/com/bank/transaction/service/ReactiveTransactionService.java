@@ -0,0 +1,20 @@
+package com.bank.transaction.service;
+
+import com.bank.transaction.dto.AnulationRequestDTO;
+import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveTransactionService {
+
+    default Mono<TransactionResponseDTO> purchase(TransactionRequestDTO request) {
+        return purchase(request, null);
+    }
+
+    Mono<TransactionResponseDTO> purchase(TransactionRequestDTO request, String idempotencyKey);
+
+    Mono<TransactionDetailsDTO> getTransaction(Long transactionId);
+
+    Mono<Void> cancelTransaction(AnulationRequestDTO request);
+}
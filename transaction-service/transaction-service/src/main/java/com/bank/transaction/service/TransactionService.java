@@ -2,14 +2,24 @@ package com.bank.transaction.service;
 
 import com.bank.transaction.dto.AnulationRequestDTO;
 import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionHistoryPageDTO;
 import com.bank.transaction.dto.TransactionRequestDTO;
 import com.bank.transaction.dto.TransactionResponseDTO;
 
+import java.time.LocalDateTime;
+
 public interface TransactionService {
 
-    TransactionResponseDTO purchase(TransactionRequestDTO request);
+    default TransactionResponseDTO purchase(TransactionRequestDTO request) {
+        return purchase(request, null);
+    }
+
+    TransactionResponseDTO purchase(TransactionRequestDTO request, String idempotencyKey);
 
     TransactionDetailsDTO getTransaction(Long transactionId);
 
     void cancelTransaction(AnulationRequestDTO request);
+
+    TransactionHistoryPageDTO getCardHistory(String cardId, LocalDateTime from, LocalDateTime to, Boolean annulled,
+                                             String cursor, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,288 @@
+package com.bank.transaction.service.impl;
+
+import com.bank.transaction.aggregate.CardDailyAggregates;
+import com.bank.transaction.anulation.AnulationWindowIndex;
+import com.bank.transaction.client.AdaptiveConcurrencyLimit;
+import com.bank.transaction.dto.AnulationRequestDTO;
+import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.idempotency.IdempotencyCache;
+import com.bank.transaction.metrics.RejectionReason;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.service.ReactiveTransactionService;
+import com.bank.transaction.settlement.PurchaseSettlementWorker;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Profile("reactive")
+public class ReactiveTransactionServiceImpl implements ReactiveTransactionService {
+
+    private final TransactionRepository transactionRepository;
+    private final WebClient cardServiceWebClient;
+    private final Scheduler jdbcScheduler;
+    private final Semaphore inFlight;
+    private final IdempotencyCache idempotencyCache;
+    private final CardDailyAggregates dailyAggregates;
+    private final AnulationWindowIndex anulationIndex;
+    private final PurchaseSettlementWorker settlementWorker;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimit limit;
+
+    public ReactiveTransactionServiceImpl(TransactionRepository transactionRepository, WebClient cardServiceWebClient,
+                                          Scheduler jdbcScheduler, IdempotencyCache idempotencyCache,
+                                          CardDailyAggregates dailyAggregates, AnulationWindowIndex anulationIndex,
+                                          PurchaseSettlementWorker settlementWorker, CircuitBreaker cardServiceCircuitBreaker,
+                                          AdaptiveConcurrencyLimit cardServiceLimit,
+                                          @Value("${card.service.reactive.max-in-flight:1000}") int maxInFlight) {
+        this.transactionRepository = transactionRepository;
+        this.cardServiceWebClient = cardServiceWebClient;
+        this.jdbcScheduler = jdbcScheduler;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.idempotencyCache = idempotencyCache;
+        this.dailyAggregates = dailyAggregates;
+        this.anulationIndex = anulationIndex;
+        this.settlementWorker = settlementWorker;
+        this.circuitBreaker = cardServiceCircuitBreaker;
+        this.limit = cardServiceLimit;
+    }
+
+    @Override
+    public Mono<TransactionResponseDTO> purchase(TransactionRequestDTO request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return debitAndSave(request, null);
+        }
+        // Sin espera de compras en curso: dos reintentos simultáneos los resuelve el índice único
+        return Mono.fromRunnable(() -> IdempotencyCache.validate(idempotencyKey))
+            .then(onJdbc(() -> idempotencyCache.find(idempotencyKey)))
+            .flatMap(previous -> previous.isPresent()
+                ? Mono.just(IdempotencyCache.checkSameRequest(previous.get(), request))
+                : debitAndSave(request, idempotencyKey)
+                    .doOnNext(response -> idempotencyCache.remember(idempotencyKey, response)));
+    }
+
+    private Mono<TransactionResponseDTO> debitAndSave(TransactionRequestDTO request, String idempotencyKey) {
+        TransactionRequestDTO debitRequest = cardRequest(request.getCardId(), request.getPrice(), "purchase-" + UUID.randomUUID());
+        return callCardService("/card/internal/debit", debitRequest, "Error al validar tarjeta: ")
+            .then(onJdbc(() -> {
+                Transaction savedTx = transactionRepository.save(Transaction.builder()
+                    .cardId(request.getCardId())
+                    .price(request.getPrice())
+                    .transactionDate(LocalDateTime.now())
+                    .isAnnulled(false)
+                    .status(TransactionStatus.APPROVED)
+                    .idempotencyKey(idempotencyKey)
+                    .build());
+                dailyAggregates.recordApproved(savedTx);
+                anulationIndex.add(savedTx);
+                return savedTx;
+            }))
+            .onErrorResume(ReactiveTransactionServiceImpl::isOutcomeUnknown,
+                // El débito pudo aplicarse o no: la compra queda PENDING y el worker la liquida con la misma clave
+                e -> onJdbc(() -> settlementWorker.acceptUnconfirmed(request, idempotencyKey, debitRequest.getOperationId())))
+            .map(savedTx -> new TransactionResponseDTO(
+                savedTx.getTransactionId(),
+                savedTx.getCardId(),
+                savedTx.getPrice(),
+                savedTx.getTransactionDate()
+            ))
+            .onErrorResume(DataIntegrityViolationException.class, e -> idempotencyKey == null
+                ? Mono.error(e)
+                : callCardService("/card/internal/reversal",
+                        cardRequest(request.getCardId(), request.getPrice(), "reversal-" + debitRequest.getOperationId()),
+                        "Error al reversar saldo en tarjeta: ")
+                    .then(onJdbc(() -> idempotencyCache.find(idempotencyKey).orElseThrow(() -> e)))
+                    .map(previous -> IdempotencyCache.checkSameRequest(previous, request)));
+    }
+
+    // La marca condicional se confirma antes de la reversa remota, como en TransactionServiceImpl
+    @Override
+    public Mono<Void> cancelTransaction(AnulationRequestDTO request) {
+        // Con la compra en el índice, los rechazos por tarjeta ajena o ventana vencida no leen la base
+        AnulationWindowIndex.Entry recent = anulationIndex.find(request.getTransactionId());
+        if (recent != null && !recent.cardId().equals(request.getCardId())) {
+            return Mono.error(new TransactionException("Transacción no encontrada (not found) o no pertenece a la tarjeta."));
+        }
+        if (recent != null && Duration.between(recent.transactionDate(), LocalDateTime.now()).toHours() >= 24) {
+            return Mono.error(new TransactionException(RejectionReason.ANULATION_WINDOW.message()));
+        }
+        Mono<Transaction> annulled = recent != null
+            ? Mono.just(Transaction.builder()
+                .transactionId(request.getTransactionId())
+                .cardId(recent.cardId())
+                .price(recent.price())
+                .transactionDate(recent.transactionDate())
+                .isAnnulled(true)
+                .build())
+            : onJdbc(() -> validateStored(request));
+        return annulled
+            .flatMap(tx -> onJdbc(() -> markAnnulled(request)).thenReturn(tx))
+            .flatMap(tx -> reverseAnnulled(request, tx.getPrice()).thenReturn(tx))
+            .flatMap(tx -> onJdbc(() -> {
+                anulationIndex.remove(request.getTransactionId());
+                dailyAggregates.recordAnnulled(tx);
+                return tx;
+            }))
+            .then();
+    }
+
+    private Transaction validateStored(AnulationRequestDTO request) {
+        Transaction tx = transactionRepository.findRecent(request.getTransactionId(), request.getCardId(), LocalDateTime.now().minusHours(24))
+            .or(() -> transactionRepository.findByTransactionIdAndCardId(request.getTransactionId(), request.getCardId()))
+            .orElseThrow(() -> new TransactionException("Transacción no encontrada (not found) o no pertenece a la tarjeta."));
+        if (tx.isAnnulled()) {
+            throw new TransactionException(RejectionReason.ALREADY_ANNULLED.message());
+        }
+        if (tx.getEffectiveStatus() != TransactionStatus.APPROVED) {
+            throw new TransactionException(RejectionReason.NOT_APPROVED.message());
+        }
+        if (Duration.between(tx.getTransactionDate(), LocalDateTime.now()).toHours() >= 24) {
+            throw new TransactionException(RejectionReason.ANULATION_WINDOW.message());
+        }
+        tx.setAnnulled(true);
+        return tx;
+    }
+
+    private int markAnnulled(AnulationRequestDTO request) {
+        int marked = transactionRepository.markAnnulled(request.getTransactionId(), request.getCardId(), LocalDateTime.now().minusHours(24));
+        if (marked == 0) {
+            // Anulada desde otra instancia: la búsqueda en la base explica el rechazo
+            anulationIndex.remove(request.getTransactionId());
+            throw transactionRepository.findByTransactionIdAndCardId(request.getTransactionId(), request.getCardId())
+                .map(tx -> new TransactionException(tx.isAnnulled()
+                    ? RejectionReason.ALREADY_ANNULLED.message()
+                    : RejectionReason.NOT_APPROVED.message()))
+                .orElseGet(() -> new TransactionException("Transacción no encontrada (not found) o no pertenece a la tarjeta."));
+        }
+        return marked;
+    }
+
+    // Rechazo conocido: la marca se deshace. Resultado incierto: la reversa queda en el outbox con la misma clave
+    private Mono<Void> reverseAnnulled(AnulationRequestDTO request, BigDecimal price) {
+        TransactionRequestDTO reversal = cardRequest(request.getCardId(), price, "anulation-" + request.getTransactionId());
+        return callCardService("/card/internal/reversal", reversal, "Error al reversar saldo en tarjeta: ")
+            .onErrorResume(e -> isOutcomeUnknown(e)
+                ? onJdbc(() -> {
+                    settlementWorker.queueReversal(request.getTransactionId(), reversal);
+                    return reversal;
+                }).then()
+                : onJdbc(() -> transactionRepository.unmarkAnnulled(request.getTransactionId(), request.getCardId()))
+                    .then(Mono.error(e)));
+    }
+
+    @Override
+    public Mono<TransactionDetailsDTO> getTransaction(Long transactionId) {
+        return onJdbc(() -> transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new TransactionException("Transacción no encontrada (not found) con id: " + transactionId)))
+            .map(TransactionDetailsDTO::fromEntity);
+    }
+
+    // Mismo orden que los interceptores del RestTemplate: circuito, llamadas en curso y límite adaptativo.
+    // Sin espera: si alguno está agotado la solicitud se rechaza de inmediato
+    private Mono<Void> callCardService(String path, TransactionRequestDTO body, String errorPrefix) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Mono.error(new TransactionException(TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN,
+                        "El circuito hacia el servicio de tarjetas está abierto."));
+            }
+            if (!inFlight.tryAcquire()) {
+                circuitBreaker.releasePermission();
+                return Mono.error(new TransactionException(TransactionErrorCode.CARD_SERVICE_BULKHEAD_FULL,
+                        "El servicio de tarjetas tiene demasiadas solicitudes en curso."));
+            }
+            if (!limit.tryAcquire()) {
+                circuitBreaker.releasePermission();
+                inFlight.release();
+                return Mono.error(new TransactionException(TransactionErrorCode.CARD_SERVICE_LIMIT_EXCEEDED,
+                        "El servicio de tarjetas superó su límite de llamadas concurrentes."));
+            }
+            long start = System.nanoTime();
+            return cardServiceWebClient.post()
+                .uri(path)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .then()
+                .doOnSuccess(ignored -> onResponse(start, null))
+                .doOnError(e -> onResponse(start, e))
+                .doOnCancel(() -> {
+                    circuitBreaker.releasePermission();
+                    limit.release();
+                })
+                .doFinally(signal -> inFlight.release())
+                .onErrorMap(e -> cardServiceError(e, errorPrefix));
+        });
+    }
+
+    // Los 4xx son rechazos de negocio: no abren el circuito ni reducen el límite
+    private void onResponse(long start, Throwable error) {
+        long elapsed = System.nanoTime() - start;
+        if (error instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError()) {
+            error = null;
+        }
+        if (error == null) {
+            circuitBreaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            limit.onSuccess(elapsed);
+        } else {
+            circuitBreaker.onError(elapsed, TimeUnit.NANOSECONDS, error);
+            limit.onDropped();
+        }
+    }
+
+    // Sin respuesta, o con un 5xx distinto de 503 (operación no aplicada), el servicio de tarjetas pudo haberla aplicado
+    private static TransactionException cardServiceError(Throwable e, String errorPrefix) {
+        if (e instanceof WebClientResponseException response) {
+            if (response.getStatusCode().is5xxServerError() && response.getStatusCode().value() != HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                return TransactionException.outcomeUnknown();
+            }
+            return new TransactionException(errorPrefix + e.getMessage());
+        }
+        if (e instanceof WebClientRequestException) {
+            return TransactionException.outcomeUnknown();
+        }
+        return new TransactionException(errorPrefix + e.getMessage());
+    }
+
+    private static boolean isOutcomeUnknown(Throwable e) {
+        return e instanceof TransactionException transactionException
+                && transactionException.getCode() == TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN;
+    }
+
+    private static TransactionRequestDTO cardRequest(String cardId, BigDecimal price, String operationId) {
+        TransactionRequestDTO cardRequest = new TransactionRequestDTO();
+        cardRequest.setCardId(cardId);
+        cardRequest.setPrice(price);
+        cardRequest.setOperationId(operationId);
+        return cardRequest;
+    }
+
+    private <T> Mono<T> onJdbc(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(jdbcScheduler);
+    }
+
+    public int availableSlots() {
+        return inFlight.availablePermits();
+    }
+}
@@ -1,44 +1,114 @@
 package com.bank.transaction.service.impl;
 
+import com.bank.transaction.aggregate.CardDailyAggregates;
+import com.bank.transaction.anulation.AnulationWindowIndex;
+import com.bank.transaction.client.CardBatchClient;
+import com.bank.transaction.client.CardBinaryClient;
 import com.bank.transaction.dto.AnulationRequestDTO;
 import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionHistoryItemDTO;
+import com.bank.transaction.dto.TransactionHistoryPageDTO;
 import com.bank.transaction.dto.TransactionRequestDTO;
 import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
 import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.idempotency.IdempotencyCache;
+import com.bank.transaction.metrics.RejectionReason;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
 import com.bank.transaction.repository.TransactionRepository;
 import com.bank.transaction.service.TransactionService;
+import com.bank.transaction.settlement.PurchaseSettlementWorker;
+import io.micrometer.observation.annotation.Observed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final RestTemplate restTemplate;
+    private final CardBatchClient cardBatchClient;
+    private final CardBinaryClient cardBinaryClient;
+    private final PurchaseSettlementWorker settlementWorker;
+    private final IdempotencyCache idempotencyCache;
+    private final CardDailyAggregates dailyAggregates;
+    private final AnulationWindowIndex anulationIndex;
     @Value("${card.service.url:http://localhost:8081}")
     private String CARD_SERVICE_URL_BASE;
+    @Value("${transaction.purchase.mode:sync}")
+    private String purchaseMode = "sync";
+    @Value("${transaction.history.max-page-size:200}")
+    private int maxHistoryPageSize = 200;
 
     @Autowired
-    public TransactionServiceImpl(TransactionRepository transactionRepository, RestTemplate restTemplate) {
+    public TransactionServiceImpl(TransactionRepository transactionRepository, RestTemplate restTemplate,
+                                  Optional<CardBatchClient> cardBatchClient,
+                                  Optional<PurchaseSettlementWorker> settlementWorker,
+                                  IdempotencyCache idempotencyCache, CardDailyAggregates dailyAggregates,
+                                  AnulationWindowIndex anulationIndex, Optional<CardBinaryClient> cardBinaryClient) {
         this.transactionRepository = transactionRepository;
         this.restTemplate = restTemplate;
+        this.cardBatchClient = cardBatchClient.orElse(null);
+        this.settlementWorker = settlementWorker.orElse(null);
+        this.idempotencyCache = idempotencyCache;
+        this.dailyAggregates = dailyAggregates;
+        this.anulationIndex = anulationIndex;
+        this.cardBinaryClient = cardBinaryClient.orElse(null);
     }
 
+    // Sin @Transactional: la llamada remota no debe retener una conexión del pool JDBC
     @Override
-    @Transactional
-    public TransactionResponseDTO purchase(TransactionRequestDTO request) {
-        String url = CARD_SERVICE_URL_BASE + "/card/internal/debit";
+    @Observed(name = "transaction.operation", contextualName = "transaction purchase", lowCardinalityKeyValues = {"operation", "purchase"})
+    public TransactionResponseDTO purchase(TransactionRequestDTO request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return doPurchase(request, null);
+        }
+        return idempotencyCache.execute(idempotencyKey, request, () -> doPurchase(request, idempotencyKey));
+    }
+
+    private TransactionResponseDTO doPurchase(TransactionRequestDTO request, String idempotencyKey) {
+        if ("async".equals(purchaseMode) && settlementWorker != null) {
+            // Modo asíncrono: se responde con la transacción PENDING y el débito se liquida después
+            try {
+                return toResponse(settlementWorker.accept(request, idempotencyKey));
+            } catch (DataIntegrityViolationException e) {
+                return previousPurchase(idempotencyKey, request, e);
+            }
+        }
+        // Con la clave de operación, un débito reenviado no se aplica dos veces en el servicio de tarjetas
+        TransactionRequestDTO debitRequest = cardRequest(request.getCardId(), request.getPrice(), "purchase-" + UUID.randomUUID());
 
         try {
-            restTemplate.postForObject(url, request, Void.class);
-            
+            if (cardBatchClient != null) {
+                cardBatchClient.debit(debitRequest);
+            } else if (cardBinaryClient != null) {
+                cardBinaryClient.debit(debitRequest);
+            } else {
+                postToCardService("/card/internal/debit", debitRequest);
+            }
+        } catch (TransactionException e) {
+            if (e.getCode() == TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN && settlementWorker != null) {
+                return unconfirmedPurchase(request, idempotencyKey, debitRequest.getOperationId(), e);
+            }
+            throw resilienceRejection(e, "Error al validar tarjeta: ");
         } catch (Exception e) {
             throw new TransactionException("Error al validar tarjeta: " + e.getMessage());
         }
@@ -47,47 +117,153 @@ public class TransactionServiceImpl implements TransactionService {
             .price(request.getPrice())
             .transactionDate(LocalDateTime.now())
             .isAnnulled(false)
+            .status(TransactionStatus.APPROVED)
+            .idempotencyKey(idempotencyKey)
             .build();
 
-        Transaction savedTx = transactionRepository.save(tx);
-        return new TransactionResponseDTO(
-                savedTx.getTransactionId(),
-                savedTx.getCardId(),
-                savedTx.getPrice(),
-                savedTx.getTransactionDate()
-        );
+        Transaction savedTx;
+        try {
+            savedTx = transactionRepository.save(tx);
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia registró la misma clave mientras se debitaba: se devuelve este débito
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            reverseDebit(cardRequest(request.getCardId(), request.getPrice(), "reversal-" + debitRequest.getOperationId()));
+            return previousPurchase(idempotencyKey, request, e);
+        }
+        dailyAggregates.recordApproved(savedTx);
+        anulationIndex.add(savedTx);
+        return toResponse(savedTx);
+    }
+
+    // El débito pudo aplicarse o no: la compra queda PENDING y el worker la liquida reenviando la misma clave
+    private TransactionResponseDTO unconfirmedPurchase(TransactionRequestDTO request, String idempotencyKey,
+                                                       String operationId, TransactionException outcomeUnknown) {
+        try {
+            return toResponse(settlementWorker.acceptUnconfirmed(request, idempotencyKey, operationId));
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia registró la clave de idempotencia: no se puede saber si este débito debe devolverse
+            throw outcomeUnknown;
+        }
+    }
+
+    private TransactionResponseDTO previousPurchase(String idempotencyKey, TransactionRequestDTO request,
+                                                    DataIntegrityViolationException e) {
+        if (idempotencyKey == null) {
+            throw e;
+        }
+        TransactionResponseDTO previous = idempotencyCache.find(idempotencyKey).orElseThrow(() -> e);
+        return IdempotencyCache.checkSameRequest(previous, request);
     }
 
+    private void reverseDebit(TransactionRequestDTO request) {
+        try {
+            if (cardBatchClient != null) {
+                cardBatchClient.reversal(request);
+            } else if (cardBinaryClient != null) {
+                cardBinaryClient.reversal(request);
+            } else {
+                postToCardService("/card/internal/reversal", request);
+            }
+        } catch (TransactionException e) {
+            throw resilienceRejection(e, "Error al reversar saldo en tarjeta: ");
+        } catch (Exception e) {
+            throw new TransactionException("Error al reversar saldo en tarjeta: " + e.getMessage());
+        }
+    }
+
+    // Sin respuesta, o con un 5xx distinto de 503 (operación no aplicada), el servicio de tarjetas pudo haberla aplicado
+    private void postToCardService(String path, TransactionRequestDTO request) {
+        try {
+            restTemplate.postForObject(CARD_SERVICE_URL_BASE + path, request, Void.class);
+        } catch (ResourceAccessException e) {
+            throw TransactionException.outcomeUnknown();
+        } catch (HttpServerErrorException e) {
+            if (e.getStatusCode().value() != HttpStatus.SERVICE_UNAVAILABLE.value()) {
+                throw TransactionException.outcomeUnknown();
+            }
+            throw e;
+        }
+    }
+
+    // Sin @Transactional: la marca se confirma antes de la reversa remota para que dos anulaciones no la reversen dos veces
     @Override
-    @Transactional
+    @Observed(name = "transaction.operation", contextualName = "transaction anulation", lowCardinalityKeyValues = {"operation", "anulation"})
     public void cancelTransaction(AnulationRequestDTO request) {
-        
-        Transaction tx = transactionRepository.findByTransactionIdAndCardId(request.getTransactionId(), request.getCardId())
+        AnulationWindowIndex.Entry recent = anulationIndex.find(request.getTransactionId());
+        Transaction annulled = recent != null ? validateIndexed(request, recent) : validateStored(request);
+
+        if (transactionRepository.markAnnulled(request.getTransactionId(), request.getCardId(), LocalDateTime.now().minusHours(24)) == 0) {
+            // Anulada desde otra instancia: la búsqueda en la base explica el rechazo
+            anulationIndex.remove(request.getTransactionId());
+            throw transactionRepository.findByTransactionIdAndCardId(request.getTransactionId(), request.getCardId())
+                    .map(tx -> new TransactionException(tx.isAnnulled()
+                            ? RejectionReason.ALREADY_ANNULLED.message()
+                            : RejectionReason.NOT_APPROVED.message()))
+                    .orElseGet(() -> new TransactionException("Transacción no encontrada (not found) o no pertenece a la tarjeta."));
+        }
+
+        reverseAnnulled(request, annulled.getPrice());
+
+        anulationIndex.remove(request.getTransactionId());
+        dailyAggregates.recordAnnulled(annulled);
+    }
+
+    // Compra conocida por el índice: tarjeta y ventana se validan sin leer la base
+    private Transaction validateIndexed(AnulationRequestDTO request, AnulationWindowIndex.Entry recent) {
+        if (!recent.cardId().equals(request.getCardId())) {
+            throw new TransactionException("Transacción no encontrada (not found) o no pertenece a la tarjeta.");
+        }
+        if (Duration.between(recent.transactionDate(), LocalDateTime.now()).toHours() >= 24) {
+            throw new TransactionException(RejectionReason.ANULATION_WINDOW.message());
+        }
+        return Transaction.builder()
+                .transactionId(request.getTransactionId())
+                .cardId(recent.cardId())
+                .price(recent.price())
+                .transactionDate(recent.transactionDate())
+                .isAnnulled(true)
+                .build();
+    }
+
+    private Transaction validateStored(AnulationRequestDTO request) {
+        // Solo las últimas 24 horas son anulables; la búsqueda completa queda para explicar el rechazo
+        Transaction tx = transactionRepository.findRecent(request.getTransactionId(), request.getCardId(), LocalDateTime.now().minusHours(24))
+                .or(() -> transactionRepository.findByTransactionIdAndCardId(request.getTransactionId(), request.getCardId()))
                 .orElseThrow(() -> new TransactionException("Transacción no encontrada (not found) o no pertenece a la tarjeta."));
 
         if (tx.isAnnulled()) {
-            throw new TransactionException("La transacción ya fue anulada previamente.");
+            throw new TransactionException(RejectionReason.ALREADY_ANNULLED.message());
+        }
+        if (tx.getEffectiveStatus() != TransactionStatus.APPROVED) {
+            throw new TransactionException(RejectionReason.NOT_APPROVED.message());
         }
         Duration duration = Duration.between(tx.getTransactionDate(), LocalDateTime.now());
         
         if (duration.toHours() >= 24) {
-            throw new TransactionException("No se puede anular, han pasado más de 24 horas.");
+            throw new TransactionException(RejectionReason.ANULATION_WINDOW.message());
         }
+        tx.setAnnulled(true);
+        return tx;
+    }
 
-        TransactionRequestDTO reversalRequest = new TransactionRequestDTO();
-        reversalRequest.setCardId(tx.getCardId());
-        reversalRequest.setPrice(tx.getPrice());
-        
-        String url = CARD_SERVICE_URL_BASE + "/card/internal/reversal";
-        
+    // Rechazo conocido: la marca se deshace. Resultado incierto: la anulación se mantiene y la reversa
+    // queda en el outbox para reenviarse con la misma clave de operación
+    private void reverseAnnulled(AnulationRequestDTO request, BigDecimal price) {
+        TransactionRequestDTO reversal = cardRequest(request.getCardId(), price, "anulation-" + request.getTransactionId());
         try {
-            restTemplate.postForObject(url, reversalRequest, Void.class);
-        } catch (Exception e) {
-
-            throw new TransactionException("Error al reversar saldo en tarjeta: " + e.getMessage());
+            reverseDebit(reversal);
+        } catch (TransactionException e) {
+            if (e.getCode() != TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN) {
+                transactionRepository.unmarkAnnulled(request.getTransactionId(), request.getCardId());
+                throw e;
+            }
+            if (settlementWorker == null) {
+                throw e;
+            }
+            settlementWorker.queueReversal(request.getTransactionId(), reversal);
         }
-        tx.setAnnulled(true);
-        transactionRepository.save(tx);
     }
 
     @Override
@@ -96,4 +272,76 @@ public class TransactionServiceImpl implements TransactionService {
                 .orElseThrow(() -> new TransactionException("Transacción no encontrada (not found) con id: " + transactionId));
                 return TransactionDetailsDTO.fromEntity(tx);
     }
+
+    // Los rechazos de la capa de resiliencia conservan su código para responder 503 sin reenvolverlos
+    private static TransactionException resilienceRejection(TransactionException e, String prefix) {
+        return e.getCode() != null ? e : new TransactionException(prefix + e.getMessage());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionHistoryPageDTO getCardHistory(String cardId, LocalDateTime from, LocalDateTime to, Boolean annulled,
+                                                    String cursor, int limit) {
+        if (limit < 1 || limit > maxHistoryPageSize) {
+            throw new TransactionException("El tamaño de página debe estar entre 1 y " + maxHistoryPageSize + ".");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new TransactionException("El rango de fechas es inválido: 'from' debe ser anterior a 'to'.");
+        }
+        LocalDateTime afterDate = null;
+        Long afterId = null;
+        if (cursor != null) {
+            String[] posicion = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(posicion[0]);
+            afterId = Long.valueOf(posicion[1]);
+        }
+
+        // Se pide una fila de más solo para saber si hay página siguiente
+        List<TransactionHistoryItemDTO> items = transactionRepository.findCardHistory(cardId, from, to, annulled,
+                afterDate, afterId, limit + 1);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            TransactionHistoryItemDTO last = items.get(limit - 1);
+            nextCursor = encodeCursor(last.getTransactionDate(), last.getTransactionId());
+        }
+        return new TransactionHistoryPageDTO(cardId, items, nextCursor);
+    }
+
+    // El cursor es opaco para el cliente: fecha e id de la última fila entregada
+    static String encodeCursor(LocalDateTime transactionDate, Long transactionId) {
+        String raw = transactionDate + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] posicion = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (posicion.length == 2) {
+                LocalDateTime.parse(posicion[0]);
+                Long.parseLong(posicion[1]);
+                return posicion;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Se informa abajo como cursor inválido
+        }
+        throw new TransactionException("Cursor de paginación inválido.");
+    }
+
+    private static TransactionRequestDTO cardRequest(String cardId, BigDecimal price, String operationId) {
+        TransactionRequestDTO cardRequest = new TransactionRequestDTO();
+        cardRequest.setCardId(cardId);
+        cardRequest.setPrice(price);
+        cardRequest.setOperationId(operationId);
+        return cardRequest;
+    }
+
+    private static TransactionResponseDTO toResponse(Transaction savedTx) {
+        return new TransactionResponseDTO(
+                savedTx.getTransactionId(),
+                savedTx.getCardId(),
+                savedTx.getPrice(),
+                savedTx.getTransactionDate()
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,399 @@
+package com.bank.transaction.settlement;
+
+import com.bank.transaction.aggregate.CardDailyAggregates;
+import com.bank.transaction.anulation.AnulationWindowIndex;
+import com.bank.transaction.dto.TransactionBatchResultDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.metrics.RejectionMetrics;
+import com.bank.transaction.metrics.RejectionReason;
+import com.bank.transaction.model.PurchaseOutbox;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.PurchaseOutboxRepository;
+import com.bank.transaction.repository.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Modo de compra asíncrono: la compra se guarda como PENDING junto con una fila en
+ * {@code purchase_outbox} y un grupo de workers la liquida después contra
+ * {@code /card/internal/debit/batch}.
+ * <p>
+ * Cada worker reclama sus filas con un lease ({@code claimed_by}/{@code claimed_until}), así que
+ * varias instancias pueden compartir el outbox. Cada débito viaja con la clave de operación de su
+ * fila: si se pierde la respuesta de un lote, el reintento no vuelve a debitar lo ya aplicado.
+ * Tras {@code max-attempts} fallos la fila deja de reintentarse: si el servicio de tarjetas rechazó
+ * el lote (4xx), no se aplicó nada y la compra pasa a REJECTED; si el resultado es incierto, la fila
+ * queda en el outbox como dead letter y la compra sigue PENDING.
+ * <p>
+ * En modo síncrono también liquida, con cualquier transporte hacia el servicio de tarjetas, las
+ * compras cuyo débito quedó sin respuesta ({@link #acceptUnconfirmed}) y las reversas de anulaciones
+ * con resultado incierto ({@link #queueReversal}), estas contra {@code /card/internal/reversal/batch}.
+ * Ahí solo empieza a consultar el outbox con la primera de ellas, o al arrancar si ya había filas pendientes.
+ */
+@Component
+public class PurchaseSettlementWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseSettlementWorker.class);
+
+    private final TransactionRepository transactionRepository;
+    private final PurchaseOutboxRepository outboxRepository;
+    private final RestTemplate restTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String debitBatchUrl;
+    private final String reversalBatchUrl;
+    private final int workers;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final long leaseMs;
+    private final long retryDelayMs;
+    private final boolean asyncPurchases;
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private final Counter approved;
+    private final Counter rejected;
+    private final Counter failures;
+    private final Counter deadLetters;
+    private final RejectionMetrics rejectionMetrics;
+    private final CardDailyAggregates dailyAggregates;
+    private final AnulationWindowIndex anulationIndex;
+    private ScheduledExecutorService executor;
+
+    public PurchaseSettlementWorker(TransactionRepository transactionRepository, PurchaseOutboxRepository outboxRepository,
+                                    RestTemplate restTemplate, PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry, RejectionMetrics rejectionMetrics,
+                                    CardDailyAggregates dailyAggregates, AnulationWindowIndex anulationIndex,
+                                    @Value("${card.service.url:http://localhost:8081}") String cardServiceUrl,
+                                    @Value("${transaction.settlement.workers:2}") int workers,
+                                    @Value("${transaction.settlement.batch-size:200}") int batchSize,
+                                    @Value("${transaction.settlement.poll-interval-ms:50}") long pollIntervalMs,
+                                    @Value("${transaction.settlement.max-attempts:10}") int maxAttempts,
+                                    @Value("${transaction.settlement.lease-ms:30000}") long leaseMs,
+                                    @Value("${transaction.settlement.retry-delay-ms:5000}") long retryDelayMs,
+                                    @Value("${transaction.purchase.mode:sync}") String purchaseMode) {
+        this.transactionRepository = transactionRepository;
+        this.outboxRepository = outboxRepository;
+        this.restTemplate = restTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.debitBatchUrl = cardServiceUrl + "/card/internal/debit/batch";
+        this.reversalBatchUrl = cardServiceUrl + "/card/internal/reversal/batch";
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.leaseMs = leaseMs;
+        this.retryDelayMs = retryDelayMs;
+        this.asyncPurchases = "async".equals(purchaseMode);
+        this.approved = Counter.builder("transaction.settlement.processed").tag("result", "approved").register(meterRegistry);
+        this.rejected = Counter.builder("transaction.settlement.processed").tag("result", "rejected").register(meterRegistry);
+        this.failures = Counter.builder("transaction.settlement.failures").register(meterRegistry);
+        this.deadLetters = Counter.builder("transaction.settlement.dead_letters").register(meterRegistry);
+        this.rejectionMetrics = rejectionMetrics;
+        this.dailyAggregates = dailyAggregates;
+        this.anulationIndex = anulationIndex;
+    }
+
+    public Transaction accept(TransactionRequestDTO request, String idempotencyKey) {
+        return save(request, idempotencyKey, null, null);
+    }
+
+    /**
+     * Registra como PENDING una compra cuyo débito se envió con {@code operationId} sin obtener
+     * respuesta. Al liquidarla se reenvía con la misma clave: si ya se había aplicado no se debita otra vez.
+     */
+    public Transaction acceptUnconfirmed(TransactionRequestDTO request, String idempotencyKey, String operationId) {
+        Transaction tx = save(request, idempotencyKey, operationId, "Débito sin confirmar por el servicio de tarjetas; pendiente de liquidación.");
+        startPolling();
+        return tx;
+    }
+
+    /**
+     * Encola la reversa de una compra ya marcada como anulada cuando la llamada quedó sin respuesta;
+     * se reenvía con la misma clave de operación hasta que el servicio de tarjetas la confirme.
+     */
+    public void queueReversal(Long transactionId, TransactionRequestDTO reversal) {
+        outboxRepository.save(PurchaseOutbox.builder()
+            .transactionId(transactionId)
+            .cardId(reversal.getCardId())
+            .price(reversal.getPrice())
+            .createdAt(LocalDateTime.now())
+            .operationId(reversal.getOperationId())
+            .reversal(true)
+            .attempts(0)
+            .build());
+        startPolling();
+    }
+
+    private Transaction save(TransactionRequestDTO request, String idempotencyKey, String operationId, String statusDetail) {
+        return transactionTemplate.execute(status -> {
+            Transaction tx = transactionRepository.save(Transaction.builder()
+                .cardId(request.getCardId())
+                .price(request.getPrice())
+                .transactionDate(LocalDateTime.now())
+                .isAnnulled(false)
+                .status(TransactionStatus.PENDING)
+                .statusDetail(statusDetail)
+                .idempotencyKey(idempotencyKey)
+                .build());
+            outboxRepository.save(PurchaseOutbox.builder()
+                .transactionId(tx.getTransactionId())
+                .cardId(tx.getCardId())
+                .price(tx.getPrice())
+                .createdAt(tx.getTransactionDate())
+                .operationId(operationId != null ? operationId : "purchase-" + tx.getTransactionId())
+                .attempts(0)
+                .build());
+            return tx;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newScheduledThreadPool(workers, r -> {
+            Thread t = new Thread(r, "purchase-settlement-" + threads.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        if (asyncPurchases || !outboxRepository.findClaimable(maxAttempts, LocalDateTime.now(), PageRequest.of(0, 1)).isEmpty()) {
+            startPolling();
+        }
+    }
+
+    private void startPolling() {
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        for (int worker = 0; worker < workers; worker++) {
+            int number = worker;
+            executor.scheduleWithFixedDelay(() -> drainAll(number), pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdown();
+    }
+
+    private void drainAll(int worker) {
+        try {
+            int drained;
+            do {
+                drained = drain();
+            } while (drained == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Error liquidando compras pendientes (worker {}): {}", worker, e.getMessage());
+        }
+    }
+
+    int drain() {
+        List<PurchaseOutbox> claimed = claim();
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        List<PurchaseOutbox> reversals = claimed.stream().filter(PurchaseOutbox::isReversal).toList();
+        if (!reversals.isEmpty()) {
+            settleReversals(reversals);
+        }
+        List<PurchaseOutbox> debits = claimed.stream().filter(row -> !row.isReversal()).toList();
+        if (!debits.isEmpty()) {
+            settleDebits(debits);
+        }
+        return claimed.size();
+    }
+
+    // La anulación ya quedó confirmada: una reversa solo se borra al aplicarse o pasa a dead letter
+    private void settleReversals(List<PurchaseOutbox> batch) {
+        List<TransactionBatchResultDTO> results;
+        try {
+            results = post(reversalBatchUrl, batch);
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.warn("Error enviando reversas de anulaciones: {}", e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> releaseFailed(batch, e.getMessage(), false));
+            return;
+        }
+        List<Long> settled = new ArrayList<>(batch.size());
+        List<PurchaseOutbox> pending = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (results.get(i).isSuccess() && !results.get(i).isOutcomeUnknown()) {
+                settled.add(batch.get(i).getOutboxId());
+            } else {
+                pending.add(batch.get(i));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteAllByIdInBatch(settled);
+            if (!pending.isEmpty()) {
+                failures.increment();
+                releaseFailed(pending, "El servicio de tarjetas no aplicó la reversa de la anulación.", false);
+            }
+        });
+    }
+
+    private void settleDebits(List<PurchaseOutbox> batch) {
+        List<TransactionBatchResultDTO> results;
+        try {
+            results = post(debitBatchUrl, batch);
+        } catch (HttpClientErrorException e) {
+            // El servicio de tarjetas rechazó el lote completo sin aplicar nada
+            failures.increment();
+            transactionTemplate.executeWithoutResult(status -> releaseFailed(batch, e.getMessage(), true));
+            throw e;
+        } catch (RuntimeException e) {
+            // Resultado incierto: se reintenta más tarde con las mismas claves de operación
+            failures.increment();
+            transactionTemplate.executeWithoutResult(status -> releaseFailed(batch, e.getMessage(), false));
+            throw e;
+        }
+
+        List<Transaction> approvedTxs = transactionTemplate.execute(status -> {
+            Map<Long, Transaction> transactions = transactionRepository
+                .findAllById(batch.stream().map(PurchaseOutbox::getTransactionId).toList())
+                .stream()
+                .collect(Collectors.toMap(Transaction::getTransactionId, Function.identity()));
+            List<Transaction> approvedInBatch = new ArrayList<>();
+            List<PurchaseOutbox> unconfirmed = new ArrayList<>();
+            List<PurchaseOutbox> orphaned = new ArrayList<>();
+            List<Long> settled = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                PurchaseOutbox row = batch.get(i);
+                TransactionBatchResultDTO result = results.get(i);
+                if (result.isOutcomeUnknown()) {
+                    // El servicio de tarjetas no lo confirmó: sigue PENDING y se reintenta con la misma clave
+                    unconfirmed.add(row);
+                    continue;
+                }
+                Transaction tx = transactions.get(row.getTransactionId());
+                if (tx == null) {
+                    // La compra ya no existe (archivada o borrada): la fila queda para revisión manual
+                    orphaned.add(row);
+                    continue;
+                }
+                settled.add(row.getOutboxId());
+                if (result.isSuccess()) {
+                    tx.setStatus(TransactionStatus.APPROVED);
+                    tx.setStatusDetail(null);
+                    approvedInBatch.add(tx);
+                    approved.increment();
+                } else {
+                    tx.setStatus(TransactionStatus.REJECTED);
+                    tx.setStatusDetail(result.getMessage());
+                    rejected.increment();
+                    rejectionMetrics.record(RejectionReason.of(result.getMessage()));
+                }
+            }
+            if (!orphaned.isEmpty()) {
+                outboxRepository.deadLetter(orphaned.stream().map(PurchaseOutbox::getOutboxId).toList(), maxAttempts);
+                deadLetters.increment(orphaned.size());
+                log.error("{} filas del outbox pasan a dead letter porque su compra ya no existe: {}", orphaned.size(),
+                        orphaned.stream().map(PurchaseOutbox::getTransactionId).toList());
+            }
+            transactionRepository.saveAll(transactions.values());
+            outboxRepository.deleteAllByIdInBatch(settled);
+            if (!unconfirmed.isEmpty()) {
+                failures.increment();
+                releaseFailed(unconfirmed, "El servicio de tarjetas no confirmó la operación.", false);
+            }
+            // Un solo lote de incrementos por tarjeta y día, aplicado al confirmar esta transacción
+            dailyAggregates.recordApproved(approvedInBatch);
+            return approvedInBatch;
+        });
+        // Ya confirmadas como APPROVED: desde ahora son anulables
+        anulationIndex.addAll(approvedTxs);
+    }
+
+    // Reclama hasta batchSize filas con un lease propio y devuelve las que efectivamente obtuvo
+    private List<PurchaseOutbox> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> candidates = outboxRepository.findClaimable(maxAttempts, now, PageRequest.of(0, batchSize));
+            if (candidates.isEmpty()) {
+                return List.of();
+            }
+            String claimedBy = UUID.randomUUID().toString();
+            outboxRepository.claim(candidates, claimedBy, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs)), now);
+            return outboxRepository.findByClaimedByOrderByOutboxId(claimedBy);
+        });
+    }
+
+    private void releaseFailed(List<PurchaseOutbox> batch, String error, boolean rejectedByCardService) {
+        outboxRepository.releaseFailed(batch.stream().map(PurchaseOutbox::getOutboxId).toList(),
+                LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(retryDelayMs)));
+        List<PurchaseOutbox> exhausted = batch.stream().filter(row -> row.getAttempts() + 1 >= maxAttempts).toList();
+        List<PurchaseOutbox> exhaustedReversals = exhausted.stream().filter(PurchaseOutbox::isReversal).toList();
+        if (!exhaustedReversals.isEmpty()) {
+            // Compras ya anuladas: el estado de la transacción no cambia, solo se deja de reintentar
+            deadLetters.increment(exhaustedReversals.size());
+            log.error("{} reversas de anulaciones pasan a dead letter tras {} intentos: {}",
+                    exhaustedReversals.size(), maxAttempts, error);
+            exhausted = exhausted.stream().filter(row -> !row.isReversal()).toList();
+        }
+        if (exhausted.isEmpty()) {
+            return;
+        }
+        List<Transaction> transactions = transactionRepository
+            .findAllById(exhausted.stream().map(PurchaseOutbox::getTransactionId).toList());
+        if (rejectedByCardService) {
+            String detail = statusDetail("No fue posible liquidar la compra: " + error);
+            transactions.forEach(tx -> {
+                tx.setStatus(TransactionStatus.REJECTED);
+                tx.setStatusDetail(detail);
+            });
+            outboxRepository.deleteAllByIdInBatch(exhausted.stream().map(PurchaseOutbox::getOutboxId).toList());
+            rejected.increment(exhausted.size());
+        } else {
+            // Queda en el outbox sin reintentarse; reponer attempts la vuelve a poner en curso
+            String detail = statusDetail("Liquidación suspendida tras " + maxAttempts + " intentos: " + error);
+            transactions.forEach(tx -> tx.setStatusDetail(detail));
+            deadLetters.increment(exhausted.size());
+            log.error("{} compras pendientes pasan a dead letter tras {} intentos: {}", exhausted.size(), maxAttempts, error);
+        }
+        transactionRepository.saveAll(transactions);
+    }
+
+    // status_detail admite 255 caracteres
+    private static String statusDetail(String detail) {
+        return detail.length() > 255 ? detail.substring(0, 255) : detail;
+    }
+
+    private List<TransactionBatchResultDTO> post(String url, List<PurchaseOutbox> batch) {
+        List<TransactionRequestDTO> requests = batch.stream().map(row -> {
+            TransactionRequestDTO request = new TransactionRequestDTO();
+            request.setCardId(row.getCardId());
+            request.setPrice(row.getPrice());
+            request.setOperationId(row.getOperationId());
+            return request;
+        }).toList();
+        TransactionBatchResultDTO[] results = restTemplate.postForObject(url, requests, TransactionBatchResultDTO[].class);
+        if (results == null || results.length != requests.size()) {
+            throw new TransactionException("Respuesta de lote inválida del servicio de tarjetas.");
+        }
+        return List.of(results);
+    }
+}
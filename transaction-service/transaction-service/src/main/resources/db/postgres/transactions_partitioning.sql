@@ -0,0 +1,73 @@
+-- Convierte transactions en una tabla particionada por rango diario de transaction_date.
+-- Ejecutar una sola vez, con el servicio detenido. Después, TransactionPartitionManager
+-- (transaction.partition.enabled=true) crea las particiones futuras y archiva las antiguas.
+--
+-- Las particiones diarias se llaman transactions_pAAAAMMDD. Las filas existentes quedan en
+-- transactions_legacy, adjuntada como la partición de todo lo anterior al corte; el gestor no la
+-- archiva (se exporta con /transaction/export y se desadjunta a mano).
+--
+-- Una clave única sobre una tabla particionada debe incluir la columna de partición, así que la
+-- unicidad global de idempotency_key pasa a transaction_idempotency_keys, que se llena con un
+-- trigger: un duplicado sigue fallando con unique_violation como antes. Con ddl-auto=update
+-- Hibernate intenta recrear la restricción única sobre transactions y solo registra un aviso.
+BEGIN;
+
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER INDEX IF EXISTS idx_transactions_card_date_id RENAME TO idx_transactions_legacy_card_date_id;
+
+CREATE TABLE transactions (
+    transaction_id   BIGINT        NOT NULL,
+    card_id          VARCHAR(16)   NOT NULL,
+    price            NUMERIC(19,2) NOT NULL,
+    transaction_date TIMESTAMP(6)  NOT NULL,
+    is_annulled      BOOLEAN       NOT NULL,
+    status           VARCHAR(16),
+    status_detail    VARCHAR(255),
+    idempotency_key  VARCHAR(64),
+    PRIMARY KEY (transaction_id, transaction_date)
+) PARTITION BY RANGE (transaction_date);
+
+-- Se propagan a cada partición: cada índice queda acotado al tamaño de un día
+CREATE INDEX idx_transactions_card_date_id ON transactions (card_id, transaction_date DESC, transaction_id DESC);
+CREATE INDEX idx_transactions_idempotency_key ON transactions (idempotency_key);
+
+-- Red de seguridad: una inserción fuera de las particiones creadas no falla
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+CREATE TABLE transaction_idempotency_keys (
+    idempotency_key  VARCHAR(64)  PRIMARY KEY,
+    transaction_date TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX idx_transaction_idempotency_keys_date ON transaction_idempotency_keys (transaction_date);
+
+INSERT INTO transaction_idempotency_keys (idempotency_key, transaction_date)
+SELECT idempotency_key, transaction_date FROM transactions_legacy WHERE idempotency_key IS NOT NULL;
+
+CREATE OR REPLACE FUNCTION transactions_reserve_idempotency_key() RETURNS trigger AS $$
+BEGIN
+    IF NEW.idempotency_key IS NOT NULL THEN
+        INSERT INTO transaction_idempotency_keys (idempotency_key, transaction_date)
+        VALUES (NEW.idempotency_key, NEW.transaction_date);
+    END IF;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_idempotency_key
+    BEFORE INSERT ON transactions
+    FOR EACH ROW EXECUTE FUNCTION transactions_reserve_idempotency_key();
+
+-- Corte en el inicio del día siguiente: hoy y lo anterior siguen en transactions_legacy
+DO $$
+DECLARE
+    corte DATE := current_date + 1;
+BEGIN
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_legacy FOR VALUES FROM (MINVALUE) TO (%L)', corte);
+    FOR i IN 0..6 LOOP
+        EXECUTE format('CREATE TABLE transactions_p%s PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       to_char(corte + i, 'YYYYMMDD'), corte + i, corte + i + 1);
+    END LOOP;
+END
+$$;
+
+COMMIT;
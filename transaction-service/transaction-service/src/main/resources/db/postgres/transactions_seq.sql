@@ -0,0 +1,5 @@
+-- Migración de transactions.transaction_id de IDENTITY a la secuencia pooled-lo.
+-- El INCREMENT debe ser igual a transaction.id.allocation-size.
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+SELECT setval('transactions_seq', (SELECT COALESCE(MAX(transaction_id), 0) + 1 FROM transactions), false);
+ALTER TABLE transactions ALTER COLUMN transaction_id DROP IDENTITY IF EXISTS;
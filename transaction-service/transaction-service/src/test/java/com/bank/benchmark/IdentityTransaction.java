@@ -0,0 +1,38 @@
+package com.bank.benchmark;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Copia de {@link com.bank.transaction.model.Transaction} con el mapeo IDENTITY anterior, usada
+ * solo como línea base en {@code TransactionInsertBenchmarkTest}. Está fuera de
+ * {@code com.bank.transaction} para que el escaneo de entidades de los demás tests no la registre.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "transactions_identity_benchmark")
+public class IdentityTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long transactionId;
+
+    @Column(name = "card_id", length = 16, nullable = false)
+    private String cardId;
+
+    @Column(name = "price", nullable = false, precision = 19, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "transaction_date", nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Column(name = "is_annulled", nullable = false)
+    private boolean isAnnulled;
+}
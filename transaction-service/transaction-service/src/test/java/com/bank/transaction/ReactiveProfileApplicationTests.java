@@ -0,0 +1,35 @@
+package com.bank.transaction;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "reactive"})
+class ReactiveProfileApplicationTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	void reactiveProfileRunsOnNetty() {
+		ReactiveWebServerApplicationContext reactiveContext = assertInstanceOf(ReactiveWebServerApplicationContext.class, context);
+		assertInstanceOf(NettyWebServer.class, reactiveContext.getWebServer());
+
+		webTestClient.get().uri("/transaction/{id}", 999_999)
+			.exchange()
+			.expectStatus().isNotFound()
+			.expectBody().jsonPath("$.path").isEqualTo("/transaction/999999");
+	}
+
+}
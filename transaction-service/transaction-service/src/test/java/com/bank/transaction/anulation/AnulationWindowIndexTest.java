@@ -0,0 +1,88 @@
+package com.bank.transaction.anulation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AnulationWindowIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AnulationWindowIndex index(int maxEntries) {
+        return new AnulationWindowIndex(mock(DataSource.class), meterRegistry, true, maxEntries);
+    }
+
+    @Test
+    void testAddAndFindOnlyApprovedNotAnnulled() {
+        AnulationWindowIndex index = index(100);
+        LocalDateTime now = LocalDateTime.now();
+        index.addAll(List.of(
+            tx(1L, now, TransactionStatus.APPROVED, false),
+            tx(2L, now, TransactionStatus.PENDING, false),
+            tx(3L, now, TransactionStatus.APPROVED, true),
+            tx(4L, now, null, false)));
+
+        assertEquals("1111", index.find(1L).cardId());
+        assertNull(index.find(2L));
+        assertNull(index.find(3L));
+        assertNotNull(index.find(4L));
+        assertEquals(2, index.size());
+
+        index.remove(1L);
+        assertNull(index.find(1L));
+        assertEquals(1, index.size());
+        assertEquals(2.0, meterRegistry.get("transaction.anulation.index.lookups").tag("result", "hit").counter().count());
+        assertEquals(3.0, meterRegistry.get("transaction.anulation.index.lookups").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void testExpireDropsWholeHoursOutsideWindow() {
+        AnulationWindowIndex index = index(100);
+        LocalDateTime now = LocalDateTime.now();
+        index.add(tx(1L, now.minusHours(20), TransactionStatus.APPROVED, false));
+        index.add(tx(2L, now.minusHours(1), TransactionStatus.APPROVED, false));
+        // Fuera de la ventana al añadirse: ni siquiera entra
+        index.add(tx(3L, now.minusHours(30), TransactionStatus.APPROVED, false));
+        assertEquals(2, index.size());
+
+        index.expire(now.plusHours(10));
+
+        assertEquals(1, index.size());
+        assertNotNull(index.find(2L));
+    }
+
+    @Test
+    void testFullIndexSkipsNewEntries() {
+        AnulationWindowIndex index = index(1);
+        LocalDateTime now = LocalDateTime.now();
+        index.add(tx(1L, now, TransactionStatus.APPROVED, false));
+        index.add(tx(2L, now, TransactionStatus.APPROVED, false));
+
+        assertNotNull(index.find(1L));
+        assertNull(index.find(2L));
+        assertEquals(1.0, meterRegistry.get("transaction.anulation.index.overflow").counter().count());
+    }
+
+    private static Transaction tx(Long id, LocalDateTime date, TransactionStatus status, boolean annulled) {
+        return Transaction.builder()
+            .transactionId(id)
+            .cardId("1111")
+            .price(new BigDecimal("10.00"))
+            .transactionDate(date)
+            .isAnnulled(annulled)
+            .status(status)
+            .build();
+    }
+}
@@ -0,0 +1,198 @@
+package com.bank.transaction.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Prueba de carga de {@code POST /transaction/purchase} contra un servicio de tarjetas simulado
+ * con latencia fija. Ejecutar con {@code mvn test -Pbenchmark} (hilos de plataforma) y con
+ * {@code mvn test -Pbenchmark,java21 -Dspring.profiles.active=local,virtual-threads} (hilos virtuales).
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.jpa.show-sql=false",
+    "server.tomcat.max-connections=20000",
+    "server.tomcat.accept-count=10000",
+    "card.service.max-concurrent-calls=10000",
+    "card.service.concurrency-acquire-timeout-ms=60000",
+    "card.service.limit.initial=10000",
+    "card.service.limit.max=10000",
+    "card.service.http.max-total=2000",
+    "card.service.http.card-route-max=2000",
+    "card.service.http.pool-acquire-timeout-ms=60000",
+    "spring.datasource.hikari.connection-timeout=60000"
+})
+class PurchaseLoadBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseLoadBenchmarkTest.class);
+
+    private static final long CARD_SERVICE_LATENCY_MS = Long.getLong("benchmark.card-latency-ms", 20);
+    private static final ScheduledExecutorService STUB_SCHEDULER = Executors.newScheduledThreadPool(4);
+    private static final String LOAD_CLIENT_PREFIX = "load-client-";
+    private static HttpServer cardServiceStub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void cardServiceStub(DynamicPropertyRegistry registry) throws IOException {
+        // El servidor del JDK cierra por defecto las conexiones ociosas por encima de 200,
+        // lo que el pool del cliente vería como "failed to respond" con alta concurrencia
+        System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+        cardServiceStub = HttpServer.create(new InetSocketAddress("localhost", 0), 10000);
+        // Responde de forma diferida sin bloquear hilos para no contaminar el conteo de hilos
+        cardServiceStub.createContext("/card/internal/debit", exchange ->
+            STUB_SCHEDULER.schedule(() -> respond(exchange), CARD_SERVICE_LATENCY_MS, TimeUnit.MILLISECONDS));
+        cardServiceStub.setExecutor(Executors.newFixedThreadPool(4));
+        cardServiceStub.start();
+        registry.add("card.service.url", () -> "http://localhost:" + cardServiceStub.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStub() {
+        cardServiceStub.stop(0);
+        STUB_SCHEDULER.shutdownNow();
+    }
+
+    @Test
+    void testPurchaseThroughputByConcurrency() throws Exception {
+        int[] levels = Arrays.stream(System.getProperty("benchmark.concurrency", "1000,5000,10000").split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+        int requestsPerClient = Integer.getInteger("benchmark.requests-per-client", 3);
+
+        run(Math.min(levels[0], 200), 1);
+        log.info("[purchase-benchmark] perfiles={} latencia tarjetas={} ms",
+            System.getProperty("spring.profiles.active", "local"), CARD_SERVICE_LATENCY_MS);
+
+        for (int concurrency : levels) {
+            Result result = run(concurrency, requestsPerClient);
+            log.info("[purchase-benchmark] concurrencia={} ok={} errores={} tiempo={} s throughput={} compras/s pico hilos plataforma del servidor={}",
+                concurrency, result.ok(), result.errors(), String.format("%.2f", result.seconds()),
+                String.format("%.0f", result.ok() / result.seconds()), result.peakServerThreads());
+            assertTrue(result.ok() > 0, "Ninguna compra fue aceptada");
+        }
+    }
+
+    private Result run(int concurrency, int requestsPerClient) throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger clientIds = new AtomicInteger();
+        AtomicInteger peakServerThreads = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, LOAD_CLIENT_PREFIX + clientIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, LOAD_CLIENT_PREFIX + "sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(concurrency)
+            .setMaxConnPerRoute(concurrency)
+            .build();
+        String url = "http://localhost:" + port + "/transaction/purchase";
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (CloseableHttpClient client = HttpClients.custom().setConnectionManager(connectionManager).build()) {
+            List<Future<?>> futures = new ArrayList<>(concurrency);
+            for (int c = 0; c < concurrency; c++) {
+                int clientId = c;
+                futures.add(clients.submit(() -> {
+                    start.await();
+                    for (int r = 0; r < requestsPerClient; r++) {
+                        HttpPost post = new HttpPost(url);
+                        post.setEntity(new StringEntity("{\"cardId\":\"" + String.format("%016d", clientId) + "\",\"price\":10.00}",
+                            ContentType.APPLICATION_JSON));
+                        try {
+                            int status = client.execute(post, response -> {
+                                EntityUtils.consume(response.getEntity());
+                                return response.getCode();
+                            });
+                            (status == 200 ? ok : errors).incrementAndGet();
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            sampler.scheduleAtFixedRate(() -> peakServerThreads.accumulateAndGet(serverPlatformThreads(), Math::max),
+                0, 100, TimeUnit.MILLISECONDS);
+
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+            double seconds = (System.nanoTime() - begin) / 1_000_000_000d;
+            return new Result(ok.get(), errors.get(), seconds, peakServerThreads.get());
+        } finally {
+            sampler.shutdownNow();
+            clients.shutdownNow();
+        }
+    }
+
+    private static int serverPlatformThreads() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int count = 0;
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds(), 0)) {
+            if (info != null && !info.getThreadName().startsWith(LOAD_CLIENT_PREFIX)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void respond(HttpExchange exchange) {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, -1);
+        } catch (IOException e) {
+            // el cliente cerró la conexión
+        }
+    }
+
+    private record Result(int ok, int errors, double seconds, int peakServerThreads) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.bank.transaction.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.benchmark.IdentityTransaction;
+import com.bank.transaction.TransactionServiceApplication;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Inserta {@code benchmark.insert-rows} transacciones (1M por defecto) con IDENTITY y con la
+ * secuencia pooled-lo + lotes JDBC. Ejecutar con {@code mvn test -Pbenchmark -Dtest=TransactionInsertBenchmarkTest}.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TransactionInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionInsertBenchmarkTest.class);
+
+    private static final int ROWS = Integer.getInteger("benchmark.insert-rows", 1_000_000);
+    private static final int ROWS_PER_TRANSACTION = 10_000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void insertOneMillionTransactionsBothWays() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        int batchSize = Integer.parseInt(String.valueOf(entityManagerFactory.getProperties().getOrDefault("hibernate.jdbc.batch_size", 50)));
+
+        run("identity", statistics, batchSize, i -> {
+            IdentityTransaction tx = new IdentityTransaction();
+            tx.setCardId("1234567890123456");
+            tx.setPrice(new BigDecimal("10.00"));
+            tx.setTransactionDate(LocalDateTime.now());
+            return tx;
+        });
+        run("pooled-lo", statistics, batchSize, i -> Transaction.builder()
+            .cardId("1234567890123456")
+            .price(new BigDecimal("10.00"))
+            .transactionDate(LocalDateTime.now())
+            .status(TransactionStatus.APPROVED)
+            .build());
+    }
+
+    private void run(String label, Statistics statistics, int batchSize, IntFunction<Object> factory) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int offset = 0; offset < ROWS; offset += ROWS_PER_TRANSACTION) {
+            int from = offset;
+            transactionTemplate.executeWithoutResult(status -> {
+                int to = Math.min(from + ROWS_PER_TRANSACTION, ROWS);
+                for (int i = from; i < to; i++) {
+                    entityManager.persist(factory.apply(i));
+                    if ((i + 1) % batchSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        log.info("[insert-benchmark] ids={} filas={} tiempo={} s throughput={} filas/s sentencias preparadas={}",
+            label, ROWS, String.format("%.2f", seconds), String.format("%.0f", ROWS / seconds),
+            statistics.getPrepareStatementCount());
+    }
+
+    // Solo este test registra la entidad IDENTITY, además de las del servicio
+    @TestConfiguration
+    @EntityScan(basePackageClasses = {TransactionServiceApplication.class, IdentityTransaction.class})
+    static class BenchmarkEntities {
+    }
+}
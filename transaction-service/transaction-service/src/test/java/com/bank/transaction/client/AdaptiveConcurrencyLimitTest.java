@@ -0,0 +1,68 @@
+package com.bank.transaction.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void testRejectsWhenLimitIsReached() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 0.5, 2.0, 60_000);
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+    }
+
+    @Test
+    void testGrowsWhileLatencyStaysNearMinimum() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 3, 0.5, 2.0, 60_000);
+
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.onSuccess(FAST);
+        assertEquals(3, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.tryAcquire();
+        limit.onSuccess(FAST);
+        assertEquals(3, limit.getLimit(), "no supera el máximo");
+    }
+
+    @Test
+    void testDoesNotGrowWhenMostlyIdle() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 20, 0.5, 2.0, 60_000);
+
+        limit.tryAcquire();
+        limit.onSuccess(FAST);
+
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    void testBacksOffOnHighLatencyAndFailures() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 2, 20, 0.5, 2.0, 60_000);
+
+        limit.tryAcquire();
+        limit.onSuccess(FAST);
+        limit.tryAcquire();
+        limit.onSuccess(SLOW);
+        assertEquals(4, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.onDropped();
+        assertEquals(2, limit.getLimit());
+
+        limit.tryAcquire();
+        limit.onDropped();
+        assertEquals(2, limit.getLimit(), "no baja del mínimo");
+        assertEquals(0, limit.getInFlight());
+    }
+}
@@ -0,0 +1,156 @@
+package com.bank.transaction.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.bank.transaction.dto.TransactionBatchResultDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CardBatchClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+    private CardBatchClient client;
+
+    @BeforeEach
+    void setUp() {
+        restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        client = new CardBatchClient(restTemplate, "http://fake-card-service", 200, 50, 2, 5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void testDebit_ConcurrentRequestsShareOneBatch() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        server.expect(ExpectedCount.once(), requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andExpect(method(HttpMethod.POST))
+            .andRespond(request -> {
+                List<TransactionRequestDTO> requests = objectMapper.readValue(
+                    ((MockClientHttpRequest) request).getBodyAsString(), new TypeReference<>() {});
+                batchSizes.add(requests.size());
+                List<TransactionBatchResultDTO> results = requests.stream()
+                    .map(r -> new TransactionBatchResultDTO(r.getCardId(), !r.getCardId().equals("bad"),
+                        r.getCardId().equals("bad") ? "Saldo insuficiente." : null))
+                    .toList();
+                MockClientHttpResponse response = new MockClientHttpResponse(
+                    objectMapper.writeValueAsBytes(results), HttpStatus.OK);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                return response;
+            });
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (String cardId : List.of("good-1", "good-2", "bad")) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    client.debit(request(cardId));
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            futures.get(0).get(5, TimeUnit.SECONDS);
+            futures.get(1).get(5, TimeUnit.SECONDS);
+            Exception ex = assertThrows(Exception.class, () -> futures.get(2).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TransactionException.class, ex.getCause());
+            assertEquals("Saldo insuficiente.", ex.getCause().getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(List.of(3), batchSizes);
+        server.verify();
+    }
+
+    @Test
+    void testDebit_CardServiceUnavailable() {
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(request -> new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE));
+
+        assertThrows(TransactionException.class, () -> client.debit(request("123456")));
+    }
+
+    @Test
+    void testReversal_UsesReversalBatchEndpoint() {
+        server.expect(requestTo("http://fake-card-service/card/internal/reversal/batch"))
+            .andExpect(method(HttpMethod.POST))
+            .andRespond(request -> okResponse(List.of(new TransactionBatchResultDTO("123456", true, null))));
+
+        client.reversal(request("123456"));
+
+        server.verify();
+    }
+
+    @Test
+    void testDebit_NoResponseAfterSendIsOutcomeUnknown() {
+        client.shutdown();
+        client = new CardBatchClient(restTemplate, "http://fake-card-service", 0, 50, 2, 200);
+        CountDownLatch release = new CountDownLatch(1);
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(request -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return okResponse(List.of(new TransactionBatchResultDTO("123456", true, null)));
+            });
+
+        try {
+            // El lote ya salió: no se puede dar por rechazado
+            TransactionException ex = assertThrows(TransactionException.class, () -> client.debit(request("123456")));
+            assertEquals(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN, ex.getCode());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private MockClientHttpResponse okResponse(List<TransactionBatchResultDTO> results) throws IOException {
+        MockClientHttpResponse response = new MockClientHttpResponse(objectMapper.writeValueAsBytes(results), HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response;
+    }
+
+    private TransactionRequestDTO request(String cardId) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal("100"));
+        return request;
+    }
+}
@@ -0,0 +1,281 @@
+package com.bank.transaction.client;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+
+class CardBinaryClientTest {
+
+    private ServerSocketChannel server;
+    private ExecutorService executor;
+    private CardBinaryClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+        executor = Executors.newCachedThreadPool();
+        client = client(1000, CircuitBreaker.ofDefaults("card-service"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testCalls_ShareOneConnectionAndMatchOutOfOrderResponses() throws Exception {
+        List<long[]> received = Collections.synchronizedList(new ArrayList<>());
+        // Lee las dos solicitudes antes de responder y contesta en orden inverso
+        executor.submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                List<ByteBuffer> frames = List.of(readFrame(channel), readFrame(channel));
+                for (int i = frames.size() - 1; i >= 0; i--) {
+                    ByteBuffer frame = frames.get(i);
+                    long id = frame.getLong();
+                    byte op = frame.get();
+                    frame.get(new byte[frame.get()]);
+                    received.add(new long[] {id, op, frame.getLong(), frame.get()});
+                    write(channel, id, CardBinaryProtocol.STATUS_OK, null);
+                }
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        Future<?> debit = executor.submit(() -> client.debit(request("1234567890123456", "10.50")));
+        Future<?> reversal = executor.submit(() -> client.reversal(request("1234567890123456", "3.25")));
+
+        debit.get(5, TimeUnit.SECONDS);
+        reversal.get(5, TimeUnit.SECONDS);
+        assertEquals(2, received.size());
+        assertTrue(received.stream().anyMatch(r -> r[1] == CardBinaryProtocol.OP_DEBIT && r[2] == 1050 && r[3] == 2));
+        assertTrue(received.stream().anyMatch(r -> r[1] == CardBinaryProtocol.OP_REVERSAL && r[2] == 325 && r[3] == 2));
+    }
+
+    @Test
+    void testDebit_RejectionCarriesCardServiceMessage() throws Exception {
+        executor.submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                write(channel, readFrame(channel).getLong(), CardBinaryProtocol.STATUS_REJECTED, "Saldo insuficiente.");
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        TransactionException ex = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "999999.00")));
+        assertEquals("Saldo insuficiente.", ex.getMessage());
+    }
+
+    @Test
+    void testDebit_LostConnectionFailsPendingCall() throws Exception {
+        executor.submit(() -> {
+            // Cierra sin responder
+            try (SocketChannel channel = server.accept()) {
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        TransactionException ex = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertTrue(ex.getMessage().startsWith("Conexión con el servicio de tarjetas perdida"));
+        assertEquals(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN, ex.getCode());
+    }
+
+    @Test
+    void testDebit_TimeoutIsUnknownOutcomeAndFrameCarriesOperationId() throws Exception {
+        client.close();
+        client = client(1000, CircuitBreaker.ofDefaults("card-service"), 200);
+        List<String> keys = Collections.synchronizedList(new ArrayList<>());
+        executor.submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                // Recibe la solicitud y no responde
+                ByteBuffer frame = readFrame(channel);
+                frame.position(8 + 1);
+                int cardLength = frame.get();
+                frame.position(frame.position() + cardLength + 8 + 1);
+                byte[] key = new byte[frame.get()];
+                frame.get(key);
+                keys.add(new String(key, StandardCharsets.US_ASCII));
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        TransactionRequestDTO request = request("1234567890123456", "10.00");
+        request.setOperationId("purchase-1");
+        TransactionException ex = assertThrows(TransactionException.class, () -> client.debit(request));
+
+        assertEquals(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN, ex.getCode());
+        assertEquals(List.of("purchase-1"), keys);
+    }
+
+    @Test
+    void testDebit_InvalidRequestsNeverReachTheCircuit() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.of("card-service", CircuitBreakerConfig.custom()
+            .slidingWindowSize(4).minimumNumberOfCalls(4).build());
+        client.close();
+        client = client(1000, circuitBreaker);
+
+        for (int i = 0; i < 20; i++) {
+            assertThrows(TransactionException.class, () -> client.debit(request("1234567890123456", "-1.00")));
+            assertThrows(TransactionException.class, () -> client.debit(request("1234567890123456", "1.001")));
+            assertThrows(TransactionException.class, () -> client.debit(request(null, "1.00")));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getMetrics().getNumberOfBufferedCalls());
+    }
+
+    @Test
+    void testDebit_ServerErrorsCountAsFailuresAndRejectionsDoNot() throws Exception {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("card-service");
+        client.close();
+        client = client(1000, circuitBreaker);
+        executor.submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                write(channel, readFrame(channel).getLong(), CardBinaryProtocol.STATUS_REJECTED, "Saldo insuficiente.");
+                write(channel, readFrame(channel).getLong(), CardBinaryProtocol.STATUS_ERROR, "Error de base de datos");
+                write(channel, readFrame(channel).getLong(), CardBinaryProtocol.STATUS_UNAVAILABLE, "Sobrecarga");
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        TransactionException rejected = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertNull(rejected.getCode());
+        TransactionException error = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertEquals(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN, error.getCode());
+        TransactionException unavailable = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertNull(unavailable.getCode());
+
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfSuccessfulCalls());
+        assertEquals(2, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void testDebit_UndecodableResponseClosesConnection() throws Exception {
+        executor.submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                readFrame(channel);
+                // Trama de un byte: no alcanza para el id de la respuesta
+                ByteBuffer frame = ByteBuffer.allocate(5).putInt(1).put((byte) 0).flip();
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        TransactionException ex = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertTrue(ex.getMessage().startsWith("Conexión con el servicio de tarjetas perdida"));
+    }
+
+    @Test
+    void testDebit_PendingCallsPerConnectionAreBounded() throws Exception {
+        client.close();
+        client = client(1, CircuitBreaker.ofDefaults("card-service"));
+        CountDownLatch received = new CountDownLatch(1);
+        executor.submit(() -> {
+            try (SocketChannel channel = server.accept()) {
+                // Recibe la primera solicitud y no responde
+                readFrame(channel);
+                received.countDown();
+                readFrame(channel);
+            }
+            return null;
+        });
+
+        Future<?> first = executor.submit(() -> client.debit(request("1234567890123456", "10.00")));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        TransactionException ex = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertEquals(TransactionErrorCode.CARD_SERVICE_BULKHEAD_FULL, ex.getCode());
+        first.cancel(true);
+    }
+
+    @Test
+    void testDebit_OpenCircuitRejectsWithoutConnecting() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("card-service");
+        circuitBreaker.transitionToOpenState();
+        client.close();
+        client = client(1000, circuitBreaker);
+
+        TransactionException ex = assertThrows(TransactionException.class,
+            () -> client.debit(request("1234567890123456", "10.00")));
+        assertEquals(TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN, ex.getCode());
+    }
+
+    private CardBinaryClient client(int maxPending, CircuitBreaker circuitBreaker) {
+        return client(maxPending, circuitBreaker, 2000);
+    }
+
+    private CardBinaryClient client(int maxPending, CircuitBreaker circuitBreaker, long timeoutMs) {
+        return new CardBinaryClient("http://localhost:8081", "localhost", server.socket().getLocalPort(), 1, timeoutMs, maxPending,
+            circuitBreaker, new ConcurrencyLimitInterceptor("servicio de tarjetas", 100, 100),
+            new AdaptiveConcurrencyLimit(20, 5, 200, 0.9, 2.0, 10000));
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private static ByteBuffer readFrame(SocketChannel channel) throws IOException {
+        ByteBuffer length = readFully(channel, ByteBuffer.allocate(4));
+        return readFully(channel, ByteBuffer.allocate(length.flip().getInt())).flip();
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("conexión cerrada");
+            }
+        }
+        return buffer;
+    }
+
+    private static void write(SocketChannel channel, long id, byte status, String message) throws IOException {
+        byte[] text = message == null ? new byte[0] : message.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(4 + 8 + 1 + 2 + text.length);
+        frame.putInt(frame.capacity() - 4).putLong(id).put(status).putShort((short) text.length).put(text).flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+}
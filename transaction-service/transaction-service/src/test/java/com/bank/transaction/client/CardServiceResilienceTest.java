@@ -0,0 +1,183 @@
+package com.bank.transaction.client;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.service.TransactionService;
+import com.sun.net.httpserver.HttpServer;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Capa de resiliencia contra un servicio de tarjetas simulado que puede responder bien, con 5xx,
+ * con rechazos de negocio o de forma lenta.
+ */
+@SpringBootTest(properties = {
+    "card.service.circuit-breaker.window-size=4",
+    "card.service.circuit-breaker.minimum-calls=4",
+    "card.service.circuit-breaker.open-duration-ms=60000",
+    "card.service.max-concurrent-calls=2",
+    "card.service.concurrency-acquire-timeout-ms=10",
+    // Las compras que quedan PENDING no se liquidan contra el stub durante el test
+    "transaction.settlement.poll-interval-ms=3600000"
+})
+@AutoConfigureMockMvc
+class CardServiceResilienceTest {
+
+    private enum Mode { OK, ERROR, REJECT, SLOW }
+
+    private static volatile Mode mode = Mode.OK;
+    private static final AtomicInteger hits = new AtomicInteger();
+    private static HttpServer cardServiceStub;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CircuitBreaker cardServiceCircuitBreaker;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void cardServiceStub(DynamicPropertyRegistry registry) throws IOException {
+        cardServiceStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        cardServiceStub.createContext("/card/internal/debit", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            int status = switch (mode) {
+                case ERROR -> 500;
+                case REJECT -> 400;
+                default -> 200;
+            };
+            if (mode == Mode.SLOW) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        cardServiceStub.setExecutor(Executors.newFixedThreadPool(8));
+        cardServiceStub.start();
+        registry.add("card.service.url", () -> "http://localhost:" + cardServiceStub.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStub() {
+        cardServiceStub.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        cardServiceCircuitBreaker.reset();
+        mode = Mode.OK;
+        hits.set(0);
+    }
+
+    @Test
+    void testServerErrorsOpenCircuitAndFailFastWith503() throws Exception {
+        mode = Mode.ERROR;
+        for (int i = 0; i < 4; i++) {
+            // Con un 500 el débito pudo aplicarse: la compra queda PENDING, pero cuenta como fallo del circuito
+            purchase().andExpect(status().isOk());
+        }
+
+        purchase()
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(jsonPath("$.code").value("CARD_SERVICE_CIRCUIT_OPEN"))
+            .andExpect(jsonPath("$.message").value(containsString("circuito")));
+
+        assertEquals(4, hits.get(), "con el circuito abierto no se llama al servicio de tarjetas");
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state")
+            .tag("name", "card-service").tag("state", "open").gauge().value());
+    }
+
+    @Test
+    void testBusinessRejectionsDoNotOpenCircuit() throws Exception {
+        mode = Mode.REJECT;
+        for (int i = 0; i < 6; i++) {
+            purchase().andExpect(status().isBadRequest());
+        }
+
+        assertEquals(6, hits.get());
+        assertEquals(CircuitBreaker.State.CLOSED, cardServiceCircuitBreaker.getState());
+    }
+
+    @Test
+    void testBulkheadRejectsCallsBeyondMaxConcurrency() throws Exception {
+        mode = Mode.SLOW;
+        ExecutorService clients = Executors.newFixedThreadPool(4);
+        List<Future<?>> purchases = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            purchases.add(clients.submit(() -> transactionService.purchase(request())));
+        }
+
+        int approved = 0;
+        int rejected = 0;
+        for (Future<?> purchase : purchases) {
+            try {
+                purchase.get();
+                approved++;
+            } catch (ExecutionException e) {
+                TransactionException ex = assertInstanceOf(TransactionException.class, e.getCause());
+                assertEquals(TransactionErrorCode.CARD_SERVICE_BULKHEAD_FULL, ex.getCode());
+                rejected++;
+            }
+        }
+        clients.shutdown();
+
+        assertEquals(2, approved);
+        assertEquals(2, rejected);
+        assertEquals(2, hits.get());
+        assertEquals(2.0, meterRegistry.get("card.service.bulkhead.available").gauge().value());
+    }
+
+    private ResultActions purchase() throws Exception {
+        return mockMvc.perform(post("/transaction/purchase")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"cardId\":\"1234567890123456\",\"price\":10}"));
+    }
+
+    private static TransactionRequestDTO request() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("1234567890123456");
+        request.setPrice(new BigDecimal("10"));
+        return request;
+    }
+}
@@ -0,0 +1,40 @@
+package com.bank.transaction.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class AppConfigTest {
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ClientHttpRequestFactory cardServiceRequestFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testRestTemplateUsesPooledClient() {
+        assertInstanceOf(HttpComponentsClientHttpRequestFactory.class, cardServiceRequestFactory);
+        assertNotNull(restTemplate);
+    }
+
+    @Test
+    void testPoolMetricsAreRegistered() {
+        assertEquals(200, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+            .tag("httpclient", "card-service").gauge().value());
+        assertNotNull(meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+            .tag("state", "leased").gauge());
+        assertNotNull(meterRegistry.get("httpcomponents.httpclient.pool.total.pending").gauge());
+    }
+}
@@ -0,0 +1,141 @@
+package com.bank.transaction.controller;
+
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.client.RestTemplate;
+
+import com.bank.transaction.dto.AnulationRequestDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.service.TransactionService;
+
+@SpringBootTest(properties = {
+    "card.service.url=http://fake-card-service",
+    "transaction.aggregates.max-days=31"
+})
+@AutoConfigureMockMvc
+class CardAggregateControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    void testPurchaseAndAnulationUpdateTodayAggregate() throws Exception {
+        String card = "6666000011112222";
+        server.expect(ExpectedCount.times(2), requestTo("http://fake-card-service/card/internal/debit"))
+            .andRespond(withSuccess());
+        server.expect(requestTo("http://fake-card-service/card/internal/reversal"))
+            .andRespond(withSuccess());
+
+        transactionService.purchase(request(card, "100.00"));
+        TransactionResponseDTO annulled = transactionService.purchase(request(card, "50.00"));
+        AnulationRequestDTO anulation = new AnulationRequestDTO();
+        anulation.setCardId(card);
+        anulation.setTransactionId(annulled.getTransactionId());
+        transactionService.cancelTransaction(anulation);
+        server.verify();
+
+        String today = LocalDate.now().toString();
+        mockMvc.perform(get("/transaction/card/" + card + "/daily").param("from", today).param("to", today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].date").value(today))
+            .andExpect(jsonPath("$[0].purchaseCount").value(2))
+            .andExpect(jsonPath("$[0].purchaseAmount").value(150.0))
+            .andExpect(jsonPath("$[0].annulledCount").value(1))
+            .andExpect(jsonPath("$[0].netAmount").value(100.0));
+    }
+
+    @Test
+    void testRebuildBackfillsClosedDaysFromTransactions() throws Exception {
+        String card = "6666000011113333";
+        LocalDateTime day = LocalDateTime.of(2025, 3, 10, 9, 30);
+        Transaction legacy = tx(card, "10.00", day, null, false);
+        Transaction annulled = tx(card, "25.00", day.plusHours(2), TransactionStatus.APPROVED, true);
+        Transaction nextDay = tx(card, "40.00", day.plusDays(1), TransactionStatus.APPROVED, false);
+        Transaction rejected = tx(card, "99.00", day, TransactionStatus.REJECTED, false);
+        transactionRepository.saveAll(List.of(legacy, annulled, nextDay, rejected));
+
+        // Guardadas directamente, sin pasar por el servicio: todavía no hay agregados
+        mockMvc.perform(get("/transaction/card/" + card + "/summary").param("from", "2025-03-01").param("to", "2025-03-31"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.activeDays").value(0))
+            .andExpect(jsonPath("$.purchaseCount").value(0));
+
+        mockMvc.perform(post("/transaction/aggregates/rebuild").param("from", "2025-03-10").param("to", "2025-03-12"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/transaction/card/" + card + "/summary").param("from", "2025-03-01").param("to", "2025-03-31"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.activeDays").value(2))
+            .andExpect(jsonPath("$.purchaseCount").value(3))
+            .andExpect(jsonPath("$.purchaseAmount").value(75.0))
+            .andExpect(jsonPath("$.annulledCount").value(1))
+            .andExpect(jsonPath("$.annulledAmount").value(25.0))
+            .andExpect(jsonPath("$.netAmount").value(50.0));
+    }
+
+    @Test
+    void testInvalidRangesAreRejected() throws Exception {
+        mockMvc.perform(get("/transaction/card/6666000011114444/daily").param("from", "2025-03-10").param("to", "2025-03-01"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/transaction/card/6666000011114444/summary").param("from", "2025-01-01").param("to", "2025-03-01"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/transaction/aggregates/rebuild").param("from", "2025-03-10").param("to", "2025-03-10"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private static Transaction tx(String cardId, String price, LocalDateTime date, TransactionStatus status, boolean annulled) {
+        return Transaction.builder()
+            .cardId(cardId)
+            .price(new BigDecimal(price))
+            .transactionDate(date)
+            .isAnnulled(annulled)
+            .status(status)
+            .build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.bank.transaction.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.service.ReactiveTransactionService;
+
+import reactor.core.publisher.Mono;
+
+@WebFluxTest(ReactiveTransactionController.class)
+@ActiveProfiles({"local", "reactive"})
+class ReactiveTransactionControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveTransactionService transactionService;
+
+    @Test
+    void testPurchase_Success() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+        when(transactionService.purchase(any(TransactionRequestDTO.class), isNull()))
+            .thenReturn(Mono.just(new TransactionResponseDTO(1L, "123456", new BigDecimal("100"), LocalDateTime.now())));
+
+        webTestClient.post().uri("/transaction/purchase")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.transactionId").isEqualTo(1);
+    }
+
+    @Test
+    void testGetTransaction_NotFound() {
+        when(transactionService.getTransaction(99L))
+            .thenReturn(Mono.error(new TransactionException("Transacción no encontrada (not found) con id: 99")));
+
+        webTestClient.get().uri("/transaction/99")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testPurchase_CircuitOpenIsUnavailable() {
+        when(transactionService.purchase(any(TransactionRequestDTO.class), isNull()))
+            .thenReturn(Mono.error(new TransactionException(TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN,
+                "El circuito hacia el servicio de tarjetas está abierto.")));
+
+        webTestClient.post().uri("/transaction/purchase")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new TransactionRequestDTO())
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectBody().jsonPath("$.code").isEqualTo("CARD_SERVICE_CIRCUIT_OPEN");
+    }
+}
@@ -2,6 +2,8 @@ package com.bank.transaction.controller;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -12,6 +14,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -22,9 +25,12 @@ import org.springframework.test.web.servlet.MockMvc;
 
 import com.bank.transaction.dto.AnulationRequestDTO;
 import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionHistoryItemDTO;
+import com.bank.transaction.dto.TransactionHistoryPageDTO;
 import com.bank.transaction.dto.TransactionRequestDTO;
 import com.bank.transaction.dto.TransactionResponseDTO;
 import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.TransactionStatus;
 import com.bank.transaction.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -51,7 +57,7 @@ class TransactionControllerTest {
             1L, "123456", new BigDecimal("100"), LocalDateTime.now()
         );
 
-        when(transactionService.purchase(any(TransactionRequestDTO.class))).thenReturn(response);
+        when(transactionService.purchase(any(TransactionRequestDTO.class), isNull())).thenReturn(response);
 
         mockMvc.perform(post("/transaction/purchase")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -61,13 +67,33 @@ class TransactionControllerTest {
             .andExpect(jsonPath("$.cardId").value("123456"));
     }
 
+    @Test
+    void testPurchase_PassesIdempotencyKey() throws Exception {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        TransactionResponseDTO response = new TransactionResponseDTO(
+            1L, "123456", new BigDecimal("100"), LocalDateTime.now()
+        );
+
+        when(transactionService.purchase(any(TransactionRequestDTO.class), eq("retry-key-1"))).thenReturn(response);
+
+        mockMvc.perform(post("/transaction/purchase")
+                .header("Idempotency-Key", "retry-key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.transactionId").value(1L));
+    }
+
     @Test
     void testPurchase_Failure_CardServiceFails() throws Exception {
         TransactionRequestDTO request = new TransactionRequestDTO();
         request.setCardId("123456");
         request.setPrice(new BigDecimal("100"));
         
-        when(transactionService.purchase(any(TransactionRequestDTO.class)))
+        when(transactionService.purchase(any(TransactionRequestDTO.class), isNull()))
             .thenThrow(new TransactionException("Error al validar tarjeta: Saldo insuficiente"));
 
         mockMvc.perform(post("/transaction/purchase")
@@ -81,7 +107,7 @@ class TransactionControllerTest {
     @Test
     void testGetTransaction_Success() throws Exception {
         TransactionDetailsDTO response = new TransactionDetailsDTO(
-            1L, "123456", new BigDecimal("100"), LocalDateTime.now(), false
+            1L, "123456", new BigDecimal("100"), LocalDateTime.now(), false, TransactionStatus.APPROVED, null
         );
         
         when(transactionService.getTransaction(1L)).thenReturn(response);
@@ -89,7 +115,8 @@ class TransactionControllerTest {
         mockMvc.perform(get("/transaction/1"))
             .andExpect(status().isOk())
             .andExpect(jsonPath("$.transactionId").value(1L))
-            .andExpect(jsonPath("$.annulled").value(false));
+            .andExpect(jsonPath("$.annulled").value(false))
+            .andExpect(jsonPath("$.status").value("APPROVED"));
     }
 
     @Test
@@ -132,4 +159,32 @@ class TransactionControllerTest {
             .andExpect(status().isBadRequest())
             .andExpect(jsonPath("$.message").value("No se puede anular, han pasado más de 24 horas."));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetCardHistory_Success() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TransactionHistoryItemDTO item = new TransactionHistoryItemDTO(9L, new BigDecimal("25.00"),
+            LocalDateTime.of(2026, 1, 2, 10, 0), false, TransactionStatus.APPROVED, null);
+        when(transactionService.getCardHistory(eq("1234567890123456"), eq(from), isNull(), eq(false), eq("abc"), eq(20)))
+            .thenReturn(new TransactionHistoryPageDTO("1234567890123456", List.of(item), "next"));
+
+        mockMvc.perform(get("/transaction/card/1234567890123456")
+                .param("from", "2026-01-01T00:00:00")
+                .param("annulled", "false")
+                .param("cursor", "abc")
+                .param("limit", "20"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].transactionId").value(9))
+            .andExpect(jsonPath("$.nextCursor").value("next"));
+    }
+
+    @Test
+    void testGetCardHistory_InvalidCursor() throws Exception {
+        when(transactionService.getCardHistory(eq("1234567890123456"), isNull(), isNull(), isNull(), eq("???"), eq(50)))
+            .thenThrow(new TransactionException("Cursor de paginación inválido."));
+
+        mockMvc.perform(get("/transaction/card/1234567890123456").param("cursor", "???"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Cursor de paginación inválido."));
+    }
+}
@@ -0,0 +1,119 @@
+package com.bank.transaction.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = "transaction.export.fetch-size=2")
+@AutoConfigureMockMvc
+class TransactionExportControllerTest {
+
+    private static final String CARD = "7777000011112222";
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 6, 1, 8, 0);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        if (transactionRepository.findCardHistory(CARD, null, null, null, null, null, 1).isEmpty()) {
+            transactionRepository.saveAll(List.of(
+                tx(CARD, "10.50", BASE, null, null),
+                tx(CARD, "20.00", BASE.plusDays(1), TransactionStatus.REJECTED, "Saldo insuficiente, reintente"),
+                tx(CARD, "30.00", BASE.plusDays(2), TransactionStatus.APPROVED, null),
+                tx("7777000011113333", "40.00", BASE.plusDays(1), TransactionStatus.APPROVED, null)));
+        }
+    }
+
+    @Test
+    void testExportNdjsonFiltersByCardAndDate() throws Exception {
+        String body = mockMvc.perform(get("/transaction/export")
+                .param("cardId", CARD)
+                .param("from", "2025-06-01T00:00:00")
+                .param("to", "2025-06-03T00:00:00"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Type", "application/x-ndjson;charset=UTF-8"))
+            .andReturn().getResponse().getContentAsString();
+
+        List<JsonNode> rows = body.lines().map(this::read).toList();
+        assertEquals(2, rows.size());
+        assertTrue(body.lines().findFirst().orElseThrow().contains("\"price\":10.50,"), body);
+        assertEquals("APPROVED", rows.get(0).get("status").asText());
+        assertEquals("2025-06-01T08:00", rows.get(0).get("transactionDate").asText());
+        assertEquals("REJECTED", rows.get(1).get("status").asText());
+        assertTrue(rows.stream().allMatch(row -> row.get("cardId").asText().equals(CARD)));
+    }
+
+    @Test
+    void testExportCsvGzip() throws Exception {
+        byte[] body = mockMvc.perform(get("/transaction/export")
+                .param("format", "csv")
+                .param("cardId", CARD)
+                .param("gzip", "true"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("Content-Disposition", "attachment; filename=\"transactions.csv.gz\""))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        String csv;
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            csv = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> lines = csv.lines().toList();
+        assertEquals("transactionId,cardId,price,transactionDate,annulled,status,statusDetail", lines.get(0));
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(2).endsWith(",20.00,2025-06-02T08:00,false,REJECTED,\"Saldo insuficiente, reintente\""), lines.get(2));
+    }
+
+    @Test
+    void testExportRejectsUnknownFormat() throws Exception {
+        mockMvc.perform(get("/transaction/export").param("format", "xml"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Formato de exportación no soportado: xml."));
+    }
+
+    private JsonNode read(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Transaction tx(String cardId, String price, LocalDateTime date, TransactionStatus status, String detail) {
+        return Transaction.builder()
+            .cardId(cardId)
+            .price(new BigDecimal(price))
+            .transactionDate(date)
+            .status(status)
+            .statusDetail(detail)
+            .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.bank.transaction.idempotency;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.repository.TransactionRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyCacheTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new IdempotencyCache(transactionRepository, meterRegistry, 100, 60, 5000);
+    }
+
+    @Test
+    void testExecute_ReplayReturnsOriginalWithoutRunningPurchase() {
+        when(transactionRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        AtomicInteger purchases = new AtomicInteger();
+
+        TransactionResponseDTO first = cache.execute("key-1", request("123456", "100"),
+            () -> countPurchase(purchases, 1L));
+        TransactionResponseDTO replay = cache.execute("key-1", request("123456", "100.00"),
+            () -> countPurchase(purchases, 2L));
+
+        assertSame(first, replay);
+        assertEquals(1, purchases.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "transaction.idempotency").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "transaction.idempotency").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testExecute_FallsBackToDatabase() {
+        Transaction stored = Transaction.builder()
+            .transactionId(7L).cardId("123456").price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now()).idempotencyKey("key-1").build();
+        when(transactionRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(stored));
+
+        TransactionResponseDTO replay = cache.execute("key-1", request("123456", "100"), () -> fail("no debe debitar"));
+
+        assertEquals(7L, replay.getTransactionId());
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentPurchase() {
+        when(transactionRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        cache.execute("key-1", request("123456", "100"), () -> response(1L));
+
+        TransactionException ex = assertThrows(TransactionException.class,
+            () -> cache.execute("key-1", request("123456", "250"), () -> response(2L)));
+
+        assertEquals("El Idempotency-Key ya fue usado para otra compra.", ex.getMessage());
+    }
+
+    @Test
+    void testExecute_InvalidKey() {
+        assertThrows(TransactionException.class, () -> cache.execute(" ", request("123456", "100"), () -> response(1L)));
+        assertThrows(TransactionException.class, () -> cache.execute("k".repeat(65), request("123456", "100"), () -> response(1L)));
+        verify(transactionRepository, never()).findByIdempotencyKey(anyString());
+    }
+
+    @Test
+    void testExecute_ConcurrentRetriesRunPurchaseOnce() throws Exception {
+        when(transactionRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        AtomicInteger purchases = new AtomicInteger();
+        CountDownLatch purchaseStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TransactionResponseDTO>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.execute("key-1", request("123456", "100"), () -> {
+                purchaseStarted.countDown();
+                await(release);
+                return countPurchase(purchases, 1L);
+            })));
+            purchaseStarted.await();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> cache.execute("key-1", request("123456", "100"),
+                    () -> countPurchase(purchases, 2L))));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<TransactionResponseDTO> future : futures) {
+                assertEquals(1L, future.get().getTransactionId());
+            }
+            assertEquals(1, purchases.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static TransactionRequestDTO request(String cardId, String price) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal(price));
+        return request;
+    }
+
+    private static TransactionResponseDTO countPurchase(AtomicInteger purchases, Long id) {
+        purchases.incrementAndGet();
+        return response(id);
+    }
+
+    private static TransactionResponseDTO response(Long id) {
+        return new TransactionResponseDTO(id, "123456", new BigDecimal("100"), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,55 @@
+package com.bank.transaction.metrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.client.RestTemplate;
+
+@SpringBootTest(properties = "card.service.url=http://fake-card-service")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Test
+    void testPrometheusExposesHotPathMetricsAndRejectionReasons() throws Exception {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("http://fake-card-service/card/internal/debit"))
+            .andRespond(withBadRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"status\":400,\"message\":\"La tarjeta está bloqueada.\"}"));
+
+        mockMvc.perform(post("/transaction/purchase")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cardId\":\"1234567890123456\",\"price\":10}"))
+            .andExpect(status().isBadRequest());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("transaction_rejections_total{application=\"transaction-service\",reason=\"blocked\"} 1.0"));
+        assertTrue(scrape.contains("http_client_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("uri=\"/card/internal/debit\""));
+        assertTrue(scrape.contains("transaction_operation_seconds_bucket{"));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket{"));
+        assertTrue(scrape.contains("hikaricp_connections_active{"));
+    }
+}
@@ -0,0 +1,135 @@
+package com.bank.transaction.partition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.bank.transaction.model.PurchaseOutbox;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.PurchaseOutboxRepository;
+import com.bank.transaction.repository.TransactionRepository;
+
+@SpringBootTest(properties = {
+    "transaction.partition.enabled=true",
+    "transaction.partition.retention-days=30"
+})
+class TransactionPartitionManagerTest {
+
+    @TempDir
+    static Path archiveDir;
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        registry.add("transaction.partition.archive-dir", () -> archiveDir.toString());
+    }
+
+    @Autowired
+    private TransactionPartitionManager manager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PurchaseOutboxRepository outboxRepository;
+
+    @Test
+    void testMaintainArchivesDaysOutsideRetentionAndDeletesThem() throws IOException {
+        // Fechas anteriores a las de cualquier otro test, que comparte la misma base H2
+        LocalDate today = LocalDate.of(1990, 2, 15);
+        Transaction old = tx("10.00", LocalDateTime.of(1990, 1, 5, 10, 0));
+        Transaction sameDay = tx("20.00", LocalDateTime.of(1990, 1, 5, 23, 59));
+        Transaction recent = tx("30.00", LocalDateTime.of(1990, 2, 10, 12, 0));
+        transactionRepository.saveAll(List.of(old, sameDay, recent));
+
+        assertFalse(manager.isNativePartitions());
+        assertEquals(1, manager.maintain(today));
+
+        assertTrue(transactionRepository.findById(old.getTransactionId()).isEmpty());
+        assertTrue(transactionRepository.findById(sameDay.getTransactionId()).isEmpty());
+        assertTrue(transactionRepository.findById(recent.getTransactionId()).isPresent());
+
+        Path archive = archiveDir.resolve("transactions-1990-01-05.csv.gz");
+        assertTrue(Files.exists(archive));
+        assertFalse(Files.exists(archiveDir.resolve("transactions-1990-01-05.csv.gz.tmp")));
+        String csv;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(csv.startsWith("transactionId,cardId,price"));
+        assertTrue(csv.contains(old.getTransactionId() + ",8888000011112222,10.00,1990-01-05T10:00"));
+        assertTrue(csv.contains(sameDay.getTransactionId() + ",8888000011112222,20.00,"));
+        assertEquals(3, csv.lines().count());
+
+        // Una segunda pasada no encuentra nada más que archivar
+        assertEquals(0, manager.maintain(today));
+    }
+
+    @Test
+    void testMaintainHoldsBackDaysWithUnsettledPurchases() {
+        LocalDate today = LocalDate.of(1989, 3, 15);
+        Transaction pending = tx("10.00", LocalDateTime.of(1989, 1, 5, 10, 0));
+        pending.setStatus(TransactionStatus.PENDING);
+        Transaction queuedReversal = tx("20.00", LocalDateTime.of(1989, 1, 6, 10, 0));
+        Transaction settled = tx("30.00", LocalDateTime.of(1989, 1, 7, 10, 0));
+        transactionRepository.saveAll(List.of(pending, queuedReversal, settled));
+        PurchaseOutbox reversal = outboxRepository.save(PurchaseOutbox.builder()
+            .transactionId(queuedReversal.getTransactionId())
+            .cardId(queuedReversal.getCardId())
+            .price(queuedReversal.getPrice())
+            .createdAt(LocalDateTime.now())
+            .operationId("anulation-" + queuedReversal.getTransactionId())
+            .reversal(true)
+            .attempts(0)
+            .build());
+
+        // Solo el día ya liquidado se archiva; los otros dos se reintentan en la siguiente pasada
+        assertEquals(1, manager.maintain(today));
+        assertTrue(transactionRepository.findById(pending.getTransactionId()).isPresent());
+        assertTrue(transactionRepository.findById(queuedReversal.getTransactionId()).isPresent());
+        assertTrue(transactionRepository.findById(settled.getTransactionId()).isEmpty());
+
+        pending.setStatus(TransactionStatus.APPROVED);
+        transactionRepository.save(pending);
+        outboxRepository.delete(reversal);
+
+        assertEquals(2, manager.maintain(today));
+        assertTrue(transactionRepository.findById(pending.getTransactionId()).isEmpty());
+        assertTrue(transactionRepository.findById(queuedReversal.getTransactionId()).isEmpty());
+    }
+
+    @Test
+    void testPartitionNamesRoundTrip() {
+        LocalDate day = LocalDate.of(2025, 3, 9);
+        assertEquals("transactions_p20250309", TransactionPartitionManager.partitionName(day));
+        assertEquals(day, TransactionPartitionManager.partitionDay("transactions_p20250309"));
+        assertNull(TransactionPartitionManager.partitionDay("transactions_default"));
+        assertNull(TransactionPartitionManager.partitionDay("transactions_legacy"));
+    }
+
+    private static Transaction tx(String price, LocalDateTime date) {
+        return Transaction.builder()
+            .cardId("8888000011112222")
+            .price(new BigDecimal(price))
+            .transactionDate(date)
+            .isAnnulled(false)
+            .status(TransactionStatus.APPROVED)
+            .build();
+    }
+}
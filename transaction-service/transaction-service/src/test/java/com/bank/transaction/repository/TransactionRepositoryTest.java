@@ -0,0 +1,107 @@
+package com.bank.transaction.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.bank.transaction.dto.TransactionHistoryItemDTO;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TransactionRepositoryTest {
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testSaveAll_UsesPooledIdsAndBatchedInserts() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Transaction> saved = new TransactionTemplate(transactionManager).execute(status ->
+            transactionRepository.saveAll(IntStream.range(0, 120)
+                .mapToObj(i -> Transaction.builder()
+                    .cardId("1234567890123456")
+                    .price(new BigDecimal("10.00"))
+                    .transactionDate(LocalDateTime.now())
+                    .status(TransactionStatus.APPROVED)
+                    .build())
+                .toList()));
+
+        assertEquals(120, saved.stream().map(Transaction::getTransactionId).distinct().count());
+        // Con IDENTITY serían 120 INSERT preparados; aquí son 3 llamadas a la secuencia y lotes de 50
+        assertTrue(statistics.getPrepareStatementCount() < 10,
+            "sentencias preparadas: " + statistics.getPrepareStatementCount());
+        // @TransactionSequence conserva el nombre y el incremento que espera db/postgres
+        assertEquals(50L, jdbcTemplate.queryForObject(
+            "SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'TRANSACTIONS_SEQ'", Long.class));
+    }
+
+    @Test
+    void testFindCardHistory_SeeksPagesNewestFirstWithFilters() {
+        String cardId = "5555000011112222";
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+        transactionRepository.saveAll(IntStream.range(0, 7)
+            .mapToObj(i -> Transaction.builder()
+                .cardId(cardId)
+                .price(new BigDecimal(i + 1))
+                // Dos transacciones por instante para ejercitar el desempate por id
+                .transactionDate(base.plusMinutes(i / 2))
+                .isAnnulled(i == 3)
+                .build())
+            .toList());
+        transactionRepository.save(Transaction.builder()
+            .cardId("5555000011113333")
+            .price(BigDecimal.TEN)
+            .transactionDate(base)
+            .build());
+
+        List<TransactionHistoryItemDTO> first = transactionRepository.findCardHistory(cardId, null, null, null, null, null, 3);
+        TransactionHistoryItemDTO last = first.get(2);
+        List<TransactionHistoryItemDTO> second = transactionRepository.findCardHistory(cardId, null, null, null,
+            last.getTransactionDate(), last.getTransactionId(), 10);
+
+        assertEquals(List.of("7", "6", "5"), first.stream().map(i -> i.getPrice().stripTrailingZeros().toPlainString()).toList());
+        assertEquals(List.of("4", "3", "2", "1"), second.stream().map(i -> i.getPrice().stripTrailingZeros().toPlainString()).toList());
+        assertEquals(TransactionStatus.APPROVED, first.get(0).getStatus());
+
+        List<TransactionHistoryItemDTO> annulled = transactionRepository.findCardHistory(cardId, null, null, true, null, null, 10);
+        assertEquals(1, annulled.size());
+        List<TransactionHistoryItemDTO> ranged = transactionRepository.findCardHistory(cardId,
+            base.plusMinutes(1), base.plusMinutes(3), false, null, null, 10);
+        assertEquals(List.of("6", "5", "3"), ranged.stream().map(i -> i.getPrice().stripTrailingZeros().toPlainString()).toList());
+    }
+
+    @Test
+    void testCardHistoryQueryUsesCompositeIndex() {
+        String plan = jdbcTemplate.queryForObject(
+            "EXPLAIN SELECT transaction_id FROM transactions WHERE card_id = '5555000011112222' " +
+            "ORDER BY transaction_date DESC, transaction_id DESC LIMIT 10", String.class);
+
+        assertTrue(plan.toUpperCase().contains("IDX_TRANSACTIONS_CARD_DATE_ID"), plan);
+    }
+}
@@ -0,0 +1,219 @@
+package com.bank.transaction.service.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.bank.transaction.aggregate.CardDailyAggregates;
+import com.bank.transaction.anulation.AnulationWindowIndex;
+import com.bank.transaction.client.AdaptiveConcurrencyLimit;
+import com.bank.transaction.dto.AnulationRequestDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
+import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.settlement.PurchaseSettlementWorker;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveTransactionServiceImplTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private CardDailyAggregates dailyAggregates;
+
+    @Mock
+    private AnulationWindowIndex anulationIndex;
+
+    @Mock
+    private PurchaseSettlementWorker settlementWorker;
+
+    private final CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("card-service");
+
+    private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1, 10, 0.9, 2.0, 60_000);
+
+    private final AtomicReference<ClientRequest> lastRequest = new AtomicReference<>();
+
+    private ReactiveTransactionServiceImpl service(ExchangeFunction exchange, int maxInFlight) {
+        ExchangeFunction recording = request -> {
+            lastRequest.set(request);
+            return exchange.exchange(request);
+        };
+        WebClient webClient = WebClient.builder().baseUrl("http://fake-card-service").exchangeFunction(recording).build();
+        return new ReactiveTransactionServiceImpl(transactionRepository, webClient, Schedulers.immediate(), null, dailyAggregates,
+                anulationIndex, settlementWorker, circuitBreaker, limit, maxInFlight);
+    }
+
+    private static TransactionRequestDTO request() {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+        return request;
+    }
+
+    @Test
+    void testPurchase_Success() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.just(ClientResponse.create(HttpStatus.OK).build()), 10);
+        Transaction savedTx = Transaction.builder()
+            .transactionId(1L).cardId("123456").price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now()).isAnnulled(false).build();
+        when(transactionRepository.save(any(Transaction.class))).thenReturn(savedTx);
+
+        TransactionResponseDTO response = service.purchase(request()).block();
+
+        assertNotNull(response);
+        assertEquals(1L, response.getTransactionId());
+        assertEquals("http://fake-card-service/card/internal/debit", lastRequest.get().url().toString());
+        assertEquals(10, service.availableSlots());
+    }
+
+    @Test
+    void testPurchase_CardServiceError_DoesNotSave() {
+        ReactiveTransactionServiceImpl service = service(
+            r -> Mono.just(ClientResponse.create(HttpStatus.BAD_REQUEST).body("Saldo insuficiente.").build()), 10);
+
+        TransactionException ex = assertThrows(TransactionException.class, () -> service.purchase(request()).block());
+
+        assertTrue(ex.getMessage().startsWith("Error al validar tarjeta: "));
+        verify(transactionRepository, never()).save(any());
+        assertEquals(10, service.availableSlots());
+    }
+
+    @Test
+    void testPurchase_ServerErrorStaysPendingWithSameOperationId() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.just(ClientResponse.create(HttpStatus.INTERNAL_SERVER_ERROR).build()), 10);
+        TransactionRequestDTO request = request();
+        when(settlementWorker.acceptUnconfirmed(eq(request), isNull(), startsWith("purchase-"))).thenReturn(Transaction.builder()
+            .transactionId(8L).cardId("123456").price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now()).status(TransactionStatus.PENDING).build());
+
+        assertEquals(8L, service.purchase(request).block().getTransactionId());
+
+        verify(transactionRepository, never()).save(any());
+        assertEquals(1, circuitBreaker.getMetrics().getNumberOfFailedCalls());
+        assertEquals(0, limit.getInFlight());
+    }
+
+    @Test
+    void testPurchase_OpenCircuitSkipsCardService() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.just(ClientResponse.create(HttpStatus.OK).build()), 10);
+        circuitBreaker.transitionToOpenState();
+
+        TransactionException ex = assertThrows(TransactionException.class, () -> service.purchase(request()).block());
+
+        assertEquals(TransactionErrorCode.CARD_SERVICE_CIRCUIT_OPEN, ex.getCode());
+        assertNull(lastRequest.get());
+        assertEquals(10, service.availableSlots());
+    }
+
+    @Test
+    void testPurchase_ShedsLoadWhenCardServiceIsSaturated() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.never(), 1);
+        service.purchase(request()).subscribe();
+
+        TransactionException ex = assertThrows(TransactionException.class, () -> service.purchase(request()).block());
+
+        assertEquals("El servicio de tarjetas tiene demasiadas solicitudes en curso.", ex.getMessage());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void testCancelTransaction_Success() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.just(ClientResponse.create(HttpStatus.OK).build()), 10);
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+        Transaction tx = Transaction.builder()
+            .transactionId(1L).cardId("123456").price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now().minusHours(2)).isAnnulled(false).build();
+        when(transactionRepository.findByTransactionIdAndCardId(1L, "123456")).thenReturn(Optional.of(tx));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
+
+        service.cancelTransaction(request).block();
+
+        assertTrue(tx.isAnnulled());
+        assertEquals("http://fake-card-service/card/internal/reversal", lastRequest.get().url().toString());
+        verify(transactionRepository, never()).save(any());
+        verify(dailyAggregates).recordAnnulled(tx);
+    }
+
+    @Test
+    void testCancelTransaction_UnknownReversalOutcomeIsQueued() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.just(ClientResponse.create(HttpStatus.GATEWAY_TIMEOUT).build()), 10);
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+        when(anulationIndex.find(1L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), LocalDateTime.now().minusHours(1)));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
+
+        service.cancelTransaction(request).block();
+
+        verify(settlementWorker).queueReversal(eq(1L), argThat(reversal -> "anulation-1".equals(reversal.getOperationId())));
+        verify(transactionRepository, never()).unmarkAnnulled(anyLong(), anyString());
+        verify(anulationIndex).remove(1L);
+    }
+
+    @Test
+    void testCancelTransaction_RejectedReversalUndoesTheMark() {
+        ReactiveTransactionServiceImpl service = service(
+            r -> Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).body("Tarjeta no encontrada (not found).").build()), 10);
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+        when(anulationIndex.find(1L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), LocalDateTime.now().minusHours(1)));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
+
+        assertThrows(TransactionException.class, () -> service.cancelTransaction(request).block());
+
+        verify(transactionRepository).unmarkAnnulled(1L, "123456");
+        verify(dailyAggregates, never()).recordAnnulled(any());
+    }
+
+    @Test
+    void testCancelTransaction_Expired() {
+        ReactiveTransactionServiceImpl service = service(r -> Mono.just(ClientResponse.create(HttpStatus.OK).build()), 10);
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+        Transaction tx = Transaction.builder()
+            .transactionId(1L).cardId("123456").price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now().minusHours(25)).isAnnulled(false).build();
+        when(transactionRepository.findByTransactionIdAndCardId(1L, "123456")).thenReturn(Optional.of(tx));
+
+        TransactionException ex = assertThrows(TransactionException.class, () -> service.cancelTransaction(request).block());
+
+        assertEquals("No se puede anular, han pasado más de 24 horas.", ex.getMessage());
+        assertNull(lastRequest.get());
+        verify(transactionRepository, never()).save(any());
+    }
+}
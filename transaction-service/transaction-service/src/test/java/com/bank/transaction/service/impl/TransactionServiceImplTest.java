@@ -2,31 +2,49 @@ package com.bank.transaction.service.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
+import com.bank.transaction.aggregate.CardDailyAggregates;
+import com.bank.transaction.anulation.AnulationWindowIndex;
+import com.bank.transaction.client.CardBatchClient;
 import com.bank.transaction.dto.AnulationRequestDTO;
 import com.bank.transaction.dto.TransactionDetailsDTO;
+import com.bank.transaction.dto.TransactionHistoryItemDTO;
+import com.bank.transaction.dto.TransactionHistoryPageDTO;
 import com.bank.transaction.dto.TransactionRequestDTO;
 import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.exception.TransactionErrorCode;
 import com.bank.transaction.exception.TransactionException;
+import com.bank.transaction.idempotency.IdempotencyCache;
+import com.bank.transaction.metrics.RejectionReason;
 import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
 import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.settlement.PurchaseSettlementWorker;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceImplTest {
@@ -37,11 +55,17 @@ class TransactionServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
+    @Mock
+    private CardDailyAggregates dailyAggregates;
+
+    @Mock
+    private AnulationWindowIndex anulationIndex;
+
     private TransactionServiceImpl transactionService;
 
     @BeforeEach
     void setUp() {
+        transactionService = new TransactionServiceImpl(transactionRepository, restTemplate, Optional.empty(), Optional.empty(), null, dailyAggregates, anulationIndex, Optional.empty());
         ReflectionTestUtils.setField(transactionService, "CARD_SERVICE_URL_BASE", "http://fake-card-service");
     }
 
@@ -69,6 +93,112 @@ class TransactionServiceImplTest {
         assertEquals(1L, response.getTransactionId());
         verify(restTemplate, times(1)).postForObject(eq(expectedUrl), any(TransactionRequestDTO.class), eq(Void.class));
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(dailyAggregates, times(1)).recordApproved(any(Transaction.class));
+    }
+
+    @Test
+    void testPurchase_UsesBatchClientWhenEnabled() {
+        CardBatchClient cardBatchClient = mock(CardBatchClient.class);
+        TransactionServiceImpl batchedService = new TransactionServiceImpl(transactionRepository, restTemplate, Optional.of(cardBatchClient), Optional.empty(), null, dailyAggregates, anulationIndex, Optional.empty());
+
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        batchedService.purchase(request);
+
+        verify(cardBatchClient, times(1)).debit(argThat(sent -> sent.getCardId().equals("123456")
+            && sent.getOperationId().startsWith("purchase-")));
+        verify(restTemplate, never()).postForObject(anyString(), any(), eq(Void.class));
+        assertNull(request.getOperationId());
+    }
+
+    @Test
+    void testPurchase_UnknownBatchOutcomeStaysPending() {
+        CardBatchClient cardBatchClient = mock(CardBatchClient.class);
+        PurchaseSettlementWorker settlementWorker = mock(PurchaseSettlementWorker.class);
+        TransactionServiceImpl batchedService = new TransactionServiceImpl(transactionRepository, restTemplate, Optional.of(cardBatchClient), Optional.of(settlementWorker), null, dailyAggregates, anulationIndex, Optional.empty());
+
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        doThrow(new TransactionException(TransactionErrorCode.CARD_SERVICE_OUTCOME_UNKNOWN, "Sin respuesta"))
+            .when(cardBatchClient).debit(any());
+        when(settlementWorker.acceptUnconfirmed(eq(request), isNull(), anyString())).thenReturn(Transaction.builder()
+            .transactionId(7L)
+            .cardId("123456")
+            .price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now())
+            .status(TransactionStatus.PENDING)
+            .build());
+
+        TransactionResponseDTO response = batchedService.purchase(request);
+
+        assertEquals(7L, response.getTransactionId());
+        ArgumentCaptor<TransactionRequestDTO> sent = ArgumentCaptor.forClass(TransactionRequestDTO.class);
+        verify(cardBatchClient).debit(sent.capture());
+        // El worker reenvía con la misma clave con la que se envió el débito sin respuesta
+        verify(settlementWorker).acceptUnconfirmed(request, null, sent.getValue().getOperationId());
+        verify(settlementWorker, never()).accept(any(), any());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+        verify(dailyAggregates, never()).recordApproved(any(Transaction.class));
+    }
+
+    @Test
+    void testPurchase_RestTimeoutStaysPendingWithSameOperationId() {
+        PurchaseSettlementWorker settlementWorker = mock(PurchaseSettlementWorker.class);
+        TransactionServiceImpl restService = new TransactionServiceImpl(transactionRepository, restTemplate, Optional.empty(), Optional.of(settlementWorker), null, dailyAggregates, anulationIndex, Optional.empty());
+        ReflectionTestUtils.setField(restService, "CARD_SERVICE_URL_BASE", "http://fake-card-service");
+
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        when(restTemplate.postForObject(anyString(), any(), eq(Void.class)))
+            .thenThrow(new ResourceAccessException("Read timed out"));
+        when(settlementWorker.acceptUnconfirmed(eq(request), isNull(), anyString())).thenReturn(Transaction.builder()
+            .transactionId(8L)
+            .cardId("123456")
+            .price(new BigDecimal("100"))
+            .transactionDate(LocalDateTime.now())
+            .status(TransactionStatus.PENDING)
+            .build());
+
+        assertEquals(8L, restService.purchase(request).getTransactionId());
+
+        ArgumentCaptor<TransactionRequestDTO> sent = ArgumentCaptor.forClass(TransactionRequestDTO.class);
+        verify(restTemplate).postForObject(eq("http://fake-card-service/card/internal/debit"), sent.capture(), eq(Void.class));
+        assertTrue(sent.getValue().getOperationId().startsWith("purchase-"));
+        verify(settlementWorker).acceptUnconfirmed(request, null, sent.getValue().getOperationId());
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    void testPurchase_IdempotentReplaySkipsCardService() {
+        IdempotencyCache idempotencyCache = new IdempotencyCache(transactionRepository, new SimpleMeterRegistry(), 100, 60, 1000);
+        TransactionServiceImpl idempotentService = new TransactionServiceImpl(transactionRepository, restTemplate, Optional.empty(), Optional.empty(), idempotencyCache, dailyAggregates, anulationIndex, Optional.empty());
+        ReflectionTestUtils.setField(idempotentService, "CARD_SERVICE_URL_BASE", "http://fake-card-service");
+
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId("123456");
+        request.setPrice(new BigDecimal("100"));
+
+        when(transactionRepository.findByIdempotencyKey("retry-key-1")).thenReturn(Optional.empty());
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> {
+            Transaction tx = inv.getArgument(0);
+            tx.setTransactionId(1L);
+            return tx;
+        });
+
+        TransactionResponseDTO first = idempotentService.purchase(request, "retry-key-1");
+        TransactionResponseDTO retry = idempotentService.purchase(request, "retry-key-1");
+
+        assertEquals(first.getTransactionId(), retry.getTransactionId());
+        verify(restTemplate, times(1)).postForObject(anyString(), any(), eq(Void.class));
+        verify(transactionRepository, times(1)).save(any(Transaction.class));
     }
 
     @Test
@@ -103,17 +233,80 @@ class TransactionServiceImplTest {
 
         when(transactionRepository.findByTransactionIdAndCardId(1L, "123456"))
             .thenReturn(Optional.of(mockTx));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
         
         when(restTemplate.postForObject(anyString(), any(TransactionRequestDTO.class), eq(Void.class)))
             .thenReturn(null);
 
         transactionService.cancelTransaction(request);
 
-        verify(restTemplate, times(1)).postForObject(eq("http://fake-card-service/card/internal/reversal"), any(TransactionRequestDTO.class), eq(Void.class));
-        verify(transactionRepository, times(1)).save(mockTx);
+        // La marca condicional se confirma antes de la reversa; la entidad no se vuelve a guardar
+        InOrder order = inOrder(transactionRepository, restTemplate);
+        order.verify(transactionRepository).markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class));
+        order.verify(restTemplate, times(1)).postForObject(eq("http://fake-card-service/card/internal/reversal"), any(TransactionRequestDTO.class), eq(Void.class));
+        verify(transactionRepository, never()).save(any());
+        verify(dailyAggregates, times(1)).recordAnnulled(mockTx);
         assertTrue(mockTx.isAnnulled());
     }
 
+    @Test
+    void testCancelTransaction_IndexedSkipsLookup() {
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+        LocalDateTime date = LocalDateTime.now().minusHours(1);
+
+        when(anulationIndex.find(1L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), date));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
+
+        transactionService.cancelTransaction(request);
+
+        verify(restTemplate, times(1)).postForObject(eq("http://fake-card-service/card/internal/reversal"), any(TransactionRequestDTO.class), eq(Void.class));
+        verify(transactionRepository, never()).findByTransactionIdAndCardId(anyLong(), anyString());
+        verify(transactionRepository, never()).save(any());
+        verify(anulationIndex, times(1)).remove(1L);
+        verify(dailyAggregates, times(1)).recordAnnulled(any(Transaction.class));
+    }
+
+    @Test
+    void testCancelTransaction_IndexedRejectsForeignCardAndExpiredWithoutDb() {
+        AnulationRequestDTO foreign = new AnulationRequestDTO();
+        foreign.setCardId("999999");
+        foreign.setTransactionId(1L);
+        AnulationRequestDTO expired = new AnulationRequestDTO();
+        expired.setCardId("123456");
+        expired.setTransactionId(2L);
+
+        when(anulationIndex.find(1L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), LocalDateTime.now()));
+        when(anulationIndex.find(2L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), LocalDateTime.now().minusHours(24).minusMinutes(5)));
+
+        assertThrows(TransactionException.class, () -> transactionService.cancelTransaction(foreign));
+        TransactionException tooLate = assertThrows(TransactionException.class, () -> transactionService.cancelTransaction(expired));
+        assertEquals(RejectionReason.ANULATION_WINDOW.message(), tooLate.getMessage());
+
+        verifyNoInteractions(transactionRepository, restTemplate);
+    }
+
+    @Test
+    void testCancelTransaction_IndexedButAnnulledElsewhere() {
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+        LocalDateTime date = LocalDateTime.now().minusHours(1);
+        Transaction annulled = new Transaction();
+        annulled.setAnnulled(true);
+
+        when(anulationIndex.find(1L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), date));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(0);
+        when(transactionRepository.findByTransactionIdAndCardId(1L, "123456")).thenReturn(Optional.of(annulled));
+
+        TransactionException e = assertThrows(TransactionException.class, () -> transactionService.cancelTransaction(request));
+
+        assertEquals(RejectionReason.ALREADY_ANNULLED.message(), e.getMessage());
+        verify(restTemplate, never()).postForObject(anyString(), any(), any());
+        verify(anulationIndex, times(1)).remove(1L);
+    }
+
     @Test
     void testCancelTransaction_NotFound() {
         AnulationRequestDTO request = new AnulationRequestDTO();
@@ -145,6 +338,25 @@ class TransactionServiceImplTest {
         });
     }
 
+    @Test
+    void testCancelTransaction_PendingNotAllowed() {
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+
+        Transaction mockTx = new Transaction();
+        mockTx.setTransactionDate(LocalDateTime.now());
+        mockTx.setStatus(TransactionStatus.PENDING);
+
+        when(transactionRepository.findByTransactionIdAndCardId(1L, "123456"))
+            .thenReturn(Optional.of(mockTx));
+
+        TransactionException ex = assertThrows(TransactionException.class, () -> transactionService.cancelTransaction(request));
+
+        assertEquals("Solo se pueden anular transacciones aprobadas.", ex.getMessage());
+        verify(restTemplate, never()).postForObject(anyString(), any(), any());
+    }
+
 @Test
     void testCancelTransaction_TooLate() {
         AnulationRequestDTO request = new AnulationRequestDTO();
@@ -175,6 +387,7 @@ class TransactionServiceImplTest {
 
         when(transactionRepository.findByTransactionIdAndCardId(1L, "123456"))
             .thenReturn(Optional.of(mockTx));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
         
         when(restTemplate.postForObject(anyString(), any(), eq(Void.class)))
             .thenThrow(new RuntimeException("Error de red simulado"));
@@ -183,8 +396,36 @@ class TransactionServiceImplTest {
             transactionService.cancelTransaction(request);
         });
         
+        // Rechazo conocido: la reversa no se aplicó y la marca se deshace
+        verify(transactionRepository, times(1)).unmarkAnnulled(1L, "123456");
         verify(transactionRepository, never()).save(mockTx);
-        assertFalse(mockTx.isAnnulled());
+        verify(dailyAggregates, never()).recordAnnulled(any());
+    }
+
+    @Test
+    void testCancelTransaction_UnknownReversalOutcomeIsQueued() {
+        PurchaseSettlementWorker settlementWorker = mock(PurchaseSettlementWorker.class);
+        TransactionServiceImpl restService = new TransactionServiceImpl(transactionRepository, restTemplate, Optional.empty(), Optional.of(settlementWorker), null, dailyAggregates, anulationIndex, Optional.empty());
+        ReflectionTestUtils.setField(restService, "CARD_SERVICE_URL_BASE", "http://fake-card-service");
+
+        AnulationRequestDTO request = new AnulationRequestDTO();
+        request.setCardId("123456");
+        request.setTransactionId(1L);
+
+        when(anulationIndex.find(1L)).thenReturn(new AnulationWindowIndex.Entry("123456", new BigDecimal("100"), LocalDateTime.now().minusHours(1)));
+        when(transactionRepository.markAnnulled(eq(1L), eq("123456"), any(LocalDateTime.class))).thenReturn(1);
+        when(restTemplate.postForObject(anyString(), any(), eq(Void.class)))
+            .thenThrow(new ResourceAccessException("Read timed out"));
+
+        restService.cancelTransaction(request);
+
+        // La anulación se mantiene y el worker reenvía la reversa con la misma clave
+        ArgumentCaptor<TransactionRequestDTO> queued = ArgumentCaptor.forClass(TransactionRequestDTO.class);
+        verify(settlementWorker).queueReversal(eq(1L), queued.capture());
+        assertEquals("anulation-1", queued.getValue().getOperationId());
+        verify(transactionRepository, never()).unmarkAnnulled(anyLong(), anyString());
+        verify(anulationIndex, times(1)).remove(1L);
+        verify(dailyAggregates, times(1)).recordAnnulled(any(Transaction.class));
     }
 
 
@@ -214,4 +455,30 @@ class TransactionServiceImplTest {
             transactionService.getTransaction(1L);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetCardHistory_ReturnsCursorOnlyWhenMoreRowsExist() {
+        LocalDateTime date = LocalDateTime.of(2026, 3, 1, 9, 30, 15, 123456000);
+        List<TransactionHistoryItemDTO> rows = List.of(
+            new TransactionHistoryItemDTO(3L, BigDecimal.ONE, date, false, TransactionStatus.APPROVED, null),
+            new TransactionHistoryItemDTO(2L, BigDecimal.ONE, date, false, TransactionStatus.APPROVED, null),
+            new TransactionHistoryItemDTO(1L, BigDecimal.ONE, date, false, TransactionStatus.APPROVED, null));
+        when(transactionRepository.findCardHistory("123456", null, null, null, null, null, 3)).thenReturn(rows);
+        when(transactionRepository.findCardHistory("123456", null, null, null, date, 2L, 3)).thenReturn(rows.subList(2, 3));
+
+        TransactionHistoryPageDTO first = transactionService.getCardHistory("123456", null, null, null, null, 2);
+        TransactionHistoryPageDTO second = transactionService.getCardHistory("123456", null, null, null, first.getNextCursor(), 2);
+
+        assertEquals(2, first.getItems().size());
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void testGetCardHistory_RejectsInvalidCursorAndLimit() {
+        assertThrows(TransactionException.class, () -> transactionService.getCardHistory("123456", null, null, null, "no-es-un-cursor", 10));
+        assertThrows(TransactionException.class, () -> transactionService.getCardHistory("123456", null, null, null, null, 0));
+        verify(transactionRepository, never()).findCardHistory(any(), any(), any(), any(), any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,272 @@
+package com.bank.transaction.settlement;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.client.ExpectedCount.never;
+import static org.springframework.test.web.client.ExpectedCount.twice;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.content;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.bank.transaction.dto.TransactionBatchResultDTO;
+import com.bank.transaction.dto.TransactionRequestDTO;
+import com.bank.transaction.dto.TransactionResponseDTO;
+import com.bank.transaction.model.CardDailyAggregate;
+import com.bank.transaction.model.PurchaseOutbox;
+import com.bank.transaction.model.Transaction;
+import com.bank.transaction.model.TransactionStatus;
+import com.bank.transaction.repository.CardDailyAggregateRepository;
+import com.bank.transaction.repository.PurchaseOutboxRepository;
+import com.bank.transaction.repository.TransactionRepository;
+import com.bank.transaction.service.TransactionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest(properties = {
+    "transaction.purchase.mode=async",
+    "transaction.settlement.workers=1",
+    // Los workers no se disparan solos durante el test; se drena manualmente
+    "transaction.settlement.poll-interval-ms=3600000",
+    "transaction.settlement.max-attempts=2",
+    "transaction.settlement.retry-delay-ms=0",
+    "card.service.url=http://fake-card-service"
+})
+class PurchaseSettlementWorkerTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private PurchaseSettlementWorker worker;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PurchaseOutboxRepository outboxRepository;
+
+    @Autowired
+    private CardDailyAggregateRepository aggregateRepository;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        outboxRepository.deleteAll();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    void testPurchase_AcceptedAsPendingAndSettledInBatch() throws Exception {
+        TransactionResponseDTO ok = transactionService.purchase(request("1111222233334444"));
+        TransactionResponseDTO rejected = transactionService.purchase(request("5555666677778888"));
+
+        assertEquals(TransactionStatus.PENDING, status(ok.getTransactionId()));
+        assertEquals(2, outboxRepository.count());
+
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andExpect(method(HttpMethod.POST))
+            .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(
+                new TransactionBatchResultDTO("1111222233334444", true, null),
+                new TransactionBatchResultDTO("5555666677778888", false, "Saldo insuficiente."))),
+                MediaType.APPLICATION_JSON));
+
+        assertEquals(2, worker.drain());
+
+        server.verify();
+        assertEquals(TransactionStatus.APPROVED, status(ok.getTransactionId()));
+        Transaction rejectedTx = transactionRepository.findById(rejected.getTransactionId()).orElseThrow();
+        assertEquals(TransactionStatus.REJECTED, rejectedTx.getStatus());
+        assertEquals("Saldo insuficiente.", rejectedTx.getStatusDetail());
+        assertEquals(0, outboxRepository.count());
+        // Solo la compra aprobada entra en los agregados del día
+        CardDailyAggregate aggregate = aggregateRepository
+            .findById(new CardDailyAggregate.Key("1111222233334444", LocalDate.now())).orElseThrow();
+        assertEquals(1, aggregate.getPurchaseCount());
+        assertEquals(0, new BigDecimal("100").compareTo(aggregate.getPurchaseAmount()));
+        assertTrue(aggregateRepository.findById(new CardDailyAggregate.Key("5555666677778888", LocalDate.now())).isEmpty());
+    }
+
+    @Test
+    void testDrain_CardServiceFailureKeepsRowsForRetry() {
+        TransactionResponseDTO pending = transactionService.purchase(request("1111222233334444"));
+
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(withServerError());
+
+        assertThrows(RuntimeException.class, () -> worker.drain());
+
+        assertEquals(TransactionStatus.PENDING, status(pending.getTransactionId()));
+        PurchaseOutbox row = outboxRepository.findAll().get(0);
+        assertEquals(1, row.getAttempts());
+        assertNull(row.getClaimedBy());
+    }
+
+    @Test
+    void testDrain_EachDebitCarriesTheOperationIdOfItsRow() throws Exception {
+        TransactionResponseDTO pending = transactionService.purchase(request("4444333322221111"));
+
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andExpect(content().string(containsString("\"operationId\":\"purchase-" + pending.getTransactionId() + "\"")))
+            .andRespond(withServerError());
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andExpect(content().string(containsString("\"operationId\":\"purchase-" + pending.getTransactionId() + "\"")))
+            .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(
+                new TransactionBatchResultDTO("4444333322221111", true, null))), MediaType.APPLICATION_JSON));
+
+        assertThrows(RuntimeException.class, () -> worker.drain());
+        assertEquals(1, worker.drain());
+
+        server.verify();
+        assertEquals(TransactionStatus.APPROVED, status(pending.getTransactionId()));
+    }
+
+    @Test
+    void testDrain_UnconfirmedItemStaysPendingForRetry() throws Exception {
+        TransactionResponseDTO unconfirmed = transactionService.purchase(request("4444333322225555"));
+
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(
+                new TransactionBatchResultDTO("4444333322225555", false, "Tiempo de espera agotado en la cola de la tarjeta.", true))),
+                MediaType.APPLICATION_JSON));
+
+        assertEquals(1, worker.drain());
+
+        server.verify();
+        assertEquals(TransactionStatus.PENDING, status(unconfirmed.getTransactionId()));
+        PurchaseOutbox row = outboxRepository.findAll().get(0);
+        assertEquals(1, row.getAttempts());
+        assertNull(row.getClaimedBy());
+    }
+
+    @Test
+    void testDrain_BatchRejectedByCardServiceEndsRejectedAfterMaxAttempts() {
+        TransactionResponseDTO pending = transactionService.purchase(request("1111222233334444"));
+
+        server.expect(twice(),
+                requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(withBadRequest());
+
+        assertThrows(RuntimeException.class, () -> worker.drain());
+        assertThrows(RuntimeException.class, () -> worker.drain());
+
+        server.verify();
+        Transaction tx = transactionRepository.findById(pending.getTransactionId()).orElseThrow();
+        assertEquals(TransactionStatus.REJECTED, tx.getStatus());
+        assertTrue(tx.getStatusDetail().startsWith("No fue posible liquidar la compra"));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    void testDrain_UncertainFailuresStopRetryingAsDeadLetter() {
+        TransactionResponseDTO pending = transactionService.purchase(request("1111222233334444"));
+
+        server.expect(twice(),
+                requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(withServerError());
+
+        assertThrows(RuntimeException.class, () -> worker.drain());
+        assertThrows(RuntimeException.class, () -> worker.drain());
+        // Agotados los intentos la fila ya no se envía
+        assertEquals(0, worker.drain());
+
+        server.verify();
+        Transaction tx = transactionRepository.findById(pending.getTransactionId()).orElseThrow();
+        assertEquals(TransactionStatus.PENDING, tx.getStatus());
+        assertTrue(tx.getStatusDetail().startsWith("Liquidación suspendida tras 2 intentos"));
+        assertEquals(2, outboxRepository.findAll().get(0).getAttempts());
+    }
+
+    @Test
+    void testDrain_SkipsRowsLeasedByAnotherWorker() {
+        transactionService.purchase(request("1111222233334444"));
+        PurchaseOutbox row = outboxRepository.findAll().get(0);
+        row.setClaimedBy("otra-instancia");
+        row.setClaimedUntil(LocalDateTime.now().plusMinutes(1));
+        outboxRepository.save(row);
+
+        server.expect(never(), requestTo("http://fake-card-service/card/internal/debit/batch"));
+
+        assertEquals(0, worker.drain());
+        server.verify();
+    }
+
+    @Test
+    void testDrain_RowWhoseTransactionIsGoneBecomesDeadLetter() throws Exception {
+        TransactionResponseDTO gone = transactionService.purchase(request("1212343456567878"));
+        TransactionResponseDTO kept = transactionService.purchase(request("8787656543432121"));
+        transactionRepository.deleteById(gone.getTransactionId());
+
+        server.expect(requestTo("http://fake-card-service/card/internal/debit/batch"))
+            .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(
+                new TransactionBatchResultDTO("1212343456567878", true, null),
+                new TransactionBatchResultDTO("8787656543432121", true, null))), MediaType.APPLICATION_JSON));
+
+        assertEquals(2, worker.drain());
+
+        server.verify();
+        assertEquals(TransactionStatus.APPROVED, status(kept.getTransactionId()));
+        // La fila huérfana se conserva fuera de los reintentos
+        PurchaseOutbox orphan = outboxRepository.findAll().get(0);
+        assertEquals(gone.getTransactionId(), orphan.getTransactionId());
+        assertEquals(2, orphan.getAttempts());
+        assertEquals(0, worker.drain());
+    }
+
+    @Test
+    void testDrain_QueuedReversalIsRetriedUntilApplied() throws Exception {
+        TransactionRequestDTO reversal = request("9999888877776666");
+        reversal.setOperationId("anulation-42");
+        worker.queueReversal(42L, reversal);
+
+        server.expect(requestTo("http://fake-card-service/card/internal/reversal/batch"))
+            .andExpect(content().string(containsString("\"operationId\":\"anulation-42\"")))
+            .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(
+                new TransactionBatchResultDTO("9999888877776666", false, "Tarjeta no encontrada (not found)."))),
+                MediaType.APPLICATION_JSON));
+        server.expect(requestTo("http://fake-card-service/card/internal/reversal/batch"))
+            .andExpect(content().string(containsString("\"operationId\":\"anulation-42\"")))
+            .andRespond(withSuccess(objectMapper.writeValueAsString(List.of(
+                new TransactionBatchResultDTO("9999888877776666", true, null))), MediaType.APPLICATION_JSON));
+
+        // Un rechazo no borra la reversa: la anulación ya está confirmada
+        assertEquals(1, worker.drain());
+        assertEquals(1, outboxRepository.findAll().get(0).getAttempts());
+        assertEquals(1, worker.drain());
+
+        server.verify();
+        assertEquals(0, outboxRepository.count());
+    }
+
+    private TransactionStatus status(Long transactionId) {
+        return transactionRepository.findById(transactionId).orElseThrow().getStatus();
+    }
+
+    private static TransactionRequestDTO request(String cardId) {
+        TransactionRequestDTO request = new TransactionRequestDTO();
+        request.setCardId(cardId);
+        request.setPrice(new BigDecimal("100"));
+        return request;
+    }
+}
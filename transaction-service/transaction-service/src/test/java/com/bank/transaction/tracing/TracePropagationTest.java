@@ -0,0 +1,83 @@
+package com.bank.transaction.tracing;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.client.RestTemplate;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+
+@SpringBootTest(properties = {
+    "card.service.url=http://fake-card-service",
+    "management.tracing.sampling.probability=1.0"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class TracePropagationTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @TestConfiguration
+    static class InMemoryExporterConfig {
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Autowired
+    private InMemorySpanExporter exporter;
+
+    @Test
+    void testPurchasePropagatesTraceToCardServiceAndRecordsSpans() throws Exception {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+        server.expect(requestTo("http://fake-card-service/card/internal/debit"))
+            .andExpect(header("traceparent", matchesPattern("00-" + TRACE_ID + "-[0-9a-f]{16}-01")))
+            .andRespond(withSuccess());
+
+        mockMvc.perform(post("/transaction/purchase")
+                .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"cardId\":\"1234567890123456\",\"price\":10}"))
+            .andExpect(status().isOk());
+        server.verify();
+        tracerProvider.forceFlush().join(5, TimeUnit.SECONDS);
+
+        List<SpanData> spans = exporter.getFinishedSpanItems().stream()
+            .filter(span -> span.getTraceId().equals(TRACE_ID))
+            .toList();
+        assertTrue(spans.stream().anyMatch(span -> span.getName().equals("transaction purchase")));
+        assertTrue(spans.stream().anyMatch(span -> span.getKind() == SpanKind.CLIENT));
+        assertTrue(spans.stream().anyMatch(span -> span.getName().equals("query")));
+    }
+}